@@ -102,8 +102,7 @@ public class CompositePasswordVerificator extends AbstractVerificator implements
 		localVerificators = new ArrayList<>();
 		remoteVerificators = new ArrayList<>();
 		this.passwordEngine = new PasswordEngine(threadPoolProvider
-				.map(pp->pp.pool)
-				.orElse(ForkJoinPool.commonPool()));
+				.orElseGet(() -> new PasswordEncodingPoolProvider(ForkJoinPool.commonPool())));
 	}
 
 	@Override
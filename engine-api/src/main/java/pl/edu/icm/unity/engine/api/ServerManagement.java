@@ -33,7 +33,16 @@ public interface ServerManagement
 	public File exportDb(DBDumpContentElements content) throws EngineException;
 	
 	/**
-	 * Imports the whole database from a given JSON file
+	 * Exports database contents to a JSON file, optionally gzip compressed.
+	 * @param content dump content type
+	 * @param compressed whether the file should be gzip compressed
+	 * @return the file reference
+	 * @throws EngineException
+	 */
+	public File exportDb(DBDumpContentElements content, boolean compressed) throws EngineException;
+	
+	/**
+	 * Imports the whole database from a given JSON file, which can be gzip compressed
 	 * @param from file to load data from
 	 * @throws EngineException
 	 */
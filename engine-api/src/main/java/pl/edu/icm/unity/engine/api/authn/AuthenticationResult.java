@@ -26,6 +26,12 @@ public class AuthenticationResult
 		 */
 		deny, 
 		
+		/**
+		 * Authentication could not be performed as the server is overloaded. 
+		 * It is not a failed authentication attempt.
+		 */
+		serverBusy,
+		
 		/**
 		 * Can happen only in the case of remote authenticators, when the 
 		 * authentication was successful, but the remote principal is not 
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.api.authn;
+
+import pl.edu.icm.unity.engine.api.authn.AuthenticationResult.Status;
+
+/**
+ * Thrown when authentication could not be performed as the server is overloaded. 
+ * It is not a failed authentication attempt of the client, so it should not be counted as such.
+ */
+public class AuthenticationServerBusyException extends AuthenticationException
+{
+	public AuthenticationServerBusyException(String msg, Throwable cause)
+	{
+		super(new AuthenticationResult(Status.serverBusy, null), msg, cause);
+	}
+
+	public AuthenticationServerBusyException(String msg)
+	{
+		super(new AuthenticationResult(Status.serverBusy, null), msg);
+	}
+}
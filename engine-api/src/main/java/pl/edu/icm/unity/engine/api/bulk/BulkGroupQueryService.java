@@ -4,8 +4,10 @@
  */
 package pl.edu.icm.unity.engine.api.bulk;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.AttributeExt;
@@ -21,6 +23,12 @@ import pl.edu.icm.unity.types.basic.GroupContents;
 public interface BulkGroupQueryService
 {
 	GroupsWithMembers getMembersWithAttributeForAllGroups(String rootGroup, Set<String> groupFilter);
+
+	/**
+	 * As {@link #getMembersWithAttributeForAllGroups(String, Set)}, but the result is assembled only 
+	 * when iterated over. Only the raw data is loaded by this method.
+	 */
+	LazyGroupsWithMembers getLazyMembersWithAttributeForAllGroups(String rootGroup, Set<String> groupFilter);
 	
 	
 	GroupMembershipData getBulkMembershipData(String group) throws EngineException;
@@ -35,6 +43,43 @@ public interface BulkGroupQueryService
 
 	Map<Long, EntityInGroupData> getMembershipInfo(GroupMembershipData dataO);
 	
+	/**
+	 * Provides the same information as {@link #getMembershipInfo(GroupMembershipData)}, but for one page
+	 * of group members at a time, so memory usage is proportional to the page size and not to the group size.
+	 * Pages are ordered by entity id and are passed to the consumer (in the calling thread) as soon as
+	 * they are ready. Each page is loaded in a separate transaction, therefore the result is not a consistent
+	 * snapshot of the group: entities removed from the group in the meantime are skipped, 
+	 * entities added are not returned.
+	 */
+	void streamMembershipInfo(String group, int pageSize, Consumer<List<EntityInGroupData>> consumer) 
+			throws EngineException;
+
+	/**
+	 * As {@link #streamMembershipInfo(String, int, Consumer)}, but only for a range of group members: 
+	 * at most limit members with entity id greater than afterEntityId. Allows for cursor based paging, 
+	 * where the id of the last returned entity is used as the cursor of the next call.
+	 */
+	void streamMembershipInfo(String group, long afterEntityId, int limit, int pageSize, 
+			Consumer<List<EntityInGroupData>> consumer) throws EngineException;
+
+	/**
+	 * As {@link #streamMembershipInfo(String, long, int, int, Consumer)}, but provides only what 
+	 * {@link #getGroupEntitiesNoContextWithoutTargeted(GroupMembershipData)} and 
+	 * {@link #getGroupUsersAttributes(String, GroupMembershipData)} do: entities without targeted identities and 
+	 * their effective attributes in the group. Root group attributes and enquiry forms are not resolved.
+	 */
+	void streamGroupMembers(String group, long afterEntityId, int limit, int pageSize, 
+			Consumer<List<EntityInGroupData>> consumer) throws EngineException;
+
+	/**
+	 * Lightweight variant of {@link #streamMembershipInfo(String, int, Consumer)}, intended for indexing
+	 * of large groups: only identities and direct attributes (in the root group and in the given group) of 
+	 * the members are provided. Attribute statements are not evaluated and neither credential information 
+	 * nor enquiry forms are resolved.
+	 */
+	void streamMembersDirectData(String group, int pageSize, Consumer<List<EntityInGroupData>> consumer) 
+			throws EngineException;
+	
 	
 	GroupStructuralData getBulkStructuralData(String group) throws EngineException;
 
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.api.bulk;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import pl.edu.icm.unity.types.basic.Entity;
+
+/**
+ * Provides the same information as {@link GroupsWithMembers}, but entities and their attributes in each group
+ * are assembled only when iterated over, so that the whole result is never kept in memory.
+ * Data is loaded from the database when this object is created.
+ */
+public interface LazyGroupsWithMembers
+{
+	Set<String> getGroups();
+
+	/**
+	 * Passes all entities which are members of any of the groups to the consumer, one by one.
+	 */
+	void forEachEntity(Consumer<Entity> consumer);
+
+	/**
+	 * Passes members of each of the groups, together with their attributes in the group, to the consumer, 
+	 * group by group.
+	 */
+	void forEachGroupMembers(BiConsumer<String, List<EntityGroupAttributes>> consumer);
+}
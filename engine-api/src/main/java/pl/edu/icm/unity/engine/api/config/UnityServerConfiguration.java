@@ -41,6 +41,7 @@ import pl.edu.icm.unity.engine.api.initializers.ScriptConfiguration;
 import pl.edu.icm.unity.engine.api.initializers.ScriptType;
 import pl.edu.icm.unity.types.authn.AuthenticationFlowDefinition;
 import pl.edu.icm.unity.types.authn.RememberMePolicy;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 
 /**
  * Principal options are defined here: ids and corresponding default values.
@@ -52,6 +53,8 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	public static final String PROFILE_PRODUCTION = "production";
 	
 	public enum LogoutMode {internalOnly, internalAndSyncPeers, internalAndAsyncPeers}
+	
+	public enum MVELOptimizer {dynamic, reflective, ASM}
 	private static final Logger log = Log.getLegacyLogger(Log.U_SERVER_CFG, UnityServerConfiguration.class);
 	public static final String CONFIGURATION_FILE = "conf/unityServer.conf";
 	public static final String DEFAULT_EMAIL_CHANNEL = "default_email";
@@ -71,6 +74,10 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	public static final String TEMPLATES_CONF = "templatesFile";
 	public static final String PKI_CONF = "pkiConfigFile";
 	public static final String THREAD_POOL_SIZE = "threadPoolSize";
+	public static final String HEAVYWEIGHT_EVENTS_THREADS = "heavyweightEventsThreads";
+	public static final String BULK_QUERY_THREADS = "bulkQueryThreads";
+	public static final String MVEL_CACHE_SIZE = "mvelCompiledExpressionsCacheSize";
+	public static final String MVEL_OPTIMIZER = "mvelOptimizer";
 	public static final String USE_CONFIG_FILE_AS_INITIAL_TEMPLATE_ONLY = "useConfiguredContentsOnFreshStartOnly";
 	public static final String IGNORE_CONFIGURED_CONTENTS_SETTING = "ignoreContentsReloadingFromConfiguration";
 	public static final String RELOAD_MSG_TEMPLATES = "reloadMessageTemplatesFromConfiguration";
@@ -89,6 +96,8 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	public static final String DEFAULT_WEB_PATH = "defaultWebPath";
 	public static final String REDIRECT_MODE = "redirectMode";
 	public static final String AUDITEVENTLOGS_ENABLED = "auditEventLogsEnabled";
+	public static final String AUDITEVENTLOGS_QUEUE_SIZE = "auditEventLogsQueueSize";
+	public static final String AUDITEVENTLOGS_BATCH_SIZE = "auditEventLogsMaxBatchSize";
 	
 	public static final String IMPORT_PFX = "userImport."; 
 	
@@ -182,6 +191,8 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 
 	public static final String MAX_CONCURRENT_PASSWORD_CHECKS = "maxConcurrentPasswordChecks";
 
+	public static final String MAX_QUEUED_PASSWORD_CHECKS = "maxQueuedPasswordChecks";
+
 	public static final String EXTENSION_PFX = "ext.";
 	
 	
@@ -259,6 +270,22 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 				+ " happen that a faulty peer won't redirect the web agent back."));
 		defaults.put(THREAD_POOL_SIZE, new PropertyMD("4").setCategory(mainCat).setDescription(
 				"Number of threads used by internal processes of the server. HTTP server threads use a separate pool."));
+		defaults.put(HEAVYWEIGHT_EVENTS_THREADS, new PropertyMD("4").setBounds(1, 64).setCategory(mainCat).setDescription(
+				"Number of threads handling reliable (persisted) events, as webhooks or notifications. "
+				+ "Each event listener has its own limit of concurrently handled events, "
+				+ "so a slow listener doesn't block others."));
+		defaults.put(BULK_QUERY_THREADS, new PropertyMD("4").setBounds(1, 64).setCategory(mainCat).setDescription(
+				"Number of threads assembling results of bulk queries about group members, "
+				+ "as used by the admin UI or REST API. The threads are shared by all bulk queries."));
+		defaults.put(MVEL_CACHE_SIZE, new PropertyMD(String.valueOf(MVELCompiledExpressionsCache.DEFAULT_MAX_SIZE))
+				.setBounds(100, 1000000).setCategory(mainCat).setDescription(
+				"Maximum number of compiled MVEL expressions (as used in translation profiles "
+				+ "or attribute statements) which are cached. Least recently used expressions are "
+				+ "compiled again when needed."));
+		defaults.put(MVEL_OPTIMIZER, new PropertyMD(MVELOptimizer.dynamic).setCategory(mainCat).setDescription(
+				"Optimizer used by MVEL to execute compiled expressions. The default +dynamic+ optimizer "
+				+ "generates bytecode for frequently used expressions, +ASM+ generates it always and "
+				+ "+reflective+ never, what is slower but avoids creation of classes at runtime."));
 		defaults.put(INITIALIZERS, new PropertyMD().setList(true).setCategory(mainCat).setDescription(
 				"List of identifiers of initialization modules that should be run on the first startup."));
 		defaults.put(UPDATE_INTERVAL, new PropertyMD("60").setPositive().setCategory(mainCat).setDescription(
@@ -287,6 +314,15 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 				"If set Unity will redirect request without the path to this one"));
 		defaults.put(AUDITEVENTLOGS_ENABLED, new PropertyMD("true").setCategory(mainCat).setDescription(
 				"Indicate if AuditEvent logs are gathered by the system."));
+		defaults.put(AUDITEVENTLOGS_QUEUE_SIZE, new PropertyMD("10000").setBounds(1, 1000000)
+				.setCategory(mainCat).setDescription(
+				"Maximum number of AuditEvents waiting to be stored in the database. "
+				+ "If the limit is reached, then operations producing new AuditEvents "
+				+ "are paused until the queue is drained."));
+		defaults.put(AUDITEVENTLOGS_BATCH_SIZE, new PropertyMD("100").setBounds(1, 10000)
+				.setCategory(mainCat).setDescription(
+				"Maximum number of queued AuditEvents which are stored in the database "
+				+ "in a single transaction."));
 		defaults.put(UNITYGW_WEB_CONTENT_PATH, new PropertyMD().setPath().setCategory(mainCat).setDescription(
 				"Defines a folder from which all the web applications operating on the shared unitygw path "
 				+ "(e.g. the email confirmation screen) "
@@ -493,6 +529,10 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 						+ "Increasing this value improves server overall performance, "
 						+ "but change of authrization role may not be fully recognized "
 						+ "by the system untile the time defined here passes. "
+						+ "Roles changed directly (by setting or removing the role attribute, "
+						+ "membership or group removal) are refreshed immediately on this server, "
+						+ "this limit applies to changes made on other cluster nodes and to "
+						+ "roles assigned by attribute statements. "
 						+ "Set to 0 to disable cache."));
 
 		defaults.put(EXTERNAL_NOTIFICATION_PFX, new PropertyMD().setStructuredList(false).setCategory(mainCat)
@@ -522,6 +562,16 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 						+ "Having this number larger then the number of cores makes no sense. "
 						+ "By default this parameter is equal to "
 						+ "JVM max heap size in GB times 2 (but not less then 1)."));
+		defaults.put(MAX_QUEUED_PASSWORD_CHECKS, new PropertyMD().setInt().setMin(0)
+				.setCategory(mainCat)
+				.setDescription("Number of password checks which can wait for execution, "
+						+ "when all the allowed concurrent checks are running. "
+						+ "Password checks over this limit are immediately rejected, "
+						+ "what protects the server from running out of request "
+						+ "handling threads during a burst of logins. "
+						+ "When the queue is filled in more then a half, each authentication "
+						+ "realm can use only its fair share of the queue. By default this "
+						+ "parameter is equal to 10 times the number of concurrent password checks."));
 		
 		defaults.put(EXTENSION_PFX, new PropertyMD().setCategory(mainCat).setCanHaveSubkeys().setHidden());
 		
@@ -760,4 +810,11 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 		int maxConcurrency = (int)Math.round(maxMemGB * 2);
 		return maxConcurrency > 0 ? maxConcurrency : 1;
 	}
+
+	public int getMaxQueuedPasswordChecks()
+	{
+		if (isSet(MAX_QUEUED_PASSWORD_CHECKS))
+			return getIntValue(MAX_QUEUED_PASSWORD_CHECKS);
+		return getMaxConcurrentPasswordChecks() * 10;
+	}
 }
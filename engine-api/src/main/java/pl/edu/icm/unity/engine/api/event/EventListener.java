@@ -58,6 +58,15 @@ public interface EventListener
 	 */
 	int getMaxFailures();
 
+	/**
+	 * @return how many events can be handled by a heavy-weight listener concurrently. The default
+	 * value of 1 guarantees that the listener is never invoked concurrently.
+	 */
+	default int getMaxConcurrency()
+	{
+		return 1;
+	}
+
 	/**
 	 * Called before {@link EventListener} is being added to {@link EventProcessor}
 	 */
@@ -12,6 +12,7 @@ import org.mvel2.MVEL;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 
 /**
  * MVEL condition of translation rule.
@@ -78,7 +79,7 @@ public class TranslationCondition
 	public void setCondition(String condition)
 	{
 		this.condition = condition;
-		this.compiled = MVEL.compileExpression(condition);
+		this.compiled = MVELCompiledExpressionsCache.getCompiledExpression(condition);
 	}
 
 	@Override
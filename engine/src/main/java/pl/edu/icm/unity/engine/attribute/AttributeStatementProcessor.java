@@ -5,7 +5,9 @@
 package pl.edu.icm.unity.engine.attribute;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +21,9 @@ import org.mvel2.MVEL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.AttributeValueConverter;
 import pl.edu.icm.unity.engine.api.attributes.AttributeClassHelper;
@@ -35,7 +40,8 @@ import pl.edu.icm.unity.types.basic.Group;
 import pl.edu.icm.unity.types.basic.Identity;
 
 /**
- * Immutable class handling group attribute statements.
+ * Class handling group attribute statements. The only state are cached evaluation plans of groups' statements,
+ * which are rebuilt whenever statements of a group are changed.
  * @author K. Benedyczak
  */
 @Component
@@ -55,8 +61,13 @@ public class AttributeStatementProcessor
 		entityId;
 	}
 	
+	private static final int MAX_CACHED_PLANS = 10000;
+	
 	private AttributeTypeHelper atHelper;
 	private AttributeValueConverter attrConverter;
+	private final Cache<String, GroupStatementsPlan> plansCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_PLANS)
+			.build();
 
 	
 	@Autowired
@@ -92,19 +103,23 @@ public class AttributeStatementProcessor
 			Function<String, Group> groupInfoProvider,
 			Function<String, AttributeType> attrTypeProvider) 
 	{		
+		StatementsEvaluationContext evaluationContext = new StatementsEvaluationContext(identities, allGroups,
+				attribute -> internalValuesToExternal(attribute.getValueSyntax(), attribute.getValues()));
+		
 		Map<String, Map<String, AttributeExt>> downwardsAttributes = new HashMap<>();
-		collectUpOrDownAttributes(Direction.downwards, group, null, identities, downwardsAttributes, 
+		collectUpOrDownAttributes(Direction.downwards, group, evaluationContext, downwardsAttributes, 
 				directAttributesByGroup, allGroups, knownClasses, groupInfoProvider, attrTypeProvider);
 
 		Map<String, Map<String, AttributeExt>> upwardsAttributes = new HashMap<>();
-		collectUpOrDownAttributes(Direction.upwards, group, null, identities, upwardsAttributes, 
+		collectUpOrDownAttributes(Direction.upwards, group, evaluationContext, upwardsAttributes, 
 				directAttributesByGroup, allGroups, knownClasses, groupInfoProvider, attrTypeProvider);
 
-		AttributeStatement[] statements = getGroupStatements(group, groupInfoProvider);
+		GroupStatementsPlan plan = getStatementsPlan(group, groupInfoProvider);
 		
 		Map<String, AttributeExt> fromStatemants = processAttributeStatements(Direction.undirected, directAttributesByGroup, 
 				upwardsAttributes, downwardsAttributes, group, 
-				queriedAttribute, identities, statements, allGroups, knownClasses, attrTypeProvider);
+				queriedAttribute, evaluationContext, plan.getStatements(Direction.undirected), 
+				knownClasses, attrTypeProvider);
 		
 		return "/".equals(group) ? fromStatemants 
 				: addGlobal(fromStatemants, directAttributesByGroup, attrTypeProvider, queriedAttribute);
@@ -131,59 +146,56 @@ public class AttributeStatementProcessor
 	}
 
 	/**
-	 * Resolves group path and returns group's attribute statements
+	 * Resolves group path and returns evaluation plan of group's attribute statements. Cached plan is 
+	 * reused only if the group's statements were not changed.
 	 */
-	private AttributeStatement[] getGroupStatements(String groupPath, Function<String, Group> groupInfoProvider) 
+	private GroupStatementsPlan getStatementsPlan(String groupPath, Function<String, Group> groupInfoProvider) 
 	{
-		return groupInfoProvider.apply(groupPath).getAttributeStatements();
+		AttributeStatement[] statements = groupInfoProvider.apply(groupPath).getAttributeStatements();
+		GroupStatementsPlan plan = plansCache.getIfPresent(groupPath);
+		if (plan == null || !plan.isBuiltFor(statements))
+		{
+			plan = new GroupStatementsPlan(groupPath, statements);
+			plansCache.put(groupPath, plan);
+		}
+		return plan;
 	}
 	
 	/**
 	 * Recursive method collecting attributes in down or up direction. Works as follows:
 	 * <ol>
 	 * <li> statements of the group are established
-	 * <li> for each statement which has condition related to an attribute in a other group in the 
-	 * direction of the mode, the group is recorded to a set.
-	 * <li> for each group from the set recursive call is made
+	 * <li> for each group, which is in the direction of the mode and is used in a condition of 
+	 * a group's statement, recursive call is made
 	 * <li> normal processing of the statements of this group is performed, however only the input
 	 * for rules related to the groups in the mode is provided. Statements in opposite direction are ignored. 
 	 * </ol>
 	 */
-	private void collectUpOrDownAttributes(Direction mode, String groupPath, String queriedAttribute, 
-			List<Identity> identities,
+	private void collectUpOrDownAttributes(Direction mode, String groupPath, 
+			StatementsEvaluationContext evaluationContext,
 			Map<String, Map<String, AttributeExt>> upOrDownAttributes, 
 			Map<String, Map<String, AttributeExt>> allAttributesByGroup,
 			Set<String> allGroups, Map<String, AttributesClass> knownClasses,
 			Function<String, Group> groupInfoProvider,
 			Function<String, AttributeType> attrTypeProvider) 
 	{
-		AttributeStatement[] statements = getGroupStatements(groupPath, groupInfoProvider);
+		GroupStatementsPlan plan = getStatementsPlan(groupPath, groupInfoProvider);
 		
-		Set<String> interestingGroups = new HashSet<String>();
-		for (AttributeStatement as: statements)
-		{
-			if (as.isSuitableForDirectedEvaluation(mode, groupPath) 
-					&& isForInterestingAttribute(queriedAttribute, as))
-			{
-				String groupPath2 = as.getExtraAttributesGroup();
-				if (groupPath2 != null)
-					interestingGroups.add(groupPath2);
-			}
-		}
-		for (String interestingGroup: interestingGroups)
+		for (String interestingGroup: plan.getExtraAttributesGroups(mode))
 		{
 			if (!allGroups.contains(interestingGroup))
 				continue;
-			collectUpOrDownAttributes(mode, interestingGroup, queriedAttribute, identities,
+			collectUpOrDownAttributes(mode, interestingGroup, evaluationContext,
 					upOrDownAttributes, allAttributesByGroup,
 					allGroups, knownClasses, groupInfoProvider, attrTypeProvider);
 		}
 		
+		List<AttributeStatement> statements = plan.getStatements(mode);
 		Map<String, AttributeExt> ret = (mode == Direction.upwards) ? 
 				processAttributeStatements(mode, allAttributesByGroup, upOrDownAttributes, null,
-						groupPath, null, identities, statements, allGroups, knownClasses, attrTypeProvider):
+						groupPath, null, evaluationContext, statements, knownClasses, attrTypeProvider):
 				processAttributeStatements(mode, allAttributesByGroup, null, upOrDownAttributes, 
-						groupPath, null, identities, statements, allGroups, knownClasses, attrTypeProvider);
+						groupPath, null, evaluationContext, statements, knownClasses, attrTypeProvider);
 		upOrDownAttributes.put(groupPath, ret);
 	}
 	
@@ -197,14 +209,20 @@ public class AttributeStatementProcessor
 		return false;
 	}
 	
+	/**
+	 * Regular attributes of the group are deep copied to the result only in the undirected mode, as only
+	 * then the result is returned to the caller. Otherwise the result is only used as an input of other 
+	 * statements, so it can reference the original attributes. 
+	 */
 	private Map<String, AttributeExt> processAttributeStatements(Direction direction,
 			Map<String, Map<String, AttributeExt>> allRegularAttributesByGroup,
 			Map<String, Map<String, AttributeExt>> upwardsAttributesByGroup,
 			Map<String, Map<String, AttributeExt>> downwardsAttributesByGroup,
-			String group, String queriedAttribute, List<Identity> identities, AttributeStatement[] statements, 
-			Set<String> allGroups, Map<String, AttributesClass> knownClasses,
+			String group, String queriedAttribute, StatementsEvaluationContext evaluationContext, 
+			List<AttributeStatement> statements, Map<String, AttributesClass> knownClasses,
 			Function<String, AttributeType> attrTypeProvider) 
 	{
+		boolean copyRegular = direction == Direction.undirected;
 		Map<String, AttributeExt> collectedAttributes = new HashMap<String, AttributeExt>();
 		Map<String, AttributeExt> regularAttributesInGroup = allRegularAttributesByGroup.get(group);
 		if (regularAttributesInGroup == null)
@@ -215,48 +233,53 @@ public class AttributeStatementProcessor
 			if (queriedAttribute == null)
 			{
 				for (Map.Entry<String, AttributeExt> a: regularAttributesInGroup.entrySet())
-					collectedAttributes.put(a.getKey(), new AttributeExt(a.getValue()));
+					collectedAttributes.put(a.getKey(), copyRegular ? new AttributeExt(a.getValue()) 
+							: a.getValue());
 			} else
 			{
 				AttributeExt at = regularAttributesInGroup.get(queriedAttribute);
 				if (at != null)
-					collectedAttributes.put(queriedAttribute, new AttributeExt(at));
+					collectedAttributes.put(queriedAttribute, copyRegular ? new AttributeExt(at) : at);
 			}
 			acAttribute = regularAttributesInGroup.get(
 					AttributeClassUtil.ATTRIBUTE_CLASSES_ATTRIBUTE);
 		}
 
+		if (statements.isEmpty())
+			return collectedAttributes;
+		
 		AttributeClassHelper acHelper = acAttribute == null ? new AttributeClassHelper() :
 			new AttributeClassHelper(knownClasses, acAttribute.getValues());
 		
-		int i=1;
-		for (AttributeStatement as: statements)
+		ThreadContext.push("[AttrStmnts in " + group + " for entity " + evaluationContext.getEntityId() + "]");
+		try
 		{
-			Map<String, AttributeExt> extraAttributes = null;
-			String extraAttributesGroup = as.getExtraAttributesGroup();
-			if (extraAttributesGroup != null)
-			{
-				if (extraAttributesGroup.startsWith(group) && downwardsAttributesByGroup != null)
-					extraAttributes = downwardsAttributesByGroup.get(extraAttributesGroup);
-				if (group.startsWith(extraAttributesGroup) && upwardsAttributesByGroup != null)
-					extraAttributes = upwardsAttributesByGroup.get(extraAttributesGroup);
-			}
-			
-			ThreadContext.push("[AttrStmnt " + i + " in " + group + " for entity " + 
-				identities.get(0).getEntityId() + "]");
-			try
-			{
-				processAttributeStatement(direction, group, as, queriedAttribute, identities, 
-						collectedAttributes, regularAttributesInGroup, extraAttributes, 
-						allGroups, acHelper, attrTypeProvider);
-			} catch (Exception e) 
+			for (AttributeStatement as: statements)
 			{
-				log.error("Error processing statement " + 
-						as + " is skipped", e);
-			} finally
-			{
-				ThreadContext.pop();
+				Map<String, AttributeExt> extraAttributes = null;
+				String extraAttributesGroup = as.getExtraAttributesGroup();
+				if (extraAttributesGroup != null)
+				{
+					if (extraAttributesGroup.startsWith(group) && downwardsAttributesByGroup != null)
+						extraAttributes = downwardsAttributesByGroup.get(extraAttributesGroup);
+					if (group.startsWith(extraAttributesGroup) && upwardsAttributesByGroup != null)
+						extraAttributes = upwardsAttributesByGroup.get(extraAttributesGroup);
+				}
+
+				try
+				{
+					processAttributeStatement(group, as, queriedAttribute, evaluationContext, 
+							collectedAttributes, regularAttributesInGroup, extraAttributes, 
+							acHelper, attrTypeProvider);
+				} catch (Exception e) 
+				{
+					log.error("Error processing statement " + 
+							as + " is skipped", e);
+				}
 			}
+		} finally
+		{
+			ThreadContext.pop();
 		}
 		return collectedAttributes;
 	}
@@ -265,29 +288,24 @@ public class AttributeStatementProcessor
 	/**
 	 * Checks all conditions. If all are true, then the attribute of the statement is added to the map.
 	 * In case when the attribute is already in the map, conflict resolution of the statement is taken into 
-	 * account.
+	 * account. Existing attributes are never modified, as those may be shared with the input.
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private void processAttributeStatement(Direction direction, String group, AttributeStatement statement, 
-			String attribute, List<Identity> identities,
+	private void processAttributeStatement(String group, AttributeStatement statement, 
+			String attribute, StatementsEvaluationContext evaluationContext,
 			Map<String, AttributeExt> collectedAttributes,
 			Map<String, AttributeExt> regularGroupAttributes,
 			Map<String, AttributeExt> extraGroupAttributes,
-			Set<String> allGroups, AttributeClassHelper acHelper,
+			AttributeClassHelper acHelper,
 			Function<String, AttributeType> attrTypeProvider) 
 	{
-		//we are in the recursive process of establishing downwards or upwards attributes and the
-		// statement is oppositely directed. 
-		if (direction != Direction.undirected && !statement.isSuitableForDirectedEvaluation(direction, group))
-			return;
-
 		if (!acHelper.isAllowed(attribute))
 			return;
 
 		if (!isForInterestingAttribute(attribute, statement))
 			return;
 		
-		Map<String, Object> context = createMvelContext(allGroups, group, identities, 
+		Map<String, Object> context = evaluationContext.createMvelContext(group, 
 				regularGroupAttributes, extraGroupAttributes);
 		
 		boolean condition = evaluateStatementCondition(statement, context);
@@ -325,7 +343,9 @@ public class AttributeStatementProcessor
 				AttributeType at = attrTypeProvider.apply(ret.getName());
 				if (at.getMaxElements() == Integer.MAX_VALUE)
 				{
-					((List)existing.getValues()).addAll(ret.getValues());
+					AttributeExt merged = new AttributeExt(existing);
+					((List)merged.getValues()).addAll(ret.getValues());
+					collectedAttributes.put(ret.getName(), merged);
 					log.trace("Merge of values was performed");					
 				} else
 				{
@@ -436,61 +456,57 @@ public class AttributeStatementProcessor
 		return ret;
 	}
 
-	private Map<String, Object> createMvelContext(Set<String> allGroups, String groupName, 
-			List<Identity> identities,
-			Map<String, AttributeExt> directAttributes, Map<String, AttributeExt> extraAttributes)
+	private List<String> internalValuesToExternal(String valueSyntax, List<String> internalValues) 
 	{
-		Map<String, Object> ret = new HashMap<>();
-		
-		ret.put(ContextKey.entityId.name(), identities.get(0).getEntityId());
-		ret.put(ContextKey.groupName.name(), groupName);
-		ret.put(ContextKey.groups.name(), new ArrayList<String>(allGroups));
+		AttributeValueSyntax<?> syntax = atHelper.getUnconfiguredSyntax(valueSyntax);
+		return attrConverter.internalValuesToExternal(syntax, internalValues);
+	}
 
-		Map<String, List<String>> idsByType = new HashMap<String, List<String>>();
-		for (Identity id: identities)
+	/**
+	 * Statements of a group prepared for evaluation in each of the directions.
+	 */
+	private static class GroupStatementsPlan
+	{
+		private final AttributeStatement[] statements;
+		private final Map<Direction, List<AttributeStatement>> statementsByDirection = 
+				new EnumMap<>(Direction.class);
+		private final Map<Direction, Set<String>> extraGroupsByDirection = new EnumMap<>(Direction.class);
+		
+		GroupStatementsPlan(String group, AttributeStatement[] statements)
 		{
-			List<String> vals = idsByType.get(id.getTypeId());
-			if (vals == null)
+			this.statements = statements.clone();
+			statementsByDirection.put(Direction.undirected, 
+					Collections.unmodifiableList(Arrays.asList(this.statements)));
+			for (Direction direction: new Direction[] {Direction.upwards, Direction.downwards})
 			{
-				vals = new ArrayList<String>();
-				idsByType.put(id.getTypeId(), vals);
+				List<AttributeStatement> suitable = new ArrayList<>();
+				Set<String> extraGroups = new HashSet<>();
+				for (AttributeStatement as: this.statements)
+				{
+					if (!as.isSuitableForDirectedEvaluation(direction, group))
+						continue;
+					suitable.add(as);
+					if (as.getExtraAttributesGroup() != null)
+						extraGroups.add(as.getExtraAttributesGroup());
+				}
+				statementsByDirection.put(direction, suitable);
+				extraGroupsByDirection.put(direction, extraGroups);
 			}
-			vals.add(id.getValue());
 		}
-		ret.put(ContextKey.idsByType.name(), idsByType);
 		
-		addAttributesToContext(directAttributes, ContextKey.attrs, ContextKey.attr, ret);
-		if (extraAttributes != null)
+		boolean isBuiltFor(AttributeStatement[] statements)
 		{
-			addAttributesToContext(extraAttributes, ContextKey.eattrs, ContextKey.eattr, ret);
-		} else
+			return Arrays.equals(this.statements, statements);
+		}
+		
+		List<AttributeStatement> getStatements(Direction direction)
 		{
-			ret.put(ContextKey.eattrs.name(), null);
-			ret.put(ContextKey.eattr.name(), null);
+			return statementsByDirection.get(direction);
 		}
 		
-		return ret;
-	}
-	
-	private void addAttributesToContext(Map<String, AttributeExt> attributes, ContextKey fullKey,
-			ContextKey oneValueKey, Map<String, Object> target)
-	{
-		Map<String, Object> attr = new HashMap<>();
-		Map<String, List<String>> attrs = new HashMap<>();
-		for (AttributeExt a: attributes.values())
+		Set<String> getExtraAttributesGroups(Direction direction)
 		{
-			List<String> values = internalValuesToExternal(a.getValueSyntax(), a.getValues());	
-			String v = values.isEmpty() ? "" : values.get(0);
-			attr.put(a.getName(), v);
-			attrs.put(a.getName(), values);
+			return extraGroupsByDirection.get(direction);
 		}
-		target.put(oneValueKey.name(), attr);
-		target.put(fullKey.name(), attrs);
-	}
-
-	private List<String> internalValuesToExternal(String valueSyntax, List<String> internalValues) 
-	{
-		AttributeValueSyntax<?> syntax = atHelper.getUnconfiguredSyntax(valueSyntax);
-		return attrConverter.internalValuesToExternal(syntax, internalValues);
 	}
 }
@@ -141,12 +141,12 @@ public class AttributesManagementImpl implements AttributesManagement
 				checkAdditionalAuthn(at);
 			checkIfAllowed(entityId, attribute.getGroupPath(), attribute.getName());
 			attributesHelper.addAttribute(entityId, attribute, at, allowUpdate, fullAuthz);
+			//this is merely to propagate the change to authz layer more quickly in typical situations. It does 
+			// not guarantee that authz cache is cleared after all possible situations when roles are be altered. 
+			if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attribute.getName()))
+				authz.clearEntityCache(entityId);
 		});
 
-		//this is merely to propagate the change to authz layer more quickly in typical situations. It does 
-		// not guarantee that authz cache is cleared after all possible situations when roles are be altered. 
-		if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attribute.getName()))
-			authz.clearCache();
 		if (sendConfirmations)
 			confirmationManager.sendVerificationQuietNoTx(entity, attribute, false);
 	}
@@ -220,6 +220,8 @@ public class AttributesManagementImpl implements AttributesManagement
 		checkIfMandatory(entityId, groupPath, attributeTypeId);
 		
 		dbAttributes.deleteAttribute(attributeTypeId, entityId, groupPath);
+		if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attributeTypeId))
+			authz.clearEntityCache(entityId);
 		
 		audit.log(AuditEventTrigger.builder()
 				.type(AuditEventType.ATTRIBUTE)
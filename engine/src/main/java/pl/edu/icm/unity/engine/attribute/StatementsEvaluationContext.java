@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.attribute;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import pl.edu.icm.unity.engine.attribute.AttributeStatementProcessor.ContextKey;
+import pl.edu.icm.unity.types.basic.AttributeExt;
+import pl.edu.icm.unity.types.basic.Identity;
+
+/**
+ * Creates MVEL contexts for evaluation of attribute statements of a single entity. The entity wide parts
+ * of the context (identities and groups) are prepared once. Attributes are exposed with map views which
+ * convert attribute values to the external form only when accessed by a statement. Converted values are
+ * memorized, so each attribute is converted at most once, regardless of the number of statements using it.
+ * <p>
+ * Each created context gets its own, modifiable copies of the shared data, so a statement may modify
+ * its context as before without affecting other statements. Attribute views are copied lazily:
+ * a value list is copied when accessed, and the whole view only when it is modified or iterated.
+ *
+ * @author K. Benedyczak
+ */
+class StatementsEvaluationContext
+{
+	private final long entityId;
+	private final List<String> groups;
+	private final Map<String, List<String>> idsByType;
+	private final Function<AttributeExt, List<String>> valuesConverter;
+	private final Map<AttributeExt, List<String>> convertedValues = new IdentityHashMap<>();
+
+	StatementsEvaluationContext(List<Identity> identities, Set<String> allGroups,
+			Function<AttributeExt, List<String>> valuesConverter)
+	{
+		this.entityId = identities.get(0).getEntityId();
+		this.groups = new ArrayList<>(allGroups);
+		this.valuesConverter = valuesConverter;
+		this.idsByType = new HashMap<>();
+		for (Identity id: identities)
+			idsByType.computeIfAbsent(id.getTypeId(), type -> new ArrayList<>()).add(id.getValue());
+	}
+
+	long getEntityId()
+	{
+		return entityId;
+	}
+
+	Map<String, Object> createMvelContext(String groupName, Map<String, AttributeExt> directAttributes,
+			Map<String, AttributeExt> extraAttributes)
+	{
+		Map<String, Object> ret = new HashMap<>();
+		ret.put(ContextKey.entityId.name(), entityId);
+		ret.put(ContextKey.groupName.name(), groupName);
+		ret.put(ContextKey.groups.name(), new ArrayList<>(groups));
+		ret.put(ContextKey.idsByType.name(), copyIdsByType());
+		ret.put(ContextKey.attrs.name(), new AttributeValuesView(directAttributes));
+		ret.put(ContextKey.attr.name(), new FirstAttributeValueView(directAttributes));
+		if (extraAttributes != null)
+		{
+			ret.put(ContextKey.eattrs.name(), new AttributeValuesView(extraAttributes));
+			ret.put(ContextKey.eattr.name(), new FirstAttributeValueView(extraAttributes));
+		} else
+		{
+			ret.put(ContextKey.eattrs.name(), null);
+			ret.put(ContextKey.eattr.name(), null);
+		}
+		return ret;
+	}
+
+	private Map<String, List<String>> copyIdsByType()
+	{
+		Map<String, List<String>> ret = new HashMap<>();
+		idsByType.forEach((type, values) -> ret.put(type, new ArrayList<>(values)));
+		return ret;
+	}
+
+	private List<String> getExternalValues(AttributeExt attribute)
+	{
+		return convertedValues.computeIfAbsent(attribute,
+				a -> Collections.unmodifiableList(valuesConverter.apply(a)));
+	}
+
+	/**
+	 * View of attributes of a single evaluation, mapping attribute names to values converted on access.
+	 * Accessed values are memorized in the view. Modification or iteration of the view turns it 
+	 * into a regular map with values of all attributes.
+	 */
+	private abstract class LazyAttributesView<T> extends AbstractMap<String, T>
+	{
+		private final Map<String, AttributeExt> attributes;
+		private final Map<String, T> accessed = new HashMap<>();
+		private Map<String, T> materialized;
+
+		LazyAttributesView(Map<String, AttributeExt> attributes)
+		{
+			this.attributes = attributes;
+		}
+
+		/**
+		 * @return value of the attribute, owned by the caller
+		 */
+		protected abstract T getValue(AttributeExt attribute);
+
+		@Override
+		public T get(Object key)
+		{
+			if (materialized != null)
+				return materialized.get(key);
+			AttributeExt attribute = attributes.get(key);
+			return attribute == null ? null : accessed.computeIfAbsent((String) key, k -> getValue(attribute));
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return materialized != null ? materialized.containsKey(key) : attributes.containsKey(key);
+		}
+
+		@Override
+		public int size()
+		{
+			return materialized != null ? materialized.size() : attributes.size();
+		}
+
+		@Override
+		public T put(String key, T value)
+		{
+			return materialize().put(key, value);
+		}
+
+		@Override
+		public T remove(Object key)
+		{
+			return materialize().remove(key);
+		}
+
+		@Override
+		public void clear()
+		{
+			materialize().clear();
+		}
+
+		@Override
+		public Set<Entry<String, T>> entrySet()
+		{
+			return materialize().entrySet();
+		}
+
+		private Map<String, T> materialize()
+		{
+			if (materialized == null)
+			{
+				Map<String, T> all = new HashMap<>();
+				for (String name: attributes.keySet())
+					all.put(name, get(name));
+				materialized = all;
+			}
+			return materialized;
+		}
+	}
+
+	private class AttributeValuesView extends LazyAttributesView<List<String>>
+	{
+		AttributeValuesView(Map<String, AttributeExt> attributes)
+		{
+			super(attributes);
+		}
+
+		@Override
+		protected List<String> getValue(AttributeExt attribute)
+		{
+			return new ArrayList<>(getExternalValues(attribute));
+		}
+	}
+
+	private class FirstAttributeValueView extends LazyAttributesView<String>
+	{
+		FirstAttributeValueView(Map<String, AttributeExt> attributes)
+		{
+			super(attributes);
+		}
+
+		@Override
+		protected String getValue(AttributeExt attribute)
+		{
+			List<String> values = getExternalValues(attribute);
+			return values.isEmpty() ? "" : values.get(0);
+		}
+	}
+}
@@ -16,7 +16,6 @@ import pl.edu.icm.unity.exceptions.IllegalIdentityValueException;
 import pl.edu.icm.unity.exceptions.UnknownIdentityException;
 import pl.edu.icm.unity.stdext.utils.EntityNameMetadataProvider;
 import pl.edu.icm.unity.store.api.AttributeDAO;
-import pl.edu.icm.unity.store.api.AuditEventDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 import pl.edu.icm.unity.store.types.StoredAttribute;
 import pl.edu.icm.unity.types.Event;
@@ -43,18 +42,18 @@ public class AuditEventListener implements EventListener
 	private AttributeDAO attributeDAO;
 	private EmailFacility emailFacility;
 	private AttributeSupport attributeSupport;
-	private AuditEventDAO dao;
+	private AuditEventWriter writer;
 	private TransactionalRunner tx;
 	volatile boolean enabled;
 
 	@Autowired
 	public AuditEventListener(final AttributeDAO attributeDAO, final EmailFacility emailFacility,
-				final AttributeSupport attributeSupport, final AuditEventDAO dao,
+				final AttributeSupport attributeSupport, final AuditEventWriter writer,
 				final TransactionalRunner tx)
 	{
 		this.attributeDAO = attributeDAO;
 		this.emailFacility = emailFacility;
-		this.dao = dao;
+		this.writer = writer;
 		this.tx = tx;
 		this.attributeSupport = attributeSupport;
 	}
@@ -131,12 +130,8 @@ public class AuditEventListener implements EventListener
 				.tags(event.getTags())
 				.build();
 
-		// Make sure only one event is stored in the same time - AuditEntities and Tags are shared resources.
-		// Transaction retry is also addressing this problem - synchronized block is for code optimization.
-		synchronized (this)
-		{
-			tx.runInTransaction(() -> dao.create(auditEvent));
-		}
+		// Events are stored by a single writer - AuditEntities and Tags are shared resources.
+		writer.submit(auditEvent);
 		return true;
 	}
 
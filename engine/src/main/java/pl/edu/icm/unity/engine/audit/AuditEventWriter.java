@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.audit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.store.api.AuditEventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.types.basic.audit.AuditEvent;
+
+/**
+ * Stores {@link AuditEvent}s in the database, in background. Events are put into a bounded queue
+ * and are written by a single thread: all queued events (up to the configured limit) are stored
+ * in a single transaction. As there is only one writer, audit entities and tags, which are shared
+ * between events, are never created concurrently.
+ * <p>
+ * If the queue is full, then the producer is blocked until there is a free space, so an overload
+ * slows down producers instead of dropping events. If a batch can not be stored, its events are
+ * stored one by one, so that a single broken event doesn't cause a loss of the whole batch.
+ */
+@Component
+public class AuditEventWriter
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER, AuditEventWriter.class);
+	private static final long POLL_INTERVAL = 1000;
+	private static final long SHUTDOWN_TIMEOUT = 30000;
+
+	private final AuditEventDAO dao;
+	private final TransactionalRunner tx;
+	private final BlockingQueue<AuditEvent> queue;
+	private final int maxBatchSize;
+	private final Thread writerThread;
+	private volatile boolean stopped;
+
+	@Autowired
+	public AuditEventWriter(AuditEventDAO dao, TransactionalRunner tx, UnityServerConfiguration mainConfig)
+	{
+		this(dao, tx, mainConfig.getIntValue(UnityServerConfiguration.AUDITEVENTLOGS_QUEUE_SIZE),
+				mainConfig.getIntValue(UnityServerConfiguration.AUDITEVENTLOGS_BATCH_SIZE));
+	}
+
+	AuditEventWriter(AuditEventDAO dao, TransactionalRunner tx, int queueSize, int maxBatchSize)
+	{
+		this.dao = dao;
+		this.tx = tx;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.maxBatchSize = maxBatchSize;
+		this.writerThread = new Thread(this::writeEvents, "AuditEvents writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Queues the event for storing. Blocks if the queue is full. If interrupted while blocked,
+	 * the event is stored synchronously and the interrupt flag is restored.
+	 */
+	void submit(AuditEvent event)
+	{
+		if (queue.offer(event))
+			return;
+		log.debug("AuditEvents queue is full, waiting for a free space");
+		try
+		{
+			queue.put(event);
+		} catch (InterruptedException e)
+		{
+			log.warn("Interrupted while waiting for a free space in AuditEvents queue, "
+					+ "storing the event synchronously");
+			store(Collections.singletonList(event));
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	int getQueueSize()
+	{
+		return queue.size();
+	}
+
+	/**
+	 * Stores all queued events and stops the writer.
+	 */
+	@PreDestroy
+	public void stop()
+	{
+		stopped = true;
+		try
+		{
+			writerThread.join(SHUTDOWN_TIMEOUT);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if (!queue.isEmpty())
+			log.error("AuditEvents writer was stopped, {} queued events were not stored", queue.size());
+	}
+
+	private void writeEvents()
+	{
+		List<AuditEvent> batch = new ArrayList<>(maxBatchSize);
+		while (!stopped || !queue.isEmpty())
+		{
+			try
+			{
+				AuditEvent first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				batch.add(first);
+				queue.drainTo(batch, maxBatchSize - 1);
+				store(batch);
+			} catch (InterruptedException e)
+			{
+				log.debug("AuditEvents writer was interrupted");
+			} catch (Exception e)
+			{
+				log.error("AuditEvents writer failed", e);
+			} finally
+			{
+				batch.clear();
+			}
+		}
+	}
+
+	private void store(List<AuditEvent> batch)
+	{
+		try
+		{
+			tx.runInTransaction(() -> batch.forEach(dao::create));
+		} catch (Exception e)
+		{
+			if (batch.size() == 1)
+			{
+				log.error("Failed to store AuditEvent " + batch.get(0), e);
+				return;
+			}
+			log.warn("Failed to store batch of " + batch.size() + " AuditEvents, "
+					+ "will store them one by one", e);
+			for (AuditEvent event: batch)
+				store(Collections.singletonList(event));
+		}
+	}
+}
@@ -19,6 +19,7 @@ import pl.edu.icm.unity.engine.api.authn.AuthenticationFlow;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationProcessor;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult.Status;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticatorInstance;
 import pl.edu.icm.unity.engine.api.authn.PartialAuthnState;
 import pl.edu.icm.unity.engine.api.authn.local.LocalCredentialsRegistry;
@@ -71,6 +72,8 @@ public class AuthenticationProcessorImpl implements AuthenticationProcessor
 			if (result.getStatus() == Status.unknownRemotePrincipal)
 				throw new UnknownRemoteUserException("AuthenticationProcessorImpl.authnFailed", 
 						result);
+			if (result.getStatus() == Status.serverBusy)
+				throw new AuthenticationServerBusyException("AuthenticationProcessorImpl.serverBusy");
 			throw new AuthenticationException("AuthenticationProcessorImpl.authnFailed");
 		}
 		
@@ -207,6 +210,8 @@ public class AuthenticationProcessorImpl implements AuthenticationProcessor
 		{
 			if (result2.getStatus() == Status.unknownRemotePrincipal)
 				throw new AuthenticationException("AuthenticationProcessorImpl.authnWrongUsers");
+			if (result2.getStatus() == Status.serverBusy)
+				throw new AuthenticationServerBusyException("AuthenticationProcessorImpl.serverBusy");
 			throw new AuthenticationException("AuthenticationProcessorImpl.authnFailed");
 		}
 		
@@ -85,19 +85,9 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 			boolean dryRun, Optional<IdentityTaV> identity) 
 			throws AuthenticationException
 	{
-		
-		TranslationProfile translationProfile;
-		try
-		{
-			 translationProfile = inputProfileRepo.getProfile(profile);
-
-		} catch (EngineException e)
-		{
-			log.error("Can not get translation profile " + profile , e);
-			throw new ConfigurationException("Can not get translation profile " + profile , e);
-		}
-		
-		if (translationProfile == null)
+		InputTranslationProfile profileInstance = inputProfileRepo.getProfileInstance(profile, 
+				this::createProfileInstance);
+		if (profileInstance == null)
 		{
 			log.warn("The translation profile '" + profile + 
 					"' configured for the authenticator does not exist");
@@ -105,8 +95,7 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 					"' configured for the authenticator does not exist");
 		}
 		
-		
-		return getResult(input, translationProfile, dryRun, identity);
+		return getResult(input, profileInstance, dryRun, identity);
 	}
 	
 	@Override
@@ -114,6 +103,19 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 	public AuthenticationResult getResult(RemotelyAuthenticatedInput input, TranslationProfile profile, 
 			boolean dryRun, Optional<IdentityTaV> identity) 
 			throws AuthenticationException
+	{
+		if (profile == null)
+		{
+			log.warn("The translation profile can not be empty");
+			throw new ConfigurationException("The translation profile can not be empty");
+		}
+		return getResult(input, inputProfileRepo.getProfileInstance(profile, this::createProfileInstance), 
+				dryRun, identity);
+	}
+	
+	private AuthenticationResult getResult(RemotelyAuthenticatedInput input, InputTranslationProfile profile, 
+			boolean dryRun, Optional<IdentityTaV> identity) 
+			throws AuthenticationException
 	{
 		RemotelyAuthenticatedContext context;
 		try
@@ -198,9 +200,14 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 			throw new ConfigurationException("The translation profile can not be empty");
 		}
 		
-		InputTranslationProfile profileInstance = new InputTranslationProfile(
-				translationProfile, inputProfileRepo, actionsRegistry);
-		
+		return processRemoteInput(input, inputProfileRepo.getProfileInstance(translationProfile, 
+				this::createProfileInstance), dryRun, identity);
+	}
+	
+	private RemotelyAuthenticatedContext processRemoteInput(RemotelyAuthenticatedInput input, 
+			InputTranslationProfile profileInstance, boolean dryRun, Optional<IdentityTaV> identity) 
+					throws EngineException
+	{
 		MappingResult result = profileInstance.translate(input);
 		log.debug("Result of remote data mapping:\n{}", result);
 		if (identity.isPresent())
@@ -215,7 +222,8 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 		if (!dryRun)
 			trEngine.process(result);
 		
-		RemotelyAuthenticatedContext ret = new RemotelyAuthenticatedContext(input.getIdpName(), translationProfile.getName());
+		RemotelyAuthenticatedContext ret = new RemotelyAuthenticatedContext(input.getIdpName(), 
+				profileInstance.getProfile().getName());
 		ret.addAttributes(extractAttributes(result));
 		ret.addIdentities(extractIdentities(result));
 		ret.addGroups(extractGroups(result));
@@ -226,6 +234,12 @@ public class RemoteAuthnResultProcessorImpl implements RemoteAuthnResultProcesso
 		ret.setCreationTime(Instant.now());
 		return ret;
 	}
+	
+	private InputTranslationProfile createProfileInstance(TranslationProfile profile)
+	{
+		return new InputTranslationProfile(profile, inputProfileRepo, actionsRegistry);
+	}
+	
 	private List<IdentityTaV> extractIdentities(MappingResult input)
 	{
 		List<MappedIdentity> identities = input.getIdentities();
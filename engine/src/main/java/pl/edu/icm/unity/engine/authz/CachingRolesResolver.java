@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -26,15 +27,22 @@ import pl.edu.icm.unity.types.basic.AttributeExt;
 import pl.edu.icm.unity.types.basic.Group;
 
 /**
- * Returns roles for a user in a provided group. Results are cached.
+ * Returns roles for a user in a provided group. Results are cached. Roles in a group include roles
+ * of all its parent groups, which are resolved (and cached) first, so a parent chain is read from DB
+ * only once for all of its child groups.
+ * <p>
+ * Cached entries can be invalidated selectively, per entity or per group subtree. An invalidation
+ * which happens while roles are being resolved prevents caching of the (possibly outdated) result.
  * 
  * @author K. Benedyczak
  */
 class CachingRolesResolver
 {
+	private static final int MAX_CACHED_ENTRIES = 100000;
 	private final Map<String, AuthzRole> roles; 
 	private final AttributesHelper dbAttributes;
 	private final Cache<CacheKey, Set<AuthzRole>> rolesCache;
+	private final AtomicLong invalidations = new AtomicLong();
 	private final long cacheTTL;
 	private final GroupDAO groupsDAO;
 	
@@ -47,47 +55,72 @@ class CachingRolesResolver
 		this.groupsDAO = groupsDAO;
 		this.rolesCache = CacheBuilder.newBuilder()
 				.expireAfterWrite(cacheTTL, TimeUnit.MILLISECONDS)
+				.maximumSize(MAX_CACHED_ENTRIES)
 				.build();
 	}
 
 	Set<AuthzRole> establishRoles(long entityId, Group group)
 	{
 		if (cacheTTL <= 0)
-			return establishRolesNoCache(entityId, group);
-		
+			return establishRolesNoCache(entityId, group.toString());
+		return establishRolesCached(entityId, group.toString());
+	}
+	
+	void clearCache()
+	{
+		invalidations.incrementAndGet();
+		rolesCache.invalidateAll();
+	}
+
+	void clearEntityCache(long entityId)
+	{
+		invalidations.incrementAndGet();
+		rolesCache.asMap().keySet().removeIf(key -> key.entityId == entityId);
+	}
+
+	void clearGroupCache(String groupPath)
+	{
+		invalidations.incrementAndGet();
+		rolesCache.asMap().keySet().removeIf(key -> Group.isChildOrSame(key.group, groupPath));
+	}
+	
+	private Set<AuthzRole> establishRolesCached(long entityId, String group)
+	{
 		CacheKey cKey = new CacheKey(group, entityId);
 		Set<AuthzRole> cached = rolesCache.getIfPresent(cKey);
 		if (cached != null)
 			return cached;
-		Set<AuthzRole> actual = establishRolesNoCache(entityId, group);
-		rolesCache.put(cKey, actual);
+		long invalidationsBefore = invalidations.get();
+		Set<AuthzRole> actual = getRolesInGroup(entityId, group);
+		String parent = new Group(group).getParentPath();
+		if (parent != null)
+			actual.addAll(establishRolesCached(entityId, parent));
+		if (invalidations.get() == invalidationsBefore)
+			rolesCache.put(cKey, actual);
 		return actual;
 	}
 	
-	void clearCache()
+	private Set<AuthzRole> establishRolesNoCache(long entityId, String group)
 	{
-		rolesCache.invalidateAll();
+		String current = group;
+		Set<AuthzRole> ret = new HashSet<>();
+		do
+		{
+			ret.addAll(getRolesInGroup(entityId, current));
+			current = new Group(current).getParentPath();
+		} while (current != null);
+		return ret;
 	}
-	
-	private Set<AuthzRole> establishRolesNoCache(long entityId, Group group)
+
+	private Set<AuthzRole> getRolesInGroup(long entityId, String group)
 	{
 		try
 		{
-			Group current = group;
-			Set<AuthzRole> ret = new HashSet<>();
-			do
-			{
-				Map<String, Map<String, AttributeExt>> allAttributes = getAuthzRoleAttributes(entityId, current);
-				Map<String, AttributeExt> inCurrent = allAttributes.get(current.toString());
-				if (inCurrent != null)
-				{
-					Attribute role = inCurrent.get(RoleAttributeTypeProvider.AUTHORIZATION_ROLE);
-					ret.addAll(getRolesFromAttribute(role));
-				}
-				String parent = current.getParentPath();
-				current = parent == null ? null : new Group(parent);
-			} while (current != null);
-			return ret;
+			Map<String, Map<String, AttributeExt>> allAttributes = getAuthzRoleAttributes(entityId, group);
+			Map<String, AttributeExt> inCurrent = allAttributes.get(group);
+			Attribute role = inCurrent == null ? null : 
+				inCurrent.get(RoleAttributeTypeProvider.AUTHORIZATION_ROLE);
+			return getRolesFromAttribute(role);
 		} catch (EngineException e)
 		{
 			throw new InternalException("Can't establish caller's roles", e);
@@ -115,10 +148,9 @@ class CachingRolesResolver
 	/**
 	 * Retrieves the authz role for given entity in give group.
 	 */
-	private Map<String, Map<String, AttributeExt>> getAuthzRoleAttributes(long entityId, Group group) throws EngineException 
+	private Map<String, Map<String, AttributeExt>> getAuthzRoleAttributes(long entityId, String groupPath) 
+			throws EngineException 
 	{
-		String groupPath = group.getName();
-		
 		if (!groupsDAO.exists(groupPath))
 			return Maps.newHashMap();
 		
@@ -138,10 +170,10 @@ class CachingRolesResolver
 	
 	private static class CacheKey
 	{
-		private final Group group;
+		private final String group;
 		private final long entityId;
 		
-		CacheKey(Group group, long entityId)
+		CacheKey(String group, long entityId)
 		{
 			this.group = group;
 			this.entityId = entityId;
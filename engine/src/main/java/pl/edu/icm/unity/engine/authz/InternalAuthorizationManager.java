@@ -100,4 +100,16 @@ public interface InternalAuthorizationManager
 	 * Empties authZ cache.
 	 */
 	void clearCache();
+	
+	/**
+	 * Drops cached roles of the given entity, after the current transaction is committed.
+	 * Must be called in a transaction.
+	 */
+	void clearEntityCache(long entityId);
+
+	/**
+	 * Drops cached roles of all entities in the given group and its subgroups, after the current 
+	 * transaction is committed. Must be called in a transaction.
+	 */
+	void clearGroupCache(String groupPath);
 }
@@ -22,6 +22,7 @@ import pl.edu.icm.unity.exceptions.AuthorizationException;
 import pl.edu.icm.unity.exceptions.AuthorizationExceptionRT;
 import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.api.tx.Transactional;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 import pl.edu.icm.unity.types.basic.Attribute;
 import pl.edu.icm.unity.types.basic.Group;
 
@@ -48,11 +49,13 @@ public class InternalAuthorizationManagerImpl implements InternalAuthorizationMa
 	private Map<String, AuthzRole> roles = new LinkedHashMap<>(); 
 
 	private CachingRolesResolver rolesResolver;
+	private TxManager txManager;
 			
 	@Autowired
 	public InternalAuthorizationManagerImpl(AttributesHelper dbAttributes, UnityServerConfiguration config, 
-			GroupDAO groupDAO)
+			GroupDAO groupDAO, TxManager txManager)
 	{
+		this.txManager = txManager;
 		setupRoleCapabilities();
 		rolesResolver = new CachingRolesResolver(roles, dbAttributes, 
 				config.getLongValue(UnityServerConfiguration.AUTHZ_CACHE_MS), groupDAO);
@@ -308,6 +311,18 @@ public class InternalAuthorizationManagerImpl implements InternalAuthorizationMa
 		rolesResolver.clearCache();
 	}
 
+	@Override
+	public void clearEntityCache(long entityId)
+	{
+		txManager.addPostCommitAction(() -> rolesResolver.clearEntityCache(entityId));
+	}
+
+	@Override
+	public void clearGroupCache(String groupPath)
+	{
+		txManager.addPostCommitAction(() -> rolesResolver.clearGroupCache(groupPath));
+	}
+
 	@Override
 	@Transactional
 	public Set<AuthzRole> getRoles() throws AuthorizationException
@@ -89,6 +89,16 @@ public class InternalNoAuthzImpl implements InternalAuthorizationManager
 	{
 	}
 
+	@Override
+	public void clearEntityCache(long entityId)
+	{
+	}
+
+	@Override
+	public void clearGroupCache(String groupPath)
+	{
+	}
+
 	@Override
 	public Set<AuthzRole> getRoles() throws AuthorizationException
 	{
@@ -4,24 +4,37 @@
  */
 package pl.edu.icm.unity.engine.bulk;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.authn.local.LocalCredentialsRegistry;
@@ -31,6 +44,8 @@ import pl.edu.icm.unity.engine.api.bulk.GroupMembershipData;
 import pl.edu.icm.unity.engine.api.bulk.EntityInGroupData;
 import pl.edu.icm.unity.engine.api.bulk.GroupStructuralData;
 import pl.edu.icm.unity.engine.api.bulk.GroupsWithMembers;
+import pl.edu.icm.unity.engine.api.bulk.LazyGroupsWithMembers;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.attribute.AttributeStatementProcessor;
 import pl.edu.icm.unity.engine.authz.AuthzCapability;
 import pl.edu.icm.unity.engine.authz.InternalAuthorizationManager;
@@ -63,7 +78,8 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 	private final CompositeEntitiesInfoProvider dataProvider;
 	private final InternalAuthorizationManager authz;
 	private final TransactionalRunner tx;
-	private final ForkJoinPool pool = ForkJoinPool.commonPool();
+	private final int threads;
+	private final ExecutorService pool;
 	
 	@Autowired
 	public BulkQueryServiceImpl(AttributeStatementProcessor statementsHelper,
@@ -71,7 +87,8 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 			LocalCredentialsRegistry localCredReg,
 			CompositeEntitiesInfoProvider dataProvider,
 			InternalAuthorizationManager authz,
-			TransactionalRunner tx)
+			TransactionalRunner tx,
+			UnityServerConfiguration config)
 	{
 		this.statementsHelper = statementsHelper;
 		this.credentialsHelper = credentialsHelper;
@@ -79,6 +96,19 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		this.dataProvider = dataProvider;
 		this.authz = authz;
 		this.tx = tx;
+		this.threads = config.getIntValue(UnityServerConfiguration.BULK_QUERY_THREADS);
+		AtomicInteger workerId = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread worker = new Thread(runnable, "Bulk query worker " + workerId.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		pool.shutdownNow();
 	}
 
 
@@ -86,20 +116,26 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 	public GroupsWithMembers getMembersWithAttributeForAllGroups(String rootGroup, Set<String> groupFilter)
 	{
 		Stopwatch watch = Stopwatch.createStarted();
-		if (groupFilter.stream().filter(grp -> !Group.isChildOrSame(grp, rootGroup)).findAny().isPresent())
-			throw new IllegalArgumentException("All filter groups must be child of the rootGroup");
 		MultiGroupMembershipData data = getMultiGroupMembershipData(rootGroup, groupFilter);
-		GroupsWithMembers ret = assembleGroupsWithAttributes(data);
+		GroupsWithMembers ret = assembleGroupsWithAttributes(new LazyGroupsWithMembersImpl(data));
 		log.debug("Bulk multi-group membership data retrieval of {} groups: {}", 
 				ret.membersByGroup.keySet().size(), watch.toString());
 		return ret; 
 	}
 
+	@Override
+	public LazyGroupsWithMembers getLazyMembersWithAttributeForAllGroups(String rootGroup, Set<String> groupFilter)
+	{
+		return new LazyGroupsWithMembersImpl(getMultiGroupMembershipData(rootGroup, groupFilter));
+	}
+	
 	private MultiGroupMembershipData getMultiGroupMembershipData(String rootGroup, Set<String> groupFilter)
 	{
+		if (groupFilter.stream().filter(grp -> !Group.isChildOrSame(grp, rootGroup)).findAny().isPresent())
+			throw new IllegalArgumentException("All filter groups must be child of the rootGroup");
 		try
 		{
-			return tx.runInTransactionRetThrowing(() -> 
+			return tx.runInReadOnlyTransactionRetThrowing(() -> 
 			{
 				authz.checkAuthorization(AuthzCapability.readHidden, AuthzCapability.read);
 				return dataProvider.getCompositeMultiGroupContents(rootGroup, groupFilter);
@@ -110,38 +146,89 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		}
 	}
 
-	private GroupsWithMembers assembleGroupsWithAttributes(MultiGroupMembershipData data)
+	private GroupsWithMembers assembleGroupsWithAttributes(LazyGroupsWithMembers data)
 	{
-		Map<Long, Entity> entities = getGroupEntitiesNoContext(false, data.entitiesData, data.globalSystemData);
-		
-		List<TaskWithGroup> tasks = new ArrayList<>(data.groups.size());
-		for (String group: data.groups)
-			tasks.add(new TaskWithGroup(
-					pool.submit(() -> getGroupEntityAttribtues(group, data)), 
-					group));
-
+		Map<Long, Entity> entities = new HashMap<>();
+		data.forEachEntity(entity -> entities.put(entity.getId(), entity));
 		Map<String, List<EntityGroupAttributes>> attributes = new HashMap<>(); 
-		for (TaskWithGroup task: tasks)
+		data.forEachGroupMembers(attributes::put);
+		return new GroupsWithMembers(entities, attributes);
+	}
+	
+	/**
+	 * Attributes of members of subsequent groups are assembled concurrently, but only for as many groups 
+	 * as there are worker threads, ahead of the group passed to the consumer.
+	 */
+	private class LazyGroupsWithMembersImpl implements LazyGroupsWithMembers
+	{
+		private final MultiGroupMembershipData data;
+
+		LazyGroupsWithMembersImpl(MultiGroupMembershipData data)
+		{
+			this.data = data;
+		}
+
+		@Override
+		public Set<String> getGroups()
+		{
+			return data.groups;
+		}
+
+		@Override
+		public void forEachEntity(Consumer<Entity> consumer)
+		{
+			for (Long entityId: data.entitiesData.getEntityInfo().keySet())
+				consumer.accept(assembleEntity(entityId, false, data.entitiesData, data.globalSystemData));
+		}
+
+		@Override
+		public void forEachGroupMembers(BiConsumer<String, List<EntityGroupAttributes>> consumer)
+		{
+			Iterator<String> groups = data.groups.iterator();
+			Deque<TaskWithGroup> tasks = new ArrayDeque<>(threads);
 			try
 			{
-				attributes.put(task.group, task.task.get());
-			} catch (InterruptedException e)
+				while (groups.hasNext() || !tasks.isEmpty())
+				{
+					while (tasks.size() < threads && groups.hasNext())
+					{
+						String group = groups.next();
+						tasks.add(new TaskWithGroup(
+								pool.submit(() -> getGroupEntityAttribtues(group, data)), 
+								group));
+					}
+					TaskWithGroup task = tasks.poll();
+					consumer.accept(task.group, getResult(task.task));
+				}
+			} finally
 			{
-				Thread.currentThread().interrupt();
-				throw new RuntimeException("Interrupted while waiting for tasks", e);
-			} catch (ExecutionException e)
-			{
-				throw new RuntimeException("Error in concurrent task", e);
+				for (TaskWithGroup task: tasks)
+					task.task.cancel(true);
 			}
-		return new GroupsWithMembers(entities, attributes);
+		}
+	}
+	
+	private static <T> T getResult(Future<T> task)
+	{
+		try
+		{
+			return task.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for tasks", e);
+		} catch (ExecutionException e)
+		{
+			throw new RuntimeException("Error in concurrent task", e);
+		}
 	}
 	
 	private static class TaskWithGroup
 	{
-		private final ForkJoinTask<List<EntityGroupAttributes>> task;
+		private final Future<List<EntityGroupAttributes>> task;
 		private final String group;
 		
-		TaskWithGroup(ForkJoinTask<List<EntityGroupAttributes>> task, String group)
+		TaskWithGroup(Future<List<EntityGroupAttributes>> task, String group)
 		{
 			this.task = task;
 			this.group = group;
@@ -158,7 +245,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return groupEntityAttributes;
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupMembershipData getBulkMembershipData(String group, Set<Long> filter) throws EngineException
 	{
@@ -166,7 +253,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return dataProvider.getCompositeGroupContents(group, Optional.ofNullable(filter));
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupMembershipData getBulkMembershipData(String group) throws EngineException
 	{
@@ -174,7 +261,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return dataProvider.getCompositeGroupContents(group, Optional.empty());
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupStructuralData getBulkStructuralData(String group) throws EngineException
 	{
@@ -216,26 +303,176 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		Map<Long, EntityInGroupData> ret = new HashMap<>();
 
 		for (Long e : memberships.keySet())
+			ret.put(e, assembleEntityInGroupData(e, data));
+
+		log.debug("Bulk members with groups: {}", watch.toString());
+		return ret;
+	}
+
+	@Override
+	public void streamMembershipInfo(String group, int pageSize, Consumer<List<EntityInGroupData>> consumer) 
+			throws EngineException
+	{
+		streamMembershipInfo(group, Long.MIN_VALUE, Integer.MAX_VALUE, pageSize, consumer);
+	}
+
+	@Override
+	public void streamMembershipInfo(String group, long afterEntityId, int limit, int pageSize, 
+			Consumer<List<EntityInGroupData>> consumer) throws EngineException
+	{
+		streamMembers(group, afterEntityId, limit, pageSize, this::assembleEntityInGroupData, consumer);
+	}
+
+	@Override
+	public void streamGroupMembers(String group, long afterEntityId, int limit, int pageSize, 
+			Consumer<List<EntityInGroupData>> consumer) throws EngineException
+	{
+		streamMembers(group, afterEntityId, limit, pageSize, this::assembleGroupMember, consumer);
+	}
+
+	private void streamMembers(String group, long afterEntityId, int limit, int pageSize, 
+			BiFunction<Long, GroupMembershipDataImpl, EntityInGroupData> assembler,
+			Consumer<List<EntityInGroupData>> consumer) throws EngineException
+	{
+		if (pageSize < 1)
+			throw new IllegalArgumentException("Page size must be positive");
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative");
+		Stopwatch watch = Stopwatch.createStarted();
+		long[] members = getSortedMembers(group);
+		int start = getFirstAfter(members, afterEntityId);
+		int end = (int) Math.min(members.length, (long) start + limit);
+		if (start >= end)
+			return;
+		GlobalSystemData globalData = tx.runInReadOnlyTransactionRetThrowing(dataProvider::loadGlobalData);
+		forEachPage(members, start, end, pageSize, (pageMembers, pageData) -> 
+			consumer.accept(assembleMembers(pageMembers, 
+					new GroupMembershipDataImpl(group, globalData, pageData), assembler)));
+		log.debug("Bulk streaming of {} members of {}: {}", end - start, group, watch.toString());
+	}
+
+	@Override
+	public void streamMembersDirectData(String group, int pageSize, Consumer<List<EntityInGroupData>> consumer)
+			throws EngineException
+	{
+		if (pageSize < 1)
+			throw new IllegalArgumentException("Page size must be positive");
+		Stopwatch watch = Stopwatch.createStarted();
+		long[] members = getSortedMembers(group);
+		forEachPage(members, 0, members.length, pageSize, (pageMembers, pageData) -> 
+			consumer.accept(assembleDirectData(group, pageMembers, pageData)));
+		log.debug("Bulk streaming of direct data of {} members of {}: {}", members.length, group, 
+				watch.toString());
+	}
+
+	private long[] getSortedMembers(String group) throws EngineException
+	{
+		return tx.runInReadOnlyTransactionRetThrowing(() -> 
 		{
-			CredentialInfo credentialInfo = getCredentialInfo(e, data.entitiesData, data.globalSystemData);
-			Entity entity = assembleEntity(e, false, data.entitiesData, data.globalSystemData);
-			Map<String, AttributeExt> groupAttributesAsMap = getAllAttributesAsMap(e, data.group, 
-					data.entitiesData, data.globalSystemData);
-			Map<String, AttributeExt> rootAttributesAsMap = data.group.equals("/") ? 
-					groupAttributesAsMap : 
-					getAllAttributesAsMap(e, "/", data.entitiesData, data.globalSystemData);
-			ret.put(e, new EntityInGroupData(
-					entity,
-					data.group,
-					memberships.get(e), 
-					groupAttributesAsMap,
-					rootAttributesAsMap,
-					getEnquiryForms(e, data, credentialInfo)));
+			authz.checkAuthorization(AuthzCapability.readHidden, AuthzCapability.read);
+			return dataProvider.getSortedMembers(group);
+		});
+	}
+
+	/**
+	 * Loads data of the members from the given range page by page, each page in a separate transaction.
+	 */
+	private void forEachPage(long[] members, int start, int end, int pageSize, 
+			BiConsumer<List<Long>, EntitiesData> pageConsumer) throws EngineException
+	{
+		for (int from = start; from < end; from += pageSize)
+		{
+			List<Long> pageMembers = Arrays.stream(members, from, Math.min(from + pageSize, end))
+					.boxed()
+					.collect(Collectors.toList());
+			EntitiesData pageData = tx.runInReadOnlyTransactionRetThrowing(
+					() -> dataProvider.getEntitiesData(pageMembers));
+			pageConsumer.accept(pageMembers, pageData);
 		}
+	}
 
-		log.debug("Bulk members with groups: {}", watch.toString());
+	private static int getFirstAfter(long[] sorted, long afterEntityId)
+	{
+		if (afterEntityId == Long.MIN_VALUE)
+			return 0;
+		int position = Arrays.binarySearch(sorted, afterEntityId);
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+
+	/**
+	 * Assembles data of the given entities which are still members of the group, in parallel. 
+	 * The order of entities is preserved.
+	 */
+	private List<EntityInGroupData> assembleMembers(List<Long> entities, GroupMembershipDataImpl data,
+			BiFunction<Long, GroupMembershipDataImpl, EntityInGroupData> assembler)
+	{
+		int chunkSize = Math.max(1, (entities.size() + threads - 1) / threads);
+		List<Future<List<EntityInGroupData>>> tasks = new ArrayList<>();
+		for (List<Long> chunk: Lists.partition(entities, chunkSize))
+			tasks.add(pool.submit(() -> chunk.stream()
+					.filter(e -> isMember(e, data))
+					.map(e -> assembler.apply(e, data))
+					.collect(Collectors.toList())));
+		List<EntityInGroupData> ret = new ArrayList<>(entities.size());
+		for (Future<List<EntityInGroupData>> task: tasks)
+			ret.addAll(getResult(task));
 		return ret;
 	}
+	
+	private List<EntityInGroupData> assembleDirectData(String group, List<Long> entities, EntitiesData data)
+	{
+		List<EntityInGroupData> ret = new ArrayList<>(entities.size());
+		for (Long entityId: entities)
+		{
+			if (!isMember(entityId, group, data))
+				continue;
+			Entity entity = new Entity(data.getIdentities().get(entityId), data.getEntityInfo().get(entityId), 
+					null);
+			Map<String, Map<String, AttributeExt>> attributes = data.getDirectAttributes()
+					.getOrDefault(entityId, Collections.emptyMap());
+			ret.add(new EntityInGroupData(entity, group, data.getMemberships().get(entityId), 
+					attributes.get(group), attributes.get("/"), null));
+		}
+		return ret;
+	}
+	
+	private boolean isMember(long entityId, GroupMembershipDataImpl data)
+	{
+		return isMember(entityId, data.group, data.entitiesData);
+	}
+
+	private static boolean isMember(long entityId, String group, EntitiesData data)
+	{
+		Set<String> groups = data.getMemberships().get(entityId);
+		return groups != null && groups.contains(group);
+	}
+	
+	private EntityInGroupData assembleEntityInGroupData(long e, GroupMembershipDataImpl data)
+	{
+		CredentialInfo credentialInfo = getCredentialInfo(e, data.entitiesData, data.globalSystemData);
+		Entity entity = assembleEntity(e, false, data.entitiesData, data.globalSystemData);
+		Map<String, AttributeExt> groupAttributesAsMap = getAllAttributesAsMap(e, data.group, 
+				data.entitiesData, data.globalSystemData);
+		Map<String, AttributeExt> rootAttributesAsMap = data.group.equals("/") ? 
+				groupAttributesAsMap : 
+				getAllAttributesAsMap(e, "/", data.entitiesData, data.globalSystemData);
+		return new EntityInGroupData(
+				entity,
+				data.group,
+				data.entitiesData.getMemberships().get(e), 
+				groupAttributesAsMap,
+				rootAttributesAsMap,
+				getEnquiryForms(e, data, credentialInfo));
+	}
+
+	private EntityInGroupData assembleGroupMember(long e, GroupMembershipDataImpl data)
+	{
+		Entity entity = assembleEntity(e, false, data.entitiesData, data.globalSystemData);
+		Map<String, AttributeExt> groupAttributesAsMap = getAllAttributesAsMap(e, data.group, 
+				data.entitiesData, data.globalSystemData);
+		return new EntityInGroupData(entity, data.group, data.entitiesData.getMemberships().get(e), 
+				groupAttributesAsMap, null, null);
+	}
 
 	private Set<String> getEnquiryForms(Long e, GroupMembershipDataImpl data, CredentialInfo credentialInfo)
 	{
@@ -275,27 +512,30 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		Stopwatch watch = Stopwatch.createStarted();
 		Map<String, GroupContents> ret = new HashMap<>();
 		GroupStructuralDataImpl data = (GroupStructuralDataImpl) dataO;
-		Set<String> allGroups = data.getGroups().keySet();
+		Map<String, List<String>> subGroups = getDirectSubGroups(data.getGroups().keySet());
 		for (Group group: data.getGroups().values())
 		{
 			if (!Group.isChildOrSame(group.toString(), data.getGroup()))
 				continue;
 			GroupContents entry = new GroupContents();
 			entry.setGroup(group);
-			entry.setSubGroups(getDirectSubGroups(group.toString(), allGroups));
+			entry.setSubGroups(subGroups.getOrDefault(group.toString(), new ArrayList<>()));
 			ret.put(group.toString(), entry);
 		}
 		log.debug("Bulk group and subgroups resolve: {}", watch.toString());
 		return ret;
 	}
 	
-	private List<String> getDirectSubGroups(String root, Set<String> allGroups)
+	private Map<String, List<String>> getDirectSubGroups(Set<String> allGroups)
 	{
-		int prefix = root.length() + 1;
-		return allGroups.stream().
-				filter(g -> Group.isChild(g, root)).
-				filter(g -> !g.substring(prefix).contains("/")).
-				collect(Collectors.toList());
+		Map<String, List<String>> ret = new HashMap<>();
+		for (String group: allGroups)
+		{
+			String parent = new Group(group).getParentPath();
+			if (parent != null)
+				ret.computeIfAbsent(parent, key -> new ArrayList<>()).add(group);
+		}
+		return ret;
 	}
 	
 	private Map<Long, Entity> getGroupEntitiesNoContext(boolean includeTargeted, 
@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.engine.bulk;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -20,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 
 import pl.edu.icm.unity.base.utils.Log;
@@ -49,6 +51,7 @@ import pl.edu.icm.unity.types.basic.Identity;
 class CompositeEntitiesInfoProvider
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER, CompositeEntitiesInfoProvider.class);
+	private static final int ENTITIES_QUERY_BATCH = 500;
 	@Autowired
 	private AttributeTypeDAO attributeTypeDAO;
 	@Autowired
@@ -70,32 +73,37 @@ class CompositeEntitiesInfoProvider
 	@Autowired
 	private EnquiryFormDB enquiryDB;
 	
+	/**
+	 * When the filter is given, data of the selected entities is loaded by their ids, so the cost 
+	 * doesn't depend on the group size. 
+	 */
 	public GroupMembershipData getCompositeGroupContents(String group, Optional<Set<Long>> filter) throws EngineException
 	{
 		Stopwatch watch = Stopwatch.createStarted();
-		Set<Long> filterSet = (filter == null || !filter.isPresent() ? null : filter.get());
-		Set<Long> members = (filterSet == null ? getMembers(group)
-				: getMembers(group).stream().filter(i -> filterSet.contains(i))
-						.collect(Collectors.toSet()));
-
 		GlobalSystemData globalData = loadGlobalData();
-		EntitiesData entitiesData = getEntitiesDataOFSingleGroup(group, gm -> members.contains(gm.getEntityId()));
+		EntitiesData entitiesData = filter == null || !filter.isPresent() ? 
+				getEntitiesDataOFSingleGroup(group) : 
+				getEntitiesData(filter.get(), groups -> groups.contains(group));
 		
 		GroupMembershipDataImpl ret = new GroupMembershipDataImpl(group, globalData, entitiesData);
 		log.debug("Bulk group membership data retrieval: {}", watch.toString());
 		return ret;
 	}
 
-	private EntitiesData getEntitiesDataOFSingleGroup(String group, Predicate<GroupMembership> groupMembershipFilter)
+	private EntitiesData getEntitiesDataOFSingleGroup(String group)
 	{
 		return EntitiesData.builder()
-				.withMemberships(getFilteredMemberships(groupMembershipFilter))
+				.withMemberships(getFilteredMemberships(group, membership -> true))
 				.withEntityInfo(getEntityInfo(group))
 				.withIdentities(getIdentities(group))
 				.withDirectAttributes(getAttributes(group))				
 				.build();
 	}
 	
+	/**
+	 * Members of any group in the subtree are also members of the root group, so all data is loaded for 
+	 * the root group members only and then narrowed to the members of the accepted groups.
+	 */
 	public MultiGroupMembershipData getCompositeMultiGroupContents(String rootGroup, Set<String> groupFilter) throws EngineException
 	{
 		Stopwatch watch = Stopwatch.createStarted();
@@ -109,26 +117,74 @@ class CompositeEntitiesInfoProvider
 				.filter(groupTester)
 				.collect(Collectors.toSet());
 		
-		Map<Long, Set<String>> allMemberships = getFilteredMemberships(a -> true);
-		Set<Long> relevantMembers = allMemberships.entrySet().stream()
-			.filter(entry -> !Sets.intersection(entry.getValue(), acceptedGroups).isEmpty())
-			.map(entry -> entry.getKey())
-			.collect(Collectors.toSet());
-		Predicate<Long> entityTester = entityId -> relevantMembers.contains(entityId);
-		Map<Long, Set<String>> memberships = allMemberships.entrySet().stream()
-				.filter(entry -> entityTester.test(entry.getKey()))
-				.collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+		Map<Long, Set<String>> memberships = getFilteredMemberships(rootGroup, a -> true);
+		memberships.values().removeIf(entityGroups -> Sets.intersection(entityGroups, acceptedGroups).isEmpty());
+		Set<Long> relevantMembers = memberships.keySet();
 		EntitiesData entitiesData = EntitiesData.builder()
 				.withMemberships(memberships)
-				.withEntityInfo(getEntityInfo(entityTester))
-				.withIdentities(getIdentities(entityTester))
-				.withDirectAttributes(getAllAttributes(entityTester))				
+				.withEntityInfo(retainEntities(getEntityInfo(rootGroup), relevantMembers))
+				.withIdentities(retainEntities(getIdentities(rootGroup), relevantMembers))
+				.withDirectAttributes(retainEntities(getAttributes(rootGroup), relevantMembers))
 				.build();
 		MultiGroupMembershipData ret = new MultiGroupMembershipData(acceptedGroups, globalData, entitiesData);
 		log.debug("Bulk multi-group membership data retrieval: {}", watch.toString());
 		return ret;
 	}
 	
+	/**
+	 * @return ids of the group members, sorted
+	 */
+	long[] getSortedMembers(String group)
+	{
+		return membershipDAO.getMembers(group).stream()
+				.mapToLong(GroupMembership::getEntityId)
+				.sorted()
+				.toArray();
+	}
+	
+	/**
+	 * Loads data of the given entities only, with batched queries. Entities which were removed are skipped.
+	 */
+	EntitiesData getEntitiesData(Collection<Long> entities)
+	{
+		return getEntitiesData(entities, groups -> true);
+	}
+
+	/**
+	 * As {@link #getEntitiesData(Collection)}, but entities with groups not accepted by the filter are skipped. 
+	 */
+	private EntitiesData getEntitiesData(Collection<Long> entities, Predicate<Set<String>> groupsFilter)
+	{
+		Stopwatch watch = Stopwatch.createStarted();
+		Map<Long, Set<String>> memberships = new HashMap<>();
+		Map<Long, EntityInformation> entityInfo = new HashMap<>();
+		Map<Long, List<Identity>> identities = new HashMap<>();
+		Map<Long, Map<String, Map<String, AttributeExt>>> attributes = new HashMap<>();
+		for (List<Long> batch: Iterables.partition(entities, ENTITIES_QUERY_BATCH))
+		{
+			Map<Long, Set<String>> batchMemberships = new HashMap<>();
+			membershipDAO.getEntitiesMembership(batch).forEach(membership -> batchMemberships
+					.computeIfAbsent(membership.getEntityId(), key -> new HashSet<>())
+					.add(membership.getGroup()));
+			batchMemberships.values().removeIf(groupsFilter.negate());
+			if (batchMemberships.isEmpty())
+				continue;
+			Set<Long> accepted = batchMemberships.keySet();
+			memberships.putAll(batchMemberships);
+			entityDAO.getByKeys(accepted).forEach(entity -> entityInfo.put(entity.getId(), entity));
+			identities.putAll(mapIdentitiesByEntity(identityDAO.getByEntities(accepted).stream()));
+			attributes.putAll(mapAttributesByEntities(attributeDAO.getAttributesOfEntities(accepted).stream()));
+		}
+		EntitiesData ret = EntitiesData.builder()
+				.withMemberships(memberships)
+				.withEntityInfo(entityInfo)
+				.withIdentities(identities)
+				.withDirectAttributes(attributes)
+				.build();
+		log.debug("Bulk data retrieval of {} entities: {}", entities.size(), watch.toString());
+		return ret;
+	}
+	
 	public GroupStructuralData getGroupStructuralContents(String group) throws EngineException
 	{
 		Stopwatch watch = Stopwatch.createStarted();
@@ -140,7 +196,7 @@ class CompositeEntitiesInfoProvider
 		return ret;
 	}
 	
-	private GlobalSystemData loadGlobalData() throws EngineException
+	GlobalSystemData loadGlobalData() throws EngineException
 	{
 		Stopwatch watch = Stopwatch.createStarted();
 		GlobalSystemData ret = GlobalSystemData.builder()
@@ -169,16 +225,12 @@ class CompositeEntitiesInfoProvider
 		return mapAttributesByEntities(all.stream());
 	}
 
-	private Map<Long, Map<String, Map<String, AttributeExt>>> getAllAttributes(Predicate<Long> entityTester)
+	private static <T> Map<Long, T> retainEntities(Map<Long, T> entitiesData, Set<Long> entities)
 	{
-		Stopwatch w = Stopwatch.createStarted();
-		Stream<StoredAttribute> all = attributeDAO.getAll().stream()
-				.filter(sa -> entityTester.test(sa.getEntityId()));
-		log.debug("getAllAttrs {}", w.toString());
-		return mapAttributesByEntities(all);
+		entitiesData.keySet().retainAll(entities);
+		return entitiesData;
 	}
 	
-	
 	private Map<Long, Map<String, Map<String, AttributeExt>>> mapAttributesByEntities(Stream<StoredAttribute> all)
 	{
 		Map<Long, Map<String, Map<String, AttributeExt>>> ret = new HashMap<>();
@@ -203,13 +255,6 @@ class CompositeEntitiesInfoProvider
 			.collect(Collectors.toMap(entity -> entity.getId(), entity->entity));
 	}
 
-	private Map<Long, EntityInformation> getEntityInfo(Predicate<Long> entityTester)
-	{
-		return entityDAO.getAll().stream()
-				.filter(ei -> entityTester.test(ei.getId()))
-				.collect(Collectors.toMap(entity -> entity.getId(), entity->entity));
-	}
-	
 	private Map<Long, List<Identity>> getIdentities(String group)
 	{
 		Stopwatch w = Stopwatch.createStarted();
@@ -218,14 +263,6 @@ class CompositeEntitiesInfoProvider
 		return mapIdentitiesByEntity(all.stream());
 	}
 
-	private Map<Long, List<Identity>> getIdentities(Predicate<Long> entityTester)
-	{
-		Stopwatch w = Stopwatch.createStarted();
-		Stream<StoredIdentity> all = identityDAO.getAll().stream().filter(si -> entityTester.test(si.getEntityId()));
-		log.debug("getAllIdentities {}", w.toString());
-		return mapIdentitiesByEntity(all);
-	}
-	
 	private Map<Long, List<Identity>> mapIdentitiesByEntity(Stream<StoredIdentity> all)
 	{
 		Map<Long, List<Identity>> ret = new HashMap<>();
@@ -235,21 +272,13 @@ class CompositeEntitiesInfoProvider
 		return ret;
 	}
 	
-	private Set<Long> getMembers(String group)
-	{
-		Stopwatch w = Stopwatch.createStarted();
-		List<GroupMembership> all = membershipDAO.getMembers(group);
-		log.debug("getMembers {}", w.toString());
-		Set<Long> ret = new HashSet<>();
-		for (GroupMembership gm: all)
-			ret.add(gm.getEntityId());
-		return ret;
-	}
-	
-	private Map<Long, Set<String>> getFilteredMemberships(Predicate<GroupMembership> filter)
+	/**
+	 * @return memberships of the given group members, in all groups
+	 */
+	private Map<Long, Set<String>> getFilteredMemberships(String group, Predicate<GroupMembership> filter)
 	{
 		Stopwatch w = Stopwatch.createStarted();
-		List<GroupMembership> all = membershipDAO.getAll();
+		List<GroupMembership> all = membershipDAO.getMembershipsOfGroupMembers(group);
 		log.debug("getMemberships {}", w.toString());
 		Map<Long, Set<String>> ret = new HashMap<>();
 		all.stream()
@@ -5,28 +5,74 @@
 package pl.edu.icm.unity.engine.credential;
 
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.stdext.credential.pass.PasswordEncodingPoolProvider;
+import pl.edu.icm.unity.stdext.credential.pass.PasswordHashingAdmission;
+import pl.edu.icm.unity.stdext.credential.pass.PasswordHashingAdmission.PasswordHashingStatistics;
 
 @Configuration
 class PasswordEncodingPoolFactory
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER, PasswordEncodingPoolFactory.class);
+	private static final long STATISTICS_INTERVAL = 60;
+
 	private UnityServerConfiguration config;
-	
+	private ExecutorsService executors;
+
 	@Autowired
-	public PasswordEncodingPoolFactory(UnityServerConfiguration config)
+	public PasswordEncodingPoolFactory(UnityServerConfiguration config, ExecutorsService executors)
 	{
 		this.config = config;
+		this.executors = executors;
 	}
 
 	@Bean
 	public PasswordEncodingPoolProvider getPasswordEncodingPoolProvider()
 	{
-		return new PasswordEncodingPoolProvider(new ForkJoinPool(config.getMaxConcurrentPasswordChecks()));
+		int concurrency = config.getMaxConcurrentPasswordChecks();
+		PasswordHashingAdmission admission = new PasswordHashingAdmission(
+				concurrency + config.getMaxQueuedPasswordChecks());
+		executors.getService().scheduleWithFixedDelay(new StatisticsReporter(admission),
+				STATISTICS_INTERVAL, STATISTICS_INTERVAL, TimeUnit.SECONDS);
+		return new PasswordEncodingPoolProvider(new ForkJoinPool(concurrency), admission);
+	}
+
+	/**
+	 * Logs password hashing statistics, if there were any hashings since the previous report.
+	 */
+	private static class StatisticsReporter implements Runnable
+	{
+		private final PasswordHashingAdmission admission;
+		private long lastCompleted;
+		private long lastRejected;
+
+		StatisticsReporter(PasswordHashingAdmission admission)
+		{
+			this.admission = admission;
+		}
+
+		@Override
+		public void run()
+		{
+			PasswordHashingStatistics statistics = admission.getStatistics();
+			if (statistics.completed == lastCompleted && statistics.rejected == lastRejected)
+				return;
+			if (statistics.rejected != lastRejected)
+				log.warn("Password checks were rejected due to overload, hashing statistics: {}",
+						statistics);
+			else
+				log.debug("Password hashing statistics: {}", statistics);
+			lastCompleted = statistics.completed;
+			lastRejected = statistics.rejected;
+		}
 	}
 }
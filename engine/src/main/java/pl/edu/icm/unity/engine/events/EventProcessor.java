@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import pl.edu.icm.unity.base.event.EventExecution;
 import pl.edu.icm.unity.base.event.PersistableEvent;
 import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.api.event.EventListener;
 import pl.edu.icm.unity.engine.api.event.EventListenersManagement;
 import pl.edu.icm.unity.engine.api.event.EventPublisher;
@@ -50,12 +51,13 @@ public class EventProcessor implements EventPublisher, EventListenersManagement
 	
 	@Autowired
 	public EventProcessor(ExecutorsService executorsService, EventDAO dbEvents,
-			TransactionalRunner tx)
+			TransactionalRunner tx, UnityServerConfiguration config)
 	{
 		executorService = executorsService.getService();
 		this.dbEvents = dbEvents;
 		this.tx = tx;
-		this.asyncProcessor = new EventsProcessingThread(this, dbEvents, tx);
+		this.asyncProcessor = new EventsProcessingThread(this, dbEvents, tx,
+				config.getIntValue(UnityServerConfiguration.HEAVYWEIGHT_EVENTS_THREADS));
 		this.asyncProcessor.start();
 	}
 
@@ -132,6 +134,22 @@ public class EventProcessor implements EventPublisher, EventListenersManagement
 				EventsProcessingThread.MAX_DELAY*100000)).size());
 	}
 	
+	List<EventListener> getHeavyweightListeners()
+	{
+		lock.readLock().lock();
+		try
+		{
+			List<EventListener> ret = new ArrayList<>();
+			for (EventListener listener: listeners)
+				if (!listener.isLightweight())
+					ret.add(listener);
+			return ret;
+		} finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+	
 	EventListener getListenerById(String id)
 	{
 		lock.readLock().lock();
@@ -4,8 +4,19 @@
  */
 package pl.edu.icm.unity.engine.events;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
 
@@ -16,8 +27,19 @@ import pl.edu.icm.unity.store.api.EventDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 
 /**
- * Processes heavy-weight events: takes pending ones from DB and tries to invoke them one by one.
- * 
+ * Processes heavy-weight events: takes pending ones from DB and dispatches them to a pool of workers.
+ * Each event is handled outside of a transaction and its outcome is committed separately, so a slow
+ * listener neither blocks other listeners nor holds a long DB transaction.
+ * <p>
+ * Events which are being handled are claimed, so they are not dispatched again. A claim is released
+ * by the dispatcher, only after the outcome of handling was committed. The number of
+ * concurrently handled events of a single listener is limited by {@link EventListener#getMaxConcurrency()}:
+ * for each listener only as many events are loaded from DB as it has free slots, without the claimed ones.
+ * Remaining events are left in DB and are dispatched when the listener finishes its work.
+ * Events of listeners which are not registered are left in DB too.
+ * The thread is woken up when a new event is stored, otherwise it checks DB in fixed intervals,
+ * for events scheduled for retry. Handling statistics are logged periodically.
+ *
  * @author K. Benedyczak
  */
 public class EventsProcessingThread extends Thread
@@ -26,53 +48,141 @@ public class EventsProcessingThread extends Thread
 	public static final long INTERVAL = 30000;
 	public static final long DELAY = 30000;
 	public static final long MAX_DELAY = 3600000;
+	public static final long STATISTICS_LOG_INTERVAL = 600000;
+	static final int MAX_DISPATCHED_PER_LISTENER = 100;
 	private EventDAO dbEvents;
 	private EventProcessor eventProcessor;
 	private TransactionalRunner tx;
-	
-	public EventsProcessingThread(EventProcessor processor, EventDAO dbEvents, TransactionalRunner tx)
+	private ExecutorService workers;
+	private Map<String, Set<Long>> claimedEvents = new HashMap<>();
+	private Queue<EventExecution> finishedEvents = new ConcurrentLinkedQueue<>();
+	private Map<String, AtomicInteger> runningPerListener = new ConcurrentHashMap<>();
+	private Map<String, HeavyweightListenerStatistics> statistics = new ConcurrentHashMap<>();
+	private volatile boolean deferredEvents;
+	private boolean wakeUpRequested;
+	private long lastStatisticsLog = System.currentTimeMillis();
+
+	public EventsProcessingThread(EventProcessor processor, EventDAO dbEvents, TransactionalRunner tx,
+			int workersNumber)
 	{
 		this.tx = tx;
 		setDaemon(true);
+		setName("Heavyweight events dispatcher");
 		this.dbEvents = dbEvents;
 		this.eventProcessor = processor;
+		AtomicInteger workerId = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workersNumber, runnable -> {
+			Thread worker = new Thread(runnable, "Heavyweight events worker " + workerId.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
 	}
-	
+
 	public void run()
 	{
 		while(true)
 		{
-			synchronized(this)
+			waitForWork();
+			try
+			{
+				dispatchEligibleEvents();
+			} catch (Exception e)
 			{
-				try
-				{
-					wait(INTERVAL);
-				} catch (InterruptedException e) {}
-
-				tx.runInTransaction(() -> {
-					List<EventExecution> events = dbEvents.getEligibleForProcessing(new Date());
-					for (EventExecution event: events)
-						handleHeavyweightEvent(event);
-				});
+				log.error("Can not dispatch heavyweight events", e);
 			}
+			logStatisticsPeriodically();
 		}
 	}
-	
+
 	public synchronized void wakeUp()
 	{
+		wakeUpRequested = true;
 		notify();
 	}
-	
-	private void handleHeavyweightEvent(EventExecution event)
+
+	Map<String, HeavyweightListenerStatistics> getStatistics()
 	{
-		EventListener listener = eventProcessor.getListenerById(event.getListenerId());
-		if (listener == null)
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	private synchronized void waitForWork()
+	{
+		try
+		{
+			if (!wakeUpRequested)
+				wait(INTERVAL);
+		} catch (InterruptedException e) {}
+		wakeUpRequested = false;
+	}
+
+	void dispatchEligibleEvents()
+	{
+		EventExecution finished;
+		while ((finished = finishedEvents.poll()) != null)
+			claimedEvents.get(finished.getListenerId()).remove(finished.getId());
+		deferredEvents = false;
+		Date now = new Date();
+		for (EventListener listener: eventProcessor.getHeavyweightListeners())
+			dispatchEligibleEvents(listener, now);
+	}
+
+	private void dispatchEligibleEvents(EventListener listener, Date now)
+	{
+		AtomicInteger running = runningPerListener.computeIfAbsent(listener.getId(),
+				id -> new AtomicInteger());
+		int freeSlots = Math.min(listener.getMaxConcurrency() - running.get(), MAX_DISPATCHED_PER_LISTENER);
+		if (freeSlots <= 0)
+		{
+			deferredEvents = true;
+			return;
+		}
+		Set<Long> claimed = claimedEvents.computeIfAbsent(listener.getId(), id -> new HashSet<>());
+		List<EventExecution> events = tx.runInTransactionRet(() ->
+			dbEvents.getEligibleForProcessing(now, listener.getId(), new HashSet<>(claimed), freeSlots));
+		for (EventExecution event: events)
 		{
-			log.info("Dropping event for not existing listener " + event.getListenerId());
+			running.incrementAndGet();
+			claimed.add(event.getId());
+			workers.execute(() -> handleClaimedEvent(event, listener));
+		}
+		if (events.size() == freeSlots)
+			deferredEvents = true;
+	}
+
+	private void logStatisticsPeriodically()
+	{
+		long now = System.currentTimeMillis();
+		if (now - lastStatisticsLog < STATISTICS_LOG_INTERVAL)
 			return;
+		lastStatisticsLog = now;
+		statistics.forEach((listenerId, listenerStats) -> 
+			log.info("Heavyweight events handled by {}: {}", listenerId, listenerStats));
+	}
+
+	private void handleClaimedEvent(EventExecution event, EventListener listener)
+	{
+		try
+		{
+			handleHeavyweightEvent(event, listener);
+		} catch (Exception e)
+		{
+			log.error("Can not store outcome of event " + event.getId() + " processing, "
+					+ "it will be handled again", e);
+		} finally
+		{
+			finishedEvents.add(event);
+			runningPerListener.get(listener.getId()).decrementAndGet();
+			if (deferredEvents)
+				wakeUp();
 		}
-		
+	}
+
+	private void handleHeavyweightEvent(EventExecution event, EventListener listener)
+	{
+		HeavyweightListenerStatistics listenerStats = statistics.computeIfAbsent(listener.getId(),
+				id -> new HeavyweightListenerStatistics());
 		boolean result;
+		long start = System.currentTimeMillis();
 		try
 		{
 			if (log.isDebugEnabled())
@@ -85,10 +195,12 @@ public class EventsProcessingThread extends Thread
 			log.warn("Event for " + event.getListenerId() + " thrown an exception", t);
 			result = false;
 		}
+		listenerStats.recordProcessingTime(System.currentTimeMillis() - start);
 
 		if (result)
 		{
-			dbEvents.deleteByKey(event.getId());
+			tx.runInTransaction(() -> dbEvents.deleteByKey(event.getId()));
+			listenerStats.recordSuccess();
 			log.debug("Event " + event.getId() + " successfully handled");
 		} else
 		{
@@ -96,16 +208,18 @@ public class EventsProcessingThread extends Thread
 			if (listener.getMaxFailures() <= failures)
 			{
 				log.warn("Dropping event for " + event.getListenerId() + " after too many failures");
-				dbEvents.deleteByKey(event.getId());
+				tx.runInTransaction(() -> dbEvents.deleteByKey(event.getId()));
+				listenerStats.recordDrop();
 				return;
 			}
 			Date newExecution = new Date(System.currentTimeMillis() + getDelay(failures));
-			dbEvents.updateExecution(event.getId(), newExecution, failures);
+			tx.runInTransaction(() -> dbEvents.updateExecution(event.getId(), newExecution, failures));
+			listenerStats.recordRetry();
 		}
 	}
-	
+
 	private long getDelay(int failures)
 	{
-		return failures < 10 ? failures * DELAY : MAX_DELAY; 
+		return failures < 10 ? failures * DELAY : MAX_DELAY;
 	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of heavy-weight events handled by a single listener. Updated concurrently by event workers.
+ */
+public class HeavyweightListenerStatistics
+{
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder drops = new LongAdder();
+	private final LongAdder handlingTime = new LongAdder();
+	private final AtomicLong maxHandlingTime = new AtomicLong();
+
+	void recordSuccess()
+	{
+		successes.increment();
+	}
+
+	void recordRetry()
+	{
+		retries.increment();
+	}
+
+	void recordDrop()
+	{
+		drops.increment();
+	}
+
+	void recordProcessingTime(long ms)
+	{
+		handlingTime.add(ms);
+		maxHandlingTime.accumulateAndGet(ms, Math::max);
+	}
+
+	/**
+	 * @return number of events handled successfully
+	 */
+	public long getSuccesses()
+	{
+		return successes.sum();
+	}
+
+	/**
+	 * @return number of failed attempts which were scheduled for retry
+	 */
+	public long getRetries()
+	{
+		return retries.sum();
+	}
+
+	/**
+	 * @return number of events dropped after too many failures
+	 */
+	public long getDrops()
+	{
+		return drops.sum();
+	}
+
+	public long getAverageHandlingTime()
+	{
+		long handled = getSuccesses() + getRetries() + getDrops();
+		return handled == 0 ? 0 : handlingTime.sum() / handled;
+	}
+
+	public long getMaxHandlingTime()
+	{
+		return maxHandlingTime.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "successes=" + getSuccesses() + ", retries=" + getRetries() + ", drops=" + getDrops()
+				+ ", avgTime=" + getAverageHandlingTime() + "ms, maxTime=" + getMaxHandlingTime() + "ms";
+	}
+}
@@ -13,7 +13,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -166,11 +165,8 @@ public class GroupHelper
 	public void removeFromGroups(long entityId, Set<String> toRemove)
 	{
 		Set<String> entityMembership = membershipDAO.getEntityMembershipSimple(entityId);
-		Set<String> topLevelGroups = groupDAO.getAll().stream().filter(g -> g.isTopLevel())
-				.map(g -> g.toString()).collect(Collectors.toSet());
-		
 		Set<String> toRemoveOnlyParents = establishOnlyParentGroups(toRemove);
-		toRemoveOnlyParents.removeAll(topLevelGroups);
+		toRemoveOnlyParents.remove("/");
 
 		for (String groupToRemove : toRemoveOnlyParents)
 		{
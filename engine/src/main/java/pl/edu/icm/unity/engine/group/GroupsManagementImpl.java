@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +39,7 @@ import pl.edu.icm.unity.engine.audit.AuditEventTrigger.AuditEventTriggerBuilder;
 import pl.edu.icm.unity.engine.audit.AuditPublisher;
 import pl.edu.icm.unity.engine.authz.AuthzCapability;
 import pl.edu.icm.unity.engine.authz.InternalAuthorizationManager;
+import pl.edu.icm.unity.engine.authz.RoleAttributeTypeProvider;
 import pl.edu.icm.unity.engine.capacityLimits.InternalCapacityLimitVerificator;
 import pl.edu.icm.unity.engine.events.InvocationEventProducer;
 import pl.edu.icm.unity.exceptions.AuthorizationException;
@@ -147,13 +149,20 @@ public class GroupsManagementImpl implements GroupsManagement
 		authz.checkAuthorization(path, AuthzCapability.groupModify);
 		if ("/".equals(path))
 			throw new IllegalGroupValueException("Removing the root group is forbidden");
-		if (!recursive && !getSubGroups(path).isEmpty())
+		Set<String> subtree = dbGroups.getDescendantsNames(path);
+		if (!recursive && !subtree.isEmpty())
 			throw new IllegalGroupValueException("The group contains subgroups");
+		subtree = new HashSet<>(subtree);
+		subtree.add(path);
+		long memberships = membershipDAO.getMembershipsCount(subtree);
 		dbGroups.delete(path);
+		authz.clearGroupCache(path);
 		audit.log(AuditEventTrigger.builder()
 				.type(AuditEventType.GROUP)
 				.action(AuditEventAction.REMOVE)
 				.name(path)
+				.details(ImmutableMap.of("subgroups", String.valueOf(subtree.size() - 1), 
+						"memberships", String.valueOf(memberships)))
 				.tags(GROUPS));
 	}
 
@@ -186,6 +195,9 @@ public class GroupsManagementImpl implements GroupsManagement
 			groupHelper.addMemberFromParent(path, entity, idp, translationProfile, new Date());
 
 			attributesHelper.addAttributesList(attributes, entityId, true);
+			if (attributes.stream().anyMatch(attribute -> 
+					RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attribute.getName())))
+				authz.clearEntityCache(entityId);
 		}); 
 		
 		//careful - must be after the transaction is committed
@@ -220,6 +232,7 @@ public class GroupsManagementImpl implements GroupsManagement
 				dbAttributes.deleteAttributesInGroup(entityId, group);
 			}
 		}
+		authz.clearEntityCache(entityId);
 	}
 
 	@Override
@@ -243,7 +256,7 @@ public class GroupsManagementImpl implements GroupsManagement
 		GroupContents ret = new GroupContents();
 		if ((filter & GroupContents.GROUPS) != 0)
 		{
-			List<String> directSubGroups = getDirectSubGroups(path);
+			List<String> directSubGroups = dbGroups.getChildrenNames(path);
 			ret.setSubGroups(directSubGroups);
 		}
 		if ((filter & GroupContents.MEMBERS) != 0)
@@ -322,6 +335,8 @@ public class GroupsManagementImpl implements GroupsManagement
 					+ "unsupported. Only displayed name can be changed.");
 		groupHelper.validateGroupStatements(group);
 		AttributeClassUtil.validateAttributeClasses(group.getAttributesClasses(), acDB);
+		//attribute statements may assign roles
+		authz.clearGroupCache(path);
 		List<GroupMembership> gc = membershipDAO.getMembers(path);
 		Map<String, AttributeType> allTypes = attributeTypeDAO.getAllAsMap();
 
@@ -339,7 +354,7 @@ public class GroupsManagementImpl implements GroupsManagement
 		{
 			if (!group.isPublic())
 			{
-				assertChildrenArePublic(actual, getDirectSubGroups(path));
+				assertChildrenArePublic(actual, dbGroups.getChildrenNames(path));
 			} else
 			{
 				assertParentIsPrivate(group);
@@ -394,28 +409,10 @@ public class GroupsManagementImpl implements GroupsManagement
 	
 	private Set<String> getSubGroupsInclusive(String root)
 	{
-		Set<String> allGroups = dbGroups.getAllNames();
-		return allGroups.stream().
-				filter(g -> Group.isChildOrSame(g, root)).
-				collect(Collectors.toSet());
-	}
-
-	private Set<String> getSubGroups(String root)
-	{
-		Set<String> allGroups = dbGroups.getAllNames();
-		return allGroups.stream().
-				filter(g -> Group.isChild(g, root)).
-				collect(Collectors.toSet());
-	}
-
-	private List<String> getDirectSubGroups(String root)
-	{
-		Set<String> allGroups = dbGroups.getAllNames();
-		int prefix = root.length() + 1;
-		return allGroups.stream().
-				filter(g -> Group.isChild(g, root)).
-				filter(g -> !g.substring(prefix).contains("/")).
-				collect(Collectors.toList());
+		Set<String> ret = new HashSet<>(dbGroups.getDescendantsNames(root));
+		if (!ret.isEmpty() || dbGroups.exists(root))
+			ret.add(root);
+		return ret;
 	}
 	
 	private void assertChildrenArePublic(Group group, List<String> childs) throws EngineException
@@ -607,6 +607,7 @@ public class EntityManagementImpl implements EntityManagement
 		sendNotification(entityId, cfg.getValue(UnityServerConfiguration.ACCOUNT_REMOVED_NOTIFICATION));
 		AuditEntity auditEntity = auditEventListener.createAuditEntity(entityId);
 		entityDAO.deleteByKey(entityId);
+		authz.clearEntityCache(entityId);
 		auditPublisher.log(AuditEventTrigger.builder()
 				.type(AuditEventType.ENTITY)
 				.action(AuditEventAction.REMOVE)
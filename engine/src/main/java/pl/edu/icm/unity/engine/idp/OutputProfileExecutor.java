@@ -59,8 +59,9 @@ class OutputProfileExecutor
 		OutputTranslationProfile profileInstance;
 		if (profile != null)
 		{
-			profileInstance = new OutputTranslationProfile(profile, outputProfileRepo, 
-					actionsRegistry, attrValueConverter);
+			profileInstance = outputProfileRepo.getProfileInstance(profile, 
+					toInstantiate -> new OutputTranslationProfile(toInstantiate, outputProfileRepo, 
+							actionsRegistry, attrValueConverter));
 		} else
 		{
 			profileInstance = defaultProfile;
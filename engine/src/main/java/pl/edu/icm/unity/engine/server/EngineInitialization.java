@@ -34,6 +34,7 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.mvel2.optimizers.OptimizerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -60,6 +61,7 @@ import pl.edu.icm.unity.engine.api.RealmsManagement;
 import pl.edu.icm.unity.engine.api.TranslationProfileManagement;
 import pl.edu.icm.unity.engine.api.attributes.SystemAttributesProvider;
 import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration.MVELOptimizer;
 import pl.edu.icm.unity.engine.api.confirmation.EmailConfirmationServletProvider;
 import pl.edu.icm.unity.engine.api.event.EventCategory;
 import pl.edu.icm.unity.engine.api.identity.IdentityTypeDefinition;
@@ -87,7 +89,9 @@ import pl.edu.icm.unity.engine.msg.MessageRepository;
 import pl.edu.icm.unity.engine.msgtemplate.MessageTemplateInitializatior;
 import pl.edu.icm.unity.engine.scripts.ScriptTriggeringEventListener;
 import pl.edu.icm.unity.engine.translation.TranslationProfileChecker;
+import pl.edu.icm.unity.engine.translation.in.InputTranslationProfileRepository;
 import pl.edu.icm.unity.engine.translation.in.SystemInputTranslationProfileProvider;
+import pl.edu.icm.unity.engine.translation.out.OutputTranslationProfileRepository;
 import pl.edu.icm.unity.engine.translation.out.SystemOutputTranslationProfileProvider;
 import pl.edu.icm.unity.engine.utils.FileWatcher;
 import pl.edu.icm.unity.engine.utils.LifecycleBase;
@@ -120,6 +124,7 @@ import pl.edu.icm.unity.types.basic.GroupContents;
 import pl.edu.icm.unity.types.basic.Identity;
 import pl.edu.icm.unity.types.basic.IdentityParam;
 import pl.edu.icm.unity.types.basic.IdentityType;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.endpoint.EndpointConfiguration;
 import pl.edu.icm.unity.types.endpoint.ResolvedEndpoint;
 import pl.edu.icm.unity.types.translation.ProfileMode;
@@ -232,6 +237,10 @@ public class EngineInitialization extends LifecycleBase
 	@Autowired
 	private SystemOutputTranslationProfileProvider systemOutputProfileProvider;
 	@Autowired
+	private InputTranslationProfileRepository inputProfileRepository;
+	@Autowired
+	private OutputTranslationProfileRepository outputProfileRepository;
+	@Autowired
 	private CredentialRepository credRepo;
 	@Autowired
 	private EntityCredentialsHelper entityCredHelper;
@@ -253,6 +262,7 @@ public class EngineInitialization extends LifecycleBase
 	{
 		try
 		{
+			initializeMVEL();
 			initializeMessageRepository();
 			installEventListeners();
 			endpointsLoadTime = System.currentTimeMillis();
@@ -262,6 +272,7 @@ public class EngineInitialization extends LifecycleBase
 				initializeDatabaseContents();
 			else
 				log.info("Unity is configured to SKIP DATABASE LOADING FROM CONFIGURATION");
+			warmUpCompiledExpressionsCache();
 			startLogConfigurationMonitoring();
 			initializeBackgroundTasks();
 			deployConfirmationServlet();
@@ -275,6 +286,28 @@ public class EngineInitialization extends LifecycleBase
 		}
 	}
 
+	private void initializeMVEL()
+	{
+		MVELCompiledExpressionsCache.setMaxSize(config.getIntValue(UnityServerConfiguration.MVEL_CACHE_SIZE));
+		OptimizerFactory.setDefaultOptimizer(
+				config.getEnumValue(UnityServerConfiguration.MVEL_OPTIMIZER, MVELOptimizer.class).name());
+	}
+
+	private void warmUpCompiledExpressionsCache()
+	{
+		try
+		{
+			int profiles = tx.runInTransactionRetThrowing(() -> profileHelper.compileAllProfiles());
+			MVELCompiledExpressionsCache.Statistics stats = MVELCompiledExpressionsCache.getStatistics();
+			log.info("Compiled MVEL expressions of " + profiles + " translation profiles, "
+					+ MVELCompiledExpressionsCache.getSize() + " expressions are cached, compilation took "
+					+ TimeUnit.NANOSECONDS.toMillis(stats.totalCompilationTime()) + "ms");
+		} catch (Exception e)
+		{
+			log.warn("Can not compile MVEL expressions of translation profiles", e);
+		}
+	}
+
 	private void initializeMessageRepository()
 	{
 		tx.runInTransaction(() -> messageRepository.reload());
@@ -314,6 +347,24 @@ public class EngineInitialization extends LifecycleBase
 		executors.getService().scheduleWithFixedDelay(attributeStatementsUpdater, interval * 10, interval * 10,
 				TimeUnit.SECONDS);
 
+		Runnable translationProfilesUpdater = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					inputProfileRepository.refreshInstances();
+					outputProfileRepository.refreshInstances();
+				} catch (Exception e)
+				{
+					log.error("Can't update instances of translation profiles", e);
+				}
+			}
+		};
+		executors.getService().scheduleWithFixedDelay(translationProfilesUpdater, interval, interval,
+				TimeUnit.SECONDS);
+
 		Runnable expiredIdentitiesCleaner = new Runnable()
 		{
 			@Override
@@ -93,13 +93,23 @@ public class ServerManagementImpl implements ServerManagement
 	@Override
 	@Transactional
 	public File exportDb(DBDumpContentElements content) throws EngineException
+	{
+		return exportDb(content, false);
+	}
+
+	@Override
+	@Transactional
+	public File exportDb(DBDumpContentElements content, boolean compressed) throws EngineException
 	{
 		authz.checkAuthorization(AuthzCapability.maintenance);
 		try
 		{
-			File exportFile = createExportFile();
+			File exportFile = createExportFile(compressed);
 			BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(exportFile));
-			dbDump.store(os, content);
+			if (compressed)
+				dbDump.storeCompressed(os, content);
+			else
+				dbDump.store(os, content);
 			return exportFile;
 		} catch (JsonGenerationException e)
 		{
@@ -210,12 +220,12 @@ public class ServerManagementImpl implements ServerManagement
 		return "export-";
 	}
 	
-	private String getExportFileSuffix()
+	private String getExportFileSuffix(boolean compressed)
 	{
-		return ".json";
+		return compressed ? ".json.gz" : ".json";
 	}
 	
-	private File createExportFile() throws IOException
+	private File createExportFile(boolean compressed) throws IOException
 	{
 		File exportDir = getExportDirectory();
 		String[] list = exportDir.list();
@@ -224,7 +234,7 @@ public class ServerManagementImpl implements ServerManagement
 		if (list.length > 1)
 			throw new IOException("Maximum number of database dumps was reached. " +
 					"Subsequent dumps can be created in few minutes.");
-		return File.createTempFile(getExportFilePrefix(), getExportFileSuffix(), exportDir);
+		return File.createTempFile(getExportFilePrefix(), getExportFileSuffix(compressed), exportDir);
 	}
 
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store of the last activity time of login sessions. Recording an activity only updates
+ * the in-memory timestamp, modified timestamps are collected with {@link #drainModified()} to be written
+ * to DB in batches.
+ * <p>
+ * Sessions are also scheduled in a time ordered expiry index, with 1s resolution. Activity doesn't
+ * touch the index: when the scheduled time of a session passes, {@link #pollExpired(long)} reschedules
+ * it if it was active in the meantime, and returns it otherwise. Therefore finding idle sessions costs
+ * time proportional to the number of sessions which were due, not to the number of all sessions.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author K. Benedyczak
+ */
+class SessionActivityTracker
+{
+	static final long EXPIRY_RESOLUTION = 1000;
+
+	enum ActivityStatus {RECORDED, EXPIRED, UNKNOWN}
+
+	private final ConcurrentMap<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+	private final Set<String> modified = ConcurrentHashMap.newKeySet();
+	private final TreeMap<Long, List<String>> expiryIndex = new TreeMap<>();
+
+	/**
+	 * Starts tracking of a session or updates the last usage time of an already tracked one.
+	 * The session is not marked as modified.
+	 */
+	void track(String id, long lastUsed, long maxInactivity)
+	{
+		TrackedSession session = sessions.computeIfAbsent(id, key -> new TrackedSession(lastUsed, maxInactivity));
+		session.maxInactivity = maxInactivity;
+		session.updateLastUsed(lastUsed);
+		synchronized (expiryIndex)
+		{
+			if (!session.scheduled)
+				schedule(id, session);
+		}
+	}
+
+	/**
+	 * Records session activity, unless the session is not tracked or is already expired.
+	 */
+	ActivityStatus recordActivity(String id, long now)
+	{
+		TrackedSession session = sessions.get(id);
+		if (session == null)
+			return ActivityStatus.UNKNOWN;
+		if (session.isExpiredAt(now))
+			return ActivityStatus.EXPIRED;
+		session.updateLastUsed(now);
+		modified.add(id);
+		return ActivityStatus.RECORDED;
+	}
+
+	/**
+	 * @return the last recorded usage time of the session or null if it is not tracked
+	 */
+	Long getLastUsed(String id)
+	{
+		TrackedSession session = sessions.get(id);
+		return session == null ? null : session.lastUsed.get();
+	}
+
+	/**
+	 * @return last usage times of sessions with activity recorded since the previous call
+	 */
+	Map<String, Long> drainModified()
+	{
+		Map<String, Long> ret = new HashMap<>();
+		Iterator<String> iterator = modified.iterator();
+		while (iterator.hasNext())
+		{
+			String id = iterator.next();
+			iterator.remove();
+			TrackedSession session = sessions.get(id);
+			if (session != null)
+				ret.put(id, session.lastUsed.get());
+		}
+		return ret;
+	}
+
+	/**
+	 * @return ids of sessions which were idle for longer than their maximum inactivity time. The returned
+	 * sessions are no longer scheduled in the expiry index, but are still tracked: the caller should
+	 * either {@link #remove(String)} them or {@link #track(String, long, long)} them again.
+	 */
+	List<String> pollExpired(long now)
+	{
+		List<String> ret = new ArrayList<>();
+		synchronized (expiryIndex)
+		{
+			List<List<String>> due = new ArrayList<>(expiryIndex.headMap(now, true).values());
+			expiryIndex.headMap(now, true).clear();
+			for (List<String> slot: due)
+				for (String id: slot)
+				{
+					TrackedSession session = sessions.get(id);
+					if (session == null)
+						continue;
+					if (session.isExpiredAt(now))
+					{
+						session.scheduled = false;
+						ret.add(id);
+					} else
+					{
+						schedule(id, session);
+					}
+				}
+		}
+		return ret;
+	}
+
+	void remove(String id)
+	{
+		sessions.remove(id);
+		modified.remove(id);
+	}
+
+	int size()
+	{
+		return sessions.size();
+	}
+
+	private void schedule(String id, TrackedSession session)
+	{
+		long expiry = session.lastUsed.get() + session.maxInactivity;
+		long slot = (expiry / EXPIRY_RESOLUTION + 1) * EXPIRY_RESOLUTION;
+		expiryIndex.computeIfAbsent(slot, key -> new ArrayList<>()).add(id);
+		session.scheduled = true;
+	}
+
+	private static class TrackedSession
+	{
+		private final AtomicLong lastUsed;
+		private volatile long maxInactivity;
+		private boolean scheduled;
+
+		TrackedSession(long lastUsed, long maxInactivity)
+		{
+			this.lastUsed = new AtomicLong(lastUsed);
+			this.maxInactivity = maxInactivity;
+		}
+
+		void updateLastUsed(long used)
+		{
+			lastUsed.accumulateAndGet(used, Math::max);
+		}
+
+		boolean isExpiredAt(long now)
+		{
+			return now - lastUsed.get() > maxInactivity;
+		}
+	}
+}
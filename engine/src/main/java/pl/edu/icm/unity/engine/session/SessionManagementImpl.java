@@ -10,12 +10,12 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -39,6 +39,7 @@ import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.engine.attribute.AttributesHelper;
 import pl.edu.icm.unity.engine.audit.AuditEventTrigger;
 import pl.edu.icm.unity.engine.audit.AuditPublisher;
+import pl.edu.icm.unity.engine.session.SessionActivityTracker.ActivityStatus;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.exceptions.InternalException;
 import pl.edu.icm.unity.exceptions.WrongArgumentException;
@@ -56,6 +57,10 @@ import pl.edu.icm.unity.types.basic.audit.AuditEventType;
 
 /**
  * Implementation of {@link SessionManagement}
+ * <p>
+ * Session activity is recorded in memory, with {@link SessionActivityTracker}, and is written to DB 
+ * in background, in batches. Idle sessions are found with the tracker's expiry index. All session tokens
+ * are scanned only at startup and then occasionally, to pick up sessions not known to this node.
  * @author K. Benedyczak
  */
 @Component
@@ -63,6 +68,8 @@ public class SessionManagementImpl implements SessionManagement
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER, SessionManagementImpl.class);
 	public static final long DB_ACTIVITY_WRITE_DELAY = 3000;
+	private static final int DB_ACTIVITY_WRITE_BATCH = 500;
+	private static final long FULL_SCAN_INTERVAL = TimeUnit.HOURS.toMillis(1);
 	public static final String SESSION_TOKEN_TYPE = "session";
 	private TokensManagement tokensManagement;
 	private LoginToHttpSessionBinder sessionBinder;
@@ -72,10 +79,7 @@ public class SessionManagementImpl implements SessionManagement
 	private final AuditPublisher auditPublisher;
 	private final TransactionalRunner tx;
 	
-	/**
-	 * map of timestamps indexed by session ids, when the last activity update was written to DB.
-	 */
-	private Map<String, Long> recentUsageUpdates = new WeakHashMap<>();
+	private final SessionActivityTracker activityTracker = new SessionActivityTracker();
 	
 	@Autowired
 	public SessionManagementImpl(TokensManagement tokensManagement, ExecutorsService execService,
@@ -93,6 +97,8 @@ public class SessionManagementImpl implements SessionManagement
 		this.tx = tx;
 		execService.getService().scheduleWithFixedDelay(new TerminateInactiveSessions(), 
 				20, 30, TimeUnit.SECONDS);
+		execService.getService().scheduleWithFixedDelay(this::storeSessionActivity, 
+				DB_ACTIVITY_WRITE_DELAY, DB_ACTIVITY_WRITE_DELAY, TimeUnit.MILLISECONDS);
 	}
 
 	@Override
@@ -119,6 +125,7 @@ public class SessionManagementImpl implements SessionManagement
 					byte[] contents = ret.getTokenContents();
 					tokensManagement.updateToken(SESSION_TOKEN_TYPE,
 							ret.getId(), null, contents);
+					activityTracker.track(ret.getId(), now.getTime(), ret.getMaxInactivity());
 
 					if (log.isDebugEnabled())
 						log.debug("Using existing session " + ret.getId()
@@ -180,6 +187,7 @@ public class SessionManagementImpl implements SessionManagement
 		{
 			tokensManagement.addToken(SESSION_TOKEN_TYPE, id, new EntityParam(loggedEntity), 
 					ls.getTokenContents(), ls.getStarted(), ls.getExpires());
+			activityTracker.track(id, now.getTime(), ls.getMaxInactivity());
 			updateLoginAttributes(loggedEntity, ls.getStarted());
 			auditLogSession(ls, loggedEntity, firstFactorOptionId, secondFactorOptionId, realm);
 		} catch (Exception e)
@@ -232,6 +240,7 @@ public class SessionManagementImpl implements SessionManagement
 
 	private void removeSessionTransactional(String id, boolean soft)
 	{
+		activityTracker.remove(id);
 		sessionBinder.removeLoginSession(id, soft);
 		try
 		{
@@ -257,6 +266,7 @@ public class SessionManagementImpl implements SessionManagement
 	{
 		Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
 		LoginSession session = token2session(token);
+		applyRecordedActivity(session);
 		if (session.isExpiredAt(System.currentTimeMillis()))
 			throw new SessionExpiredException();
 		log.trace("Returning session {} last used at {} maxInactivity {}", id, session.getLastUsed(), 
@@ -272,6 +282,7 @@ public class SessionManagementImpl implements SessionManagement
 		for (Token token: tokens)
 		{
 			LoginSession ls = token2session(token);
+			applyRecordedActivity(ls);
 			if (realm.equals(ls.getRealm()) && !ls.isExpiredAt(System.currentTimeMillis()))
 				return ls;
 		}
@@ -290,21 +301,25 @@ public class SessionManagementImpl implements SessionManagement
 	}
 	
 	@Override
-	@Transactional
 	public void updateSessionActivity(String id)
 	{
-		Long lastWrite = recentUsageUpdates.get(id);
-		if (lastWrite != null)
-		{
-			if (System.currentTimeMillis() < lastWrite + DB_ACTIVITY_WRITE_DELAY)
-				return;
-		}
-		
-		if (!updateSession(id, session -> session.setLastUsed(new Date())))
+		long now = System.currentTimeMillis();
+		ActivityStatus status = activityTracker.recordActivity(id, now);
+		//the tracked last usage time is local to this node, the session might have been used
+		//on other node in the meantime: the stored session decides about expiration.
+		if (status != ActivityStatus.RECORDED)
+			status = recordActivityOfStoredSession(id, now);
+		if (status == ActivityStatus.EXPIRED)
 			throw new SessionExpiredException();
-
-		log.trace("Updated in db session activity timestamp for " + id);
-		recentUsageUpdates.put(id, System.currentTimeMillis());
+		log.trace("Recorded session activity timestamp for {}", id);
+	}
+	
+	private ActivityStatus recordActivityOfStoredSession(String id, long now)
+	{
+		Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
+		LoginSession session = token2session(token);
+		activityTracker.track(id, session.getLastUsed().getTime(), session.getMaxInactivity());
+		return activityTracker.recordActivity(id, now);
 	}
 	
 	@Override
@@ -328,6 +343,7 @@ public class SessionManagementImpl implements SessionManagement
 	{
 		Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
 		LoginSession session = token2session(token);
+		applyRecordedActivity(session);
 		
 		if (session.isExpiredAt(System.currentTimeMillis()))
 			return false;
@@ -340,6 +356,56 @@ public class SessionManagementImpl implements SessionManagement
 		return true;
 	}
 	
+	/**
+	 * Activity recorded in memory can be newer than the one stored in DB.
+	 */
+	private void applyRecordedActivity(LoginSession session)
+	{
+		Long lastUsed = activityTracker.getLastUsed(session.getId());
+		if (lastUsed != null && lastUsed > session.getLastUsed().getTime())
+			session.setLastUsed(new Date(lastUsed));
+	}
+
+	private void storeSessionActivity()
+	{
+		Map<String, Long> modified = activityTracker.drainModified();
+		if (modified.isEmpty())
+			return;
+		List<Map.Entry<String, Long>> toStore = new ArrayList<>(modified.entrySet());
+		for (int i = 0; i < toStore.size(); i += DB_ACTIVITY_WRITE_BATCH)
+		{
+			List<Map.Entry<String, Long>> batch = toStore.subList(i, 
+					Math.min(i + DB_ACTIVITY_WRITE_BATCH, toStore.size()));
+			try
+			{
+				tx.runInTransaction(() -> batch.forEach(
+						entry -> storeSessionActivity(entry.getKey(), entry.getValue())));
+			} catch (Exception e)
+			{
+				log.warn("Can not store activity of " + batch.size() + " sessions, "
+						+ "it will be stored with the next activity of the session", e);
+			}
+		}
+		log.trace("Stored activity timestamps of {} sessions", modified.size());
+	}
+
+	private void storeSessionActivity(String id, long lastUsed)
+	{
+		try
+		{
+			Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
+			LoginSession session = token2session(token);
+			if (session.getLastUsed().getTime() >= lastUsed)
+				return;
+			session.setLastUsed(new Date(lastUsed));
+			tokensManagement.updateToken(SESSION_TOKEN_TYPE, id, null, session.getTokenContents());
+		} catch (IllegalArgumentException e)
+		{
+			//removed in the meantime - ok
+			activityTracker.remove(id);
+		}
+	}
+	
 	private void updateCurrentSessionIfMatching(LoginSession changed)
 	{
 		if (!InvocationContext.hasCurrent())
@@ -372,8 +438,38 @@ public class SessionManagementImpl implements SessionManagement
 	
 	private class TerminateInactiveSessions implements Runnable
 	{
+		private long lastFullScan;
+		
 		@Override
 		public void run()
+		{
+			long now = System.currentTimeMillis();
+			if (now - lastFullScan >= FULL_SCAN_INTERVAL)
+			{
+				if (scanAllSessions(now))
+					lastFullScan = now;
+				return;
+			}
+			List<String> idle = activityTracker.pollExpired(now);
+			for (String id: idle)
+			{
+				try
+				{
+					Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
+					removeSessionIfExpired(now, token);
+				} catch (IllegalArgumentException e)
+				{
+					//removed in the meantime - ok
+					activityTracker.remove(id);
+				} catch (Exception e)
+				{
+					log.warn("Removing expired session " + id + " failed", e);
+				}
+			}
+			log.trace("Checked {} idle sessions out of {} tracked", idle.size(), activityTracker.size());
+		}
+		
+		private boolean scanAllSessions(long now)
 		{
 			List<Token> tokens;
 			try
@@ -383,9 +479,8 @@ public class SessionManagementImpl implements SessionManagement
 			{
 				log.warn("Encounterd an error when trying to obtain session tokens from DB. "
 						+ "Cleanup will be tried again in the next round.", e);
-				return;
+				return false;
 			}
-			long now = System.currentTimeMillis();
 			for (Token t: tokens)
 			{
 				try
@@ -396,11 +491,13 @@ public class SessionManagementImpl implements SessionManagement
 					log.warn("Removing expired session " + t.getValue() + " failed", e);
 				}
 			}
+			return true;
 		}
 		
 		private void removeSessionIfExpired(long now, Token t)
 		{
 			LoginSession session = token2session(t);
+			applyRecordedActivity(session);
 			long inactiveFor = now - session.getLastUsed().getTime(); 
 			if (inactiveFor > session.getMaxInactivity())
 			{
@@ -413,6 +510,10 @@ public class SessionManagementImpl implements SessionManagement
 				{
 					log.error("Can't expire the session " + session, e);
 				}
+			} else
+			{
+				activityTracker.track(session.getId(), session.getLastUsed().getTime(), 
+						session.getMaxInactivity());
 			}
 		}
 	}
@@ -4,9 +4,11 @@
  */
 package pl.edu.icm.unity.engine.translation;
 
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.AttributeValueConverter;
 import pl.edu.icm.unity.engine.api.translation.in.InputTranslationActionsRegistry;
 import pl.edu.icm.unity.engine.api.translation.out.OutputTranslationActionsRegistry;
@@ -14,6 +16,7 @@ import pl.edu.icm.unity.engine.translation.in.InputTranslationProfile;
 import pl.edu.icm.unity.engine.translation.in.InputTranslationProfileRepository;
 import pl.edu.icm.unity.engine.translation.out.OutputTranslationProfile;
 import pl.edu.icm.unity.engine.translation.out.OutputTranslationProfileRepository;
+import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.translation.ProfileType;
 import pl.edu.icm.unity.types.translation.TranslationProfile;
 
@@ -26,6 +29,7 @@ import pl.edu.icm.unity.types.translation.TranslationProfile;
 @Component
 public class TranslationProfileChecker
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER, TranslationProfileChecker.class);
 	private InputTranslationProfileRepository inputRepo;
 	private InputTranslationActionsRegistry inputActionReg;
 	private OutputTranslationProfileRepository outputRepo;
@@ -68,5 +72,34 @@ public class TranslationProfileChecker
 					"Unsupported profile type: " + profile.getProfileType());
 		if (instance.hasInvalidActions())
 			throw new IllegalArgumentException("Profile definition is invalid");
-	}	
+	}
+	
+	/**
+	 * Instantiates all input and output profiles, so that their MVEL expressions are compiled and cached.
+	 * Invalid profiles are skipped.
+	 * @return number of instantiated profiles
+	 */
+	public int compileAllProfiles() throws EngineException
+	{
+		int compiled = 0;
+		for (TranslationProfile profile: inputRepo.listAllProfiles().values())
+			compiled += compileProfile(() -> new InputTranslationProfile(profile, inputRepo, inputActionReg));
+		for (TranslationProfile profile: outputRepo.listAllProfiles().values())
+			compiled += compileProfile(() -> new OutputTranslationProfile(profile, outputRepo,
+					outputActionReg, attrConverter));
+		return compiled;
+	}
+
+	private int compileProfile(Runnable instantiation)
+	{
+		try
+		{
+			instantiation.run();
+			return 1;
+		} catch (Exception e)
+		{
+			log.debug("Skipping compilation of invalid translation profile", e);
+			return 0;
+		}
+	}
 }
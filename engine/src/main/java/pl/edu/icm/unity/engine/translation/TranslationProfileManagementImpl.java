@@ -76,6 +76,11 @@ public class TranslationProfileManagementImpl implements TranslationProfileManag
 					+ "profiles can be created with this API");
 	}
 	
+	private TranslationProfileRepositotory getRepository(ProfileType type)
+	{
+		return type == ProfileType.INPUT ? inputRepo : outputRepo;
+	}
+	
 	@Override
 	public void addProfile(TranslationProfile toAdd) throws EngineException
 	{
@@ -92,6 +97,7 @@ public class TranslationProfileManagementImpl implements TranslationProfileManag
 		authz.checkAuthorization(AuthzCapability.maintenance);
 		assertIsNotSystemProfile(type, name);
 		getDAO(type).delete(name);
+		getRepository(type).invalidateInstance(name);
 	}
 
 	@Override
@@ -102,6 +108,7 @@ public class TranslationProfileManagementImpl implements TranslationProfileManag
 		assertIsNotSystemProfile(updated);
 		profileHelper.checkBaseProfileContent(updated);
 		getDAO(updated).update(updated);
+		getRepository(updated.getProfileType()).invalidateInstance(updated.getName());
 	}
 
 	@Override
@@ -4,8 +4,19 @@
  */
 package pl.edu.icm.unity.engine.translation;
 
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.store.api.generic.NamedCRUDDAOWithTS;
 import pl.edu.icm.unity.store.api.tx.Transactional;
@@ -13,13 +24,28 @@ import pl.edu.icm.unity.types.translation.TranslationProfile;
 
 /**
  * Allows read profiles from DB and @{SystemTranslationProfileProvider}s 
+ * <p>
+ * Additionally maintains ready to use instances of profiles. Instances of named profiles are
+ * remembered together with the update timestamp of the profile, and are dropped by {@link #refreshInstances()}
+ * whenever the profile was changed (also on other cluster node). Instances of ad-hoc profiles
+ * (e.g. embedded in configuration) are cached by the profile contents. As instantiation of actions may depend
+ * on other parts of the system configuration (e.g. attribute types) all instances are additionally recreated
+ * periodically, and instances with invalid actions are not cached at all.
+ * 
  * @author P.Piernik
  *
  */
 public abstract class TranslationProfileRepositotory
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER_TRANSLATION, TranslationProfileRepositotory.class);
+	private static final int MAX_CACHED_INSTANCES = 1000;
+	private static final long INSTANCE_TTL_SECONDS = 600;
+	
 	private NamedCRUDDAOWithTS<TranslationProfile> dao;
 	private SystemTranslationProfileProviderBase systemProfileprovider;
+	private final Cache<String, CachedInstance> namedInstances = createCache();
+	private final Cache<TranslationProfile, CachedInstance> adHocInstances = createCache();
+	private final AtomicLong invalidations = new AtomicLong();
 	
 	
 	
@@ -69,5 +95,107 @@ public abstract class TranslationProfileRepositotory
 		return dao.get(name);
 	}
 
+	/**
+	 * Drops cached instances of named profiles which were updated or removed since the instance
+	 * was created. Should be invoked periodically to pick up changes made on other cluster nodes.
+	 */
+	@Transactional
+	public void refreshInstances()
+	{
+		Map<String, Date> revisions = new HashMap<>();
+		for (Map.Entry<String, Date> entry: dao.getAllNamesWithUpdateTimestamps())
+			revisions.put(entry.getKey(), entry.getValue());
+		namedInstances.asMap().entrySet().removeIf(entry ->
+		{
+			CachedInstance cached = entry.getValue();
+			Date current = revisions.get(entry.getKey());
+			boolean outdated = cached.revision != null && 
+					(current == null || current.getTime() != cached.revision.getTime());
+			if (outdated)
+				log.debug("Translation profile {} was changed, its instance is dropped", entry.getKey());
+			return outdated;
+		});
+	}
+
+	/**
+	 * Drops cached instance of a given profile. Should be invoked after the profile is changed locally.
+	 */
+	public void invalidateInstance(String name)
+	{
+		invalidations.incrementAndGet();
+		namedInstances.invalidate(name);
+	}
+
+	/**
+	 * @param factory creates a new profile instance, used only if there is no cached one. 
+	 * @return instance of a named profile, either a system one or stored in DB. Null is returned
+	 * if there is no such profile.
+	 */
+	@Transactional
+	@SuppressWarnings("unchecked")
+	public <T extends TranslationProfileInstance<?, ?>> T getProfileInstance(String name,
+			Function<TranslationProfile, T> factory)
+	{
+		CachedInstance cached = namedInstances.getIfPresent(name);
+		if (cached != null)
+			return (T) cached.instance;
+
+		long invalidationsBefore = invalidations.get();
+		TranslationProfile profile = systemProfileprovider.getSystemProfiles().get(name);
+		Date revision = null;
+		if (profile == null)
+		{
+			try
+			{
+				revision = dao.getUpdateTimestamp(name);
+				profile = dao.get(name);
+			} catch (IllegalArgumentException e)
+			{
+				return null;
+			}
+		}
+		T instance = factory.apply(profile);
+		//profile changed in the meantime must not be cached
+		if (!instance.hasInvalidActions() && invalidations.get() == invalidationsBefore)
+			namedInstances.put(name, new CachedInstance(instance, revision));
+		return instance;
+	}
+
+	/**
+	 * @param factory creates a new profile instance, used only if there is no cached one. 
+	 * @return instance of the given profile. Profile objects provided to this method must not be
+	 * modified afterwards.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends TranslationProfileInstance<?, ?>> T getProfileInstance(TranslationProfile profile,
+			Function<TranslationProfile, T> factory)
+	{
+		CachedInstance cached = adHocInstances.getIfPresent(profile);
+		if (cached != null)
+			return (T) cached.instance;
+		T instance = factory.apply(profile);
+		if (!instance.hasInvalidActions())
+			adHocInstances.put(profile, new CachedInstance(instance, null));
+		return instance;
+	}
+
+	private static <K> Cache<K, CachedInstance> createCache()
+	{
+		return CacheBuilder.newBuilder()
+				.maximumSize(MAX_CACHED_INSTANCES)
+				.expireAfterWrite(INSTANCE_TTL_SECONDS, TimeUnit.SECONDS)
+				.build();
+	}
+
+	private static class CachedInstance
+	{
+		private final TranslationProfileInstance<?, ?> instance;
+		private final Date revision;
 
+		CachedInstance(TranslationProfileInstance<?, ?> instance, Date revision)
+		{
+			this.instance = instance;
+			this.revision = revision;
+		}
+	}
 }
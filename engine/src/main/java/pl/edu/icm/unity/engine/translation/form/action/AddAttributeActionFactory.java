@@ -23,6 +23,7 @@ import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.exceptions.IllegalAttributeValueException;
 import pl.edu.icm.unity.types.basic.Attribute;
 import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -120,7 +121,7 @@ public class AddAttributeActionFactory extends AbstractRegistrationTranslationAc
 		{
 			unityAttribute = parameters[0];
 			group = parameters[1];
-			expressionCompiled = MVEL.compileExpression(parameters[2]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[2]);
 		}
 	}
 }
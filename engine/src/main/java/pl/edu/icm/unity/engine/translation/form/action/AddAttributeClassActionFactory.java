@@ -16,6 +16,7 @@ import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.translation.form.RegistrationTranslationAction;
 import pl.edu.icm.unity.engine.api.translation.form.TranslatedRegistrationRequest;
 import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -89,7 +90,7 @@ public class AddAttributeClassActionFactory extends AbstractRegistrationTranslat
 		private void setParameters(String[] parameters)
 		{
 			group = parameters[0];
-			expression = MVEL.compileExpression(parameters[1]);
+			expression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 }
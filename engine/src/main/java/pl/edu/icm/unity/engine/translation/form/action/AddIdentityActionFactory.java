@@ -20,6 +20,7 @@ import pl.edu.icm.unity.engine.api.translation.form.RegistrationTranslationActio
 import pl.edu.icm.unity.engine.api.translation.form.TranslatedRegistrationRequest;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.IdentityParam;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -98,7 +99,7 @@ public class AddIdentityActionFactory extends AbstractRegistrationTranslationAct
 		{
 			identityType = parameters[0];
 			typeDefinition = idTypeSupport.getTypeDefinition(identityType);
-			expressionCompiled = MVEL.compileExpression(parameters[1]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 }
@@ -17,6 +17,7 @@ import pl.edu.icm.unity.engine.api.translation.form.GroupParam;
 import pl.edu.icm.unity.engine.api.translation.form.RegistrationTranslationAction;
 import pl.edu.icm.unity.engine.api.translation.form.TranslatedRegistrationRequest;
 import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -87,7 +88,7 @@ public class AddToGroupActionFactory extends AbstractRegistrationTranslationActi
 		
 		private void setParameters(String[] parameters)
 		{
-			expression = MVEL.compileExpression(parameters[0]);
+			expression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 		}
 	}
 }
@@ -99,12 +99,11 @@ public class InputTranslationProfile extends TranslationProfileInstance<InputTra
 	
 	private MappingResult invokeInputTranslationProfile(String profile, RemotelyAuthenticatedInput input) throws EngineException
 	{
-		TranslationProfile translationProfile = profileRepo.listAllProfiles().get(profile);
-		if (translationProfile == null)
+		InputTranslationProfile profileInstance = profileRepo.getProfileInstance(profile, 
+				translationProfile -> new InputTranslationProfile(translationProfile, profileRepo, registry));
+		if (profileInstance == null)
 			throw new ConfigurationException("The input translation profile '" + profile + 
 					"' included in another profile does not exist");
-		InputTranslationProfile profileInstance = new InputTranslationProfile(translationProfile, profileRepo,
-				registry);
 		MappingResult result = profileInstance.translate(input);
 		return result;
 	}
@@ -25,6 +25,7 @@ import pl.edu.icm.unity.engine.api.translation.in.MappingResult;
 import pl.edu.icm.unity.exceptions.IllegalAttributeValueException;
 import pl.edu.icm.unity.types.basic.Attribute;
 import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -127,7 +128,7 @@ public class MapAttributeActionFactory extends AbstractInputTranslationActionFac
 		{
 			unityAttribute = parameters[0];
 			group = parameters[1];
-			expressionCompiled = MVEL.compileExpression(parameters[2]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[2]);
 			mode = AttributeEffectMode.valueOf(parameters[3]);
 		}
 	}
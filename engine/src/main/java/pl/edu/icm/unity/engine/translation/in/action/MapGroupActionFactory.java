@@ -19,6 +19,7 @@ import pl.edu.icm.unity.engine.api.translation.in.InputTranslationAction;
 import pl.edu.icm.unity.engine.api.translation.in.MappedGroup;
 import pl.edu.icm.unity.engine.api.translation.in.MappingResult;
 import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -94,7 +95,7 @@ public class MapGroupActionFactory extends AbstractInputTranslationActionFactory
 
 		private void setParameters(String[] parameters)
 		{
-			expressionCompiled = MVEL.compileExpression(parameters[0]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 			if (parameters.length > 1 && parameters[1] != null)
 				groupEffect = GroupEffectMode.valueOf(parameters[1]);
 			else
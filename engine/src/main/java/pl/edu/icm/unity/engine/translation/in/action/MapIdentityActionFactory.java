@@ -25,6 +25,7 @@ import pl.edu.icm.unity.engine.api.translation.in.MappedIdentity;
 import pl.edu.icm.unity.engine.api.translation.in.MappingResult;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.IdentityParam;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -123,7 +124,7 @@ public class MapIdentityActionFactory extends AbstractInputTranslationActionFact
 		private void setParameters(String[] parameters)
 		{
 			unityType = parameters[0];
-			expressionCompiled = MVEL.compileExpression(parameters[1]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			credentialRequirement = parameters[2];
 			mode = IdentityEffectMode.valueOf(parameters[3]);
 		}
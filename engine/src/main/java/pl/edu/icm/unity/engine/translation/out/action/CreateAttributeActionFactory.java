@@ -24,6 +24,7 @@ import pl.edu.icm.unity.stdext.attr.StringAttributeSyntax;
 import pl.edu.icm.unity.types.basic.Attribute;
 import pl.edu.icm.unity.types.basic.AttributeType;
 import pl.edu.icm.unity.types.basic.DynamicAttribute;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -161,7 +162,7 @@ public class CreateAttributeActionFactory extends AbstractOutputTranslationActio
 		private void setParameters(String[] parameters)
 		{
 			attrNameString = parameters[0];
-			valuesExpression = MVEL.compileExpression(parameters[1]);
+			valuesExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			attrMandatory = Boolean.valueOf(parameters[2]);
 			if (parameters.length > 3)
 				attrDisplayname = parameters[3];
@@ -17,6 +17,7 @@ import pl.edu.icm.unity.engine.api.translation.out.TranslationInput;
 import pl.edu.icm.unity.engine.api.translation.out.TranslationResult;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.IdentityParam;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -91,7 +92,7 @@ public class CreateIdentityActionFactory extends AbstractOutputTranslationAction
 		private void setParameters(String[] parameters)
 		{
 			idTypeString = parameters[0];
-			idValueExpression = MVEL.compileExpression(parameters[1]);
+			idValueExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 
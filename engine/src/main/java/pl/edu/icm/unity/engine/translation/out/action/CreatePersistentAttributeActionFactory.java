@@ -25,6 +25,7 @@ import pl.edu.icm.unity.exceptions.IllegalAttributeValueException;
 import pl.edu.icm.unity.types.basic.Attribute;
 import pl.edu.icm.unity.types.basic.AttributeType;
 import pl.edu.icm.unity.types.basic.DynamicAttribute;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -135,7 +136,7 @@ public class CreatePersistentAttributeActionFactory extends AbstractOutputTransl
 		private void setParameters(String[] parameters, AttributeTypeSupport attrsMan)
 		{
 			attrNameString = parameters[0];
-			valuesExpression = MVEL.compileExpression(parameters[1]);
+			valuesExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			attrMandatory = Boolean.valueOf(parameters[2]);
 			group = parameters[3];
 
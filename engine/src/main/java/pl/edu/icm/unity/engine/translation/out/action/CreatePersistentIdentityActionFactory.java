@@ -21,6 +21,7 @@ import pl.edu.icm.unity.engine.api.translation.out.TranslationInput;
 import pl.edu.icm.unity.engine.api.translation.out.TranslationResult;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.IdentityParam;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -104,7 +105,7 @@ public class CreatePersistentIdentityActionFactory extends AbstractOutputTransla
 
 		private void setParameters(String[] parameters, IdentityTypesRegistry idTypesReg)
 		{
-			idValueExpression = MVEL.compileExpression(parameters[1]);
+			idValueExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 
 			idType = idTypesReg.getByName(parameters[0]);
 			if (idType.isDynamic())
@@ -16,6 +16,7 @@ import pl.edu.icm.unity.engine.api.translation.out.OutputTranslationAction;
 import pl.edu.icm.unity.engine.api.translation.out.TranslationInput;
 import pl.edu.icm.unity.engine.api.translation.out.TranslationResult;
 import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.types.basic.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.types.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.types.translation.TranslationActionType;
@@ -75,7 +76,7 @@ public class OutRedirectActionFactory extends AbstractOutputTranslationActionFac
 		
 		private void setParameters(String[] parameters)
 		{
-			urlExpression = MVEL.compileExpression(parameters[0]);
+			urlExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 		}
 	}
 }
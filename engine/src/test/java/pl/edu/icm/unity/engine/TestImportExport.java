@@ -9,6 +9,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
@@ -36,19 +39,48 @@ public class TestImportExport extends DBIntegrationTestBase
 	@Test
 	public void test() throws Exception
 	{
-		initializer.initializeCommonAttributeTypes();
-		FileUtils.deleteDirectory(new File(
-				configuration.getFileValue(UnityServerConfiguration.WORKSPACE_DIRECTORY, true), 
-				ServerManagement.DB_DUMP_DIRECTORY));
-		
+		prepare();
 		int atsSize = aTypeMan.getAttributeTypes().size();
 		int idTypesSize = idTypeMan.getIdentityTypes().size();
 		
 		File exported = serverMan.exportDb(new DBDumpContentElements());
 		assertTrue(exported.exists());
+		assertTrue(exported.getName().endsWith(".json"));
+		try (InputStream is = new FileInputStream(exported))
+		{
+			assertEquals('{', is.read());
+		}
+		serverMan.importDb(exported);
+		
+		assertEquals(atsSize, aTypeMan.getAttributeTypes().size());
+		assertEquals(idTypesSize, idTypeMan.getIdentityTypes().size());
+	}
+
+	@Test
+	public void shouldExportAndImportCompressedDump() throws Exception
+	{
+		prepare();
+		int atsSize = aTypeMan.getAttributeTypes().size();
+		int idTypesSize = idTypeMan.getIdentityTypes().size();
+		
+		File exported = serverMan.exportDb(new DBDumpContentElements(), true);
+		assertTrue(exported.exists());
+		assertTrue(exported.getName().endsWith(".json.gz"));
+		try (InputStream is = new FileInputStream(exported))
+		{
+			assertEquals(GZIPInputStream.GZIP_MAGIC, is.read() | (is.read() << 8));
+		}
 		serverMan.importDb(exported);
 		
 		assertEquals(atsSize, aTypeMan.getAttributeTypes().size());
 		assertEquals(idTypesSize, idTypeMan.getIdentityTypes().size());
 	}
+	
+	private void prepare() throws Exception
+	{
+		initializer.initializeCommonAttributeTypes();
+		FileUtils.deleteDirectory(new File(
+				configuration.getFileValue(UnityServerConfiguration.WORKSPACE_DIRECTORY, true), 
+				ServerManagement.DB_DUMP_DIRECTORY));
+	}
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import pl.edu.icm.unity.engine.attribute.AttributeStatementProcessor.ContextKey;
+import pl.edu.icm.unity.stdext.attr.StringAttribute;
+import pl.edu.icm.unity.types.basic.AttributeExt;
+import pl.edu.icm.unity.types.basic.Identity;
+
+public class StatementsEvaluationContextTest
+{
+	private final AtomicInteger conversions = new AtomicInteger();
+	
+	@Test
+	public void shouldConvertValuesOnlyOnFirstAccess()
+	{
+		StatementsEvaluationContext evalContext = createContext();
+		Map<String, AttributeExt> attributes = createAttributes("a1", "a2");
+		
+		Map<String, Object> context1 = evalContext.createMvelContext("/A", attributes, null);
+		Map<String, Object> context2 = evalContext.createMvelContext("/A", attributes, null);
+		
+		assertThat(conversions.get()).isEqualTo(0);
+		assertThat(getMap(context1, ContextKey.attrs).get("a1"))
+			.isEqualTo(Lists.newArrayList("v1-a1", "v2-a1"));
+		assertThat(getMap(context2, ContextKey.attr).get("a1")).isEqualTo("v1-a1");
+		assertThat(conversions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldExposeAllAttributes()
+	{
+		StatementsEvaluationContext evalContext = createContext();
+		
+		Map<String, Object> context = evalContext.createMvelContext("/A", createAttributes("a1", "a2"), 
+				createAttributes("e1"));
+		
+		assertThat(getMap(context, ContextKey.attr)).containsOnlyKeys("a1", "a2");
+		assertThat(getMap(context, ContextKey.eattrs)).containsOnlyKeys("e1");
+		assertThat(context.get(ContextKey.groupName.name())).isEqualTo("/A");
+		assertThat(context.get(ContextKey.entityId.name())).isEqualTo(7L);
+	}
+
+	@Test
+	public void contextModificationShouldNotAffectOtherContexts()
+	{
+		StatementsEvaluationContext evalContext = createContext();
+		Map<String, AttributeExt> attributes = createAttributes("a1");
+		Map<String, Object> context1 = evalContext.createMvelContext("/A", attributes, null);
+		Map<String, Object> context2 = evalContext.createMvelContext("/A", attributes, null);
+		
+		getValues(context1, "a1").add("added");
+		getMap(context1, ContextKey.attrs).put("a2", Lists.newArrayList("new"));
+		getList(context1, ContextKey.groups).add("/B");
+		getIdsByType(context1).get("userName").clear();
+		
+		assertThat(getValues(context1, "a1")).containsExactly("v1-a1", "v2-a1", "added");
+		assertThat(getMap(context1, ContextKey.attrs)).containsOnlyKeys("a1", "a2");
+		assertThat(getValues(context2, "a1")).containsExactly("v1-a1", "v2-a1");
+		assertThat(getMap(context2, ContextKey.attrs)).containsOnlyKeys("a1");
+		assertThat(getList(context2, ContextKey.groups)).containsOnly("/", "/A");
+		assertThat(getIdsByType(context2).get("userName")).containsExactly("user");
+		assertThat(conversions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void attributeRemovalShouldBeVisibleInContext()
+	{
+		StatementsEvaluationContext evalContext = createContext();
+		Map<String, Object> context = evalContext.createMvelContext("/A", createAttributes("a1", "a2"), null);
+		
+		getMap(context, ContextKey.attr).remove("a1");
+		
+		assertThat(getMap(context, ContextKey.attr)).containsOnlyKeys("a2");
+		assertThat(getMap(context, ContextKey.attr).get("a1")).isNull();
+	}
+
+	private StatementsEvaluationContext createContext()
+	{
+		Identity identity = new Identity("userName", "user", 7, "user");
+		return new StatementsEvaluationContext(Lists.newArrayList(identity), Sets.newHashSet("/", "/A"), 
+			attribute -> 
+			{
+				conversions.incrementAndGet();
+				return attribute.getValues();
+			});
+	}
+
+	private Map<String, AttributeExt> createAttributes(String... names)
+	{
+		Map<String, AttributeExt> ret = new HashMap<>();
+		for (String name: names)
+			ret.put(name, new AttributeExt(StringAttribute.of(name, "/A", "v1-" + name, "v2-" + name), 
+					true));
+		return ret;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<String> getValues(Map<String, Object> context, String attribute)
+	{
+		return (List<String>) getMap(context, ContextKey.attrs).get(attribute);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> getList(Map<String, Object> context, ContextKey key)
+	{
+		return (List<String>) context.get(key.name());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, List<String>> getIdsByType(Map<String, Object> context)
+	{
+		return (Map<String, List<String>>) context.get(ContextKey.idsByType.name());
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Map<String, T> getMap(Map<String, Object> context, ContextKey key)
+	{
+		Object ret = context.get(key.name());
+		return ret == null ? Collections.emptyMap() : (Map<String, T>) ret;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.edu.icm.unity.store.api.AuditEventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+import pl.edu.icm.unity.types.basic.audit.AuditEntity;
+import pl.edu.icm.unity.types.basic.audit.AuditEvent;
+import pl.edu.icm.unity.types.basic.audit.AuditEventAction;
+import pl.edu.icm.unity.types.basic.audit.AuditEventType;
+
+public class AuditEventWriterTest
+{
+	private static final String BLOCKING = "blocking";
+	private static final String BROKEN = "broken";
+
+	private final List<AuditEvent> stored = Collections.synchronizedList(new ArrayList<>());
+	private final List<Integer> failedTransactionSizes = Collections.synchronizedList(new ArrayList<>());
+	private final ThreadLocal<List<AuditEvent>> transaction = new ThreadLocal<>();
+	private final CountDownLatch blocked = new CountDownLatch(1);
+	private final CountDownLatch unblock = new CountDownLatch(1);
+	private AuditEventDAO dao;
+	private TransactionalRunner tx;
+	private AuditEventWriter writer;
+
+	@Before
+	public void init()
+	{
+		dao = mock(AuditEventDAO.class);
+		tx = mock(TransactionalRunner.class);
+		doAnswer(invocation -> {
+			AuditEvent event = invocation.getArgument(0);
+			if (event.getName().equals(BLOCKING))
+			{
+				blocked.countDown();
+				unblock.await(10, TimeUnit.SECONDS);
+			}
+			if (event.getName().equals(BROKEN))
+				throw new IllegalStateException("broken event");
+			transaction.get().add(event);
+			return 1L;
+		}).when(dao).create(any());
+		doAnswer(invocation -> {
+			transaction.set(new ArrayList<>());
+			try
+			{
+				TxRunnable code = invocation.getArgument(0);
+				code.run();
+				stored.addAll(transaction.get());
+			} catch (RuntimeException e)
+			{
+				failedTransactionSizes.add(transaction.get().size() + 1);
+				throw e;
+			}
+			return null;
+		}).when(tx).runInTransaction(any());
+	}
+
+	@After
+	public void shutdown()
+	{
+		unblock.countDown();
+		if (writer != null)
+			writer.stop();
+	}
+
+	@Test
+	public void shouldStoreEventsOneByOneWhenBatchFails() throws Exception
+	{
+		writer = new AuditEventWriter(dao, tx, 100, 100);
+		writer.submit(event(BLOCKING));
+		blocked.await(10, TimeUnit.SECONDS);
+		writer.submit(event("e1"));
+		writer.submit(event(BROKEN));
+		writer.submit(event("e2"));
+
+		unblock.countDown();
+		writer.stop();
+
+		assertThat(stored).containsExactly(event(BLOCKING), event("e1"), event("e2"));
+		assertThat(failedTransactionSizes).containsExactly(2, 1);
+	}
+
+	@Test
+	public void shouldStoreQueuedEventsOnStop() throws Exception
+	{
+		writer = new AuditEventWriter(dao, tx, 100, 2);
+		writer.submit(event(BLOCKING));
+		blocked.await(10, TimeUnit.SECONDS);
+		for (int i = 0; i < 5; i++)
+			writer.submit(event("e" + i));
+		new Thread(() -> {
+			sleep(200);
+			unblock.countDown();
+		}).start();
+
+		writer.stop();
+
+		assertThat(writer.getQueueSize()).isEqualTo(0);
+		assertThat(stored).containsExactly(event(BLOCKING), event("e0"), event("e1"), event("e2"),
+				event("e3"), event("e4"));
+	}
+
+	@Test
+	public void shouldStoreEventSynchronouslyWhenInterruptedOnFullQueue() throws Exception
+	{
+		writer = new AuditEventWriter(dao, tx, 1, 100);
+		writer.submit(event(BLOCKING));
+		blocked.await(10, TimeUnit.SECONDS);
+		writer.submit(event("queued"));
+
+		Thread.currentThread().interrupt();
+		writer.submit(event("interrupted"));
+
+		assertThat(Thread.interrupted()).isTrue();
+		assertThat(stored).containsExactly(event("interrupted"));
+		unblock.countDown();
+		writer.stop();
+		assertThat(stored).containsExactly(event("interrupted"), event(BLOCKING), event("queued"));
+	}
+
+	private static void sleep(long ms)
+	{
+		try
+		{
+			Thread.sleep(ms);
+		} catch (InterruptedException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static AuditEvent event(String name)
+	{
+		return AuditEvent.builder()
+				.name(name)
+				.type(AuditEventType.IDENTITY)
+				.timestamp(new Date(0))
+				.action(AuditEventAction.ADD)
+				.initiator(new AuditEntity(100L, "Initiator", "initiator@example.com"))
+				.tags("TAG1")
+				.build();
+	}
+}
@@ -7,6 +7,7 @@ package pl.edu.icm.unity.engine.authz;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -119,4 +120,62 @@ public class TestCachingRolesResolver
 		verify(dbAttributes, times(2)).getAllAttributesAsMap(eq(1L), eq("/A"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
 	}
 
+	@Test
+	public void shouldReuseCachedParentRoles() throws Exception
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, groupDAO);
+		mockRoleInRoot();
+
+		resolver.establishRoles(1, new Group("/A"));
+		Set<AuthzRole> roles = resolver.establishRoles(1, new Group("/A/B"));
+
+		assertThat(roles, hasItem(r1));
+		verify(dbAttributes).getAllAttributesAsMap(eq(1L), eq("/"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes).getAllAttributesAsMap(eq(1L), eq("/A"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes).getAllAttributesAsMap(eq(1L), eq("/A/B"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	@Test
+	public void shouldClearCacheOfEntityOnly() throws Exception
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, groupDAO);
+		mockRoleInRoot();
+
+		resolver.establishRoles(1, new Group("/A"));
+		resolver.establishRoles(2, new Group("/A"));
+		resolver.clearEntityCache(1);
+		resolver.establishRoles(1, new Group("/A"));
+		resolver.establishRoles(2, new Group("/A"));
+
+		verify(dbAttributes, times(2)).getAllAttributesAsMap(eq(1L), eq("/A"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes).getAllAttributesAsMap(eq(2L), eq("/A"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	@Test
+	public void shouldClearCacheOfGroupSubtreeOnly() throws Exception
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, groupDAO);
+		mockRoleInRoot();
+
+		resolver.establishRoles(1, new Group("/A/B"));
+		resolver.clearGroupCache("/A");
+		resolver.establishRoles(1, new Group("/A/B"));
+
+		verify(dbAttributes).getAllAttributesAsMap(eq(1L), eq("/"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes, times(2)).getAllAttributesAsMap(eq(1L), eq("/A"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes, times(2)).getAllAttributesAsMap(eq(1L), eq("/A/B"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	private void mockRoleInRoot() throws EngineException
+	{
+		Map<String, Map<String, AttributeExt>> roleAttrs = new HashMap<>();
+		Map<String, AttributeExt> roleInRoot = new HashMap<>();
+		roleInRoot.put(RoleAttributeTypeProvider.AUTHORIZATION_ROLE, 
+				new AttributeExt(new Attribute(
+						RoleAttributeTypeProvider.AUTHORIZATION_ROLE, "string", "/", 
+						Lists.newArrayList("role1")), true));
+		roleAttrs.put("/", roleInRoot);
+		when(dbAttributes.getAllAttributesAsMap(
+				anyLong(), eq("/"), eq(true), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE))).thenReturn(roleAttrs);
+	}
 }
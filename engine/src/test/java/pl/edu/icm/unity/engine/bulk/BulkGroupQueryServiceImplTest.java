@@ -12,8 +12,11 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static pl.edu.icm.unity.engine.authz.RoleAttributeTypeProvider.AUTHORIZATION_ROLE;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +26,7 @@ import com.google.common.collect.Sets;
 
 import pl.edu.icm.unity.engine.DBIntegrationTestBase;
 import pl.edu.icm.unity.engine.api.bulk.BulkGroupQueryService;
+import pl.edu.icm.unity.engine.api.bulk.EntityInGroupData;
 import pl.edu.icm.unity.engine.api.bulk.GroupMembershipData;
 import pl.edu.icm.unity.engine.api.bulk.GroupStructuralData;
 import pl.edu.icm.unity.engine.api.bulk.GroupsWithMembers;
@@ -296,4 +300,119 @@ public class BulkGroupQueryServiceImplTest extends DBIntegrationTestBase
 
 		assertThat(error).isNotNull().isInstanceOf(IllegalArgumentException.class);
 	}
+	
+	@Test
+	public void shouldStreamGroupMembersInPages() throws EngineException
+	{
+		groupsMan.addGroup(new Group("/A"));
+		List<Long> members = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+		{
+			Identity added = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "member" + i), 
+					EntityState.valid);
+			groupsMan.addMemberFromParent("/A", new EntityParam(added.getEntityId()));
+			attrsMan.createAttribute(new EntityParam(added.getEntityId()), EnumAttribute.of(AUTHORIZATION_ROLE, 
+					"/A", Lists.newArrayList("Inspector")));
+			members.add(added.getEntityId());
+		}
+		idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "notMember"), EntityState.valid);
+		
+		List<List<EntityInGroupData>> pages = new ArrayList<>();
+		bulkService.streamMembershipInfo("/A", 2, pages::add);
+
+		assertThat(pages.size(), is(2));
+		assertThat(pages.get(0).size(), is(2));
+		assertThat(pages.get(1).size(), is(1));
+		List<Long> streamed = pages.stream()
+				.flatMap(List::stream)
+				.map(data -> data.entity.getId())
+				.collect(Collectors.toList());
+		assertThat(streamed, is(members));
+		EntityInGroupData first = pages.get(0).get(0);
+		assertThat(first.groups, hasItem("/A"));
+		assertThat(first.groupAttributesByName.get(AUTHORIZATION_ROLE).getValues().get(0), is("Inspector"));
+	}
+	
+	@Test
+	public void shouldStreamRangeOfGroupMembersAfterCursor() throws EngineException
+	{
+		groupsMan.addGroup(new Group("/A"));
+		List<Long> members = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+		{
+			Identity added = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "member" + i), 
+					EntityState.valid);
+			groupsMan.addMemberFromParent("/A", new EntityParam(added.getEntityId()));
+			members.add(added.getEntityId());
+		}
+		
+		List<List<EntityInGroupData>> pages = new ArrayList<>();
+		bulkService.streamMembershipInfo("/A", members.get(0), 3, 2, pages::add);
+
+		List<Long> streamed = pages.stream()
+				.flatMap(List::stream)
+				.map(data -> data.entity.getId())
+				.collect(Collectors.toList());
+		assertThat(pages.size(), is(2));
+		assertThat(streamed, is(members.subList(1, 4)));
+	}
+
+	@Test
+	public void shouldStreamGroupMembersWithoutRootAttributesAndForms() throws EngineException
+	{
+		groupsMan.addGroup(new Group("/A"));
+		Identity member = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "member"), EntityState.valid);
+		groupsMan.addMemberFromParent("/A", new EntityParam(member.getEntityId()));
+		attrsMan.createAttribute(new EntityParam(member.getEntityId()), EnumAttribute.of(AUTHORIZATION_ROLE, 
+				"/A", Lists.newArrayList("Inspector")));
+
+		List<EntityInGroupData> streamed = new ArrayList<>();
+		bulkService.streamGroupMembers("/A", Long.MIN_VALUE, Integer.MAX_VALUE, 10, streamed::addAll);
+
+		assertThat(streamed.size(), is(1));
+		EntityInGroupData data = streamed.get(0);
+		assertThat(data.entity.getId(), is(member.getEntityId()));
+		assertThat(data.groupAttributesByName.get(AUTHORIZATION_ROLE).getValues().get(0), is("Inspector"));
+		assertThat(data.rootAttributesByName.isEmpty(), is(true));
+		assertThat(data.relevantEnquiryForms.isEmpty(), is(true));
+	}
+
+	@Test
+	public void shouldStreamDirectDataOfGroupMembers() throws EngineException
+	{
+		groupsMan.addGroup(new Group("/A"));
+		Identity member = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "member"), EntityState.valid);
+		groupsMan.addMemberFromParent("/A", new EntityParam(member.getEntityId()));
+		attrsMan.createAttribute(new EntityParam(member.getEntityId()), EnumAttribute.of(AUTHORIZATION_ROLE, 
+				"/A", Lists.newArrayList("Inspector")));
+		idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "notMember"), EntityState.valid);
+
+		List<EntityInGroupData> streamed = new ArrayList<>();
+		bulkService.streamMembersDirectData("/A", 10, streamed::addAll);
+
+		assertThat(streamed.size(), is(1));
+		EntityInGroupData data = streamed.get(0);
+		assertThat(data.entity.getId(), is(member.getEntityId()));
+		assertThat(data.entity.getIdentities().get(0).getValue(), is("member"));
+		assertThat(data.groupAttributesByName.get(AUTHORIZATION_ROLE).getValues().get(0), is("Inspector"));
+	}
+
+	@Test
+	public void shouldRetrieveOnlySelectedMembers() throws EngineException
+	{
+		groupsMan.addGroup(new Group("/A"));
+		Identity selected = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "selected"), 
+				EntityState.valid);
+		groupsMan.addMemberFromParent("/A", new EntityParam(selected.getEntityId()));
+		Identity other = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "other"), EntityState.valid);
+		groupsMan.addMemberFromParent("/A", new EntityParam(other.getEntityId()));
+		Identity notMember = idsMan.addEntity(new IdentityParam(IdentifierIdentity.ID, "notMember"), 
+				EntityState.valid);
+
+		GroupMembershipData bulkData = bulkService.getBulkMembershipData("/A", 
+				Sets.newHashSet(selected.getEntityId(), notMember.getEntityId()));
+		Map<Long, Entity> result = bulkService.getGroupEntitiesNoContextWithoutTargeted(bulkData);
+
+		assertThat(result.keySet(), is(Collections.singleton(selected.getEntityId())));
+	}
 }
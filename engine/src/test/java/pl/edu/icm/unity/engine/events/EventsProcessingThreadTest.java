@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.edu.icm.unity.base.event.EventExecution;
+import pl.edu.icm.unity.base.event.PersistableEvent;
+import pl.edu.icm.unity.engine.api.event.EventListener;
+import pl.edu.icm.unity.store.api.EventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnableRet;
+import pl.edu.icm.unity.types.Event;
+
+public class EventsProcessingThreadTest
+{
+	private EventDAO dbEvents = mock(EventDAO.class);
+	private EventProcessor processor = mock(EventProcessor.class);
+	private TransactionalRunner tx = mock(TransactionalRunner.class);
+	private EventsProcessingThread processingThread;
+
+	@Before
+	public void setup()
+	{
+		doAnswer(invocation -> {
+			((TxRunnable) invocation.getArgument(0)).run();
+			return null;
+		}).when(tx).runInTransaction(any());
+		doAnswer(invocation -> ((TxRunnableRet<?>) invocation.getArgument(0)).run())
+			.when(tx).runInTransactionRet(any());
+		processingThread = new EventsProcessingThread(processor, dbEvents, tx, 4);
+	}
+
+	@Test
+	public void slowListenerShouldNotBlockOthers() throws Exception
+	{
+		MockListener slow = new MockListener("slow", true);
+		MockListener fast = new MockListener("fast", false);
+		when(processor.getHeavyweightListeners()).thenReturn(Arrays.asList(slow, fast));
+		when(dbEvents.getEligibleForProcessing(any(), eq("slow"), any(), eq(1))).thenReturn(
+				Arrays.asList(getEvent(1, "slow")));
+		when(dbEvents.getEligibleForProcessing(any(), eq("fast"), any(), eq(1))).thenReturn(
+				Arrays.asList(getEvent(3, "fast")));
+
+		processingThread.dispatchEligibleEvents();
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> fast.invocations.get() == 1);
+		verify(dbEvents).deleteByKey(3);
+		assertThat(slow.invocations.get()).isEqualTo(1);
+		slow.release.countDown();
+		await().atMost(10, TimeUnit.SECONDS).until(() ->
+			processingThread.getStatistics().get("slow").getSuccesses() == 1);
+		verify(dbEvents).deleteByKey(1);
+		verify(dbEvents, never()).deleteByKey(2);
+	}
+
+	@Test
+	public void claimedEventShouldNotBeDispatchedAgain() throws Exception
+	{
+		MockListener slow = new MockListener("slow", true);
+		when(processor.getHeavyweightListeners()).thenReturn(Arrays.asList(slow));
+		when(dbEvents.getEligibleForProcessing(any(), eq("slow"), any(), anyInt())).thenReturn(
+				Arrays.asList(getEvent(1, "slow")));
+
+		processingThread.dispatchEligibleEvents();
+		await().atMost(10, TimeUnit.SECONDS).until(() -> slow.invocations.get() == 1);
+		processingThread.dispatchEligibleEvents();
+		slow.release.countDown();
+		await().atMost(10, TimeUnit.SECONDS).until(() ->
+			processingThread.getStatistics().get("slow").getSuccesses() == 1);
+
+		assertThat(slow.invocations.get()).isEqualTo(1);
+		verify(dbEvents).getEligibleForProcessing(any(), eq("slow"), any(), anyInt());
+	}
+
+	@Test
+	public void claimedEventShouldBeExcludedFromQuery() throws Exception
+	{
+		MockListener slow = new MockListener("slow", true);
+		slow.maxConcurrency = 2;
+		when(processor.getHeavyweightListeners()).thenReturn(Arrays.asList(slow));
+		when(dbEvents.getEligibleForProcessing(any(), eq("slow"), eq(Collections.emptySet()), eq(2)))
+			.thenReturn(Arrays.asList(getEvent(1, "slow")));
+
+		processingThread.dispatchEligibleEvents();
+		await().atMost(10, TimeUnit.SECONDS).until(() -> slow.invocations.get() == 1);
+		processingThread.dispatchEligibleEvents();
+		slow.release.countDown();
+
+		verify(dbEvents).getEligibleForProcessing(any(), eq("slow"), 
+				eq(Collections.singleton(1L)), eq(1));
+	}
+
+	@Test
+	public void failedEventShouldBeScheduledForRetry() throws Exception
+	{
+		MockListener failing = new MockListener("failing", false);
+		failing.result = false;
+		when(processor.getHeavyweightListeners()).thenReturn(Arrays.asList(failing));
+		when(dbEvents.getEligibleForProcessing(any(), eq("failing"), any(), anyInt())).thenReturn(
+				Arrays.asList(getEvent(1, "failing")));
+
+		processingThread.dispatchEligibleEvents();
+
+		await().atMost(10, TimeUnit.SECONDS).until(() ->
+			processingThread.getStatistics().containsKey("failing")
+			&& processingThread.getStatistics().get("failing").getRetries() == 1);
+		verify(dbEvents).updateExecution(eq(1L), any(), eq(1));
+		verify(dbEvents, never()).deleteByKey(anyLong());
+	}
+
+	private EventExecution getEvent(long id, String listenerId)
+	{
+		EventExecution event = new EventExecution(new PersistableEvent("trigger"), new Date(0), listenerId, 0);
+		event.setId(id);
+		return event;
+	}
+
+	private static class MockListener implements EventListener
+	{
+		private final String id;
+		private final boolean blocking;
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final AtomicInteger invocations = new AtomicInteger();
+		private volatile boolean result = true;
+		private int maxConcurrency = 1;
+
+		MockListener(String id, boolean blocking)
+		{
+			this.id = id;
+			this.blocking = blocking;
+		}
+
+		@Override
+		public boolean handleEvent(Event event)
+		{
+			invocations.incrementAndGet();
+			if (blocking)
+			{
+				try
+				{
+					release.await();
+				} catch (InterruptedException e)
+				{
+					return false;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean isLightweight()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isWanted(Event event)
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isAsync(Event event)
+		{
+			return true;
+		}
+
+		@Override
+		public String getId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getMaxConcurrency()
+		{
+			return maxConcurrency;
+		}
+
+		@Override
+		public int getMaxFailures()
+		{
+			return DEFAULT_MAX_FAILURES;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import pl.edu.icm.unity.engine.session.SessionActivityTracker.ActivityStatus;
+
+public class SessionActivityTrackerTest
+{
+	@Test
+	public void activityOfUntrackedSessionIsNotRecorded()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+
+		ActivityStatus status = tracker.recordActivity("s1", 1000);
+
+		assertThat(status).isEqualTo(ActivityStatus.UNKNOWN);
+		assertThat(tracker.drainModified()).isEmpty();
+	}
+
+	@Test
+	public void activityOfExpiredSessionIsNotRecorded()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+		tracker.track("s1", 1000, 500);
+
+		ActivityStatus status = tracker.recordActivity("s1", 1501);
+
+		assertThat(status).isEqualTo(ActivityStatus.EXPIRED);
+		assertThat(tracker.getLastUsed("s1")).isEqualTo(1000);
+	}
+
+	@Test
+	public void modifiedActivityIsDrainedOnce()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+		tracker.track("s1", 1000, 5000);
+		tracker.track("s2", 1000, 5000);
+
+		tracker.recordActivity("s1", 2000);
+		tracker.recordActivity("s1", 3000);
+		Map<String, Long> modified = tracker.drainModified();
+
+		assertThat(modified).containsOnlyKeys("s1");
+		assertThat(modified.get("s1")).isEqualTo(3000);
+		assertThat(tracker.drainModified()).isEmpty();
+	}
+
+	@Test
+	public void idleSessionIsReturnedAfterInactivityPeriod()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+		tracker.track("s1", 1000, 5000);
+
+		assertThat(tracker.pollExpired(5000)).isEmpty();
+		assertThat(tracker.pollExpired(7000)).containsExactly("s1");
+		assertThat(tracker.pollExpired(9000)).isEmpty();
+	}
+
+	@Test
+	public void activeSessionIsRescheduled()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+		tracker.track("s1", 1000, 5000);
+		tracker.recordActivity("s1", 4000);
+
+		assertThat(tracker.pollExpired(7000)).isEmpty();
+		assertThat(tracker.pollExpired(10000)).containsExactly("s1");
+	}
+
+	@Test
+	public void removedSessionIsNotReturned()
+	{
+		SessionActivityTracker tracker = new SessionActivityTracker();
+		tracker.track("s1", 1000, 5000);
+
+		tracker.remove("s1");
+
+		assertThat(tracker.pollExpired(10000)).isEmpty();
+		assertThat(tracker.getLastUsed("s1")).isNull();
+	}
+}
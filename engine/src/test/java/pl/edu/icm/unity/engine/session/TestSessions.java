@@ -15,6 +15,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Map;
 
 import org.junit.Test;
@@ -24,6 +25,7 @@ import pl.edu.icm.unity.engine.DBIntegrationTestBase;
 import pl.edu.icm.unity.engine.api.authn.LoginSession;
 import pl.edu.icm.unity.engine.api.session.SessionManagement;
 import pl.edu.icm.unity.engine.api.session.SessionManagement.AttributeUpdater;
+import pl.edu.icm.unity.engine.api.token.TokensManagement;
 import pl.edu.icm.unity.engine.server.EngineInitialization;
 import pl.edu.icm.unity.engine.session.SessionManagementImpl.SessionExpiredException;
 import pl.edu.icm.unity.exceptions.EngineException;
@@ -41,6 +43,8 @@ public class TestSessions extends DBIntegrationTestBase
 {
 	@Autowired
 	protected SessionManagement sessionMan;
+	@Autowired
+	protected TokensManagement tokensMan;
 
 
 
@@ -169,6 +173,29 @@ public class TestSessions extends DBIntegrationTestBase
 		assertThat(error).isInstanceOfAny(SessionExpiredException.class, IllegalArgumentException.class);
 	}
 	
+	@Test
+	public void sessionUsedOnOtherNodeIsProlonged() throws Exception
+	{
+		IdentityParam toAdd = new IdentityParam(UsernameIdentity.ID, "u1");
+		Identity id = idsMan.addEntity(toAdd, EngineInitialization.DEFAULT_CREDENTIAL_REQUIREMENT, 
+				EntityState.valid);
+		AuthenticationRealm realm = new AuthenticationRealm("test", "", 3, 33, RememberMePolicy.disallow , 1, 2);
+		LoginSession s = sessionMan.getCreateSession(id.getEntityId(), realm, "u1", null, null, null, null);
+		sessionMan.updateSessionActivity(s.getId());
+		
+		Thread.sleep(1000);
+		LoginSession stored = sessionMan.getSession(s.getId());
+		stored.setLastUsed(new Date());
+		tokensMan.updateToken(SessionManagementImpl.SESSION_TOKEN_TYPE, s.getId(), null, 
+				stored.getTokenContents());
+		Thread.sleep(1100);
+		
+		sessionMan.updateSessionActivity(s.getId());
+		
+		assertThat(sessionMan.getSession(s.getId()).getLastUsed().getTime())
+			.isGreaterThan(stored.getLastUsed().getTime());
+	}
+	
 	private void checkLastAuthnAttribute(long entityId) throws EngineException
 	{
 		Collection<AttributeExt> attrs = attrsMan.getAllAttributes(new EntityParam(entityId), false, "/", 
@@ -894,6 +894,35 @@ public class TestInputTranslationProfiles extends DBIntegrationTestBase
 	}
 	
 
+	@Test
+	public void profileInstanceIsReusedUntilProfileIsUpdated() throws Exception
+	{
+		List<TranslationRule> rules = new ArrayList<>();
+		rules.add(new TranslationRule("true", new TranslationAction(MapGroupActionFactory.NAME, 
+				new String[] {"'/A'"})));
+		tprofMan.addProfile(new TranslationProfile("p1", "", ProfileType.INPUT, rules));
+		
+		InputTranslationProfile instance1 = getCachedInstance("p1");
+		assertThat(getCachedInstance("p1") == instance1, is(true));
+		
+		rules.add(new TranslationRule("true", new TranslationAction(MapGroupActionFactory.NAME, 
+				new String[] {"'/B'"})));
+		tprofMan.updateProfile(new TranslationProfile("p1", "", ProfileType.INPUT, rules));
+		
+		InputTranslationProfile instance2 = getCachedInstance("p1");
+		assertThat(instance2 == instance1, is(false));
+		assertThat(instance2.getRuleInstances().size(), is(2));
+		
+		tprofMan.removeProfile(ProfileType.INPUT, "p1");
+		assertNull(getCachedInstance("p1"));
+	}
+	
+	private InputTranslationProfile getCachedInstance(String name)
+	{
+		return inputProfileRepo.getProfileInstance(name, 
+				profile -> new InputTranslationProfile(profile, inputProfileRepo, intactionReg));
+	}
+
 }
 
 
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import pl.edu.icm.unity.engine.DBIntegrationTestBase;
+import pl.edu.icm.unity.engine.attribute.AttributeStatementProcessor;
+import pl.edu.icm.unity.stdext.attr.StringAttribute;
+import pl.edu.icm.unity.stdext.attr.StringAttributeSyntax;
+import pl.edu.icm.unity.types.basic.AttributeExt;
+import pl.edu.icm.unity.types.basic.AttributeStatement;
+import pl.edu.icm.unity.types.basic.AttributeStatement.ConflictResolution;
+import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.Group;
+import pl.edu.icm.unity.types.basic.Identity;
+
+/**
+ * Measures the cost of attribute statements evaluation for a single entity, without storage access.
+ * The entity has many attributes, while its group has dozens of dynamic statements, some of them using
+ * attributes of a subgroup.
+ */
+public class TstPerfAttributeStatements extends DBIntegrationTestBase
+{
+	private static final int ENTITIES = 1000;
+	private static final int TEST_REPETITIONS = 10;
+	private static final int ATTRIBUTES = 100;
+	private static final int SUBGROUP_ATTRIBUTES = 20;
+	private static final int STATEMENTS = 40;
+
+	@Autowired
+	private AttributeStatementProcessor statementsProcessor;
+
+	private TimeHelper timer;
+	private final Map<String, Group> groups = new HashMap<>();
+	private final Map<String, AttributeType> attributeTypes = new HashMap<>();
+	private final List<Map<String, Map<String, AttributeExt>>> entitiesAttributes = new ArrayList<>();
+	private final List<List<Identity>> entitiesIdentities = new ArrayList<>();
+	private final Set<String> entityGroups = Sets.newHashSet("/", "/A", "/A/B");
+
+	@Before
+	public void setupTest() throws IOException
+	{
+		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+		String outputFile = "target/test-"+ getClass().getSimpleName() + "-" +
+				dateFormat.format(Calendar.getInstance().getTime()) + ".csv";
+		timer = new TimeHelper(outputFile);
+		System.out.println("Test output will be written to " + outputFile);
+
+		for (int i = 0; i < ATTRIBUTES; i++)
+			addAttributeType("a" + i);
+		for (int i = 0; i < SUBGROUP_ATTRIBUTES; i++)
+			addAttributeType("b" + i);
+		AttributeStatement[] statements = new AttributeStatement[STATEMENTS];
+		for (int i = 0; i < STATEMENTS; i++)
+		{
+			addAttributeType("d" + i);
+			statements[i] = i % 2 == 0 ?
+				new AttributeStatement("attrs contains 'a" + i + "'", null,
+					ConflictResolution.skip, "d" + i, "attr['a" + i + "'] + '-dynamic'") :
+				new AttributeStatement("eattr['b" + (i % SUBGROUP_ATTRIBUTES) + "'] != null", "/A/B",
+					ConflictResolution.skip, "d" + i, "eattrs['b" + (i % SUBGROUP_ATTRIBUTES) + "']");
+		}
+		groups.put("/", new Group("/"));
+		Group groupA = new Group("/A");
+		groupA.setAttributeStatements(statements);
+		groups.put("/A", groupA);
+		groups.put("/A/B", new Group("/A/B"));
+
+		for (int e = 0; e < ENTITIES; e++)
+		{
+			entitiesIdentities.add(Lists.newArrayList(
+					new Identity("userName", "user" + e, e, "user" + e)));
+			Map<String, Map<String, AttributeExt>> attributes = new HashMap<>();
+			attributes.put("/", new HashMap<>());
+			attributes.put("/A", createAttributes("a", ATTRIBUTES, "/A", e));
+			attributes.put("/A/B", createAttributes("b", SUBGROUP_ATTRIBUTES, "/A/B", e));
+			entitiesAttributes.add(attributes);
+		}
+	}
+
+	@Ignore
+	@Test
+	public void testEffectiveAttributesEvaluation() throws IOException
+	{
+		String label = "Attribute statements evaluation per entity";
+		evaluateAll();
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			evaluateAll();
+			timer.stopTimer(ENTITIES, label);
+		}
+		timer.calculateResults(label);
+	}
+
+	private void evaluateAll()
+	{
+		for (int e = 0; e < ENTITIES; e++)
+			statementsProcessor.getEffectiveAttributes(entitiesIdentities.get(e), "/A", null,
+					entityGroups, entitiesAttributes.get(e), new HashMap<>(),
+					groups::get, attributeTypes::get);
+	}
+
+	private Map<String, AttributeExt> createAttributes(String prefix, int number, String group, int entity)
+	{
+		Map<String, AttributeExt> ret = new HashMap<>();
+		for (int i = 0; i < number; i++)
+			ret.put(prefix + i, new AttributeExt(StringAttribute.of(prefix + i, group,
+					"value" + i + "-" + entity), true));
+		return ret;
+	}
+
+	private void addAttributeType(String name)
+	{
+		attributeTypes.put(name, new AttributeType(name, StringAttributeSyntax.ID));
+	}
+}
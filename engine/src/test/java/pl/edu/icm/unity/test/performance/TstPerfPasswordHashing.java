@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bouncycastle.crypto.generators.BCrypt;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import pl.edu.icm.unity.stdext.credential.pass.PasswordEncodingPoolProvider;
+import pl.edu.icm.unity.stdext.credential.pass.SCryptEncoder;
+import pl.edu.icm.unity.stdext.credential.pass.ScryptParams;
+
+/**
+ * Measures throughput of password hashing with SCrypt and BCrypt, for several parameter sets.
+ * Useful to choose work factors and the number of concurrent password checks for a given hardware.
+ */
+public class TstPerfPasswordHashing
+{
+	private static final int HASHINGS = 20;
+	private static final int TEST_REPETITIONS = 5;
+	private static final int[] SCRYPT_WORK_FACTORS = {10, 12, 14, 16};
+	private static final int[] BCRYPT_COSTS = {8, 10, 12};
+	private static final String PASSWORD = "the!test12";
+
+	private TimeHelper timer;
+	private final byte[] salt = new byte[16];
+
+	@Before
+	public void setup() throws IOException
+	{
+		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+		String outputFile = "target/test-"+ getClass().getSimpleName() + "-" +
+				dateFormat.format(Calendar.getInstance().getTime()) + ".csv";
+		timer = new TimeHelper(outputFile);
+		System.out.println("Test output will be written to " + outputFile);
+	}
+
+	@Ignore
+	@Test
+	public void testSCrypt() throws IOException
+	{
+		SCryptEncoder encoder = new SCryptEncoder(new PasswordEncodingPoolProvider(
+				new ForkJoinPool(Runtime.getRuntime().availableProcessors())));
+		for (int workFactor: SCRYPT_WORK_FACTORS)
+		{
+			ScryptParams params = new ScryptParams(workFactor);
+			String label = "SCrypt WF " + workFactor;
+			//warm-up
+			encoder.scrypt(PASSWORD, salt, params);
+			timer.clear();
+			for (int i = 0; i < TEST_REPETITIONS; i++)
+			{
+				timer.startTimer();
+				for (int j = 0; j < HASHINGS; j++)
+					encoder.scrypt(PASSWORD, salt, params);
+				timer.stopTimer(HASHINGS, label);
+			}
+			timer.calculateResults(label);
+		}
+	}
+
+	@Ignore
+	@Test
+	public void testBCrypt() throws IOException
+	{
+		byte[] password = PASSWORD.getBytes(StandardCharsets.UTF_8);
+		for (int cost: BCRYPT_COSTS)
+		{
+			String label = "BCrypt cost " + cost;
+			//warm-up
+			BCrypt.generate(password, salt, cost);
+			timer.clear();
+			for (int i = 0; i < TEST_REPETITIONS; i++)
+			{
+				timer.startTimer();
+				for (int j = 0; j < HASHINGS; j++)
+					BCrypt.generate(password, salt, cost);
+				timer.stopTimer(HASHINGS, label);
+			}
+			timer.calculateResults(label);
+		}
+	}
+}
@@ -49,10 +49,10 @@ public abstract class LdapBaseVerificator extends AbstractRemoteVerificator impl
 	
 	protected LdapBaseVerificator(String name, String description, 
 			RemoteAuthnResultProcessor processor,
-			PKIManagement pkiManagement, String exchangeId)
+			PKIManagement pkiManagement, LdapConnectionPools connectionPools, String exchangeId)
 	{
 		super(name, description, exchangeId, processor);
-		this.client = new LdapClient(name);
+		this.client = new LdapClient(name, connectionPools);
 		this.pkiManagement = pkiManagement;
 	}
 
@@ -28,9 +28,9 @@ public class LdapCertVerificator extends LdapBaseVerificator
 	
 	@Autowired
 	public LdapCertVerificator(RemoteAuthnResultProcessor processor,
-			PKIManagement pkiManagement)
+			PKIManagement pkiManagement, LdapConnectionPools connectionPools)
 	{
-		super(NAME, DESCRIPTION, processor, pkiManagement, CertificateExchange.ID);
+		super(NAME, DESCRIPTION, processor, pkiManagement, connectionPools, CertificateExchange.ID);
 	}
 	
 	
@@ -26,6 +26,7 @@ import com.unboundid.ldap.sdk.ExtendedResult;
 import com.unboundid.ldap.sdk.FailoverServerSet;
 import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPConnectionOptions;
 import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.ReadOnlySearchRequest;
@@ -69,6 +70,8 @@ import pl.edu.icm.unity.stdext.identity.X500Identity;
  * flexible group retrieval. Both 'memberOf' style and 'member' means of expressing group membership are supported,
  * with some additional options. Most notably it is possible to use a full DN of the group or its attribute 
  * as the group name.  
+ * <p>
+ * Connections are taken from {@link LdapConnectionPools} if the client was created with pools. 
  * 
  * @author K. Benedyczak
  */
@@ -80,11 +83,25 @@ public class LdapClient
 
 	private String idpName;
 	private LdapGroupHelper groupHelper;
+	private LdapConnectionPools pools;
 	
+	/**
+	 * Creates a client which opens a new connection for each operation.
+	 */
 	public LdapClient(String idpName)
+	{
+		this(idpName, null);
+	}
+
+	/**
+	 * Creates a client which uses pooled connections, unless pooling is disabled in the configuration 
+	 * of an operation.
+	 */
+	public LdapClient(String idpName, LdapConnectionPools pools)
 	{
 		this.idpName = idpName;
 		this.groupHelper = new LdapGroupHelper();
+		this.pools = pools;
 	}
 
 	/**
@@ -102,34 +119,25 @@ public class LdapClient
 			LdapClientConfiguration configuration) throws LDAPException, LdapAuthenticationException, 
 			KeyManagementException, NoSuchAlgorithmException
 	{
-		LDAPConnection connection = createConnection(configuration);
-		
 		String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
-		
-		String dn = establishUserDN(user, configuration, connection);
-		log.debug("Established user's DN is: " + dn);
-		
-		bindAsUser(connection, dn, password, configuration);
-		if (configuration.isBindOnly())
+		return withConnection(configuration, true, connection -> 
 		{
-			RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
-			ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
-			return ret;
-		}
-		
-		if (configuration.getBindAs() == BindAs.system)
-			bindAsSystem(connection, configuration);
-		
-		SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
-		
-		RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
-		findGroupsMembership(connection, entry, configuration, ret.getGroups());
-		
-		performAdditionalQueries(connection, configuration, user, ret);
-		ret.setRawAttributes(ret.getAttributes());
-		
-		connection.close();
-		return ret;
+			String dn = establishUserDN(user, configuration, connection);
+			log.debug("Established user's DN is: " + dn);
+			
+			bindAsUser(connection, dn, password, configuration);
+			if (configuration.isBindOnly())
+			{
+				RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
+				ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+				return ret;
+			}
+			
+			if (configuration.getBindAs() == BindAs.system)
+				bindAsSystem(connection, configuration);
+			
+			return searchUserData(connection, configuration, user, dn);
+		});
 	}
 
 	/**
@@ -156,22 +164,29 @@ public class LdapClient
 		}
 		
 		String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
-		
-		LDAPConnection connection = createConnection(configuration);
-		
-		String dn = establishUserDN(user, configuration, connection);
-		log.debug("Established user's DN is: " + dn);
-		
-		if (configuration.isBindOnly())
+		return withConnection(configuration, false, connection -> 
 		{
-			RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
-			ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
-			return ret;
-		}
-		
-		if (configuration.getBindAs() == BindAs.system)
-			bindAsSystem(connection, configuration);
-		
+			String dn = establishUserDN(user, configuration, connection);
+			log.debug("Established user's DN is: " + dn);
+			
+			if (configuration.isBindOnly())
+			{
+				RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
+				ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+				return ret;
+			}
+			
+			if (configuration.getBindAs() == BindAs.system)
+				bindAsSystem(connection, configuration);
+			
+			return searchUserData(connection, configuration, user, dn);
+		});
+	}
+	
+	private RemotelyAuthenticatedInput searchUserData(LDAPConnection connection, 
+			LdapClientConfiguration configuration, String user, String dn) 
+					throws LdapAuthenticationException, LDAPException
+	{
 		SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
 		
 		RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
@@ -179,11 +194,59 @@ public class LdapClient
 		
 		performAdditionalQueries(connection, configuration, user, ret);
 		ret.setRawAttributes(ret.getAttributes());
-		
-		connection.close();
 		return ret;
 	}
 	
+	/**
+	 * Runs the operation with a pooled connection, or with a dedicated one if pooling is disabled.
+	 * @param rebinds whether the operation changes the authentication state of the connection, 
+	 * so a pooled connection must be re-authenticated before being returned to the pool.
+	 */
+	private RemotelyAuthenticatedInput withConnection(LdapClientConfiguration configuration, boolean rebinds,
+			LdapOperation operation) throws LDAPException, LdapAuthenticationException, 
+			KeyManagementException, NoSuchAlgorithmException
+	{
+		LDAPConnectionPool pool = pools == null ? null : pools.getPool(configuration, idpName);
+		if (pool == null)
+		{
+			LDAPConnection connection = createConnection(configuration);
+			try
+			{
+				return operation.run(connection);
+			} finally
+			{
+				connection.close();
+			}
+		}
+		
+		LDAPConnection connection = pool.getConnection();
+		log.debug("Using pooled connection to LDAP server");
+		try
+		{
+			RemotelyAuthenticatedInput ret = operation.run(connection);
+			release(pool, connection, rebinds);
+			return ret;
+		} catch (LDAPException e)
+		{
+			if (ResultCode.isConnectionUsable(e.getResultCode()))
+				release(pool, connection, true);
+			else
+				pool.releaseDefunctConnection(connection);
+			throw e;
+		} catch (LdapAuthenticationException | RuntimeException e)
+		{
+			release(pool, connection, true);
+			throw e;
+		}
+	}
+	
+	private void release(LDAPConnectionPool pool, LDAPConnection connection, boolean reauthenticate)
+	{
+		if (reauthenticate)
+			pool.releaseAndReAuthenticateConnection(connection);
+		else
+			pool.releaseConnection(connection);
+	}
 	
 	/**
 	 * Returns DN of the user. Depending on configuration the user's DN can be simply formed from a 
@@ -232,6 +295,33 @@ public class LdapClient
 	 */
 	private LDAPConnection createConnection(LdapClientConfiguration configuration) 
 			throws KeyManagementException, NoSuchAlgorithmException, LDAPException
+	{
+		LDAPConnection connection = createServerSet(configuration, null).getConnection();
+		
+		log.debug("Established connection to LDAP server");
+		if (configuration.getConnectionMode() == ConnectionMode.startTLS)
+		{
+			ExtendedResult extendedResult = connection.processExtendedOperation(
+					new StartTLSExtendedRequest(createStartTLSContext(configuration)));
+
+			if (extendedResult.getResultCode() != ResultCode.SUCCESS)
+			{
+				connection.close();
+				throw new LDAPException(extendedResult.getResultCode(), "Unable to esablish " +
+						"a secure TLS connection to the LDAP server: " + 
+						extendedResult.toString());
+			}
+			log.debug("Connection upgraded to TLS");
+		}
+		return connection;
+	}
+
+	/**
+	 * @param maxFailoverConnectionAge if not null, connections established to a failover server are 
+	 * treated as expired after this time (in ms), so pooled connections return to the preferred server.
+	 */
+	static FailoverServerSet createServerSet(LdapClientConfiguration configuration, Long maxFailoverConnectionAge) 
+			throws KeyManagementException, NoSuchAlgorithmException
 	{
 		LDAPConnectionOptions connectionOptions = new LDAPConnectionOptions();
 		connectionOptions.setConnectTimeoutMillis(configuration.getSocketTimeout());
@@ -252,28 +342,17 @@ public class LdapClient
 			failoverSet = new FailoverServerSet(configuration.getServersAddresses(), 
 				configuration.getPorts(), connectionOptions);
 		}
-		
-		LDAPConnection connection = failoverSet.getConnection();
-		
-		log.debug("Established connection to LDAP server");
-		if (configuration.getConnectionMode() == ConnectionMode.startTLS)
-		{
-			X509CertChainValidator validator = configuration.getConnectionValidator();
-			SSLContext ctx = SSLContextCreator.createSSLContext(null, validator, 
-					"TLSv1.2", "LDAP client", legacyLog);
-			ExtendedResult extendedResult = connection.processExtendedOperation(
-					new StartTLSExtendedRequest(ctx));
-
-			if (extendedResult.getResultCode() != ResultCode.SUCCESS)
-			{
-				connection.close();
-				throw new LDAPException(extendedResult.getResultCode(), "Unable to esablish " +
-						"a secure TLS connection to the LDAP server: " + 
-						extendedResult.toString());
-			}
-			log.debug("Connection upgraded to TLS");
-		}
-		return connection;
+		if (maxFailoverConnectionAge != null)
+			failoverSet.setMaxFailoverConnectionAgeMillis(maxFailoverConnectionAge);
+		return failoverSet;
+	}
+	
+	static SSLContext createStartTLSContext(LdapClientConfiguration configuration) 
+			throws KeyManagementException, NoSuchAlgorithmException
+	{
+		X509CertChainValidator validator = configuration.getConnectionValidator();
+		return SSLContextCreator.createSSLContext(null, validator, 
+				"TLSv1.2", "LDAP client", legacyLog);
 	}
 
 	private void bindAsUser(LDAPConnection connection, String dn, String password, 
@@ -475,7 +554,11 @@ public class LdapClient
 			principalData.addAttribute(new RemoteAttribute(e.getKey(), e.getValue().toArray()));
 		}
 	}
+	
+	@FunctionalInterface
+	private interface LdapOperation
+	{
+		RemotelyAuthenticatedInput run(LDAPConnection connection) 
+				throws LDAPException, LdapAuthenticationException;
+	}
 }
-
-
-
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.ldap.client;
+
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.unboundid.ldap.sdk.BindRequest;
+import com.unboundid.ldap.sdk.GetEntryLDAPConnectionPoolHealthCheck;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPConnectionPoolStatistics;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.PostConnectProcessor;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import com.unboundid.ldap.sdk.StartTLSPostConnectProcessor;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
+import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
+import pl.edu.icm.unity.ldap.client.config.LdapProperties.ConnectionMode;
+
+/**
+ * Maintains pools of LDAP connections, shared by all LDAP authenticators and importers.
+ * A pool is created for each distinct set of connection settings (servers, security and system credential),
+ * so clients with the same settings reuse connections, also after their configuration is reloaded.
+ * <p>
+ * Pooled connections are authenticated with the system credential, if it is configured, otherwise
+ * they are anonymous. Clients which change the authentication state of a connection must release it with
+ * re-authentication. Pools which were not used for the configured idle time are closed.
+ */
+@Component
+public class LdapConnectionPools
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_LDAP, LdapConnectionPools.class);
+	private static final long CLEANUP_INTERVAL = 60;
+	private static final long DEFAULT_MAX_WAIT_TIME = 30000;
+	private final Map<List<Object>, PoolEntry> pools = new HashMap<>();
+
+	@Autowired
+	public LdapConnectionPools(ExecutorsService executorsService)
+	{
+		executorsService.getService().scheduleWithFixedDelay(this::closeIdlePools,
+				CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @return pool for the given configuration or null if pooling is disabled in it
+	 */
+	synchronized LDAPConnectionPool getPool(LdapClientConfiguration configuration, String name)
+			throws KeyManagementException, NoSuchAlgorithmException, LDAPException
+	{
+		if (configuration.getPoolMaxSize() <= 0)
+			return null;
+		List<Object> key = getPoolKey(configuration);
+		PoolEntry entry = pools.get(key);
+		if (entry == null || entry.pool.isClosed())
+		{
+			entry = new PoolEntry(createPool(configuration, name),
+					TimeUnit.SECONDS.toMillis(configuration.getPoolIdleTimeout()));
+			pools.put(key, entry);
+		}
+		entry.lastUse = System.currentTimeMillis();
+		return entry.pool;
+	}
+
+	/**
+	 * @return statistics of all open pools, by pool name
+	 */
+	public synchronized Map<String, LDAPConnectionPoolStatistics> getStatistics()
+	{
+		Map<String, LDAPConnectionPoolStatistics> ret = new HashMap<>();
+		for (PoolEntry entry: pools.values())
+			ret.put(entry.pool.getConnectionPoolName(), entry.pool.getConnectionPoolStatistics());
+		return ret;
+	}
+
+	synchronized void closeIdlePools()
+	{
+		long now = System.currentTimeMillis();
+		Iterator<PoolEntry> iterator = pools.values().iterator();
+		while (iterator.hasNext())
+		{
+			PoolEntry entry = iterator.next();
+			if (log.isDebugEnabled())
+				log.debug("LDAP connection pool {}: {}", entry.pool.getConnectionPoolName(),
+						entry.pool.getConnectionPoolStatistics());
+			if (now - entry.lastUse > entry.idleTimeout)
+			{
+				log.debug("Closing idle LDAP connection pool {}", entry.pool.getConnectionPoolName());
+				entry.pool.close();
+				iterator.remove();
+			}
+		}
+	}
+
+	@PreDestroy
+	public synchronized void closeAll()
+	{
+		pools.values().forEach(entry -> entry.pool.close());
+		pools.clear();
+	}
+
+	private LDAPConnectionPool createPool(LdapClientConfiguration configuration, String name)
+			throws KeyManagementException, NoSuchAlgorithmException, LDAPException
+	{
+		long healthCheckInterval = TimeUnit.SECONDS.toMillis(configuration.getPoolHealthCheckInterval());
+		BindRequest bindRequest = getBindRequest(configuration);
+		PostConnectProcessor postConnectProcessor = configuration.getConnectionMode() == ConnectionMode.startTLS ?
+				new StartTLSPostConnectProcessor(LdapClient.createStartTLSContext(configuration)) : null;
+		int maxSize = configuration.getPoolMaxSize();
+
+		LDAPConnectionPool pool = new LDAPConnectionPool(
+				LdapClient.createServerSet(configuration, healthCheckInterval), bindRequest,
+				Math.min(configuration.getPoolInitialSize(), maxSize), maxSize, postConnectProcessor);
+		pool.setConnectionPoolName("LDAP " + name + " " + Arrays.toString(configuration.getServersAddresses()));
+		pool.setCreateIfNecessary(false);
+		pool.setMaxWaitTimeMillis(configuration.getSocketTimeout() > 0 ? 
+				configuration.getSocketTimeout() : DEFAULT_MAX_WAIT_TIME);
+		pool.setMaxConnectionAgeMillis(TimeUnit.SECONDS.toMillis(configuration.getPoolMaxConnectionAge()));
+		pool.setHealthCheck(new GetEntryLDAPConnectionPoolHealthCheck(null,
+				configuration.getSocketTimeout(), false, false, false, true, true));
+		pool.setHealthCheckIntervalMillis(healthCheckInterval);
+		log.info("Created LDAP connection pool {}, max size: {}", pool.getConnectionPoolName(), maxSize);
+		return pool;
+	}
+
+	private static BindRequest getBindRequest(LdapClientConfiguration configuration)
+	{
+		return configuration.getSystemDN() != null && configuration.getSystemPassword() != null ?
+				new SimpleBindRequest(configuration.getSystemDN(), configuration.getSystemPassword()) : null;
+	}
+
+	private static List<Object> getPoolKey(LdapClientConfiguration configuration)
+	{
+		boolean verifiedTLS = configuration.getConnectionMode() != ConnectionMode.plain
+				&& !configuration.isTrustAllCerts();
+		return Arrays.asList(
+				Arrays.asList(configuration.getServersAddresses()),
+				Arrays.toString(configuration.getPorts()),
+				configuration.getConnectionMode(),
+				configuration.isTrustAllCerts(),
+				verifiedTLS ? configuration.getConnectionValidator() : null,
+				configuration.getSocketTimeout(),
+				configuration.getFollowReferrals(),
+				configuration.getSystemDN(),
+				configuration.getSystemPassword(),
+				configuration.getPoolMaxSize(),
+				configuration.getPoolInitialSize(),
+				configuration.getPoolMaxConnectionAge(),
+				configuration.getPoolHealthCheckInterval(),
+				configuration.getPoolIdleTimeout());
+	}
+
+	private static class PoolEntry
+	{
+		private final LDAPConnectionPool pool;
+		private final long idleTimeout;
+		private long lastUse;
+
+		PoolEntry(LDAPConnectionPool pool, long idleTimeout)
+		{
+			this.pool = pool;
+			this.idleTimeout = idleTimeout;
+		}
+	}
+}
@@ -28,9 +28,9 @@ public class LdapPasswordVerificator extends LdapBaseVerificator
 	
 	@Autowired
 	public LdapPasswordVerificator(RemoteAuthnResultProcessor processor,
-			PKIManagement pkiManagement)
+			PKIManagement pkiManagement, LdapConnectionPools connectionPools)
 	{
-		super(NAME, DESCRIPTION, processor, pkiManagement, PasswordExchange.ID);
+		super(NAME, DESCRIPTION, processor, pkiManagement, connectionPools, PasswordExchange.ID);
 	}
 	
 	@Component
@@ -71,6 +71,12 @@ public class LdapConfiguration
 	private boolean trustAllCerts;
 	private String clientTrustStore;
 	private int resultEntriesLimit;
+	
+	private int poolMaxSize;
+	private int poolInitialSize;
+	private int poolMaxConnectionAge;
+	private int poolHealthCheckInterval;
+	private int poolIdleTimeout;
 
 	private boolean delegateGroupFiltering;
 	private String groupsBaseName;
@@ -110,6 +116,11 @@ public class LdapConfiguration
 		setLdapSearchScope(SearchScope.base);
 		setDelegateGroupFiltering(LdapProperties.DEFAULT_GROUPS_SEARCH_IN_LDAP);
 		setResultEntriesLimit(LdapProperties.DEFAULT_RESULT_ENTRIES_LIMIT);
+		setPoolMaxSize(LdapProperties.DEFAULT_POOL_MAX_SIZE);
+		setPoolInitialSize(LdapProperties.DEFAULT_POOL_INITIAL_SIZE);
+		setPoolMaxConnectionAge(LdapProperties.DEFAULT_POOL_MAX_CONNECTION_AGE);
+		setPoolHealthCheckInterval(LdapProperties.DEFAULT_POOL_HEALTH_CHECK_INTERVAL);
+		setPoolIdleTimeout(LdapProperties.DEFAULT_POOL_IDLE_TIMEOUT);
 	}
 
 	public void fromProperties(LdapProperties ldapProp)
@@ -171,6 +182,26 @@ public class LdapConfiguration
 		{
 			setResultEntriesLimit(ldapProp.getIntValue(LdapProperties.RESULT_ENTRIES_LIMIT));
 		}
+		if (ldapProp.isSet(LdapProperties.POOL_MAX_SIZE))
+		{
+			setPoolMaxSize(ldapProp.getIntValue(LdapProperties.POOL_MAX_SIZE));
+		}
+		if (ldapProp.isSet(LdapProperties.POOL_INITIAL_SIZE))
+		{
+			setPoolInitialSize(ldapProp.getIntValue(LdapProperties.POOL_INITIAL_SIZE));
+		}
+		if (ldapProp.isSet(LdapProperties.POOL_MAX_CONNECTION_AGE))
+		{
+			setPoolMaxConnectionAge(ldapProp.getIntValue(LdapProperties.POOL_MAX_CONNECTION_AGE));
+		}
+		if (ldapProp.isSet(LdapProperties.POOL_HEALTH_CHECK_INTERVAL))
+		{
+			setPoolHealthCheckInterval(ldapProp.getIntValue(LdapProperties.POOL_HEALTH_CHECK_INTERVAL));
+		}
+		if (ldapProp.isSet(LdapProperties.POOL_IDLE_TIMEOUT))
+		{
+			setPoolIdleTimeout(ldapProp.getIntValue(LdapProperties.POOL_IDLE_TIMEOUT));
+		}
 
 		setTrustAllCerts(ldapProp.getBooleanValue(LdapProperties.TLS_TRUST_ALL));
 		setClientTrustStore(ldapProp.getValue(LdapProperties.TRUSTSTORE));
@@ -342,6 +373,14 @@ public class LdapConfiguration
 		raw.put(LdapProperties.PREFIX + LdapProperties.RESULT_ENTRIES_LIMIT,
 				String.valueOf(getResultEntriesLimit()));
 
+		raw.put(LdapProperties.PREFIX + LdapProperties.POOL_MAX_SIZE, String.valueOf(getPoolMaxSize()));
+		raw.put(LdapProperties.PREFIX + LdapProperties.POOL_INITIAL_SIZE, String.valueOf(getPoolInitialSize()));
+		raw.put(LdapProperties.PREFIX + LdapProperties.POOL_MAX_CONNECTION_AGE,
+				String.valueOf(getPoolMaxConnectionAge()));
+		raw.put(LdapProperties.PREFIX + LdapProperties.POOL_HEALTH_CHECK_INTERVAL,
+				String.valueOf(getPoolHealthCheckInterval()));
+		raw.put(LdapProperties.PREFIX + LdapProperties.POOL_IDLE_TIMEOUT, String.valueOf(getPoolIdleTimeout()));
+
 		if (getClientTrustStore() != null)
 		{
 			raw.put(LdapProperties.PREFIX + LdapProperties.TRUSTSTORE,
@@ -910,6 +949,56 @@ public class LdapConfiguration
 		this.resultEntriesLimit = resultEntriesLimit;
 	}
 
+	public int getPoolMaxSize()
+	{
+		return poolMaxSize;
+	}
+
+	public void setPoolMaxSize(int poolMaxSize)
+	{
+		this.poolMaxSize = poolMaxSize;
+	}
+
+	public int getPoolInitialSize()
+	{
+		return poolInitialSize;
+	}
+
+	public void setPoolInitialSize(int poolInitialSize)
+	{
+		this.poolInitialSize = poolInitialSize;
+	}
+
+	public int getPoolMaxConnectionAge()
+	{
+		return poolMaxConnectionAge;
+	}
+
+	public void setPoolMaxConnectionAge(int poolMaxConnectionAge)
+	{
+		this.poolMaxConnectionAge = poolMaxConnectionAge;
+	}
+
+	public int getPoolHealthCheckInterval()
+	{
+		return poolHealthCheckInterval;
+	}
+
+	public void setPoolHealthCheckInterval(int poolHealthCheckInterval)
+	{
+		this.poolHealthCheckInterval = poolHealthCheckInterval;
+	}
+
+	public int getPoolIdleTimeout()
+	{
+		return poolIdleTimeout;
+	}
+
+	public void setPoolIdleTimeout(int poolIdleTimeout)
+	{
+		this.poolIdleTimeout = poolIdleTimeout;
+	}
+
 	public String getUserDNSearchKey()
 	{
 		return userDNSearchKey;
@@ -58,6 +58,12 @@ public class LdapProperties extends UnityPropertiesHelper
 	public static final String SOCKET_TIMEOUT = "socketTimeout";
 	public static final String FOLLOW_REFERRALS = "referralHopLimit";
 	
+	public static final String POOL_MAX_SIZE = "connectionPoolMaxSize";
+	public static final String POOL_INITIAL_SIZE = "connectionPoolInitialSize";
+	public static final String POOL_MAX_CONNECTION_AGE = "connectionPoolMaxConnectionAge";
+	public static final String POOL_HEALTH_CHECK_INTERVAL = "connectionPoolHealthCheckInterval";
+	public static final String POOL_IDLE_TIMEOUT = "connectionPoolIdleTimeout";
+	
 	public static final String CONNECTION_MODE = "connectionMode";
 	public static final String TLS_TRUST_ALL = "trustAllServerCertificates";
 
@@ -104,6 +110,11 @@ public class LdapProperties extends UnityPropertiesHelper
 	public static final int DEFAULT_SOCKET_TIMEOUT = 30000;
 	public static final boolean DEFAULT_GROUPS_SEARCH_IN_LDAP = true;
 	public static final ConnectionMode DEFAULT_CONNECTION_MODE = ConnectionMode.plain;
+	public static final int DEFAULT_POOL_MAX_SIZE = 10;
+	public static final int DEFAULT_POOL_INITIAL_SIZE = 1;
+	public static final int DEFAULT_POOL_MAX_CONNECTION_AGE = 600;
+	public static final int DEFAULT_POOL_HEALTH_CHECK_INTERVAL = 60;
+	public static final int DEFAULT_POOL_IDLE_TIMEOUT = 900;
 	
 	@DocumentationReferenceMeta
 	public final static Map<String, PropertyMD> META=new HashMap<String, PropertyMD>();
@@ -111,6 +122,7 @@ public class LdapProperties extends UnityPropertiesHelper
 	static
 	{
 		DocumentationCategory main = new DocumentationCategory("General settings", "1");
+		DocumentationCategory pool = new DocumentationCategory("Connection pool settings", "2");
 		DocumentationCategory groups = new DocumentationCategory("Group retrieval settings", "3");
 		DocumentationCategory advSearch = new DocumentationCategory("Advanced attribute search settings", "5");
 		
@@ -129,6 +141,25 @@ public class LdapProperties extends UnityPropertiesHelper
 		META.put(FOLLOW_REFERRALS, new PropertyMD(String.valueOf(DEFAULT_FOLLOW_REFERRALS)).setNonNegative().setCategory(main).setDescription("Number of referrals to follow. " +
 				"Set to 0 to disable following referrals."));
 		
+		META.put(POOL_MAX_SIZE, new PropertyMD(String.valueOf(DEFAULT_POOL_MAX_SIZE)).setBounds(0, 1000).setCategory(pool).setDescription(
+				"Maximum number of connections to the LDAP server kept in a pool. Connections are reused "
+				+ "by subsequent authentications and imports using the same connection settings, "
+				+ "what avoids a TCP and TLS handshake per operation. When all connections are in use, "
+				+ "further operations wait for a free connection up to the socket timeout. "
+				+ "Set to 0 to disable pooling and to open a new connection for each operation."));
+		META.put(POOL_INITIAL_SIZE, new PropertyMD(String.valueOf(DEFAULT_POOL_INITIAL_SIZE)).setBounds(0, 1000).setCategory(pool).setDescription(
+				"Number of connections established when the pool is created."));
+		META.put(POOL_MAX_CONNECTION_AGE, new PropertyMD(String.valueOf(DEFAULT_POOL_MAX_CONNECTION_AGE)).setNonNegative().setCategory(pool).setDescription(
+				"Maximum time in seconds for which a pooled connection is used. Older connections are "
+				+ "closed and replaced with new ones. Set to 0 to disable the limit."));
+		META.put(POOL_HEALTH_CHECK_INTERVAL, new PropertyMD(String.valueOf(DEFAULT_POOL_HEALTH_CHECK_INTERVAL)).setBounds(1, 86400).setCategory(pool).setDescription(
+				"Interval in seconds of background checks of pooled connections. Broken connections "
+				+ "are replaced and connections established to a failover server are closed "
+				+ "after this time, so that the pool returns to the first available server."));
+		META.put(POOL_IDLE_TIMEOUT, new PropertyMD(String.valueOf(DEFAULT_POOL_IDLE_TIMEOUT)).setBounds(60, 86400).setCategory(pool).setDescription(
+				"Time in seconds after which a pool which was not used is closed together "
+				+ "with all its connections."));
+		
 		META.put(BIND_AS, new PropertyMD(DEFAULT_BIND_AS).setCategory(main).setDescription("Fundamental setting "
 				+ "controlling how Unity interacts with the LDAP server. By default Unity binds to the LDAP server "
 				+ "_as the user_ who is being authenticated by Unity. This may be changed to use a "
@@ -9,6 +9,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.ADV_SEARCH_ATTRIBUTES;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.ADV_SEARCH_BASE;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.ADV_SEARCH_FILTER;
@@ -25,6 +27,7 @@ import static pl.edu.icm.unity.ldap.client.config.LdapProperties.GROUP_DEFINITIO
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.GROUP_DEFINITION_PFX;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.MEMBER_OF_ATTRIBUTE;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.MEMBER_OF_GROUP_ATTRIBUTE;
+import static pl.edu.icm.unity.ldap.client.config.LdapProperties.POOL_MAX_SIZE;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.PORTS;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.PREFIX;
 import static pl.edu.icm.unity.ldap.client.config.LdapProperties.SERVERS;
@@ -39,6 +42,7 @@ import static pl.edu.icm.unity.webui.authn.CommonWebAuthnProperties.TRANSLATION_
 
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Pattern;
 
 import org.junit.AfterClass;
@@ -47,14 +51,17 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.sdk.LDAPConnectionPoolStatistics;
 import com.unboundid.ldap.sdk.LDAPException;
 
 import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.engine.api.authn.remote.RemoteAttribute;
 import pl.edu.icm.unity.engine.api.authn.remote.RemoteGroupMembership;
 import pl.edu.icm.unity.engine.api.authn.remote.RemotelyAuthenticatedInput;
+import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.ldap.client.LdapAuthenticationException;
 import pl.edu.icm.unity.ldap.client.LdapClient;
+import pl.edu.icm.unity.ldap.client.LdapConnectionPools;
 import pl.edu.icm.unity.ldap.client.LdapUtils;
 import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
 import pl.edu.icm.unity.ldap.client.config.LdapProperties;
@@ -549,6 +556,44 @@ public class LdapTest
 	}
 	
 	
+	@Test
+	public void shouldReusePooledConnectionForSubsequentAuthentications() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+SERVERS+"1", hostname);
+		p.setProperty(PREFIX+PORTS+"1", port);
+		p.setProperty(PREFIX+USER_DN_TEMPLATE, "cn={USERNAME},ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+ATTRIBUTES+"1", "sn");
+		p.setProperty(PREFIX+POOL_MAX_SIZE, "1");
+
+		p.setProperty(PREFIX+BIND_AS, "system");
+		p.setProperty(PREFIX+SYSTEM_DN, "cn=user1,ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+SYSTEM_PASSWORD, "user1");	
+		p.setProperty(PREFIX+TRANSLATION_PROFILE, "dummy");
+		
+		LdapProperties lp = new LdapProperties(p);
+		LdapClientConfiguration clientConfig = new LdapClientConfiguration(lp, pkiManagement);
+		ExecutorsService executors = mock(ExecutorsService.class);
+		when(executors.getService()).thenReturn(mock(ScheduledExecutorService.class));
+		LdapConnectionPools pools = new LdapConnectionPools(executors);
+		LdapClient client = new LdapClient("test", pools);
+		try
+		{
+			client.bindAndSearch("user2", "wrong", clientConfig);
+			fail("authenticated with a wrong password");
+		} catch (LdapAuthenticationException e)
+		{
+			//ok, expected
+		}
+		client.bindAndSearch("user2", "user1", clientConfig);
+		RemotelyAuthenticatedInput ret = client.bindAndSearch("user2", "user1", clientConfig);
+		
+		assertTrue(containsAttribute(ret.getAttributes(), "sn", "User2 Surname"));
+		LDAPConnectionPoolStatistics stats = pools.getStatistics().values().iterator().next();
+		assertEquals(1, stats.getNumSuccessfulConnectionAttempts());
+		pools.closeAll();
+	}
+	
 	@Test
 	public void shouldReturnAttributesWithUserTemplateAndAnonymousConnect() throws Exception
 	{
@@ -173,7 +173,8 @@ public class OAuthProcessor
 			Date codeExpiration = new Date(now.getTime() + config.getCodeTokenValidity() * 1000);
 			addCodeHashIfNeededToIdToken(idToken, authzCode, signingAlgorithm, responseType);
 
-			signAndRecordIdToken(idToken, config.getTokenSigner(), responseType, internalToken);
+			Optional<JWT> idTokenSigned = signAndRecordIdToken(idToken, config.getTokenSigner(), 
+					responseType, internalToken);
 			tokensMan.addToken(INTERNAL_CODE_TOKEN, authzCode.getValue(), 
 					new EntityParam(identity), internalToken.getSerialized(), 
 					now, codeExpiration);
@@ -187,14 +188,12 @@ public class OAuthProcessor
 				Date accessExpiration = new Date(now.getTime() + config.getAccessTokenValidity() * 1000);
 				addAccessTokenHashIfNeededToIdToken(idToken, accessToken, signingAlgorithm, responseType);
 				
-				signAndRecordIdToken(idToken, config.getTokenSigner(), responseType, internalToken);
+				idTokenSigned = signAndRecordIdToken(idToken, config.getTokenSigner(), 
+						responseType, internalToken);
 				tokenDAO.storeAccessToken(accessToken, internalToken, new EntityParam(identity), now, 
 						accessExpiration);
 			}
 			
-			Optional<JWT> idTokenSigned = signAndRecordIdToken(idToken, config.getTokenSigner(), 
-					responseType, internalToken);
-
 			oauthResponse = new AuthenticationSuccessResponse(
 					ctx.getReturnURI(), authzCode, idTokenSigned.orElse(null), 
 					accessToken, ctx.getRequest().getState(), null, 
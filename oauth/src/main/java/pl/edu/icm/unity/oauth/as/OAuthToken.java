@@ -70,7 +70,7 @@ public class OAuthToken
 		setRequestedScope(source.getRequestedScope());
 		setAudience(source.getAudience());
 		setIssuerUri(source.getIssuerUri());
-		pkcsInfo = new PKCSInfo(source.pkcsInfo);
+		pkcsInfo = source.pkcsInfo == null ? new PKCSInfo() : new PKCSInfo(source.pkcsInfo);
 		setClientType(source.getClientType());
 	}
 	
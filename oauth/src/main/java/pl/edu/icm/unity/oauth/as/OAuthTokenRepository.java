@@ -4,14 +4,20 @@
  */
 package pl.edu.icm.unity.oauth.as;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 
 import pl.edu.icm.unity.base.token.Token;
@@ -20,18 +26,31 @@ import pl.edu.icm.unity.engine.api.token.TokensManagement;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.exceptions.IllegalIdentityValueException;
 import pl.edu.icm.unity.exceptions.IllegalTypeException;
+import pl.edu.icm.unity.oauth.as.token.BaseOAuthResource;
+import pl.edu.icm.unity.oauth.as.token.BaseTokenResource.TokensPair;
 import pl.edu.icm.unity.oauth.as.token.BearerJWTAccessToken;
 import pl.edu.icm.unity.types.basic.EntityParam;
 
 /**
  * Built on top of generic token storage handles access to persisted OAuth tokens.
+ * <p>
+ * Parsed contents of access tokens which were read are cached, keyed by a hash of the token's key.
+ * The token itself is always read from the storage and the cached contents are used only if the stored
+ * contents are the same. Therefore removal of a token is effective immediately, regardless whether it was 
+ * removed with this class, together with its owner or on another cluster node.
  */
 @Component
 public class OAuthTokenRepository
 {
-	static final String INTERNAL_ACCESS_TOKEN = "oauth2Access";
+	public static final String INTERNAL_ACCESS_TOKEN = "oauth2Access";
+	private static final int MAX_CACHED_TOKENS = 100000;
+	private static final long CACHE_TTL_SECONDS = 30;
 	private final TokensManagement tokensMan;
 	private final SecuredTokensManagement securedTokensManagement;
+	private final Cache<String, TokensPair> accessTokensCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+			.maximumSize(MAX_CACHED_TOKENS)
+			.build();
 	
 	@Autowired
 	public OAuthTokenRepository(TokensManagement tokensMan, SecuredTokensManagement securedTokensManagement)
@@ -56,9 +75,31 @@ public class OAuthTokenRepository
 				rawToken.getContents());
 	}
 	
+	/**
+	 * @throws IllegalArgumentException if there is no such token or it is expired
+	 */
 	public Token readAccessToken(String tokenValue)
 	{
-		return tokensMan.getTokenById(INTERNAL_ACCESS_TOKEN, extractTokenKey(tokenValue));
+		return readParsedAccessToken(tokenValue).tokenSrc;
+	}
+
+	/**
+	 * Fast path for resolving of access tokens, which avoids parsing of token contents for the recently 
+	 * used tokens. The returned objects are copies, so can be freely modified.
+	 * @throws IllegalArgumentException if there is no such token or it is expired
+	 */
+	public TokensPair readParsedAccessToken(String tokenValue)
+	{
+		String tokenKey = extractTokenKey(tokenValue);
+		String cacheKey = getCacheKey(tokenKey);
+		Token token = tokensMan.getTokenById(INTERNAL_ACCESS_TOKEN, tokenKey);
+		TokensPair cached = accessTokensCache.getIfPresent(cacheKey);
+		if (cached == null || !Arrays.equals(cached.tokenSrc.getContents(), token.getContents()))
+		{
+			cached = new TokensPair(copy(token), BaseOAuthResource.parseInternalToken(token));
+			accessTokensCache.put(cacheKey, cached);
+		}
+		return new TokensPair(token, new OAuthToken(cached.parsedToken));
 	}
 	
 	private String extractTokenKey(String tokenValue)
@@ -74,6 +115,16 @@ public class OAuthTokenRepository
 	public void removeAccessToken(String tokenKey)
 	{
 		tokensMan.removeToken(INTERNAL_ACCESS_TOKEN, tokenKey);
+		accessTokensCache.invalidate(getCacheKey(tokenKey));
+	}
+
+	/**
+	 * As {@link #removeAccessToken(String)}, but the caller must be authorized to remove the token.
+	 */
+	public void removeAccessTokenAuthorized(String tokenKey) throws EngineException
+	{
+		securedTokensManagement.removeToken(INTERNAL_ACCESS_TOKEN, tokenKey);
+		accessTokensCache.invalidate(getCacheKey(tokenKey));
 	}
 	
 	public List<Token> getAllAccessTokens() throws EngineException
@@ -87,6 +138,20 @@ public class OAuthTokenRepository
 	}
 
 	
+	private static String getCacheKey(String tokenKey)
+	{
+		return Hashing.sha256().hashString(tokenKey, StandardCharsets.UTF_8).toString();
+	}
+	
+	private static Token copy(Token source)
+	{
+		Token ret = new Token(source.getType(), source.getValue(), source.getOwner());
+		ret.setCreated(source.getCreated());
+		ret.setExpires(source.getExpires());
+		ret.setContents(source.getContents());
+		return ret;
+	}
+	
 	private static String getTokenUniqueKey(AccessToken token)
 	{
 		if (token instanceof BearerJWTAccessToken)
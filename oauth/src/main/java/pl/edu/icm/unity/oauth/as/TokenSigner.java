@@ -9,6 +9,8 @@ import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.RSAPrivateKey;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JOSEObjectType;
@@ -33,11 +35,14 @@ import pl.edu.icm.unity.exceptions.InternalException;
 
 /**
  * Wrapper for  {@link JWSSigner}. Can signs token using RSA, EC or HMAC algorithm. 
+ * The signer and the serialized JWS headers are created once and reused for all tokens.
  * @author P.Piernik
  *
  */
 public class TokenSigner
 {
+	private static final String NO_TYPE = "";
+	private final ConcurrentMap<String, JWSHeader> headers = new ConcurrentHashMap<>();
 	private JWSSigner internalSigner;
 	private JWSAlgorithm algorithm;
 	private X509Credential credential;
@@ -172,11 +177,30 @@ public class TokenSigner
 	{
 		if (!isPKIEnabled())
 			throw new InternalException("Token signer is not initialized");
-		JWSHeader.Builder jwsHeaderBuilder = new JWSHeader.Builder(algorithm);
-		if (type != null)
-			jwsHeaderBuilder.type(new JOSEObjectType(type));
-		SignedJWT ret = new SignedJWT(jwsHeaderBuilder.build(), claims);	
+		SignedJWT ret = new SignedJWT(getHeader(type), claims);	
 		ret.sign(internalSigner);
 		return ret;
 	}
+
+	/**
+	 * Headers are created from their serialized form, so they keep it and it is not recomputed 
+	 * for every signed token.
+	 */
+	private JWSHeader getHeader(String type)
+	{
+		return headers.computeIfAbsent(type == null ? NO_TYPE : type, key -> 
+		{
+			JWSHeader.Builder jwsHeaderBuilder = new JWSHeader.Builder(algorithm);
+			if (!key.equals(NO_TYPE))
+				jwsHeaderBuilder.type(new JOSEObjectType(key));
+			JWSHeader header = jwsHeaderBuilder.build();
+			try
+			{
+				return JWSHeader.parse(header.toBase64URL());
+			} catch (java.text.ParseException e)
+			{
+				throw new InternalException("Can not parse JWS header", e);
+			}
+		});
+	}
 }
@@ -142,7 +142,10 @@ class OAuthTokenController
 	{
 		try
 		{
-			tokenMan.removeToken(item.getRealType(), item.getId());
+			if (OAuthTokenRepository.INTERNAL_ACCESS_TOKEN.equals(item.getRealType()))
+				oauthTokenRepository.removeAccessTokenAuthorized(item.getId());
+			else
+				tokenMan.removeToken(item.getRealType(), item.getId());
 		} catch (EngineException e)
 		{
 			throw new ControllerException(msg.getMessage("OAuthTokenController.removeTokenError", item.getId()), e);
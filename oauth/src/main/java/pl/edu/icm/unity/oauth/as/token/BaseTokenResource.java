@@ -50,9 +50,7 @@ public class BaseTokenResource extends BaseOAuthResource
 		
 		try
 		{
-			Token rawToken = tokensDAO.readAccessToken(accessToken.getValue()); 
-			OAuthToken parsedAccessToken = parseInternalToken(rawToken);
-			return new TokensPair(rawToken, parsedAccessToken);
+			return tokensDAO.readParsedAccessToken(accessToken.getValue());
 		} catch (IllegalArgumentException e)
 		{
 			throw new OAuthTokenException(makeBearerError(BearerTokenError.INVALID_TOKEN));
@@ -128,7 +128,10 @@ public class RevocationResource extends BaseOAuthResource
 		
 		try
 		{
-			tokensManagement.removeToken(internalToken.getType(), token);
+			if (TOKEN_TYPE_ACCESS.equals(tokenHint))
+				oauthTokenRepository.removeAccessToken(internalToken.getValue());
+			else
+				tokensManagement.removeToken(internalToken.getType(), internalToken.getValue());
 		} catch (IllegalArgumentException e)
 		{
 			//ok
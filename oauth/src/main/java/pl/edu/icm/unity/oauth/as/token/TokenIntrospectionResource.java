@@ -77,9 +77,7 @@ public class TokenIntrospectionResource extends BaseOAuthResource
 	{
 		try
 		{
-			Token rawToken = tokenDAO.readAccessToken(token);
-			OAuthToken parsedAccessToken = parseInternalToken(rawToken);
-			return Optional.of(new TokensPair(rawToken, parsedAccessToken));
+			return Optional.of(tokenDAO.readParsedAccessToken(token));
 		} catch (IllegalArgumentException e)
 		{
 			try
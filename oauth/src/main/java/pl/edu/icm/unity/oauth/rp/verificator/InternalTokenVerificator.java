@@ -7,10 +7,9 @@ package pl.edu.icm.unity.oauth.rp.verificator;
 import com.nimbusds.oauth2.sdk.Scope;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 
-import pl.edu.icm.unity.base.token.Token;
-import pl.edu.icm.unity.exceptions.InternalException;
 import pl.edu.icm.unity.oauth.as.OAuthToken;
 import pl.edu.icm.unity.oauth.as.OAuthTokenRepository;
+import pl.edu.icm.unity.oauth.as.token.BaseTokenResource.TokensPair;
 
 /**
  * Verifies the token against internal Unity's token storage, i.e. the token is checked if was 
@@ -31,26 +30,19 @@ public class InternalTokenVerificator implements TokenVerificatorProtocol
 	@Override
 	public TokenStatus checkToken(BearerAccessToken token) throws Exception
 	{
-		Token internalAccessToken;
+		TokensPair internalAccessToken;
 		try
 		{
-			internalAccessToken = tokensDAO.readAccessToken(token.getValue());
+			internalAccessToken = tokensDAO.readParsedAccessToken(token.getValue());
 		} catch (IllegalArgumentException e)
 		{
 			return new TokenStatus();
 		}
 		
-		OAuthToken internalToken;
-		try
-		{
-			internalToken = OAuthToken.getInstanceFromJson(internalAccessToken.getContents());
-		} catch (Exception e)
-		{
-			throw new InternalException("Can not parse the internal code token", e);
-		}
-		
+		OAuthToken internalToken = internalAccessToken.parsedToken;
 		Scope scope = new Scope(internalToken.getEffectiveScope());
-		return new TokenStatus(true, internalAccessToken.getExpires(), scope, internalToken.getSubject());
+		return new TokenStatus(true, internalAccessToken.tokenSrc.getExpires(), scope,
+				internalToken.getSubject());
 	}
 
 }
@@ -195,7 +195,10 @@ class AdminTokensComponent extends VerticalLayout
 	{
 		try
 		{
-			tokenMan.removeToken(type, value);
+			if (OAuthTokenRepository.INTERNAL_ACCESS_TOKEN.equals(type))
+				oauthTokenDAO.removeAccessTokenAuthorized(value);
+			else
+				tokenMan.removeToken(type, value);
 			refresh();
 			return true;
 		} catch (Exception e)
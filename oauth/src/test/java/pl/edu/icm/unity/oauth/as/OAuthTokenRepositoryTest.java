@@ -41,4 +41,58 @@ public class OAuthTokenRepositoryTest
 		OAuthToken loadedOauthToken = BaseOAuthResource.parseInternalToken(loadedToken);
 		Assertions.assertThat(loadedOauthToken).isEqualTo(oauthToken);
 	}
+
+	@Test
+	public void shouldNotReturnRemovedCachedToken() throws Exception
+	{
+		TokensManagement tokensMan = new MockTokensMan();
+		OAuthTokenRepository repository = new OAuthTokenRepository(tokensMan, null);
+		AccessToken accessToken = storeToken(repository);
+		repository.readAccessToken(accessToken.getValue());
+		
+		repository.removeAccessToken(accessToken.getValue());
+		
+		Throwable error = Assertions.catchThrowable(() -> repository.readAccessToken(accessToken.getValue()));
+		Assertions.assertThat(error).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void shouldReturnUpdatedExpirationOfCachedToken() throws Exception
+	{
+		TokensManagement tokensMan = new MockTokensMan();
+		OAuthTokenRepository repository = new OAuthTokenRepository(tokensMan, null);
+		AccessToken accessToken = storeToken(repository);
+		Token cached = repository.readAccessToken(accessToken.getValue());
+		Date newExpiry = new Date(System.currentTimeMillis() + 100000);
+		
+		repository.updateAccessTokenExpiration(cached, newExpiry);
+		
+		Assertions.assertThat(repository.readAccessToken(accessToken.getValue()).getExpires())
+			.isEqualTo(newExpiry);
+	}
+
+	@Test
+	public void shouldNotReturnCachedTokenRemovedDirectly() throws Exception
+	{
+		TokensManagement tokensMan = new MockTokensMan();
+		OAuthTokenRepository repository = new OAuthTokenRepository(tokensMan, null);
+		AccessToken accessToken = storeToken(repository);
+		repository.readAccessToken(accessToken.getValue());
+		
+		tokensMan.removeToken(OAuthTokenRepository.INTERNAL_ACCESS_TOKEN, accessToken.getValue());
+		
+		Throwable error = Assertions.catchThrowable(() -> repository.readAccessToken(accessToken.getValue()));
+		Assertions.assertThat(error).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private AccessToken storeToken(OAuthTokenRepository repository) throws Exception
+	{
+		AccessTokenFactory factory = AccessTokenFactoryTest.getFactory(AccessTokenFormat.PLAIN);
+		OAuthToken oauthToken = AccessTokenFactoryTest.getFakeToken();
+		oauthToken.setClientType(ClientType.CONFIDENTIAL);
+		AccessToken accessToken = factory.create(oauthToken, new Date());
+		repository.storeAccessToken(accessToken, oauthToken, 
+				new EntityParam(100l), new Date(), new Date(System.currentTimeMillis() + 10000));
+		return accessToken;
+	}
 }
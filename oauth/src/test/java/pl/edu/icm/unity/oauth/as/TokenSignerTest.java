@@ -7,11 +7,18 @@ package pl.edu.icm.unity.oauth.as;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.security.interfaces.RSAPublicKey;
+
 import org.junit.Test;
 
+import com.nimbusds.jose.JOSEObjectType;
 import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
 
 import eu.unicore.util.configuration.ConfigurationException;
 
@@ -98,4 +105,25 @@ public class TokenSignerTest
 
 	}
 
+	@Test
+	public void shouldSignTokensOfDifferentTypesWithReusedHeaders() throws Exception
+	{
+		OAuthASProperties config = OAuthTestUtils.getOIDCConfig();
+		config.setProperty(OAuthASProperties.SIGNING_ALGORITHM,
+				OAuthASProperties.SigningAlgorithms.RS256.toString());
+		TokenSigner signer = new TokenSigner(config, new MockPKIMan());
+		RSASSAVerifier verifier = new RSASSAVerifier(
+				(RSAPublicKey) signer.getCredentialCertificate().getPublicKey());
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("user").build();
+
+		SignedJWT typed1 = signer.sign(claims, "at+jwt");
+		SignedJWT typed2 = signer.sign(claims, "at+jwt");
+		SignedJWT untyped = signer.sign(claims, null);
+
+		assertThat(typed1.getHeader().getType(), is(new JOSEObjectType("at+jwt")));
+		assertThat(typed2.getHeader().getType(), is(new JOSEObjectType("at+jwt")));
+		assertThat(untyped.getHeader().getType(), is(nullValue()));
+		assertThat(typed2.verify(verifier), is(true));
+		assertThat(SignedJWT.parse(untyped.serialize()).verify(verifier), is(true));
+	}
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import pl.edu.icm.unity.base.token.Token;
+import pl.edu.icm.unity.base.utils.StopWatch;
+import pl.edu.icm.unity.engine.DBIntegrationTestBase;
+import pl.edu.icm.unity.oauth.as.OAuthTokenRepository;
+import pl.edu.icm.unity.stdext.identity.UsernameIdentity;
+import pl.edu.icm.unity.store.api.TokenDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.types.basic.EntityParam;
+import pl.edu.icm.unity.types.basic.IdentityTaV;
+
+/**
+ * Measures reading of OAuth access tokens, as performed on each userinfo, introspection
+ * or resource owner's token check, when the token store contains 1M live tokens.
+ * Run with -DunityDbConfig=hz to measure the Hazelcast store.
+ */
+public class TstPerfReadAccessToken extends DBIntegrationTestBase
+{
+	private static final int TOKENS = 1_000_000;
+	private static final int TOKENS_PER_TX = 10_000;
+	private static final int WARMUP = 10_000;
+	private static final int READS = 200_000;
+
+	@Autowired
+	private OAuthTokenRepository tokenRepository;
+	@Autowired
+	private TokenDAO tokenDAO;
+	@Autowired
+	private TransactionalRunner tx;
+
+	@Test
+	public void readAccessTokenWith1MTokens() throws Exception
+	{
+		long owner = idsMan.getEntity(new EntityParam(new IdentityTaV(UsernameIdentity.ID, "admin"))).getId();
+		StopWatch watch = new StopWatch();
+		for (int i = 0; i < TOKENS; i += TOKENS_PER_TX)
+		{
+			int start = i;
+			tx.runInTransaction(() -> {
+				for (int j = start; j < start + TOKENS_PER_TX; j++)
+					tokenDAO.create(getToken(j, owner));
+			});
+		}
+		watch.printTotal("Stored " + TOKENS + " tokens in {0}ms");
+
+		Random random = new Random(0);
+		readRandomTokens(random, WARMUP);
+		watch = new StopWatch();
+		readRandomTokens(random, READS);
+		watch.printTotal("Read " + READS + " tokens in {0}ms");
+	}
+
+	private void readRandomTokens(Random random, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			int id = random.nextInt(TOKENS);
+			Token token = tokenRepository.readAccessToken(getTokenValue(id));
+			assertThat(token.getValue()).isEqualTo(getTokenValue(id));
+		}
+	}
+
+	private Token getToken(int id, long owner)
+	{
+		Token token = new Token(OAuthTokenRepository.INTERNAL_ACCESS_TOKEN, getTokenValue(id), owner);
+		token.setCreated(new Date());
+		token.setExpires(new Date(System.currentTimeMillis() + 3600_000));
+		token.setContents(new byte[256]);
+		return token;
+	}
+
+	private static String getTokenValue(int id)
+	{
+		return "access-token-value-" + id;
+	}
+}
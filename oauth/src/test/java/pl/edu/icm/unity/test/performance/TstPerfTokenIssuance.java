@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import static pl.edu.icm.unity.oauth.client.HttpRequestConfigurer.secureRequest;
+
+import java.net.URI;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.nimbusds.oauth2.sdk.AccessTokenResponse;
+import com.nimbusds.oauth2.sdk.AuthorizationCodeGrant;
+import com.nimbusds.oauth2.sdk.AuthorizationGrant;
+import com.nimbusds.oauth2.sdk.AuthorizationSuccessResponse;
+import com.nimbusds.oauth2.sdk.ClientCredentialsGrant;
+import com.nimbusds.oauth2.sdk.RefreshTokenGrant;
+import com.nimbusds.oauth2.sdk.ResponseType;
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.TokenRequest;
+import com.nimbusds.oauth2.sdk.auth.ClientAuthentication;
+import com.nimbusds.oauth2.sdk.auth.ClientSecretBasic;
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.token.RefreshToken;
+
+import eu.unicore.util.httpclient.ServerHostnameCheckingMode;
+import pl.edu.icm.unity.oauth.as.OAuthAuthzContext;
+import pl.edu.icm.unity.oauth.as.OAuthAuthzContext.ScopeInfo;
+import pl.edu.icm.unity.oauth.as.OAuthSystemAttributesProvider.GrantFlow;
+import pl.edu.icm.unity.oauth.as.OAuthTestUtils;
+import pl.edu.icm.unity.oauth.as.TokenTestBase;
+import pl.edu.icm.unity.types.basic.IdentityParam;
+
+/**
+ * Measures throughput of the token endpoint, for the authorization code, refresh and client credentials
+ * grants. OpenID Connect mode is used, so ID tokens are issued (and signed) along with the access tokens.
+ */
+public class TstPerfTokenIssuance extends TokenTestBase
+{
+	private static final int TOKENS = 200;
+	private static final int TEST_REPETITIONS = 5;
+	private static final List<String> SCOPES = Arrays.asList("openid", "foo");
+
+	private TimeHelper timer;
+	private ClientAuthentication ca;
+	private IdentityParam user;
+
+	@Before
+	public void setupTest() throws Exception
+	{
+		super.setupOIDC();
+		user = initUser("userA");
+		ca = new ClientSecretBasic(new ClientID("client1"), new Secret("clientPass"));
+		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+		String outputFile = "target/test-"+ getClass().getSimpleName() + "-" +
+				dateFormat.format(Calendar.getInstance().getTime()) + ".csv";
+		timer = new TimeHelper(outputFile);
+		System.out.println("Test output will be written to " + outputFile);
+	}
+
+	@Test
+	public void testAuthzCodeGrant() throws Exception
+	{
+		String label = "Authorization code grant";
+		issueWithCode();
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			for (int j = 0; j < TOKENS; j++)
+				issueWithCode();
+			timer.stopTimer(TOKENS, label);
+		}
+		timer.calculateResults(label);
+	}
+
+	@Test
+	public void testRefreshGrant() throws Exception
+	{
+		String label = "Refresh token grant";
+		RefreshToken refreshToken = issueWithCode().getTokens().getRefreshToken();
+		RefreshTokenGrant grant = new RefreshTokenGrant(refreshToken);
+		issue(grant, new Scope("openid"));
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			for (int j = 0; j < TOKENS; j++)
+				issue(grant, new Scope("openid"));
+			timer.stopTimer(TOKENS, label);
+		}
+		timer.calculateResults(label);
+	}
+
+	@Test
+	public void testClientCredentialsGrant() throws Exception
+	{
+		String label = "Client credentials grant";
+		ClientCredentialsGrant grant = new ClientCredentialsGrant();
+		issue(grant, new Scope("foo"));
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			for (int j = 0; j < TOKENS; j++)
+				issue(grant, new Scope("foo"));
+			timer.stopTimer(TOKENS, label);
+		}
+		timer.calculateResults(label);
+	}
+
+	private AccessTokenResponse issueWithCode() throws Exception
+	{
+		OAuthAuthzContext ctx = OAuthTestUtils.createContext(OAuthTestUtils.getOIDCConfig(),
+				new ResponseType(ResponseType.Value.CODE),
+				GrantFlow.authorizationCode, clientId1.getEntityId());
+		ctx.setRequestedScopes(new HashSet<>(SCOPES));
+		for (String scope: SCOPES)
+			ctx.addEffectiveScopeInfo(new ScopeInfo(scope, scope, Lists.newArrayList(scope + " attr")));
+		ctx.setOpenIdMode(true);
+		AuthorizationSuccessResponse codeResp = OAuthTestUtils
+				.initOAuthFlowAccessCode(OAuthTestUtils.getOAuthProcessor(tokensMan), ctx, user);
+		return issue(new AuthorizationCodeGrant(codeResp.getAuthorizationCode(),
+				new URI("https://return.host.com/foo")), null);
+	}
+
+	private AccessTokenResponse issue(AuthorizationGrant grant, Scope scope) throws Exception
+	{
+		TokenRequest request = new TokenRequest(new URI("https://localhost:52443/oauth/token"),
+				ca, grant, scope);
+		HTTPRequest wrapped = secureRequest(request.toHTTPRequest(), pkiMan.getValidator("MAIN"),
+				ServerHostnameCheckingMode.NONE);
+		return AccessTokenResponse.parse(wrapped.send());
+	}
+}
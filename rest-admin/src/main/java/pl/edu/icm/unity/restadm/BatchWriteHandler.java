@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.restadm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import pl.edu.icm.unity.Constants;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.AttributeTypeManagement;
+import pl.edu.icm.unity.engine.api.EntityManagement;
+import pl.edu.icm.unity.engine.api.GroupsManagement;
+import pl.edu.icm.unity.engine.api.translation.ExternalDataParser;
+import pl.edu.icm.unity.engine.api.utils.PrototypeComponent;
+import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.exceptions.WrongArgumentException;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.types.basic.Attribute;
+import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.EntityParam;
+import pl.edu.icm.unity.types.basic.EntityState;
+import pl.edu.icm.unity.types.basic.Group;
+import pl.edu.icm.unity.types.basic.Identity;
+
+/**
+ * Applies a stream of write operations in bulk. The input is NDJSON: each line holds a single operation,
+ * selected by the <code>operation</code> field:
+ * <ul>
+ * <li><code>addEntity</code> with <code>type</code>, <code>value</code> and optional
+ * <code>credentialRequirement</code>,
+ * <li><code>addIdentity</code> with <code>entity</code>, <code>type</code> and <code>value</code>,
+ * <li><code>setAttribute</code> with <code>entity</code> and <code>attribute</code> (as in the single
+ * attribute set operation),
+ * <li><code>addMember</code> with <code>entity</code> and <code>group</code>.
+ * </ul>
+ * The <code>entity</code> is resolved as in other operations, optionally with <code>identityType</code>.
+ * <p>
+ * Operations are applied in chunks, each chunk in a single transaction. If any operation of a chunk fails,
+ * the chunk is rolled back and its operations are re-applied one by one, so that only the failed ones
+ * are rejected. A result line is streamed back for each operation, in the input order.
+ * Attribute types and group existence are resolved once per batch.
+ */
+@Produces(MediaType.APPLICATION_JSON)
+@Path(RESTAdminEndpoint.V1_PATH)
+@PrototypeComponent
+public class BatchWriteHandler implements RESTAdminHandler
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_REST, BatchWriteHandler.class);
+	public static final String NDJSON = "application/x-ndjson";
+	public static final int DEFAULT_CHUNK_SIZE = 500;
+	public static final int MAX_CHUNK_SIZE = 10000;
+
+	private final ObjectMapper mapper = Constants.MAPPER;
+	private final EntityManagement identitiesMan;
+	private final GroupsManagement groupsMan;
+	private final AttributesManagementRESTService attributesService;
+	private final AttributeTypeManagement attributeTypeMan;
+	private final ExternalDataParser dataParser;
+	private final TransactionalRunner tx;
+
+	@Autowired
+	BatchWriteHandler(EntityManagement identitiesMan, GroupsManagement groupsMan,
+			AttributesManagementRESTService attributesService, AttributeTypeManagement attributeTypeMan,
+			ExternalDataParser dataParser, TransactionalRunner tx)
+	{
+		this.identitiesMan = identitiesMan;
+		this.groupsMan = groupsMan;
+		this.attributesService = attributesService;
+		this.attributeTypeMan = attributeTypeMan;
+		this.dataParser = dataParser;
+		this.tx = tx;
+	}
+
+	@Path("/batch")
+	@POST
+	@Consumes({NDJSON, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+	@Produces(NDJSON)
+	public StreamingOutput applyBatch(InputStream operations, @QueryParam("chunkSize") Integer chunkSize)
+			throws EngineException
+	{
+		int effectiveChunkSize = chunkSize == null ? DEFAULT_CHUNK_SIZE : chunkSize;
+		if (effectiveChunkSize < 1 || effectiveChunkSize > MAX_CHUNK_SIZE)
+			throw new WrongArgumentException("Chunk size must be in range 1-" + MAX_CHUNK_SIZE);
+		log.debug("applyBatch with chunk size " + effectiveChunkSize);
+		BatchContext context = new BatchContext(attributeTypeMan.getAttributeTypesAsMap());
+		return output ->
+		{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(operations,
+					StandardCharsets.UTF_8));
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			List<BatchItem> chunk = new ArrayList<>(effectiveChunkSize);
+			int index = 0;
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.trim().isEmpty())
+					continue;
+				chunk.add(prepare(index++, line, context));
+				if (chunk.size() == effectiveChunkSize)
+				{
+					applyChunk(chunk, writer);
+					chunk.clear();
+				}
+			}
+			applyChunk(chunk, writer);
+			writer.flush();
+			log.debug("Batch of " + index + " operations applied");
+		};
+	}
+
+	private void applyChunk(List<BatchItem> chunk, Writer writer) throws IOException
+	{
+		if (chunk.isEmpty())
+			return;
+		try
+		{
+			tx.runInTransactionThrowing(() ->
+			{
+				for (BatchItem item: chunk)
+					if (item.isValid())
+						item.apply();
+			});
+		} catch (Exception e)
+		{
+			log.debug("Batch chunk failed, applying its operations one by one", e);
+			for (BatchItem item: chunk)
+				if (item.isValid())
+					applySingle(item);
+		}
+		for (BatchItem item: chunk)
+			writer.write(mapper.writeValueAsString(item.getResult()) + "\n");
+		writer.flush();
+	}
+
+	private void applySingle(BatchItem item)
+	{
+		try
+		{
+			tx.runInTransactionThrowing(item::apply);
+		} catch (Exception e)
+		{
+			log.debug("Batch operation " + item.index + " failed", e);
+			item.error = e.getMessage() == null ? e.toString() : e.getMessage();
+		}
+	}
+
+	private BatchItem prepare(int index, String line, BatchContext context)
+	{
+		BatchItem item = new BatchItem(index);
+		try
+		{
+			JsonNode node = mapper.readTree(line);
+			String operation = getRequired(node, "operation");
+			switch (operation)
+			{
+			case "addEntity":
+				item.operation = prepareAddEntity(node, item);
+				break;
+			case "addIdentity":
+				item.operation = prepareAddIdentity(node);
+				break;
+			case "setAttribute":
+				item.operation = prepareSetAttribute(node, context);
+				break;
+			case "addMember":
+				item.operation = prepareAddMember(node, context);
+				break;
+			default:
+				throw new WrongArgumentException("Unsupported operation " + operation);
+			}
+		} catch (Exception e)
+		{
+			item.error = e.getMessage() == null ? e.toString() : e.getMessage();
+		}
+		return item;
+	}
+
+	private BatchOperation prepareAddEntity(JsonNode node, BatchItem item) throws WrongArgumentException
+	{
+		String type = getRequired(node, "type");
+		String value = getRequired(node, "value");
+		String credReq = getOptional(node, "credentialRequirement");
+		return () ->
+		{
+			Identity identity = identitiesMan.addEntity(dataParser.parseAsIdentity(type, value),
+					credReq, EntityState.valid);
+			item.entityId = identity.getEntityId();
+		};
+	}
+
+	private BatchOperation prepareAddIdentity(JsonNode node) throws WrongArgumentException
+	{
+		EntityParam entity = getEntity(node);
+		String type = getRequired(node, "type");
+		String value = getRequired(node, "value");
+		return () -> identitiesMan.addIdentity(dataParser.parseAsIdentity(type, value), entity);
+	}
+
+	private BatchOperation prepareSetAttribute(JsonNode node, BatchContext context) throws IOException,
+		EngineException
+	{
+		EntityParam entity = getEntity(node);
+		JsonNode attributeNode = node.get("attribute");
+		if (attributeNode == null || !attributeNode.isObject())
+			throw new WrongArgumentException("Missing attribute");
+		Attribute attribute = mapper.treeToValue(attributeNode, Attribute.class);
+		if (!context.attributeTypes.containsKey(attribute.getName()))
+			throw new WrongArgumentException("Attribute type " + attribute.getName() + " is not defined");
+		context.assertGroupExists(attribute.getGroupPath());
+		return () -> attributesService.setAttribute(attribute, entity);
+	}
+
+	private BatchOperation prepareAddMember(JsonNode node, BatchContext context) throws EngineException
+	{
+		EntityParam entity = getEntity(node);
+		String group = getRequired(node, "group");
+		String groupPath = group.startsWith("/") ? group : "/" + group;
+		context.assertGroupExists(groupPath);
+		return () ->
+		{
+			Set<String> existingGroups = identitiesMan.getGroups(entity).keySet();
+			Deque<String> notMember = Group.getMissingGroups(groupPath, existingGroups);
+			while (!notMember.isEmpty())
+				groupsMan.addMemberFromParent(notMember.pollLast(), entity);
+		};
+	}
+
+	private EntityParam getEntity(JsonNode node) throws WrongArgumentException
+	{
+		return RESTAdmin.getEP(getRequired(node, "entity"), getOptional(node, "identityType"));
+	}
+
+	private static String getRequired(JsonNode node, String field) throws WrongArgumentException
+	{
+		String value = getOptional(node, field);
+		if (value == null)
+			throw new WrongArgumentException("Missing " + field);
+		return value;
+	}
+
+	private static String getOptional(JsonNode node, String field)
+	{
+		JsonNode value = node.get(field);
+		return value == null || value.isNull() ? null : value.asText();
+	}
+
+	private interface BatchOperation
+	{
+		void apply() throws EngineException;
+	}
+
+	private class BatchItem
+	{
+		private final int index;
+		private BatchOperation operation;
+		private Long entityId;
+		private String error;
+
+		BatchItem(int index)
+		{
+			this.index = index;
+		}
+
+		boolean isValid()
+		{
+			return error == null;
+		}
+
+		void apply() throws EngineException
+		{
+			entityId = null;
+			operation.apply();
+		}
+
+		ObjectNode getResult()
+		{
+			ObjectNode ret = mapper.createObjectNode();
+			ret.put("index", index);
+			ret.put("status", error == null ? "ok" : "error");
+			if (entityId != null && error == null)
+				ret.put("entityId", entityId);
+			if (error != null)
+				ret.put("error", error);
+			return ret;
+		}
+	}
+
+	/**
+	 * Data resolved once per batch
+	 */
+	private class BatchContext
+	{
+		private final Map<String, AttributeType> attributeTypes;
+		private final Map<String, Boolean> groupsPresence = new HashMap<>();
+
+		BatchContext(Map<String, AttributeType> attributeTypes)
+		{
+			this.attributeTypes = attributeTypes;
+		}
+
+		void assertGroupExists(String group) throws EngineException
+		{
+			if (group == null)
+				throw new WrongArgumentException("Missing group");
+			Boolean present = groupsPresence.get(group);
+			if (present == null)
+			{
+				present = groupsMan.isPresent(group);
+				groupsPresence.put(group, present);
+			}
+			if (!present)
+				throw new WrongArgumentException("Group " + group + " does not exist");
+		}
+	}
+}
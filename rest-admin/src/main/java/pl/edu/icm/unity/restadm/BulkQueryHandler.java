@@ -5,40 +5,37 @@
 package pl.edu.icm.unity.restadm;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.Constants;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.bulk.BulkGroupQueryService;
-import pl.edu.icm.unity.engine.api.bulk.GroupMembershipData;
-import pl.edu.icm.unity.engine.api.bulk.GroupsWithMembers;
+import pl.edu.icm.unity.engine.api.bulk.EntityInGroupData;
+import pl.edu.icm.unity.engine.api.bulk.LazyGroupsWithMembers;
 import pl.edu.icm.unity.engine.api.utils.PrototypeComponent;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.exceptions.WrongArgumentException;
-import pl.edu.icm.unity.types.basic.AttributeExt;
-import pl.edu.icm.unity.types.basic.Entity;
 import pl.edu.icm.unity.types.basic.GroupMember;
 import pl.edu.icm.unity.types.basic.MultiGroupMembers;
 import pl.edu.icm.unity.types.basic.MultiGroupMembers.EntityGroupAttributes;
@@ -49,7 +46,7 @@ import pl.edu.icm.unity.types.basic.MultiGroupMembers.EntityGroupAttributes;
 public class BulkQueryHandler implements RESTAdminHandler
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_REST, RESTAdmin.class);
-	private final ObjectMapper mapper = Constants.MAPPER;
+	private static final int STREAMING_PAGE_SIZE = 500;
 	private final BulkGroupQueryService bulkQueryService;
 
 	@Autowired
@@ -60,31 +57,80 @@ public class BulkQueryHandler implements RESTAdminHandler
 
 	@Path("/group-members/{groupPath}")
 	@GET
-	public String getGroupMembersResolved(@PathParam("groupPath") String group) 
-			throws EngineException, JsonProcessingException
+	public Response getGroupMembersResolved(@PathParam("groupPath") String group,
+			@QueryParam("afterEntityId") Long afterEntityId,
+			@QueryParam("limit") Integer limit,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) 
+			throws EngineException
 	{
 		log.debug("getGroupMembersResolved query for " + group);
 		if (!group.startsWith("/"))
 			group = "/" + group;
-		GroupMembershipData bulkMembershipData = bulkQueryService.getBulkMembershipData(group);
-		Map<Long, Map<String, AttributeExt>> userAttributes = 
-				bulkQueryService.getGroupUsersAttributes(group, bulkMembershipData);
-		Map<Long, Entity> entitiesData = bulkQueryService.getGroupEntitiesNoContextWithoutTargeted(bulkMembershipData);
-		List<GroupMember> ret = new ArrayList<>(userAttributes.size());
-		for (Long memberId: userAttributes.keySet())
+		if (limit != null && limit < 0)
+			throw new WrongArgumentException("Limit must not be negative");
+		long cursor = afterEntityId == null ? Long.MIN_VALUE : afterEntityId;
+		int effectiveLimit = limit == null ? Integer.MAX_VALUE : limit;
+		// the first page is loaded before the response is started, so that errors as a missing group 
+		// or lack of authorization are reported with a proper HTTP status and not as a truncated JSON
+		int firstPageLimit = Math.min(effectiveLimit, STREAMING_PAGE_SIZE);
+		List<EntityInGroupData> firstPage = new ArrayList<>();
+		String groupPath = group;
+		bulkQueryService.streamGroupMembers(groupPath, cursor, firstPageLimit, STREAMING_PAGE_SIZE, 
+				firstPage::addAll);
+		return StreamingJsonResponse.create(acceptEncoding, generator -> 
 		{
-			Collection<AttributeExt> attributes = userAttributes.get(memberId).values(); 
-			Entity entity = entitiesData.get(memberId);
-			ret.add(new GroupMember(group, entity, attributes));
+			generator.writeStartArray();
+			writeMembers(generator, groupPath, firstPage);
+			if (firstPage.size() == firstPageLimit && effectiveLimit > firstPageLimit)
+			{
+				long lastEntityId = firstPage.get(firstPage.size() - 1).entity.getId();
+				writeRemainingMembers(generator, groupPath, lastEntityId, effectiveLimit - firstPageLimit);
+			}
+			generator.writeEndArray();
+		});
+	}
+
+	private void writeRemainingMembers(JsonGenerator generator, String group, long afterEntityId, int limit) 
+			throws IOException
+	{
+		try
+		{
+			bulkQueryService.streamGroupMembers(group, afterEntityId, limit, STREAMING_PAGE_SIZE, 
+					page -> writeMembersUnchecked(generator, group, page));
+		} catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		} catch (EngineException e)
+		{
+			log.error("Loading members of " + group + " failed, response is truncated", e);
+			throw new IOException("Loading group members failed", e);
 		}
-		return mapper.writeValueAsString(ret);
+	}
+
+	private void writeMembersUnchecked(JsonGenerator generator, String group, List<EntityInGroupData> page)
+	{
+		try
+		{
+			writeMembers(generator, group, page);
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private void writeMembers(JsonGenerator generator, String group, List<EntityInGroupData> page) 
+			throws IOException
+	{
+		for (EntityInGroupData member: page)
+			generator.writeObject(new GroupMember(group, member.entity, member.groupAttributesByName.values()));
 	}
 
 	@Path("/group-members-multi/{rootGroupPath}")
 	@POST
 	@Consumes(MediaType.APPLICATION_JSON)
-	public String getMultiGroupMembersResolved(@PathParam("rootGroupPath") String rootGroup, String groupsFilter) 
-			throws EngineException, JsonProcessingException
+	public Response getMultiGroupMembersResolved(@PathParam("rootGroupPath") String rootGroup, String groupsFilter,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) 
+			throws EngineException
 	{
 		log.debug("getGroupMembersResolved query for contents under " + rootGroup);
 		if (!rootGroup.startsWith("/"))
@@ -99,17 +145,59 @@ public class BulkQueryHandler implements RESTAdminHandler
 			throw new WrongArgumentException("Can not parse request body as a list of groups", e);
 		}
 		
-		GroupsWithMembers members = bulkQueryService.getMembersWithAttributeForAllGroups(rootGroup, requestedGroups);
-		
-		Map<String, List<EntityGroupAttributes>> attributesByGroup = new HashMap<>();
-		
-		for (Entry<String, List<pl.edu.icm.unity.engine.api.bulk.EntityGroupAttributes>> groupData: members.membersByGroup.entrySet())
+		// raw data is loaded before the response is started, entities and attributes are assembled while writing
+		LazyGroupsWithMembers members = bulkQueryService.getLazyMembersWithAttributeForAllGroups(
+				rootGroup, requestedGroups);
+		return StreamingJsonResponse.create(acceptEncoding, generator -> 
+		{
+			try
+			{
+				writeMultiGroupMembers(generator, members);
+			} catch (UncheckedIOException e)
+			{
+				throw e.getCause();
+			}
+		});
+	}
+
+	/**
+	 * Writes the same structure as serialized {@link MultiGroupMembers}, without creating it.
+	 */
+	private void writeMultiGroupMembers(JsonGenerator generator, LazyGroupsWithMembers members) throws IOException
+	{
+		generator.writeStartObject();
+		generator.writeArrayFieldStart("entities");
+		members.forEachEntity(entity -> writeUnchecked(generator, entity));
+		generator.writeEndArray();
+		generator.writeObjectFieldStart("members");
+		members.forEachGroupMembers((group, groupMembers) -> writeGroupMembersUnchecked(generator, group, groupMembers));
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	private void writeGroupMembersUnchecked(JsonGenerator generator, String group, 
+			List<pl.edu.icm.unity.engine.api.bulk.EntityGroupAttributes> groupMembers)
+	{
+		try
+		{
+			generator.writeArrayFieldStart(group);
+			for (pl.edu.icm.unity.engine.api.bulk.EntityGroupAttributes src: groupMembers)
+				generator.writeObject(new EntityGroupAttributes(src.entityId, src.attribtues.values()));
+			generator.writeEndArray();
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeUnchecked(JsonGenerator generator, Object value)
+	{
+		try
+		{
+			generator.writeObject(value);
+		} catch (IOException e)
 		{
-			List<EntityGroupAttributes> perGroupAttributes = groupData.getValue().stream()
-					.map(src -> new EntityGroupAttributes(src.entityId, src.attribtues.values()))
-					.collect(Collectors.toList());
-			attributesByGroup.put(groupData.getKey(), perGroupAttributes);
+			throw new UncheckedIOException(e);
 		}
-		return mapper.writeValueAsString(new MultiGroupMembers(members.entities.values(), attributesByGroup));
 	}
 }
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Deque;
 import java.util.List;
@@ -20,6 +21,7 @@ import java.util.stream.Collectors;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -27,7 +29,9 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.logging.log4j.Logger;
@@ -439,14 +443,42 @@ public class RESTAdmin implements RESTAdminHandler
 	
 	@Path("/group/{groupPath}")
 	@GET
-	public String getGroupContents(@PathParam("groupPath") String group) 
-			throws EngineException, JsonProcessingException
+	public Response getGroupContents(@PathParam("groupPath") String group,
+			@QueryParam("afterEntityId") Long afterEntityId,
+			@QueryParam("limit") Integer limit,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) 
+			throws EngineException
 	{
 		log.debug("getGroupContents query for " + group);
 		if (!group.startsWith("/"))
 			group = "/" + group;
+		if (limit != null && limit < 0)
+			throw new WrongArgumentException("Limit must not be negative");
 		GroupContents contents = groupsMan.getContents(group, GroupContents.GROUPS | GroupContents.MEMBERS);
-		return mapper.writeValueAsString(contents);
+		List<GroupMembership> members = afterEntityId == null && limit == null ? 
+				contents.getMembers() : 
+				getMembersRange(contents.getMembers(), afterEntityId, limit);
+		return StreamingJsonResponse.create(acceptEncoding, generator -> 
+		{
+			generator.writeStartObject();
+			generator.writeObjectField("group", contents.getGroup());
+			generator.writeObjectField("subGroups", contents.getSubGroups());
+			generator.writeArrayFieldStart("members");
+			for (GroupMembership member: members)
+				generator.writeObject(member);
+			generator.writeEndArray();
+			generator.writeEndObject();
+		});
+	}
+	
+	private List<GroupMembership> getMembersRange(List<GroupMembership> members, Long afterEntityId, 
+			Integer limit)
+	{
+		return members.stream()
+				.filter(member -> afterEntityId == null || member.getEntityId() > afterEntityId)
+				.sorted(Comparator.comparingLong(GroupMembership::getEntityId))
+				.limit(limit == null ? Long.MAX_VALUE : limit)
+				.collect(Collectors.toList());
 	}
 	
 	@Path("/group/{groupPath}")
@@ -934,7 +966,7 @@ public class RESTAdmin implements RESTAdminHandler
 	 * @return
 	 * @throws WrongArgumentException 
 	 */
-	private EntityParam getEP(String identity, String idType) throws WrongArgumentException
+	static EntityParam getEP(String identity, String idType) throws WrongArgumentException
 	{
 		if (idType == null)
 		{
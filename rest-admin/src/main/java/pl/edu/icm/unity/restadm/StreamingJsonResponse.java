@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.restadm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import pl.edu.icm.unity.Constants;
+
+/**
+ * Creates JSON responses which are written directly to the HTTP output with a {@link JsonGenerator},
+ * instead of being serialized to a string first. The output is compressed with gzip, if the client accepts it.
+ * Data which may cause an error (e.g. data of a missing object or data which the caller is not authorized 
+ * to read) should be loaded before the response is created: once the output is started, errors can not
+ * be reported with a HTTP status anymore, and the response is only truncated.
+ */
+class StreamingJsonResponse
+{
+	private static final String GZIP = "gzip";
+	private static final int GZIP_BUFFER = 8192;
+
+	interface JsonContentsWriter
+	{
+		void write(JsonGenerator generator) throws IOException;
+	}
+
+	static Response create(String acceptEncoding, JsonContentsWriter contentsWriter)
+	{
+		boolean gzip = acceptsGzip(acceptEncoding);
+		StreamingOutput output = stream -> write(gzip ? new GZIPOutputStream(stream, GZIP_BUFFER) : stream,
+				contentsWriter);
+		ResponseBuilder builder = Response.ok(output, MediaType.APPLICATION_JSON);
+		if (gzip)
+			builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+		return builder.build();
+	}
+
+	private static void write(OutputStream stream, JsonContentsWriter contentsWriter) throws IOException
+	{
+		JsonGenerator generator = Constants.MAPPER.getFactory().createGenerator(stream);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		contentsWriter.write(generator);
+		generator.flush();
+		if (stream instanceof GZIPOutputStream)
+			((GZIPOutputStream) stream).finish();
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding)
+	{
+		if (acceptEncoding == null)
+			return false;
+		for (String encoding: acceptEncoding.split(","))
+		{
+			String[] parameters = encoding.trim().split(";");
+			if (parameters[0].trim().equalsIgnoreCase(GZIP) && !isDisabled(parameters))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isDisabled(String[] parameters)
+	{
+		for (int i = 1; i < parameters.length; i++)
+		{
+			String parameter = parameters[i].replace(" ", "");
+			if (parameter.matches("q=0(\\.0*)?"))
+				return true;
+		}
+		return false;
+	}
+}
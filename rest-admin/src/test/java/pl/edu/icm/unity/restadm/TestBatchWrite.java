@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.restadm;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import pl.edu.icm.unity.stdext.attr.StringAttribute;
+import pl.edu.icm.unity.stdext.attr.StringAttributeSyntax;
+import pl.edu.icm.unity.stdext.identity.UsernameIdentity;
+import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.EntityParam;
+import pl.edu.icm.unity.types.basic.Group;
+import pl.edu.icm.unity.types.basic.IdentityTaV;
+
+public class TestBatchWrite extends RESTAdminTestBase
+{
+	@Test
+	public void allOperationsOfBatchShouldBeApplied() throws Exception
+	{
+		aTypeMan.addAttributeType(new AttributeType("stringA", StringAttributeSyntax.ID));
+		groupsMan.addGroup(new Group("/A"));
+		groupsMan.addGroup(new Group("/A/B"));
+		String batch =
+				"{\"operation\":\"addEntity\",\"type\":\"userName\",\"value\":\"batch1\","
+				+ "\"credentialRequirement\":\"" + CRED_REQ_PASS + "\"}\n"
+				+ "{\"operation\":\"addIdentity\",\"entity\":\"batch1\",\"identityType\":\"userName\","
+				+ "\"type\":\"userName\",\"value\":\"batch1-alias\"}\n"
+				+ "{\"operation\":\"addMember\",\"entity\":\"batch1\",\"identityType\":\"userName\","
+				+ "\"group\":\"/A/B\"}\n"
+				+ "{\"operation\":\"setAttribute\",\"entity\":\"batch1\",\"identityType\":\"userName\","
+				+ "\"attribute\":" + m.writeValueAsString(StringAttribute.of("stringA", "/A", "v1")) + "}\n";
+
+		String[] results = executeBatch(batch, 2);
+
+		assertEquals(4, results.length);
+		for (String result: results)
+			assertThat(result, m.readTree(result).get("status").asText(), is("ok"));
+		long entityId = m.readTree(results[0]).get("entityId").asLong();
+		EntityParam entity = new EntityParam(new IdentityTaV(UsernameIdentity.ID, "batch1-alias"));
+		assertThat(idsMan.getEntity(entity).getId(), is(entityId));
+		assertThat(idsMan.getGroups(entity).keySet(), hasItems("/A", "/A/B"));
+		assertEquals(1, attrsMan.getAttributes(entity, "/A", "stringA").size());
+	}
+
+	@Test
+	public void failedOperationShouldNotAffectOthersInChunk() throws Exception
+	{
+		String batch =
+				"{\"operation\":\"addEntity\",\"type\":\"userName\",\"value\":\"batch1\"}\n"
+				+ "{\"operation\":\"addIdentity\",\"entity\":\"missing\",\"identityType\":\"userName\","
+				+ "\"type\":\"userName\",\"value\":\"other\"}\n"
+				+ "{\"operation\":\"addMember\",\"entity\":\"batch1\",\"identityType\":\"userName\","
+				+ "\"group\":\"/missing\"}\n"
+				+ "not a json\n"
+				+ "{\"operation\":\"addEntity\",\"type\":\"userName\",\"value\":\"batch2\"}\n";
+
+		String[] results = executeBatch(batch, 100);
+
+		assertEquals(5, results.length);
+		assertStatus(results[0], 0, "ok");
+		assertStatus(results[1], 1, "error");
+		assertStatus(results[2], 2, "error");
+		assertStatus(results[3], 3, "error");
+		assertStatus(results[4], 4, "ok");
+		assertThat(idsMan.getEntity(new EntityParam(new IdentityTaV(UsernameIdentity.ID, "batch1"))),
+				notNullValue());
+		assertThat(idsMan.getEntity(new EntityParam(new IdentityTaV(UsernameIdentity.ID, "batch2"))),
+				notNullValue());
+	}
+
+	private void assertStatus(String result, int index, String status) throws Exception
+	{
+		JsonNode node = m.readTree(result);
+		assertThat(node.get("index").asInt(), is(index));
+		assertThat(result, node.get("status").asText(), is(status));
+	}
+
+	private String[] executeBatch(String batch, int chunkSize) throws Exception
+	{
+		HttpPost post = new HttpPost("/restadm/v1/batch?chunkSize=" + chunkSize);
+		post.setEntity(new StringEntity(batch, ContentType.create(BatchWriteHandler.NDJSON)));
+		HttpResponse response = client.execute(host, post, localcontext);
+		String contents = EntityUtils.toString(response.getEntity());
+		assertEquals(contents, Status.OK.getStatusCode(), response.getStatusLine().getStatusCode());
+		return contents.split("\n");
+	}
+}
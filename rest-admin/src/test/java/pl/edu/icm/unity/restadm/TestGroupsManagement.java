@@ -153,4 +153,30 @@ public class TestGroupsManagement extends RESTAdminTestBase
 				new TypeReference<List<GroupMember>>(){});
 		assertThat(groupContent.size(), is(2));
 	}
+	
+	@Test
+	public void shouldReturnPagesOfGroupMembersWithBulkQuery() throws Exception
+	{
+		setupUserContext(DEF_USER, null);
+		
+		List<GroupMember> firstPage = getGroupMembers("/restadm/v1/group-members/%2F?limit=1");
+		long cursor = firstPage.get(0).getEntity().getId();
+		List<GroupMember> secondPage = getGroupMembers("/restadm/v1/group-members/%2F?limit=1&afterEntityId=" 
+				+ cursor);
+		List<GroupMember> lastPage = getGroupMembers("/restadm/v1/group-members/%2F?limit=1&afterEntityId=" 
+				+ secondPage.get(0).getEntity().getId());
+		
+		assertThat(firstPage.size(), is(1));
+		assertThat(secondPage.size(), is(1));
+		assertThat(secondPage.get(0).getEntity().getId() > cursor, is(true));
+		assertThat(lastPage.size(), is(0));
+	}
+	
+	private List<GroupMember> getGroupMembers(String query) throws Exception
+	{
+		HttpResponse getResponse = client.execute(host, new HttpGet(query), localcontext);
+		String contents = EntityUtils.toString(getResponse.getEntity());
+		assertEquals(contents, Status.OK.getStatusCode(), getResponse.getStatusLine().getStatusCode());
+		return Constants.MAPPER.readValue(contents, new TypeReference<List<GroupMember>>(){});
+	}
 }
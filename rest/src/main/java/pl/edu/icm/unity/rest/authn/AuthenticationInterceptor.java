@@ -25,6 +25,7 @@ import pl.edu.icm.unity.engine.api.authn.AuthenticationException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationFlow;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationProcessor;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticatorInstance;
 import pl.edu.icm.unity.engine.api.authn.InvocationContext;
 import pl.edu.icm.unity.engine.api.authn.LoginSession;
@@ -89,6 +90,7 @@ public class AuthenticationInterceptor extends AbstractPhaseInterceptor<Message>
 		InvocationContext ctx = new InvocationContext(tlsId, realm, authenticators); 
 		InvocationContext.setCurrent(ctx);
 		AuthenticationException firstError = null;
+		boolean serverBusy = false;
 		EntityWithAuthenticators client = null;
 		
 		if (isToNotProtected(message))
@@ -107,6 +109,8 @@ public class AuthenticationInterceptor extends AbstractPhaseInterceptor<Message>
 							+ "will try another: " + e);
 				if (firstError == null)
 					firstError = new AuthenticationException(msg.getMessage(e.getMessage()));
+				if (e instanceof AuthenticationServerBusyException)
+					serverBusy = true;
 				continue;
 			}
 			break;
@@ -114,7 +118,8 @@ public class AuthenticationInterceptor extends AbstractPhaseInterceptor<Message>
 		if (client == null)
 		{
 			log.info("Authentication failed for client");
-			unsuccessfulAuthenticationCounter.unsuccessfulAttempt(ip);
+			if (!serverBusy)
+				unsuccessfulAuthenticationCounter.unsuccessfulAttempt(ip);
 			throw new Fault(firstError == null ? new Exception("Authentication failed") : firstError);
 		} else
 		{
@@ -169,6 +174,10 @@ public class AuthenticationInterceptor extends AbstractPhaseInterceptor<Message>
 						(CXFAuthentication) authn.getRetrieval());
 				state = authenticationProcessor.processPrimaryAuthnResult(result,
 						authenticationFlow, authn.getRetrieval().getAuthenticatorId());
+			} catch (AuthenticationServerBusyException e)
+			{
+				firstError = e;
+				continue;
 			} catch (AuthenticationException e)
 			{
 				if (firstError == null)
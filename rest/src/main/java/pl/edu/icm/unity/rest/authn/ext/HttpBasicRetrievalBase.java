@@ -19,6 +19,7 @@ import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.authn.AbstractCredentialRetrieval;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult.Status;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.CredentialRetrieval;
 import pl.edu.icm.unity.exceptions.InternalException;
 import pl.edu.icm.unity.rest.authn.CXFAuthentication;
@@ -75,6 +76,10 @@ public abstract class HttpBasicRetrievalBase extends AbstractCredentialRetrieval
 		{
 			return credentialExchange.checkPassword(authnTokens.getUserName(), authnTokens.getPasswd(),
 					null);
+		} catch (AuthenticationServerBusyException e)
+		{
+			log.debug("HTTP BASIC credential was not checked: " + e.getMessage());
+			return e.getResult();
 		} catch (Exception e)
 		{
 			log.trace("HTTP BASIC credential is invalid");
@@ -8,7 +8,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -72,17 +74,18 @@ public abstract class AbstractMetaToConfigConverter
 			SamlProperties realConfig, String configKey)
 	{
 		EntitiesDescriptorType meta = metaDoc.getEntitiesDescriptor();
-		convertToProperties(meta, properties, realConfig, configKey);
+		Map<String, String> configuredEntities = getConfiguredEntities(realConfig);
+		convertToProperties(meta, properties, realConfig, configKey, configuredEntities);
 	}
 	
 	protected void convertToProperties(EntitiesDescriptorType meta, Properties properties, 
-			SamlProperties realConfig, String configKey)
+			SamlProperties realConfig, String configKey, Map<String, String> configuredEntities)
 	{
 		EntitiesDescriptorType[] nested = meta.getEntitiesDescriptorArray();
 		if (nested != null)
 		{
 			for (EntitiesDescriptorType nestedD: nested)
-				convertToProperties(nestedD, properties, realConfig, configKey);
+				convertToProperties(nestedD, properties, realConfig, configKey, configuredEntities);
 		}
 		EntityDescriptorType[] entities = meta.getEntityDescriptorArray();
 		
@@ -90,13 +93,37 @@ public abstract class AbstractMetaToConfigConverter
 		{
 			for (EntityDescriptorType entity: entities)
 			{
-				convertToProperties(entity, properties, realConfig, configKey);
+				convertToProperties(entity, properties, realConfig, configKey, configuredEntities);
 			}
 		}
 	}
 	
+	/**
+	 * @param configuredEntities configuration keys of entities which are explicitly configured in realConfig,
+	 * indexed by entity id
+	 */
 	protected abstract void convertToProperties(EntityDescriptorType meta, Properties properties, 
-			SamlProperties realConfig, String configKey);
+			SamlProperties realConfig, String configKey, Map<String, String> configuredEntities);
+	
+	/**
+	 * @return configuration keys of entities which are explicitly configured in realConfig,
+	 * indexed by entity id. Computed once per conversion, so that metadata entities are matched with 
+	 * the configuration without scanning it for each entity.
+	 */
+	protected abstract Map<String, String> getConfiguredEntities(SamlProperties realConfig);
+	
+	protected Map<String, String> getConfiguredEntities(SamlProperties realConfig, String propertiesPrefix,
+			String listPrefix, String entityIdProperty)
+	{
+		Map<String, String> ret = new HashMap<>();
+		for (String key: realConfig.getStructuredListKeys(listPrefix))
+		{
+			String entityId = realConfig.getValue(key + entityIdProperty);
+			if (entityId != null)
+				ret.putIfAbsent(entityId, propertiesPrefix + key);
+		}
+		return ret;
+	}
 	
 	/**
 	 * 
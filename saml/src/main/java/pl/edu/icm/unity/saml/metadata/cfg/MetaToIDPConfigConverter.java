@@ -11,7 +11,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Random;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
@@ -66,9 +65,16 @@ public class MetaToIDPConfigConverter extends AbstractMetaToConfigConverter
 	}
 	
 	
+	@Override
+	protected Map<String, String> getConfiguredEntities(SamlProperties realConfig)
+	{
+		return getConfiguredEntities(realConfig, SamlIdpProperties.P, SamlIdpProperties.ALLOWED_SP_PREFIX, 
+				SamlIdpProperties.ALLOWED_SP_ENTITY);
+	}
+	
 	@Override
 	protected void convertToProperties(EntityDescriptorType meta, Properties properties,
-			SamlProperties realConfigG, String configKey)
+			SamlProperties realConfigG, String configKey, Map<String, String> configuredEntities)
 	{
 		SamlIdpProperties realConfig = (SamlIdpProperties) realConfigG;
 		SPSSODescriptorType[] spDefs = meta.getSPSSODescriptorArray();
@@ -133,7 +139,7 @@ public class MetaToIDPConfigConverter extends AbstractMetaToConfigConverter
 				
 			addEntryToProperties(entityId, defaultEndpoint, endpointURLs, 
 					soapSLOEndpoint, postSLOEndpoint, redirectSLOEndpoint,
-					realConfig, configKey, properties, r, 
+					configuredEntities, configKey, properties, r, 
 					certs, names, logos);					
 		}		
 	}
@@ -141,11 +147,11 @@ public class MetaToIDPConfigConverter extends AbstractMetaToConfigConverter
 	private void addEntryToProperties(String entityId, String defaultServiceEndpoint,
 			Map<Integer, String> indexedServiceEndpoints,
 			EndpointType sloSoapEndpoint, EndpointType sloPostEndpoint, EndpointType sloRedirectEndpoint,
-			SamlIdpProperties realConfig, String metaConfigKey, Properties properties,
+			Map<String, String> configuredEntities, String metaConfigKey, Properties properties,
 			Random r, List<X509Certificate> certs, Map<String, String> names,
 			Map<String, LogoType> logos)
 	{
-		String configKey = getExistingKey(entityId, realConfig);
+		String configKey = configuredEntities.get(entityId);
 		
 		boolean noPerSpConfig = configKey == null;
 		if (configKey == null)
@@ -213,17 +219,6 @@ public class MetaToIDPConfigConverter extends AbstractMetaToConfigConverter
 				defaultServiceEndpoint + " default return url");		
 	}
 		
-	private String getExistingKey(String entityId, SamlIdpProperties realConfig)
-	{
-		Set<String> keys = realConfig.getStructuredListKeys(SamlIdpProperties.ALLOWED_SP_PREFIX);
-		for (String key: keys)
-		{
-			if (entityId.equals(realConfig.getValue(key+SamlIdpProperties.ALLOWED_SP_ENTITY)))
-				return SamlIdpProperties.P + key;
-		}
-		return null;
-	}
-
 	private EndpointType selectEndpointByBinding(EndpointType[] endpoints, String binding)
 	{
 		for (EndpointType endpoint: endpoints)
@@ -8,7 +8,6 @@ import java.security.cert.X509Certificate;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.Logger;
@@ -60,9 +59,16 @@ public class MetaToSPConfigConverter extends AbstractMetaToConfigConverter
 		super.convertToProperties(metaDoc, properties, realConfig, configKey);
 	}
 	
+	@Override
+	protected Map<String, String> getConfiguredEntities(SamlProperties realConfig)
+	{
+		return getConfiguredEntities(realConfig, SAMLSPProperties.P, SAMLSPProperties.IDP_PREFIX, 
+				SAMLSPProperties.IDP_ID);
+	}
+	
 	@Override
 	protected void convertToProperties(EntityDescriptorType meta, Properties properties, 
-			SamlProperties realConfigG, String configKey)
+			SamlProperties realConfigG, String configKey, Map<String, String> configuredEntities)
 	{
 		SAMLSPProperties realConfig = (SAMLSPProperties) realConfigG;
 		IDPSSODescriptorType[] idpDefs = meta.getIDPSSODescriptorArray();
@@ -123,7 +129,7 @@ public class MetaToSPConfigConverter extends AbstractMetaToConfigConverter
 			{
 				addEntryToProperties(entityId, webEndpoint, soapSLOEndpoint,
 						postSLOEndpoint, redirectSLOEndpoint,
-						requireSignedReq, realConfig, 
+						requireSignedReq, realConfig, configuredEntities,
 						configKey, properties, 1, certs, names, logos);
 			}
 			
@@ -131,7 +137,7 @@ public class MetaToSPConfigConverter extends AbstractMetaToConfigConverter
 			{
 				addEntryToProperties(entityId, soapEndpoint, soapSLOEndpoint, 
 						postSLOEndpoint, redirectSLOEndpoint,
-						requireSignedReq, realConfig, 
+						requireSignedReq, realConfig, configuredEntities,
 						configKey, properties, 2, certs, names, logos);
 			}
 		}
@@ -140,11 +146,12 @@ public class MetaToSPConfigConverter extends AbstractMetaToConfigConverter
 	private void addEntryToProperties(String entityId, EndpointType endpoint, 
 			EndpointType sloSoapEndpoint, EndpointType sloPostEndpoint, EndpointType sloRedirectEndpoint,
 			boolean requireSignedReq,
-			SAMLSPProperties realConfig, String metaConfigKey, Properties properties, int index,
+			SAMLSPProperties realConfig, Map<String, String> configuredEntities, 
+			String metaConfigKey, Properties properties, int index,
 			List<X509Certificate> certs,
 			Map<String, String> names, Map<String, LogoType> logos)
 	{
-		String configKey = getExistingKey(entityId, realConfig);
+		String configKey = configuredEntities.get(entityId);
 		String perMetaProfile = realConfig.getValue(metaConfigKey + 
 				SAMLSPProperties.IDPMETA_TRANSLATION_PROFILE);
 		
@@ -222,17 +229,6 @@ public class MetaToSPConfigConverter extends AbstractMetaToConfigConverter
 				endpoint.getBinding() + " binding");
 	}
 		
-	private String getExistingKey(String entityId, SAMLSPProperties realConfig)
-	{
-		Set<String> keys = realConfig.getStructuredListKeys(SAMLSPProperties.IDP_PREFIX);
-		for (String key: keys)
-		{
-			if (entityId.equals(realConfig.getValue(key+SAMLSPProperties.IDP_ID)))
-				return SAMLSPProperties.P + key;
-		}
-		return null;
-	}
-	
 	private EndpointType selectWebEndpoint(EndpointType[] endpoints)
 	{
 		EndpointType selectedEndpoint = null;
@@ -21,6 +21,7 @@ import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.saml.SamlProperties;
 import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.srv.MetadataDownloader;
 import pl.edu.icm.unity.saml.metadata.srv.RemoteMetadataService;
 import pl.edu.icm.unity.saml.sp.SAMLSPProperties;
 import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
@@ -123,7 +124,10 @@ public class RemoteMetaManager
 		this.virtualConfiguration.setProperties(virtualConfigProps);
 	}
 
-	private void reloadSingle(EntitiesDescriptorDocument metadata, String key, String url,
+	/**
+	 * @return true if metadata was valid and was converted
+	 */
+	private boolean reloadSingle(EntitiesDescriptorDocument metadata, String key, String url,
 			Properties virtualProps, SamlProperties configuration)
 	{
 		MetadataSignatureValidation sigCheckingMode = configuration.getEnumValue(
@@ -139,22 +143,29 @@ public class RemoteMetaManager
 		} catch (MetadataValidationException e)
 		{
 			log.error("Metadata from " + url + " is invalid, won't be used", e);
-			return;
+			return false;
 		} catch (EngineException e)
 		{
 			log.error("Problem establishing certificate for metadata validation " + 
 					issuerCertificateName, e);
-			return;
+			return false;
 		}
 		
 		converter.convertToProperties(metadata, virtualProps, configuration, key);
 		log.trace("Converted metadata from " + url + " to virtual configuration");
+		return true;
 	}
 
+	/**
+	 * Converts metadata of a single source. Metadata with the same contents as the one which was
+	 * successfully applied last time is only checked for expiration: signature verification and conversion, 
+	 * which are expensive for large federation aggregates, are skipped.
+	 */
 	private class MetadataConsumer
 	{
 		private String url;
 		private String propertiesKey;
+		private String appliedDigest;
 		
 		public MetadataConsumer(String url, String propertiesKey)
 		{
@@ -164,9 +175,28 @@ public class RemoteMetaManager
 		
 		private void updateMetadata(EntitiesDescriptorDocument metadata, String consumerId)
 		{
+			String digest = MetadataDownloader.getContentDigest(metadata).orElse(null);
+			if (digest != null && digest.equals(appliedDigest) && isNotExpired(metadata))
+			{
+				log.trace("Metadata from {} was not changed, skipping its conversion", url);
+				return;
+			}
 			Properties virtualConfigProps = configuration.getSourceProperties();
-			reloadSingle(metadata, propertiesKey, url, virtualConfigProps, configuration);
+			boolean applied = reloadSingle(metadata, propertiesKey, url, virtualConfigProps, configuration);
+			appliedDigest = applied ? digest : null;
 			assembleProperties(propertiesKey, virtualConfigProps, consumerId);
 		}
+		
+		private boolean isNotExpired(EntitiesDescriptorDocument metadata)
+		{
+			try
+			{
+				verificator.validate(metadata, new Date(), MetadataSignatureValidation.ignore, null);
+				return true;
+			} catch (MetadataValidationException e)
+			{
+				return false;
+			}
+		}
 	}
 }
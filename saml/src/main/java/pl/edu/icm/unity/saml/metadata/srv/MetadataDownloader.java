@@ -4,17 +4,17 @@
  */
 package pl.edu.icm.unity.saml.metadata.srv;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URI;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.apache.xmlbeans.XmlException;
 
@@ -29,6 +29,14 @@ import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 /**
  * Downloads on demand a remote metadata file and caches it on disk. 
  * Allows for returning recently loaded file. 
+ * <p>
+ * Digest of the downloaded bytes is computed before parsing: if it is equal to the digest of the metadata 
+ * most recently parsed from the same URI, the previously parsed document is returned and neither parsing 
+ * nor caching on disk is repeated. The previous document is softly referenced, so it may be parsed again 
+ * under memory pressure. The digest is attached to the returned document, 
+ * see {@link #getContentDigest(EntitiesDescriptorDocument)}, so consumers can cheaply detect 
+ * that the metadata was not changed since the last refresh. Returned documents are shared and 
+ * must not be modified.
  * 
  * @author K. Benedyczak
  */
@@ -36,8 +44,10 @@ public class MetadataDownloader
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_SAML, MetadataDownloader.class);
 	private static final String CACHE_DIR = "downloadedMetadata";
+	private static final String CONTENT_DIGEST = MetadataDownloader.class.getName() + ".contentDigest";
 	private final URIAccessService uriAccessService;
 	private final FileStorageService fileStorageService;
+	private final Map<String, ParsedMetadata> lastParsed = new ConcurrentHashMap<>();
 
 	public MetadataDownloader(URIAccessService uriAccessService, FileStorageService fileStorageService)
 	{
@@ -64,10 +74,10 @@ public class MetadataDownloader
 		
 		if (!URIHelper.isWebReady(uri))
 		{
-			return EntitiesDescriptorDocument.Factory.parse(new ByteArrayInputStream(uriAccessService.readURI(uri).getContents()));
+			return parse(rawUri, uriAccessService.readURI(uri).getContents());
 		} else
 		{
-			return loadFile(download(uri, customTruststore));
+			return download(rawUri, uri, customTruststore);
 		}
 	}
 
@@ -89,29 +99,73 @@ public class MetadataDownloader
 			return Optional.empty();
 		}
 		log.debug("Get metadata file for "+ uri + " from cache");
-		return Optional.of(loadFile(new ByteArrayInputStream(data.getContents())));
+		return Optional.of(parse(uri, data.getContents()));
 	}
 	
-	private EntitiesDescriptorDocument loadFile(InputStream file) throws XmlException, IOException, InterruptedException
+	/**
+	 * @return digest of the contents from which the document was parsed, if it was loaded by this class
+	 */
+	public static Optional<String> getContentDigest(EntitiesDescriptorDocument metadata)
+	{
+		return Optional.ofNullable((String) metadata.documentProperties().get(CONTENT_DIGEST));
+	}
+	
+	private EntitiesDescriptorDocument parse(String uri, byte[] contents) throws XmlException, IOException
 	{
-		InputStream is = new BufferedInputStream(file);
-		String metadata = IOUtils.toString(is, Charset.defaultCharset());
-		log.trace("Read metadata:\n{}", metadata);
-		EntitiesDescriptorDocument doc = EntitiesDescriptorDocument.Factory.parse(metadata);
-		is.close();
+		String digest = DigestUtils.sha256Hex(contents);
+		EntitiesDescriptorDocument unchanged = getParsedIfUnchanged(uri, digest);
+		return unchanged != null ? unchanged : parse(uri, contents, digest);
+	}
+
+	private EntitiesDescriptorDocument parse(String uri, byte[] contents, String digest) 
+			throws XmlException, IOException
+	{
+		if (log.isTraceEnabled())
+			log.trace("Read metadata:\n{}", new String(contents, StandardCharsets.UTF_8));
+		EntitiesDescriptorDocument doc = EntitiesDescriptorDocument.Factory.parse(
+				new ByteArrayInputStream(contents));
+		doc.documentProperties().put(CONTENT_DIGEST, digest);
+		lastParsed.put(uri, new ParsedMetadata(digest, doc));
 		return doc;
 	}
 	
-	private InputStream download(URI uri, String customTruststore) throws IOException, EngineException
+	private EntitiesDescriptorDocument getParsedIfUnchanged(String uri, String digest)
+	{
+		ParsedMetadata previous = lastParsed.get(uri);
+		EntitiesDescriptorDocument unchanged = previous != null && previous.digest.equals(digest) ? 
+				previous.document.get() : null;
+		if (unchanged != null)
+			log.debug("Metadata of {} was not changed, skipping its parsing", uri);
+		return unchanged;
+	}
+	
+	private EntitiesDescriptorDocument download(String rawUri, URI uri, String customTruststore) 
+			throws IOException, EngineException, XmlException
 	{
 		FileData data = uriAccessService.readURI(uri, customTruststore);
+		String digest = DigestUtils.sha256Hex(data.getContents());
+		EntitiesDescriptorDocument unchanged = getParsedIfUnchanged(rawUri, digest);
+		if (unchanged != null)
+			return unchanged;
 		FileData savedFile = fileStorageService.storeFileInWorkspace(data.getContents(), getFileName(uri.toString()));
 		log.info("Downloaded metadata from " + uri.toString() + " and stored in " + savedFile.getName());
-		return new ByteArrayInputStream(savedFile.getContents());
+		return parse(rawUri, savedFile.getContents(), digest);
 	}
 		
 	public static String getFileName(String uri)
 	{
 		return Paths.get(CACHE_DIR, DigestUtils.md5Hex(uri)).toString();
 	}
+
+	private static class ParsedMetadata
+	{
+		private final String digest;
+		private final SoftReference<EntitiesDescriptorDocument> document;
+
+		ParsedMetadata(String digest, EntitiesDescriptorDocument document)
+		{
+			this.digest = digest;
+			this.document = new SoftReference<>(document);
+		}
+	}
 }
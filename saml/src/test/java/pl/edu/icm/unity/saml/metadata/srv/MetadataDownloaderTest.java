@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.srv;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.edu.icm.unity.base.file.FileData;
+import pl.edu.icm.unity.engine.api.files.FileStorageService;
+import pl.edu.icm.unity.engine.api.files.URIAccessService;
+import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
+
+public class MetadataDownloaderTest
+{
+	private static final String URL = "http://url";
+	private FileStorageService fileStorageService;
+	private URIAccessService uriAccessService;
+	private MetadataDownloader downloader;
+
+	@Before
+	public void init() throws Exception
+	{
+		fileStorageService = mock(FileStorageService.class);
+		uriAccessService = mock(URIAccessService.class);
+		when(fileStorageService.storeFileInWorkspace(any(), any())).thenAnswer(
+				a -> new FileData("xx", a.getArgument(0), new Date()));
+		downloader = new MetadataDownloader(uriAccessService, fileStorageService);
+	}
+
+	@Test
+	public void shouldNotParseUnchangedMetadataAgain() throws Exception
+	{
+		returnMetadata("src/test/resources/unity-as-sp-meta.xml");
+
+		EntitiesDescriptorDocument first = downloader.getFresh(URL, null);
+		EntitiesDescriptorDocument second = downloader.getFresh(URL, null);
+
+		assertThat(second, sameInstance(first));
+		verify(fileStorageService, times(1)).storeFileInWorkspace(any(), any());
+	}
+
+	@Test
+	public void shouldParseChangedMetadata() throws Exception
+	{
+		returnMetadata("src/test/resources/unity-as-sp-meta.xml");
+		EntitiesDescriptorDocument first = downloader.getFresh(URL, null);
+		returnMetadata("src/test/resources/DFN-AAI-metadata-part.xml");
+
+		EntitiesDescriptorDocument second = downloader.getFresh(URL, null);
+
+		assertThat(second, not(sameInstance(first)));
+		assertThat(MetadataDownloader.getContentDigest(second).equals(
+				MetadataDownloader.getContentDigest(first)), is(false));
+		verify(fileStorageService, times(2)).storeFileInWorkspace(any(), any());
+	}
+
+	private void returnMetadata(String path) throws Exception
+	{
+		byte[] contents = Files.readAllBytes(Paths.get(path));
+		when(uriAccessService.readURI(eq(new URI(URL)), any())).thenAnswer(
+				a -> new FileData("xx", contents, new Date()));
+	}
+}
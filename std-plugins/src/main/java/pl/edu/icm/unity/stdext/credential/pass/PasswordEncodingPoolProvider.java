@@ -8,14 +8,22 @@ import java.util.concurrent.ForkJoinPool;
 
 /**
  * Provides access to a shared thread pool on which all password hashings should be performed.
- * This pool size allows for a global control of concurrent password hashings.   
+ * This pool size allows for a global control of concurrent password hashings, while the admission
+ * controls how many hashings can wait for the pool.
  */
 public class PasswordEncodingPoolProvider
 {
 	public final ForkJoinPool pool;
+	public final PasswordHashingAdmission admission;
 
 	public PasswordEncodingPoolProvider(ForkJoinPool pool)
+	{
+		this(pool, PasswordHashingAdmission.unlimited());
+	}
+
+	public PasswordEncodingPoolProvider(ForkJoinPool pool, PasswordHashingAdmission admission)
 	{
 		this.pool = pool;
+		this.admission = admission;
 	}
 }
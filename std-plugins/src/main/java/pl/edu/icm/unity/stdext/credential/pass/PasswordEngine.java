@@ -8,16 +8,23 @@ import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.util.Arrays;
 
+import pl.edu.icm.unity.engine.api.authn.InvocationContext;
+
 
 /**
  * Low level password handling.
  * Allows for initial obfuscation of a given password (PasswordInfo is generated, 
  * ready to be stored in DB) and for checking a given password against the one loaded.
+ * <p>
+ * Expensive hashings are performed on the shared hashing pool, which is fairly shared among 
+ * authentication realms. When the pool is saturated {@link PasswordHashingRejectedException} is thrown
+ * by verification. Preparation of a new password for storing is not subject to the admission control.
  */
 public class PasswordEngine
 {
@@ -25,9 +32,9 @@ public class PasswordEngine
 	private Random random = new SecureRandom();
 	private final SCryptEncoder scryptEncoder;
 	
-	public PasswordEngine(ForkJoinPool pool)
+	public PasswordEngine(PasswordEncodingPoolProvider poolProvider)
 	{
-		this.scryptEncoder = new SCryptEncoder(pool);
+		this.scryptEncoder = new SCryptEncoder(poolProvider);
 	}
 	
 	PasswordInfo prepareForStore(PasswordCredential credentialSettings, String password)
@@ -43,6 +50,26 @@ public class PasswordEngine
 	}
 
 	boolean verify(PasswordInfo stored, String password)
+	{
+		try
+		{
+			return verifyAsync(stored, password).get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted when verifying password", e);
+		} catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof PasswordHashingRejectedException)
+				throw (PasswordHashingRejectedException) e.getCause();
+			throw new IllegalStateException("Error when verifying password", e);
+		}
+	}
+
+	/**
+	 * Verifies password without blocking the caller on the hashing. 
+	 */
+	CompletableFuture<Boolean> verifyAsync(PasswordInfo stored, String password)
 	{
 		PasswordHashMethod method = stored.getMethod();
 		switch (method)
@@ -50,7 +77,7 @@ public class PasswordEngine
 		case SCRYPT:
 			return verifySCrypt(stored, password);
 		case SHA256:
-			return verifySHA2(stored, password);
+			return CompletableFuture.completedFuture(verifySHA2(stored, password));
 		}
 		throw new IllegalStateException("Shouldn't happen: "
 				+ "unsupported password hash method: " + method);
@@ -72,11 +99,11 @@ public class PasswordEngine
 		return Arrays.areEqual(interim, stored.getHash());
 	}
 
-	private boolean verifySCrypt(PasswordInfo stored, String password)
+	private CompletableFuture<Boolean> verifySCrypt(PasswordInfo stored, String password)
 	{
 		ScryptParams params = new ScryptParams(stored.getMethodParams());
-		byte[] testedHash = scryptEncoder.scrypt(password, stored.getSalt(), params);
-		return Arrays.areEqual(testedHash, stored.getHash());
+		return scryptEncoder.scryptAsync(password, stored.getSalt(), params, InvocationContext.safeGetRealm())
+				.thenApply(testedHash -> Arrays.areEqual(testedHash, stored.getHash()));
 	}
 
 	boolean checkParamsUpToDate(PasswordCredential credentialSettings, PasswordInfo stored)
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.stdext.credential.pass;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controls admission of password hashings to the shared hashing pool. At most maxPending hashings
+ * (running and waiting) are admitted, the remaining ones are rejected immediately, instead of
+ * blocking the caller for an unbounded time.
+ * <p>
+ * The admission is adaptive: as long as the queue is filled in less then a half, any requester is admitted.
+ * Above that level each requester (typically an authentication realm) is limited to its fair share
+ * of the queue, i.e. maxPending divided by the number of requesters which currently have pending hashings.
+ * The fair share check is not atomic with respect to other requesters, so it is a soft limit.
+ * <p>
+ * Additionally statistics of the time spent on waiting in the queue and on hashing itself are collected.
+ */
+public class PasswordHashingAdmission
+{
+	private static final String DEFAULT_REQUESTER = "";
+
+	private final int maxPending;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final ConcurrentMap<String, AtomicInteger> pendingPerRequester = new ConcurrentHashMap<>();
+
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final LongAdder totalHashNanos = new LongAdder();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+	public PasswordHashingAdmission(int maxPending)
+	{
+		this.maxPending = maxPending;
+	}
+
+	public static PasswordHashingAdmission unlimited()
+	{
+		return new PasswordHashingAdmission(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param requester requester of the hashing, can be null.
+	 * @return true if the hashing was admitted. In such case {@link #release(String)} must be called
+	 * after it is finished.
+	 */
+	boolean tryAdmit(String requester)
+	{
+		String key = requester == null ? DEFAULT_REQUESTER : requester;
+		while (true)
+		{
+			int current = pending.get();
+			if (current >= maxPending || (current >= maxPending / 2 && isOverFairShare(key)))
+			{
+				rejected.increment();
+				return false;
+			}
+			if (pending.compareAndSet(current, current + 1))
+				break;
+		}
+		pendingPerRequester.compute(key, (k, counter) ->
+		{
+			AtomicInteger ret = counter == null ? new AtomicInteger() : counter;
+			ret.incrementAndGet();
+			return ret;
+		});
+		return true;
+	}
+
+	void release(String requester)
+	{
+		String key = requester == null ? DEFAULT_REQUESTER : requester;
+		pendingPerRequester.computeIfPresent(key, (k, counter) ->
+			counter.decrementAndGet() <= 0 ? null : counter);
+		pending.decrementAndGet();
+	}
+
+	void recordCompleted(long waitNanos, long hashNanos)
+	{
+		completed.increment();
+		totalWaitNanos.add(waitNanos);
+		totalHashNanos.add(hashNanos);
+		maxWaitNanos.accumulate(waitNanos);
+	}
+
+	public int getMaxPending()
+	{
+		return maxPending;
+	}
+
+	public PasswordHashingStatistics getStatistics()
+	{
+		return new PasswordHashingStatistics(pending.get(), completed.sum(), rejected.sum(),
+				totalWaitNanos.sum(), totalHashNanos.sum(), maxWaitNanos.get());
+	}
+
+	private boolean isOverFairShare(String key)
+	{
+		AtomicInteger requesterPending = pendingPerRequester.get(key);
+		if (requesterPending == null)
+			return false;
+		int requesters = Math.max(1, pendingPerRequester.size());
+		int fairShare = Math.max(1, maxPending / requesters);
+		return requesterPending.get() >= fairShare;
+	}
+
+	/**
+	 * Snapshot of password hashing statistics, counted since the server start.
+	 */
+	public static class PasswordHashingStatistics
+	{
+		public final int pending;
+		public final long completed;
+		public final long rejected;
+		public final long totalWaitNanos;
+		public final long totalHashNanos;
+		public final long maxWaitNanos;
+
+		PasswordHashingStatistics(int pending, long completed, long rejected, long totalWaitNanos,
+				long totalHashNanos, long maxWaitNanos)
+		{
+			this.pending = pending;
+			this.completed = completed;
+			this.rejected = rejected;
+			this.totalWaitNanos = totalWaitNanos;
+			this.totalHashNanos = totalHashNanos;
+			this.maxWaitNanos = maxWaitNanos;
+		}
+
+		public long getAverageWaitMs()
+		{
+			return completed == 0 ? 0 : totalWaitNanos / completed / 1_000_000;
+		}
+
+		public long getAverageHashMs()
+		{
+			return completed == 0 ? 0 : totalHashNanos / completed / 1_000_000;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "pending=" + pending + ", completed=" + completed + ", rejected=" + rejected
+					+ ", avgQueueWait=" + getAverageWaitMs() + "ms"
+					+ ", maxQueueWait=" + maxWaitNanos / 1_000_000 + "ms"
+					+ ", avgHashTime=" + getAverageHashMs() + "ms";
+		}
+	}
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2019 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.stdext.credential.pass;
+
+/**
+ * Thrown when password hashing was not admitted as the hashing pool is saturated.
+ */
+public class PasswordHashingRejectedException extends IllegalStateException
+{
+	public PasswordHashingRejectedException(String msg)
+	{
+		super(msg);
+	}
+}
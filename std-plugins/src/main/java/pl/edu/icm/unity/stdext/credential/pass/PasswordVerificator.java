@@ -45,6 +45,7 @@ import pl.edu.icm.unity.engine.api.authn.AuthenticatedEntity;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult.Status;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.CredentialReset;
 import pl.edu.icm.unity.engine.api.authn.EntityWithCredential;
 import pl.edu.icm.unity.engine.api.authn.local.AbstractLocalCredentialVerificatorFactory;
@@ -95,8 +96,7 @@ public class PasswordVerificator extends AbstractLocalVerificator implements Pas
 		this.notificationProducer = notificationProducer;
 		this.credentialHelper = credentialHelper;
 		this.passwordEngine = new PasswordEngine(threadPoolProvider
-				.map(pp->pp.pool)
-				.orElse(ForkJoinPool.commonPool()));
+				.orElseGet(() -> new PasswordEncodingPoolProvider(ForkJoinPool.commonPool())));
 	}
 
 	@Override
@@ -252,15 +252,25 @@ public class PasswordVerificator extends AbstractLocalVerificator implements Pas
 	 */
 	@Override
 	public AuthenticationResult checkPassword(String username, String password, 
-			SandboxAuthnResultCallback sandboxCallback)
+			SandboxAuthnResultCallback sandboxCallback) throws AuthenticationException
 	{
-		AuthenticationResult authenticationResult = checkPasswordInternal(username, password);
+		AuthenticationResult authenticationResult;
+		try
+		{
+			authenticationResult = checkPasswordInternal(username, password);
+		} catch (AuthenticationException e)
+		{
+			if (sandboxCallback != null)
+				sandboxCallback.sandboxedAuthenticationDone(new LocalSandboxAuthnContext(e.getResult()));
+			throw e;
+		}
 		if (sandboxCallback != null)
 			sandboxCallback.sandboxedAuthenticationDone(new LocalSandboxAuthnContext(authenticationResult));
 		return authenticationResult;
 	}
 
-	private AuthenticationResult checkPasswordInternal(String username, String password)
+	private AuthenticationResult checkPasswordInternal(String username, String password) 
+			throws AuthenticationException
 	{
 		EntityWithCredential resolved;
 		try
@@ -293,6 +303,11 @@ public class PasswordVerificator extends AbstractLocalVerificator implements Pas
 			AuthenticatedEntity ae = new AuthenticatedEntity(resolved.getEntityId(), username, 
 					isOutdated ? resolved.getCredentialName() : null);
 			return new AuthenticationResult(Status.success, ae);
+		} catch (PasswordHashingRejectedException e)
+		{
+			log.warn("Password of {} was not verified, password checking capacity is exhausted: {}", 
+					username, e.getMessage());
+			throw new AuthenticationServerBusyException("Server is too busy to verify password", e);
 		} catch (Exception e)
 		{
 			log.debug("Error during password verification for " + username, e);
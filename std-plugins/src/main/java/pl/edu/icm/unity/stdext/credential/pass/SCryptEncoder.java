@@ -5,9 +5,10 @@
 package pl.edu.icm.unity.stdext.credential.pass;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.crypto.generators.SCrypt;
 
@@ -16,22 +17,36 @@ import org.bouncycastle.crypto.generators.SCrypt;
  * about the total memory use by scrypt.  
  * Scrypt memory appetite is: 128 bytes × 2^workFactor × blockSize.
  * With default block size of 8, it is 1024 x 2^workfactor.
+ * <p>
+ * Asynchronous encodings are admitted to the pool with {@link PasswordHashingAdmission}, so when the pool 
+ * is saturated such an encoding fails fast with {@link PasswordHashingRejectedException}.
  */
 public class SCryptEncoder
 {
 	private ForkJoinPool pool;
+	private PasswordHashingAdmission admission;
 	private long maxMemory;
 	
 	public SCryptEncoder(ForkJoinPool pool)
 	{
-		this(pool, Runtime.getRuntime().maxMemory());
+		this(new PasswordEncodingPoolProvider(pool));
+	}
+
+	public SCryptEncoder(PasswordEncodingPoolProvider poolProvider)
+	{
+		this(poolProvider, Runtime.getRuntime().maxMemory());
 	}
 
 	SCryptEncoder(ForkJoinPool pool, long maxHeap)
 	{
-		this.pool = pool;
+		this(new PasswordEncodingPoolProvider(pool), maxHeap);
+	}
+
+	SCryptEncoder(PasswordEncodingPoolProvider poolProvider, long maxHeap)
+	{
+		this.pool = poolProvider.pool;
+		this.admission = poolProvider.admission;
 		this.maxMemory = maxHeap;
-		
 	}
 
 	/**
@@ -64,12 +79,15 @@ public class SCryptEncoder
 		return maxWorkFactor;
 	}
 	
+	/**
+	 * Encodes on the hashing pool, bypassing the admission control. Used when a new password is stored:
+	 * such operations are rare and should not fail because of the authentication load.
+	 */
 	public byte[] scrypt(String password, byte[] salt, ScryptParams params)
 	{
-		ForkJoinTask<byte[]> task = pool.submit(() -> runScrypt(password, salt, params));
 		try
 		{
-			return task.get();
+			return CompletableFuture.supplyAsync(() -> runScrypt(password, salt, params), pool).get();
 		} catch (InterruptedException e)
 		{
 			Thread.currentThread().interrupt();
@@ -79,7 +97,46 @@ public class SCryptEncoder
 			throw new IllegalStateException("Error when scrypting", e);
 		}
 	}
+
+	/**
+	 * Schedules encoding on the hashing pool. The returned future is completed exceptionally with 
+	 * {@link PasswordHashingRejectedException} at once, if the encoding was not admitted.
+	 * @param requester used to fairly share the hashing pool among requesters under load, 
+	 * typically the authentication realm. Can be null. 
+	 */
+	public CompletableFuture<byte[]> scryptAsync(String password, byte[] salt, ScryptParams params, 
+			String requester)
+	{
+		if (!admission.tryAdmit(requester))
+			return failed(new PasswordHashingRejectedException("Too many concurrent password checks"));
+		long submitted = System.nanoTime();
+		try
+		{
+			return CompletableFuture.supplyAsync(() -> 
+			{
+				long started = System.nanoTime();
+				try
+				{
+					return runScrypt(password, salt, params);
+				} finally
+				{
+					admission.release(requester);
+					admission.recordCompleted(started - submitted, System.nanoTime() - started);
+				}
+			}, pool);
+		} catch (RejectedExecutionException e)
+		{
+			admission.release(requester);
+			return failed(e);
+		}
+	}
 	
+	private static <T> CompletableFuture<T> failed(Throwable error)
+	{
+		CompletableFuture<T> ret = new CompletableFuture<>();
+		ret.completeExceptionally(error);
+		return ret;
+	}
 	
 	private byte[] runScrypt(String password, byte[] salt, ScryptParams params)
 	{
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.stdext.credential.pass;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class PasswordHashingAdmissionTest
+{
+	@Test
+	public void shouldRejectOverLimit()
+	{
+		PasswordHashingAdmission admission = new PasswordHashingAdmission(2);
+
+		assertThat(admission.tryAdmit("r1")).isTrue();
+		assertThat(admission.tryAdmit("r2")).isTrue();
+		assertThat(admission.tryAdmit("r3")).isFalse();
+		assertThat(admission.getStatistics().rejected).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldAdmitAfterRelease()
+	{
+		PasswordHashingAdmission admission = new PasswordHashingAdmission(1);
+		admission.tryAdmit("r1");
+
+		admission.release("r1");
+
+		assertThat(admission.tryAdmit("r1")).isTrue();
+	}
+
+	@Test
+	public void shouldLimitRealmToFairShareUnderLoad()
+	{
+		PasswordHashingAdmission admission = new PasswordHashingAdmission(8);
+		for (int i = 0; i < 4; i++)
+			assertThat(admission.tryAdmit("r1")).isTrue();
+		assertThat(admission.tryAdmit("r2")).isTrue();
+
+		assertThat(admission.tryAdmit("r1")).isFalse();
+		assertThat(admission.tryAdmit("r2")).isTrue();
+	}
+
+	@Test
+	public void shouldFailFastWhenSaturated()
+	{
+		SCryptEncoder encoder = new SCryptEncoder(new PasswordEncodingPoolProvider(new ForkJoinPool(1),
+				new PasswordHashingAdmission(0)));
+
+		CompletableFuture<byte[]> result = encoder.scryptAsync("pass", new byte[16],
+				new ScryptParams(ScryptParams.MIN_WORK_FACTOR), "r1");
+
+		assertThat(result).isCompletedExceptionally();
+		Throwable error = catchThrowable(() -> result.get());
+		assertThat(error).isInstanceOf(ExecutionException.class)
+			.hasCauseInstanceOf(PasswordHashingRejectedException.class);
+	}
+
+	@Test
+	public void shouldNotApplyAdmissionToBlockingEncoding()
+	{
+		SCryptEncoder encoder = new SCryptEncoder(new PasswordEncodingPoolProvider(new ForkJoinPool(1),
+				new PasswordHashingAdmission(0)));
+
+		byte[] result = encoder.scrypt("pass", new byte[16], new ScryptParams(ScryptParams.MIN_WORK_FACTOR));
+
+		assertThat(result).isNotEmpty();
+	}
+
+	@Test
+	public void shouldRecordHashingStatistics() throws Exception
+	{
+		PasswordHashingAdmission admission = new PasswordHashingAdmission(4);
+		SCryptEncoder encoder = new SCryptEncoder(new PasswordEncodingPoolProvider(new ForkJoinPool(1),
+				admission));
+
+		encoder.scryptAsync("pass", new byte[16], new ScryptParams(ScryptParams.MIN_WORK_FACTOR), "r1").get();
+
+		assertThat(admission.getStatistics().completed).isEqualTo(1);
+		assertThat(admission.getStatistics().pending).isEqualTo(0);
+	}
+}
@@ -4,7 +4,9 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 import pl.edu.icm.unity.store.types.StoredAttribute;
 import pl.edu.icm.unity.types.basic.AttributeExt;
@@ -35,6 +37,11 @@ public interface AttributeDAO extends BasicCRUDDAO<StoredAttribute>
 	 * @return all attributes (in any group) of members of the given group
 	 */
 	List<StoredAttribute> getAttributesOfGroupMembers(String group);
+
+	/**
+	 * @return all attributes (in any group) of the given entities, obtained with a single query
+	 */
+	List<StoredAttribute> getAttributesOfEntities(Collection<Long> entityIds);
 	
 	/**
 	 * Simplified version of {@link #getEntityAttributes(long, String, String)}. 
@@ -59,4 +66,10 @@ public interface AttributeDAO extends BasicCRUDDAO<StoredAttribute>
 	List<StoredAttribute> getAllWithKeyword(String keyword);
 
 	List<String> getAllKeywordsFor(Long attributeId);
+	
+	/**
+	 * Passes all attributes together with their lookup keywords to the consumer, as they are read 
+	 * from the database.
+	 */
+	void streamAllWithKeywords(BiConsumer<StoredAttribute, List<String>> consumer);
 }
@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.api;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Basic DAO with typical CRUD operations.
@@ -26,5 +27,23 @@ public interface BasicCRUDDAO<T>
 
 	List<T> getAll();
 	
+	/**
+	 * As {@link #getAll()} but elements are passed to the consumer one by one. Implementations backed by 
+	 * a database should read elements incrementally, so that the whole table is never held in memory.
+	 */
+	default void streamAll(Consumer<T> consumer)
+	{
+		getAll().forEach(consumer);
+	}
+	
+	/**
+	 * Creates all given objects. Generated keys are not returned, so this method is suitable 
+	 * for bulk inserts (e.g. of imported data), which can be done with fewer database round trips.
+	 */
+	default void createList(List<T> objects)
+	{
+		objects.forEach(this::create);
+	}
+	
 	long getCount();
 }
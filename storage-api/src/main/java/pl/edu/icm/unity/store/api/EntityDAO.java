@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Collection;
 import java.util.List;
 
 import pl.edu.icm.unity.types.basic.EntityInformation;
@@ -18,4 +19,9 @@ public interface EntityDAO extends BasicCRUDDAO<EntityInformation>
 	String NAME = "entity";
 	
 	List<EntityInformation> getByGroup(String group);
+	
+	/**
+	 * @return entities with the given ids, not existing ones are skipped
+	 */
+	List<EntityInformation> getByKeys(Collection<Long> ids);
 }
@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.api;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import pl.edu.icm.unity.base.event.EventExecution;
 
@@ -19,5 +20,11 @@ public interface EventDAO extends BasicCRUDDAO<EventExecution>
 	String NAME = "event execution";
 	
 	List<EventExecution> getEligibleForProcessing(Date date);
+	
+	/**
+	 * @return at most limit events of the given listener, eligible for processing at the given date, 
+	 * without the excluded ones. Events which are eligible for the longest time are returned first.
+	 */
+	List<EventExecution> getEligibleForProcessing(Date date, String listenerId, Set<Long> excludedIds, int limit);
 	void updateExecution(long id, Date newExecution, int failures);
 }
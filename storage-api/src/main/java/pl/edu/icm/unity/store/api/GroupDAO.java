@@ -4,14 +4,68 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import pl.edu.icm.unity.types.basic.Group;
 
 /**
- * Group DAO
+ * Group DAO. Default implementations of the hierarchy related methods filter names of all groups, 
+ * implementations should override them whenever groups hierarchy can be resolved more efficiently.
  * @author K. Benedyczak
  */
 public interface GroupDAO extends NamedCRUDDAO<Group>
 {
 	String DAO_ID = "GroupDAO";
 	String NAME = "group";
+	
+	/**
+	 * @return names of direct subgroups of the given group. Empty if the group doesn't exist.
+	 */
+	default List<String> getChildrenNames(String path)
+	{
+		return getAllNames().stream()
+				.filter(group -> Group.isChild(group, path))
+				.filter(group -> path.equals(new Group(group).getParentPath()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return names of all groups in the subtree of the given group, without the group itself. 
+	 * Empty if the group doesn't exist.
+	 */
+	default Set<String> getDescendantsNames(String path)
+	{
+		return getAllNames().stream()
+				.filter(group -> Group.isChild(group, path))
+				.collect(Collectors.toSet());
+	}
+	
+	/**
+	 * @return number of groups in the subtree of the given group, without the group itself.
+	 */
+	default long getDescendantsCount(String path)
+	{
+		return getDescendantsNames(path).size();
+	}
+	
+	/**
+	 * @return names of all ancestors of the given group, starting from the root group. 
+	 * Empty if the group doesn't exist.
+	 */
+	default List<String> getAncestorsNames(String path)
+	{
+		List<String> ret = new ArrayList<>();
+		if (!exists(path))
+			return ret;
+		Group group = new Group(path);
+		while (!group.isTopLevel())
+		{
+			group = new Group(group.getParentPath());
+			ret.add(0, group.getName());
+		}
+		return ret;
+	}
 }
@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Collection;
 import java.util.List;
 
 import pl.edu.icm.unity.store.types.StoredIdentity;
@@ -21,5 +22,6 @@ public interface IdentityDAO extends NamedCRUDDAO<StoredIdentity>
 	List<Identity> getByEntity(long entityId);
 	List<StoredIdentity> getByEntityFull(long entityId);
 	List<StoredIdentity> getByGroup(String group);
+	List<StoredIdentity> getByEntities(Collection<Long> entityIds);
 	long getCountByType(List<String> types);
 }
@@ -15,6 +15,8 @@ import pl.edu.icm.unity.types.basic.DBDumpContentElements;
  * Provides feature to export and import database dumps to a file. 
  * <p>
  * The implementation must allows for updating imported contents if it was stored by an older Unity version. 
+ * Dumps can be stored as pretty printed JSON or as compact, gzip compressed JSON. Both formats are 
+ * recognized when loading.
  * @author K. Benedyczak
  */
 public interface ImportExport
@@ -22,5 +24,6 @@ public interface ImportExport
 	void load(InputStream is) throws IOException;
 	void store(OutputStream os, DBDumpContentElements content) throws IOException;
 	void storeWithVersion(OutputStream os, DBDumpContentElements content, int version) throws IOException;
+	void storeCompressed(OutputStream os, DBDumpContentElements content) throws IOException;
 	List<String> getDBDumpElements(InputStream is) throws IOException;
 }
@@ -4,9 +4,11 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import pl.edu.icm.unity.types.basic.GroupMembership;
 
@@ -30,8 +32,46 @@ public interface MembershipDAO
 
 	List<GroupMembership> getMembers(String group);
 	
+	/**
+	 * @return all memberships (in all groups) of entities which are members of the given group
+	 */
+	List<GroupMembership> getMembershipsOfGroupMembers(String group);
+	
+	/**
+	 * @return all memberships of the given entities, obtained with a single query
+	 */
+	List<GroupMembership> getEntitiesMembership(Collection<Long> entityIds);
+	
 	List<GroupMembership> getAll();
 	
+	/**
+	 * @return total number of memberships in all the given groups. With all groups of a subtree 
+	 * (see {@link GroupDAO#getDescendantsNames(String)}) it is the subtree membership count.
+	 */
+	default long getMembershipsCount(Collection<String> groups)
+	{
+		long ret = 0;
+		for (String group: groups)
+			ret += getMembers(group).size();
+		return ret;
+	}
+	
+	/**
+	 * As {@link #getAll()} but elements are passed to the consumer one by one.
+	 */
+	default void streamAll(Consumer<GroupMembership> consumer)
+	{
+		getAll().forEach(consumer);
+	}
+	
+	/**
+	 * Creates all given memberships, possibly with a bulk insert.
+	 */
+	default void createList(List<GroupMembership> memberships)
+	{
+		memberships.forEach(this::create);
+	}
+	
 	default Set<String> getEntityMembershipSimple(long entityId)
 	{
 		List<GroupMembership> full = getEntityMembership(entityId);
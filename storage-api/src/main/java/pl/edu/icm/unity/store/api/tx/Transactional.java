@@ -22,4 +22,10 @@ public @interface Transactional
 	int maxRetries() default DEF_MAX_RETRIES;
 	
 	boolean autoCommit() default true;
+	
+	/**
+	 * Read-only transaction can not modify data and so can be executed on a replica of the database,
+	 * if it is configured. Effective only for the outermost transaction.
+	 */
+	boolean readOnly() default false;
 }
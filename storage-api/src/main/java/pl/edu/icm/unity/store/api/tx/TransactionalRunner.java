@@ -26,6 +26,14 @@ public interface TransactionalRunner
 	
 	<T> T runInTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException;
 	
+	/**
+	 * Runs the code in a read-only transaction, see {@link Transactional#readOnly()}.
+	 */
+	default <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return runInTransactionRetThrowing(code);
+	}
+	
 	public interface TxRunnable
 	{
 		void run();
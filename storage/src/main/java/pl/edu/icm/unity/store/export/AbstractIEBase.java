@@ -5,7 +5,10 @@
 package pl.edu.icm.unity.store.export;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.Logger;
 
@@ -23,6 +26,7 @@ import pl.edu.icm.unity.base.utils.Log;
 public abstract class AbstractIEBase<T>
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, AbstractIEBase.class);
+	static final int IMPORT_BATCH_SIZE = 500;
 	private int sortKey;
 	private String storeKey;
 	
@@ -56,6 +60,24 @@ public abstract class AbstractIEBase<T>
 	 */
 	protected abstract void createSingle(T toCreate);
 	
+	/**
+	 * Passes all objects to be exported to the consumer. By default uses {@link #getAllToExport()}, 
+	 * should be overridden for object types which can be numerous, to read them incrementally. 
+	 */
+	protected void streamAllToExport(Consumer<T> consumer)
+	{
+		getAllToExport().forEach(consumer);
+	}
+	
+	/**
+	 * Stores a batch of imported objects in db. By default objects are stored one by one, 
+	 * should be overridden for object types which can be inserted in bulk.
+	 */
+	protected void createBatch(List<T> toCreate)
+	{
+		toCreate.forEach(this::createSingle);
+	}
+	
 	
 	public int getSortKey()
 	{
@@ -69,10 +91,23 @@ public abstract class AbstractIEBase<T>
 
 	public void serialize(JsonGenerator jg) throws IOException
 	{
-		List<T> all = getAllToExport();
 		jg.writeStartArray();
-		for (T obj: all)
-			serializeToJson(jg, obj);
+		try
+		{
+			streamAllToExport(obj -> 
+			{
+				try
+				{
+					serializeToJson(jg, obj);
+				} catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
 		jg.writeEndArray();
 	}
 	
@@ -86,11 +121,18 @@ public abstract class AbstractIEBase<T>
 			throws IOException
 	{
 		JsonUtils.expect(input, JsonToken.START_ARRAY);
+		List<T> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
 		while(input.nextToken() == JsonToken.START_OBJECT)
 		{
-			T obj = deserializeFromJson(input);
-			createSingle(obj);
+			batch.add(deserializeFromJson(input));
+			if (batch.size() == IMPORT_BATCH_SIZE)
+			{
+				createBatch(batch);
+				batch.clear();
+			}
 		}
+		if (!batch.isEmpty())
+			createBatch(batch);
 		JsonUtils.expect(input, JsonToken.END_ARRAY);
 	}
 
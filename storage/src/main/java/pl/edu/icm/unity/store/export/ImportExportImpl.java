@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.store.export;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -13,6 +14,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,13 +36,18 @@ import pl.edu.icm.unity.store.impl.tokens.TokensIE;
 import pl.edu.icm.unity.types.basic.DBDumpContentElements;
 
 /**
- * Import/export functionality. 
+ * Import/export functionality. Objects are exported and imported incrementally, so that whole tables are
+ * never held in memory. Compressed dumps are detected by the gzip magic number.
  * @author K. Benedyczak
  */
 @Component
 public class ImportExportImpl implements ImportExport
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, ImportExportImpl.class);
+	private static final int GZIP_MAGIC_1 = 0x1f;
+	private static final int GZIP_MAGIC_2 = 0x8b;
+	private static final int GZIP_BUFFER = 65536;
+	private static final int COMPRESSED_HEADER_MARK_LIMIT = 4 * GZIP_BUFFER;
 	private ObjectMapper objectMapper;
 	private DumpUpdater updater;
 	private List<AbstractIEBase<?>> implementations;
@@ -79,10 +87,24 @@ public class ImportExportImpl implements ImportExport
 	
 	@Override
 	public void storeWithVersion(OutputStream os, DBDumpContentElements content, int version) throws IOException
+	{
+		store(os, content, version, true);
+	}
+
+	@Override
+	public void storeCompressed(OutputStream os, DBDumpContentElements content) throws IOException
+	{
+		GZIPOutputStream compressed = new GZIPOutputStream(os, GZIP_BUFFER);
+		store(compressed, content, AppDataSchemaVersion.CURRENT.getAppSchemaVersion(), false);
+	}
+	
+	private void store(OutputStream os, DBDumpContentElements content, int version, boolean prettyPrint) 
+			throws IOException
 	{
 		JsonFactory jsonF = new JsonFactory(objectMapper);
 		JsonGenerator jg = jsonF.createGenerator(os, JsonEncoding.UTF8);
-		jg.useDefaultPrettyPrinter();
+		if (prettyPrint)
+			jg.useDefaultPrettyPrinter();
 		
 		jg.writeStartObject();
 		
@@ -118,11 +140,13 @@ public class ImportExportImpl implements ImportExport
 	}
 
 	@Override
-	public void load(InputStream is) throws IOException
+	public void load(InputStream rawIs) throws IOException
 	{
-		if (!is.markSupported())
+		if (!rawIs.markSupported())
 			throw new IllegalArgumentException("Only input streams with mark/reset support can "
 					+ "be used to load imported data");
+		InputStream is = isCompressed(rawIs) ? 
+				new BufferedInputStream(new GZIPInputStream(rawIs, GZIP_BUFFER), GZIP_BUFFER) : rawIs;
 		is.mark(1000);
 		JsonParser jp = jsonF.createParser(is);
 		DumpHeader header = loadHeader(jp);
@@ -167,8 +191,9 @@ public class ImportExportImpl implements ImportExport
 		if (!is.markSupported())
 			throw new IllegalArgumentException("Only input streams with mark/reset support can "
 					+ "be used to load imported data");
-		is.mark(1000);
-		JsonParser jp = jsonF.createParser(is);
+		boolean compressed = isCompressed(is);
+		is.mark(compressed ? COMPRESSED_HEADER_MARK_LIMIT : 1000);
+		JsonParser jp = jsonF.createParser(compressed ? new GZIPInputStream(is, GZIP_BUFFER) : is);
 		loadHeader(jp);
 		jp.nextToken();
 		List<String> dbDumpContent = loadDumpContentType(jp);
@@ -177,6 +202,15 @@ public class ImportExportImpl implements ImportExport
 		return dbDumpContent;
 	}
 	
+	private boolean isCompressed(InputStream is) throws IOException
+	{
+		is.mark(2);
+		int first = is.read();
+		int second = is.read();
+		is.reset();
+		return first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2;
+	}
+	
 	private List<String> loadDumpContentType(JsonParser jp) throws IOException
 	{
 		try{
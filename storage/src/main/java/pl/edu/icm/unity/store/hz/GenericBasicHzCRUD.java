@@ -21,8 +21,11 @@ import pl.edu.icm.unity.store.ReferenceRemovalHandler;
 import pl.edu.icm.unity.store.ReferenceUpdateHandler;
 import pl.edu.icm.unity.store.ReferenceUpdateHandler.PlannedUpdateEvent;
 import pl.edu.icm.unity.store.api.BasicCRUDDAO;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.hz.rdbmsflush.CreateWithIdMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.DeleteByKeyMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.UpdateByKeyMutation;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
+import pl.edu.icm.unity.store.rdbms.GenericRDBMSCRUD;
 
 /**
  * Generic BasicCRUDDAO implementation on hazelcast map.
@@ -36,12 +39,12 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 	protected final String name;
 	protected final String rdbmsCounterpartDaoName;
 	protected IAtomicLong index;
-	private BasicCRUDDAO<T> rdbmsDAO;
+	private GenericRDBMSCRUD<T, ?> rdbmsDAO;
 	private Set<ReferenceRemovalHandler> deleteHandlers = new HashSet<>();
 	private Set<ReferenceUpdateHandler<T>> updateHandlers = new HashSet<>();
 	
 	public GenericBasicHzCRUD(String storeId, String name, String rdbmsCounterpartDaoName,
-			BasicCRUDDAO<T> rdbmsDAO)
+			GenericRDBMSCRUD<T, ?> rdbmsDAO)
 	{
 		STORE_ID = storeId;
 		this.name = name;
@@ -58,9 +61,19 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 			throw new IllegalStateException("In-memory data is non empty before loading " + name + 
 					", have " + getMap().size() + " entries");
 
-		List<T> all = rdbmsDAO.getAll();
-		for (T element: all)
-			createNoPropagateToRDBMS(element);
+		rdbmsDAO.streamAll(this::createNoPropagateToRDBMS);
+	}
+
+	@Override
+	public void attachToRestoredData(HazelcastInstance hzInstance)
+	{
+		index = hzInstance.getAtomicLong(STORE_ID);
+	}
+	
+	@Override
+	public String getRDBMSCounterpartDaoName()
+	{
+		return rdbmsCounterpartDaoName;
 	}
 
 	protected long createNoPropagateToRDBMS(T obj) throws IllegalArgumentException
@@ -77,8 +90,8 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 	public long create(T obj) throws IllegalArgumentException
 	{
 		long key = createNoPropagateToRDBMS(obj);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"createWithId", key, obj));
+		HzTransactionTL.enqueueRDBMSMutation(new CreateWithIdMutation<>(rdbmsCounterpartDaoName, 
+				getOwningEntity(obj), key, obj));
 		return key;
 	}
 	
@@ -91,8 +104,8 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 		hMap.put(key, obj);
 		index.incrementAndGet();
 
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"createWithId", key, obj));
+		HzTransactionTL.enqueueRDBMSMutation(new CreateWithIdMutation<>(rdbmsCounterpartDaoName, 
+				getOwningEntity(obj), key, obj));
 	}
 	
 	@Override
@@ -105,8 +118,19 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 		preUpdateCheck(old, obj);
 		firePreUpdate(id, null, obj, old);
 		hMap.put(id, obj);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"updateByKey", id, obj));
+		HzTransactionTL.enqueueRDBMSMutation(new UpdateByKeyMutation<>(rdbmsCounterpartDaoName, 
+				getOwningEntity(obj), id, obj));
+	}
+	
+	/**
+	 * For extensions: should return id of the entity owning the given object, if any. 
+	 * Mutations of entity owned objects can be flushed to RDBMS in parallel 
+	 * with mutations of other entities. Must not be implemented for objects with a system wide unique 
+	 * key other than id (as identity names), as such key can be reused by another entity.
+	 */
+	protected Long getOwningEntity(T obj)
+	{
+		return null;
 	}
 	
 	@Override
@@ -134,8 +158,8 @@ public abstract class GenericBasicHzCRUD<T> implements BasicCRUDDAO<T>, HzDAO, R
 			firePreRemove(id, null, removed);
 		hMap.remove(id);
 		if (fireEvent)
-			HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"deleteByKey", id));
+			HzTransactionTL.enqueueRDBMSMutation(new DeleteByKeyMutation(rdbmsCounterpartDaoName, 
+					getOwningEntity(removed), id));
 		return removed;
 	}
 	
@@ -14,9 +14,11 @@ import com.hazelcast.core.TransactionalMap;
 
 import pl.edu.icm.unity.store.api.BasicCRUDDAO;
 import pl.edu.icm.unity.store.api.NamedCRUDDAO;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.hz.rdbmsflush.DeleteByKeyMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.UpdateByKeyMutation;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.store.impl.StorageLimits;
+import pl.edu.icm.unity.store.rdbms.GenericRDBMSCRUD;
 import pl.edu.icm.unity.store.types.UpdateFlag;
 import pl.edu.icm.unity.types.NamedObject;
 
@@ -27,7 +29,7 @@ import pl.edu.icm.unity.types.NamedObject;
 public abstract class GenericNamedHzCRUD<T extends NamedObject> extends GenericBasicHzCRUD<T> implements NamedCRUDDAO<T>
 {
 	public GenericNamedHzCRUD(String storeId, String name, String rdbmsCounterpartDaoName,
-			BasicCRUDDAO<T> rdbmsDAO)
+			GenericRDBMSCRUD<T, ?> rdbmsDAO)
 	{
 		super(storeId, name, rdbmsCounterpartDaoName, rdbmsDAO);
 	}
@@ -76,8 +78,8 @@ public abstract class GenericNamedHzCRUD<T extends NamedObject> extends GenericB
 		}
 		hMap.put(id, obj);
 		if (fireEvent)
-			HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(
-					rdbmsCounterpartDaoName, "updateByKey", id, obj));
+			HzTransactionTL.enqueueRDBMSMutation(new UpdateByKeyMutation<>(
+					rdbmsCounterpartDaoName, getOwningEntity(obj), id, obj));
 	}
 	
 	@Override
@@ -110,8 +112,8 @@ public abstract class GenericNamedHzCRUD<T extends NamedObject> extends GenericB
 		{
 			T removed = super.deleteByKeyRet(key, false);
 			getNameMap().remove(removed.getName());
-			HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(
-					rdbmsCounterpartDaoName, "deleteByKey", key));
+			HzTransactionTL.enqueueRDBMSMutation(new DeleteByKeyMutation(
+					rdbmsCounterpartDaoName, getOwningEntity(removed), key));
 		}
 	}
 	
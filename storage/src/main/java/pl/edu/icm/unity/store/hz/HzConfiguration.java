@@ -35,6 +35,10 @@ public class HzConfiguration extends RDBMSConfiguration
 	public static final String MEMBERS = "members.";
 	public static final String INTERFACE_IP = "listenAddress";
 	public static final String INTERFACE_PORT = "port";
+	public static final String FLUSH_MAX_BATCHES = "rdbmsFlushMaxBatches";
+	public static final String FLUSH_THREADS = "rdbmsFlushThreads";
+	public static final String LOADER_THREADS = "loaderThreads";
+	public static final String SNAPSHOT_FILE = "snapshotFile";
 	
 	@DocumentationReferenceMeta
 	public static final Map<String, PropertyMD> META = new HashMap<>();
@@ -59,6 +63,32 @@ public class HzConfiguration extends RDBMSConfiguration
 						+ "Should not be accessible from outside."));
 		META.put(INTERFACE_PORT, new PropertyMD("5701").
 				setDescription("Port used for the internal cluster communication"));
+		META.put(FLUSH_MAX_BATCHES, new PropertyMD("1").setBounds(1, 1000).
+				setDescription("Maximum number of queued transactions which are coalesced and "
+						+ "written to the persistent database in a single database transaction, "
+						+ "using batched statements. The default value of 1 disables coalescing. "
+						+ "Increasing it improves throughput of bulk modifications."));
+		META.put(FLUSH_THREADS, new PropertyMD("1").setBounds(1, 64).
+				setDescription("Number of threads writing queued transactions to the persistent database. "
+						+ "If greater then 1, then transactions modifying data of different entities "
+						+ "are written in parallel. The order of modifications of each entity is always "
+						+ "preserved, while transactions touching non-entity data (as groups or "
+						+ "attribute types) are always written sequentially."));
+		META.put(LOADER_THREADS, new PropertyMD("1").setBounds(1, 16).
+				setDescription("Number of threads loading the in-memory data from the persistent database "
+						+ "at startup. If greater then 1, then each kind of data (as attributes, "
+						+ "identities or tokens) is loaded concurrently, in a separate transaction. "
+						+ "Note that each thread uses its own database connection."));
+		META.put(SNAPSHOT_FILE, new PropertyMD().setPath().
+				setDescription("If set, then on orderly shutdown the whole in-memory data, together with "
+						+ "modifications not yet written to the persistent database, is stored in this "
+						+ "file. On the next startup the data is read from the file instead of "
+						+ "the database, and the pending modifications are written to the database. "
+						+ "The file is used only once. Modifications written to the database by other "
+						+ "cluster members after the snapshot was taken are replayed on the restored data, "
+						+ "as long as they are still recorded in the database flush log. Otherwise, "
+						+ "or if the database was modified directly (e.g. by import), the data is loaded "
+						+ "from the database."));
 		
 	}
 	
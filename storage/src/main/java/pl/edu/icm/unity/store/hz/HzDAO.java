@@ -14,4 +14,15 @@ import com.hazelcast.core.HazelcastInstance;
 public interface HzDAO
 {
 	void populateFromRDBMS(HazelcastInstance hzInstance);
+	
+	/**
+	 * Prepares the DAO to work with data which was put into Hazelcast without its involvement, 
+	 * i.e. restored from a snapshot.
+	 */
+	void attachToRestoredData(HazelcastInstance hzInstance);
+	
+	/**
+	 * @return name of the RDBMS DAO to which the mutations of this DAO are written
+	 */
+	String getRDBMSCounterpartDaoName();
 }
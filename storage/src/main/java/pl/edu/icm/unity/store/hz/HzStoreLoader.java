@@ -4,8 +4,18 @@
  */
 package pl.edu.icm.unity.store.hz;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -14,8 +24,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.esotericsoftware.kryo.pool.KryoPool;
 import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.TransactionalQueue;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.store.StorageCleanerImpl;
@@ -24,6 +36,9 @@ import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.StoreLoaderInternal;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventSink;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSFlushLog;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionalRunner;
 import pl.edu.icm.unity.store.impl.attribute.AttributeHzStore;
@@ -40,7 +55,10 @@ import pl.edu.icm.unity.store.rdbms.DB;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
 
 /**
- * Loads Hazelcast data from RDBMS at startup.
+ * Loads Hazelcast data from RDBMS at startup. Rows are streamed from the database. Optionally each kind 
+ * of data is loaded concurrently. Optionally the data can be restored from a local snapshot, written
+ * on the previous orderly shutdown. Batches flushed to RDBMS after the snapshot was taken are replayed
+ * from the {@link RDBMSFlushLog}.
  * @author K. Benedyczak
  */
 @Component(HzStoreLoader.NAME)
@@ -95,46 +113,174 @@ public class HzStoreLoader implements StoreLoaderInternal
 	
 	@Autowired
 	private RDBMSEventSink sink;
+	
+	@Autowired
+	private RDBMSFlushLog flushLog;
 
 	@Autowired 
 	private StorageConfiguration cfg;
 	
+	@Autowired
+	private KryoPool kryoPool;
+	
+	private int loaderThreads = 1;
+	
+	private HzStoreSnapshot snapshot;
+	
 	
 	@PostConstruct
 	public void init()
 	{
 		if (cfg.getEngine() != StorageEngine.hz)
 			return;
+		HzConfiguration hzConfig = cfg.getEngineConfig();
+		loaderThreads = hzConfig.getIntValue(HzConfiguration.LOADER_THREADS);
+		if (hzConfig.isSet(HzConfiguration.SNAPSHOT_FILE))
+			snapshot = new HzStoreSnapshot(hzInstance, kryoPool, 
+					hzConfig.getFileValue(HzConfiguration.SNAPSHOT_FILE, false));
+		if (snapshot != null && restoreSnapshot())
+			return;
 		//in principle we should be able to simply run loadTransactional()
 		//  but during tests when spring cashes beans bit 'randomly' it is safer bet 
 		reloadHzFromRDBMSInternal();
 	}
 
+	private List<HzDAO> getStores()
+	{
+		return Arrays.asList(attributeTypeDAO, identityTypeDAO, entityDAO, identityDAO, groupDAO,
+				membershipDAO, attributeDAO, tokenDAO, eventDAO, genericObjDAO);
+	}
+	
 	private void loadFromPersistentStore()
 	{
 		log.info("Loading data from the persistent data store");
-		attributeTypeDAO.populateFromRDBMS(hzInstance);
-		identityTypeDAO.populateFromRDBMS(hzInstance);
-		entityDAO.populateFromRDBMS(hzInstance);
-		identityDAO.populateFromRDBMS(hzInstance);
-		groupDAO.populateFromRDBMS(hzInstance);
-		membershipDAO.populateFromRDBMS(hzInstance);
-		attributeDAO.populateFromRDBMS(hzInstance);
-		tokenDAO.populateFromRDBMS(hzInstance);
-		eventDAO.populateFromRDBMS(hzInstance);
-		genericObjDAO.populateFromRDBMS(hzInstance);
+		for (HzDAO store: getStores())
+			store.populateFromRDBMS(hzInstance);
 		sink.start();
 		log.info("Population of the in-memory data store completed");
 	}
 	
 	private void loadTransactional()
 	{
+		if (loaderThreads > 1)
+		{
+			loadInParallel();
+			return;
+		}
 		rdbmstx.runInTransaction(() -> {
 			hztx.runInTransaction(() -> {
 				loadFromPersistentStore();
 			}); 
 		});
 	}
+
+	/**
+	 * Stores are independent during loading, so each one is loaded in its own transaction,
+	 * by a pool of threads.
+	 */
+	private void loadInParallel()
+	{
+		log.info("Loading data from the persistent data store using {} threads", loaderThreads);
+		ExecutorService loaders = Executors.newFixedThreadPool(loaderThreads, 
+				r -> new Thread(r, "Hazelcast store loader"));
+		try
+		{
+			List<Future<?>> results = new ArrayList<>();
+			for (HzDAO store: getStores())
+				results.add(loaders.submit(() -> rdbmstx.runInTransaction(() -> 
+					hztx.runInTransaction(() -> store.populateFromRDBMS(hzInstance)))));
+			for (Future<?> result: results)
+				result.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading the in-memory data store", e);
+		} catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Loading of the in-memory data store failed", e.getCause());
+		} finally
+		{
+			loaders.shutdownNow();
+		}
+		sink.start();
+		log.info("Population of the in-memory data store completed");
+	}
+
+	private boolean restoreSnapshot()
+	{
+		destroyDistributedObjects();
+		List<RDBMSEventsBatch> flushedAfterSnapshot = snapshot.restore(sequence -> 
+			rdbmstx.runInTransactionRet(() -> {
+				flushLog.createIfMissing();
+				return flushLog.getFlushedAfter(sequence);
+			}));
+		if (flushedAfterSnapshot == null)
+			return false;
+		for (HzDAO store: getStores())
+			store.attachToRestoredData(hzInstance);
+		try
+		{
+			replay(flushedAfterSnapshot);
+		} catch (RuntimeException e)
+		{
+			log.warn("Can not replay modifications of the persistent data store on the restored snapshot, "
+					+ "the data will be loaded from the persistent data store", e);
+			destroyDistributedObjects();
+			return false;
+		}
+		sink.start();
+		return true;
+	}
+
+	/**
+	 * Applies batches which were already flushed to RDBMS on Hazelcast stores, in the original order. 
+	 * The mutations are not queued for writing to RDBMS again.
+	 */
+	private void replay(List<RDBMSEventsBatch> batches)
+	{
+		if (batches.isEmpty())
+			return;
+		log.info("Replaying {} transactions written to the persistent data store after the snapshot was taken", 
+				batches.size());
+		Map<String, HzDAO> storesByRDBMSDao = getStores().stream()
+				.collect(Collectors.toMap(HzDAO::getRDBMSCounterpartDaoName, Function.identity()));
+		hztx.runInTransaction(() -> {
+			HzTransactionTL.setReplay();
+			for (RDBMSEventsBatch batch: batches)
+				for (RDBMSMutationEvent event: batch.getEvents())
+				{
+					HzDAO store = storesByRDBMSDao.get(event.getDao());
+					if (store == null)
+						throw new IllegalStateException("No in-memory store for " + event.getDao());
+					event.apply(store);
+				}
+		});
+	}
+	
+	private void saveSnapshot()
+	{
+		try
+		{
+			long lastFlushSequence = rdbmstx.runInTransactionRet(() -> flushLog.getLastSequence());
+			snapshot.save(lastFlushSequence);
+		} catch (IOException | RuntimeException e)
+		{
+			log.warn("Can not store in-memory data snapshot, "
+					+ "the data will be loaded from the persistent data store on the next start", e);
+		}
+	}
+	
+	/**
+	 * Queues a marker of a direct RDBMS modification, so that a snapshot taken before is not used anymore.
+	 */
+	private void enqueueFlushBarrier()
+	{
+		hztx.runInTransaction(() -> {
+			TransactionalQueue<RDBMSEventsBatch> queue = HzTransactionTL.getHzContext().getQueue(
+					RDBMSEventSink.RDBMS_EVENTS_QUEUE);
+			queue.offer(RDBMSEventsBatch.barrier());
+		});
+	}
 	
 	/**
 	 * Use with care - only for maintenance in case of tests or expert tools.
@@ -145,6 +291,7 @@ public class HzStoreLoader implements StoreLoaderInternal
 		sink.stop();
 		initDB.reset();
 		reloadHzFromRDBMSInternal();
+		enqueueFlushBarrier();
 	}
 
 	@Override
@@ -155,6 +302,7 @@ public class HzStoreLoader implements StoreLoaderInternal
 			initDB.deleteEverything();
 		});
 		reloadHzFromRDBMSInternal();
+		enqueueFlushBarrier();
 	}
 
 	void reloadHzFromRDBMS()
@@ -164,12 +312,17 @@ public class HzStoreLoader implements StoreLoaderInternal
 	}
 
 	private void reloadHzFromRDBMSInternal()
+	{
+		destroyDistributedObjects();
+		HzTransactionTL.resetTransaction();
+		loadTransactional();
+	}
+
+	private void destroyDistributedObjects()
 	{
 		Collection<DistributedObject> distributedObjects = hzInstance.getDistributedObjects();
 		for (DistributedObject obj: distributedObjects)
 			obj.destroy();
-		HzTransactionTL.resetTransaction();
-		loadTransactional();
 	}
 	
 	@Override
@@ -178,12 +331,20 @@ public class HzStoreLoader implements StoreLoaderInternal
 		rdbmstx.runInTransaction(() -> {
 			initDB.runPostImportCleanup();
 		});
+		enqueueFlushBarrier();
 	}
 
 	@Override
 	public void shutdown()
 	{
-		sink.stop();
+		try
+		{
+			sink.stop();
+		} finally
+		{
+			if (snapshot != null)
+				saveSnapshot();
+		}
 	}
 
 	@Override
@@ -192,5 +353,6 @@ public class HzStoreLoader implements StoreLoaderInternal
 		rdbmstx.runInTransaction(() -> {
 			initDB.deletePreImport(content);
 		});
+		enqueueFlushBarrier();
 	}
 }
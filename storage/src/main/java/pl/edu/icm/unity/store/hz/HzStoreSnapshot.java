@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import org.apache.logging.log4j.Logger;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.IQueue;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
+
+/**
+ * Stores contents of all Hazelcast maps, queues and atomic longs in a local file and restores them.
+ * Queues are included so that RDBMS mutations which were not yet flushed when the snapshot was
+ * taken are replayed after restore.
+ * <p>
+ * Together with data the sequence number of the last batch flushed to the persistent database is stored.
+ * Snapshot is restored only if the batches flushed after it was taken can be replayed. The snapshot file 
+ * is always removed after it was read, so that it is never used twice.
+ */
+class HzStoreSnapshot
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, HzStoreSnapshot.class);
+	private static final int FORMAT_VERSION = 4;
+	private static final int RESTORE_BATCH = 1000;
+	private static final byte MAP = 1;
+	private static final byte QUEUE = 2;
+	private static final byte ATOMIC_LONG = 3;
+	private static final byte END = 0;
+
+	private final HazelcastInstance hzInstance;
+	private final KryoPool kryoPool;
+	private final File file;
+
+	HzStoreSnapshot(HazelcastInstance hzInstance, KryoPool kryoPool, File file)
+	{
+		this.hzInstance = hzInstance;
+		this.kryoPool = kryoPool;
+		this.file = file;
+	}
+
+	/**
+	 * Writes the snapshot. The file is replaced atomically, after the whole snapshot is written.
+	 */
+	void save(long lastFlushSequence) throws IOException
+	{
+		log.info("Storing in-memory data snapshot in {}", file);
+		File tmpFile = new File(file.getPath() + ".tmp");
+		Kryo kryo = kryoPool.borrow();
+		try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath()));
+				Output output = new Output(os))
+		{
+			output.writeInt(FORMAT_VERSION);
+			output.writeLong(lastFlushSequence);
+			for (DistributedObject object: hzInstance.getDistributedObjects())
+				saveObject(kryo, output, object);
+			output.writeByte(END);
+		} finally
+		{
+			kryoPool.release(kryo);
+		}
+		Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		log.info("In-memory data snapshot stored");
+	}
+
+	private void saveObject(Kryo kryo, Output output, DistributedObject object)
+	{
+		if (object instanceof IMap)
+		{
+			IMap<?, ?> map = (IMap<?, ?>) object;
+			output.writeByte(MAP);
+			output.writeString(map.getName());
+			List<Map.Entry<?, ?>> entries = new ArrayList<>(map.entrySet());
+			output.writeInt(entries.size());
+			for (Map.Entry<?, ?> entry: entries)
+			{
+				kryo.writeClassAndObject(output, entry.getKey());
+				kryo.writeClassAndObject(output, entry.getValue());
+			}
+		} else if (object instanceof IQueue)
+		{
+			IQueue<?> queue = (IQueue<?>) object;
+			output.writeByte(QUEUE);
+			output.writeString(queue.getName());
+			List<?> elements = new ArrayList<>(queue);
+			output.writeInt(elements.size());
+			for (Object element: elements)
+				kryo.writeClassAndObject(output, element);
+		} else if (object instanceof IAtomicLong)
+		{
+			IAtomicLong atomicLong = (IAtomicLong) object;
+			output.writeByte(ATOMIC_LONG);
+			output.writeString(atomicLong.getName());
+			output.writeLong(atomicLong.get());
+		}
+	}
+
+	/**
+	 * Restores Hazelcast data from the snapshot, if it exists and the batches flushed to the database
+	 * after it was taken are known. The snapshot file is removed in any case.
+	 * Hazelcast data should be empty when this method is called.
+	 * @param flushedAfter provides batches flushed after the one with the given sequence number, 
+	 * or null if those can not be established.
+	 * @return null if the snapshot was not restored, in which case Hazelcast may contain a part
+	 * of data from the snapshot. Otherwise batches flushed after the snapshot was taken, which 
+	 * must be replayed on the restored data.
+	 */
+	List<RDBMSEventsBatch> restore(LongFunction<List<RDBMSEventsBatch>> flushedAfter)
+	{
+		if (!file.exists())
+			return null;
+		log.info("Loading in-memory data from snapshot {}", file);
+		Kryo kryo = kryoPool.borrow();
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(file.toPath()));
+				Input input = new Input(is))
+		{
+			int version = input.readInt();
+			if (version != FORMAT_VERSION)
+			{
+				log.info("Snapshot format version {} is not supported, ignoring it", version);
+				return null;
+			}
+			long lastFlushSequence = input.readLong();
+			List<RDBMSEventsBatch> pending = flushedAfter.apply(lastFlushSequence);
+			if (pending == null)
+			{
+				log.info("Persistent database was modified after the snapshot was taken "
+						+ "and the modifications can not be replayed, ignoring it");
+				return null;
+			}
+			byte type;
+			while ((type = input.readByte()) != END)
+				restoreObject(kryo, input, type);
+			log.info("In-memory data loaded from snapshot");
+			return pending;
+		} catch (Exception e)
+		{
+			log.warn("Can not load in-memory data from snapshot " + file + ", ignoring it", e);
+			return null;
+		} finally
+		{
+			kryoPool.release(kryo);
+			delete();
+		}
+	}
+
+	private void restoreObject(Kryo kryo, Input input, byte type)
+	{
+		String name = input.readString();
+		switch (type)
+		{
+		case MAP:
+			IMap<Object, Object> map = hzInstance.getMap(name);
+			int entries = input.readInt();
+			Map<Object, Object> batch = new HashMap<>();
+			for (int i = 0; i < entries; i++)
+			{
+				Object key = kryo.readClassAndObject(input);
+				batch.put(key, kryo.readClassAndObject(input));
+				if (batch.size() == RESTORE_BATCH)
+				{
+					map.putAll(batch);
+					batch.clear();
+				}
+			}
+			map.putAll(batch);
+			break;
+		case QUEUE:
+			IQueue<Object> queue = hzInstance.getQueue(name);
+			int elements = input.readInt();
+			for (int i = 0; i < elements; i++)
+				queue.add(kryo.readClassAndObject(input));
+			log.info("Restored {} elements of queue {}", elements, name);
+			break;
+		case ATOMIC_LONG:
+			hzInstance.getAtomicLong(name).set(input.readLong());
+			break;
+		default:
+			throw new IllegalStateException("Snapshot is corrupted, unknown object type " + type);
+		}
+	}
+
+	private void delete()
+	{
+		try
+		{
+			Files.deleteIfExists(file.toPath());
+		} catch (IOException e)
+		{
+			log.warn("Can not remove used snapshot file " + file
+					+ ", it must be removed manually before the next start", e);
+		}
+	}
+}
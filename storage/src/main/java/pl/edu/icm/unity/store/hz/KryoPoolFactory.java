@@ -4,6 +4,8 @@
  */
 package pl.edu.icm.unity.store.hz;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -11,8 +13,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import pl.edu.icm.unity.store.hz.rdbmsflush.CreateWithIdMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.DeleteByKeyMutation;
 import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.hz.rdbmsflush.UpdateByKeyMutation;
+import pl.edu.icm.unity.store.impl.attribute.AttributeDeleteMutation;
+import pl.edu.icm.unity.store.impl.attribute.AttributeUpdateMutation;
+import pl.edu.icm.unity.store.impl.attribute.AttributesInGroupDeleteMutation;
+import pl.edu.icm.unity.store.impl.events.EventExecutionUpdateMutation;
+import pl.edu.icm.unity.store.impl.membership.MembershipCreateMutation;
+import pl.edu.icm.unity.store.impl.membership.MembershipDeleteMutation;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.pool.KryoFactory;
@@ -20,6 +30,8 @@ import com.esotericsoftware.kryo.pool.KryoPool;
 
 /**
  * Creates {@link Kryo} engine, configured with all required type serializers.
+ * All RDBMS mutation types are registered, so that queued mutations are encoded 
+ * with a compact registration id instead of a class name.
  * @author K. Benedyczak
  */
 @Configuration
@@ -34,7 +46,17 @@ public class KryoPoolFactory
 		for (JsonSerializerForKryo<?> ser: jsonSerializers)
 			kryo.register(ser.getClazz(), new KryoJsonSerializer<>(ser));
 		kryo.register(RDBMSEventsBatch.class);
-		kryo.register(RDBMSMutationEvent.class);
+		kryo.register(ArrayList.class);
+		kryo.register(Date.class);
+		kryo.register(CreateWithIdMutation.class);
+		kryo.register(UpdateByKeyMutation.class);
+		kryo.register(DeleteByKeyMutation.class);
+		kryo.register(AttributeUpdateMutation.class);
+		kryo.register(AttributeDeleteMutation.class);
+		kryo.register(AttributesInGroupDeleteMutation.class);
+		kryo.register(MembershipCreateMutation.class);
+		kryo.register(MembershipDeleteMutation.class);
+		kryo.register(EventExecutionUpdateMutation.class);
 		kryo.register(Map.class);
 		return kryo;
 	}
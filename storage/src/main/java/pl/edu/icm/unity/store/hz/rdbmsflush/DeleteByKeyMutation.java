@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz.rdbmsflush;
+
+import pl.edu.icm.unity.store.api.BasicCRUDDAO;
+
+/**
+ * {@link BasicCRUDDAO#deleteByKey(long)} mutation.
+ */
+public class DeleteByKeyMutation extends RDBMSMutationEvent
+{
+	private long key;
+
+	protected DeleteByKeyMutation() {}
+
+	public DeleteByKeyMutation(String dao, Long entityId, long key)
+	{
+		super(dao, entityId);
+		this.key = key;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((BasicCRUDDAO<?>) dao).deleteByKey(key);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "key=" + key;
+	}
+}
@@ -4,8 +4,16 @@
  */
 package pl.edu.icm.unity.store.hz.rdbmsflush;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -19,7 +27,9 @@ import com.hazelcast.core.HazelcastException;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
 import com.hazelcast.core.ILock;
+import com.hazelcast.core.IMap;
 import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.core.TransactionalMap;
 import com.hazelcast.core.TransactionalQueue;
 import com.hazelcast.transaction.TransactionContext;
 
@@ -27,14 +37,26 @@ import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.store.StorageConfiguration;
 import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.hz.HzConfiguration;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionalRunner;
+import pl.edu.icm.unity.store.rdbms.tx.SQLBatchTransactionalRunner;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
 
 /**
  * Background thread flushing RBMS mutation events from the global queue to RDBMS.
  * Only one such thread is really working in a cluster so we have linear ordering of RDBMS transactions.
+ * <p>
+ * Optionally several queued batches can be coalesced and written in a single RDBMS transaction, using 
+ * batch executor. Also batches can be written in parallel by a pool of worker threads: only batches 
+ * which modify data of a single entity are parallelized, and all batches of a given entity are
+ * always written by the same worker, in the original order. Other batches are written sequentially, 
+ * after all preceding batches are written. Every batch is removed from the queue (or the in-progress map)
+ * only together with or after the commit of its RDBMS transaction, so no committed batch is written again 
+ * after a failure of another one. Additionally each batch is recorded in the {@link RDBMSFlushLog} in its
+ * RDBMS transaction, so a batch which was committed, but was not removed from the queue or the 
+ * in-progress map due to a crash, is skipped when replayed.
  * 
  * @author K. Benedyczak
  */
@@ -45,13 +67,20 @@ public class RDBMSEventSink
 	
 	public static final String RDBMS_EVENTS_CONSUMER_LOCK = "rdbmsEventsConsumerLock";
 	public static final String RDBMS_EVENTS_QUEUE = "rdbmsEventsQueue";
+	public static final String RDBMS_EVENTS_IN_PROGRESS = "rdbmsEventsInProgress";
 	public static final String INNER_WAIT_LOCK = "rdbmsEventsConsumerInnerLock";
 	public static final String INNER_WAIT_CONDITION = "rdbmsEventsConsumerInnerCondition";
 
 	private HazelcastInstance hzInstance;
 	private TransactionalRunner hztx;
 	private TransactionalRunner rdbmsTx;
+	private SQLBatchTransactionalRunner rdbmsBatchTx;
 	private RDBMSMutationEventProcessor rdbmsProcessor;
+	private RDBMSFlushLog flushLog;
+	private int maxBatchesPerTransaction = 1;
+	private int flushThreads = 1;
+	private ExecutorService flushWorkers;
+	private final RDBMSFlushStatistics statistics = new RDBMSFlushStatistics();
 
 	private volatile AtomicBoolean stopped = new AtomicBoolean(false);
 	private volatile CountDownLatch latch = new CountDownLatch(0);
@@ -63,15 +92,22 @@ public class RDBMSEventSink
 	public RDBMSEventSink(StorageConfiguration systemCfg, HazelcastInstance hzInstance,
 			@Qualifier(HzTransactionalRunner.NAME) TransactionalRunner hztx, 
 			@Qualifier(SQLTransactionalRunner.NAME) TransactionalRunner rdbmsTx,
-			RDBMSMutationEventProcessor rdbmsProcessor)
+			SQLBatchTransactionalRunner rdbmsBatchTx,
+			RDBMSMutationEventProcessor rdbmsProcessor,
+			RDBMSFlushLog flushLog)
 	{
 		this.hzInstance = hzInstance;
 		this.hztx = hztx;
 		this.rdbmsTx = rdbmsTx;
+		this.rdbmsBatchTx = rdbmsBatchTx;
 		this.rdbmsProcessor = rdbmsProcessor;
+		this.flushLog = flushLog;
 		if (systemCfg.getEnumValue(StorageConfiguration.ENGINE, StorageEngine.class) == 
 				StorageEngine.hz)
 		{
+			HzConfiguration hzConfig = systemCfg.getEngineConfig();
+			maxBatchesPerTransaction = hzConfig.getIntValue(HzConfiguration.FLUSH_MAX_BATCHES);
+			flushThreads = hzConfig.getIntValue(HzConfiguration.FLUSH_THREADS);
 			hzInstance.getLifecycleService().addLifecycleListener(this::onShutdown);
 			Runtime.getRuntime().addShutdownHook(new Thread(() -> stop()));
 			flushThread = new Thread();
@@ -87,10 +123,18 @@ public class RDBMSEventSink
 		stopped.set(false);
 		working.set(true);
 		latch = new CountDownLatch(1);
+		if (flushThreads > 1)
+			flushWorkers = Executors.newFixedThreadPool(flushThreads, 
+					r -> new Thread(r, "Hazelcast to RDBMS flush worker"));
 		flushThread = new Thread(() -> awaitAndConsume(), "Hazelcast to RDBMS flush");
 		flushThread.start();
 	}
 	
+	public RDBMSFlushStatistics getStatistics()
+	{
+		return statistics;
+	}
+	
 	private void onShutdown(LifecycleEvent event)
 	{
 		if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN)
@@ -128,11 +172,13 @@ public class RDBMSEventSink
 		log.info("This member was chosen as the RDBMS flush process");
 		try
 		{
+			rdbmsTx.runInTransaction(() -> flushLog.init());
 			boolean hasMore;
 			do
 			{
 				hasMore = processEvents();
 			} while(!stopped.get() || hasMore);
+			processInProgress();
 		} catch (Exception e)
 		{
 			log.error("Exception when processing events", e);
@@ -140,6 +186,11 @@ public class RDBMSEventSink
 		} finally
 		{
 			log.debug("Flush thread is being stopped");
+			if (flushWorkers != null)
+			{
+				flushWorkers.shutdown();
+				flushWorkers = null;
+			}
 			working.set(false);
 			latch.countDown();
 			try
@@ -158,10 +209,16 @@ public class RDBMSEventSink
 	 * Executed only by a single thread in the cluster. Waits for notification on non empty queue 
 	 * (it has also safety measure to recheck the queue from time to time manually) and if some workload is found
 	 * proceeds with operation.
+	 * <p>
+	 * Each Hazelcast transaction takes off the queue only as much batches as is written in a single 
+	 * RDBMS transaction. The only exception are batches written in parallel: those are moved from the queue 
+	 * to the in-progress map, and each worker removes its batches from that map after each RDBMS commit.
+	 * Batches left in the map after a failure are written before any other queued batch.
 	 * @return true if there are more batches in the queue
 	 */
 	private boolean processEvents()
 	{
+		processInProgress();
 		return hztx.runInTransactionRet(() -> {
 			TransactionContext hzContext = HzTransactionTL.getHzContext();
 			TransactionalQueue<RDBMSEventsBatch> queue = hzContext.getQueue(RDBMS_EVENTS_QUEUE);
@@ -182,20 +239,148 @@ public class RDBMSEventSink
 					return false;
 				}
 			} while (batch == null && !stopped.get());
-			if (batch != null)
-				processSingleBatch(batch);
-			return queue.size() > 0;
+			if (batch == null)
+			{
+				statistics.recordQueueDepth(queue.size());
+				return queue.size() > 0;
+			}
+			boolean parallel = flushWorkers != null && batch.getEntityPartition() != null;
+			List<RDBMSEventsBatch> batches = pollSegment(queue, batch, parallel);
+			int transactions;
+			if (parallel)
+			{
+				transactions = scheduleInParallel(hzContext, batches);
+			} else
+			{
+				processInTransaction(batches);
+				transactions = 1;
+			}
+			int remaining = queue.size();
+			statistics.recordFlush(batches, transactions, remaining);
+			return remaining > 0;
 		});
 	}
 
-	private void processSingleBatch(RDBMSEventsBatch batch)
+	/**
+	 * Polls subsequent batches which are either all entity-scoped (if written in parallel) or not. 
+	 */
+	private List<RDBMSEventsBatch> pollSegment(TransactionalQueue<RDBMSEventsBatch> queue, 
+			RDBMSEventsBatch first, boolean parallel)
+	{
+		List<RDBMSEventsBatch> batches = new ArrayList<>();
+		batches.add(first);
+		int limit = parallel ? maxBatchesPerTransaction * flushThreads : maxBatchesPerTransaction;
+		while (batches.size() < limit)
+		{
+			RDBMSEventsBatch next = queue.peek();
+			if (next == null || (flushWorkers != null && (next.getEntityPartition() != null) != parallel))
+				break;
+			batches.add(queue.poll());
+		}
+		return batches;
+	}
+	
+	/**
+	 * Moves batches to the in-progress map, assigning them to workers by entity.
+	 * @return number of workers to be used
+	 */
+	private int scheduleInParallel(TransactionContext hzContext, List<RDBMSEventsBatch> batches)
+	{
+		Map<Integer, ArrayList<RDBMSEventsBatch>> byWorker = new LinkedHashMap<>();
+		for (RDBMSEventsBatch batch: batches)
+		{
+			int worker = (int) Math.floorMod(batch.getEntityPartition(), (long) flushThreads);
+			byWorker.computeIfAbsent(worker, key -> new ArrayList<>()).add(batch);
+		}
+		TransactionalMap<Integer, ArrayList<RDBMSEventsBatch>> inProgress = 
+				hzContext.getMap(RDBMS_EVENTS_IN_PROGRESS);
+		for (Map.Entry<Integer, ArrayList<RDBMSEventsBatch>> entry: byWorker.entrySet())
+			inProgress.put(entry.getKey(), entry.getValue());
+		return byWorker.size();
+	}
+	
+	/**
+	 * Writes all batches from the in-progress map, in parallel. Returns only after all workers finished.
+	 */
+	private void processInProgress()
+	{
+		IMap<Integer, ArrayList<RDBMSEventsBatch>> inProgress = hzInstance.getMap(RDBMS_EVENTS_IN_PROGRESS);
+		if (inProgress.isEmpty())
+			return;
+		List<Future<?>> results = new ArrayList<>();
+		for (Integer worker: inProgress.keySet())
+		{
+			if (flushWorkers == null)
+				processWorkerBatches(inProgress, worker);
+			else
+				results.add(flushWorkers.submit(() -> processWorkerBatches(inProgress, worker)));
+		}
+		awaitWorkers(results);
+	}
+
+	private void processWorkerBatches(IMap<Integer, ArrayList<RDBMSEventsBatch>> inProgress, Integer worker)
+	{
+		ArrayList<RDBMSEventsBatch> batches = inProgress.get(worker);
+		while (batches != null && !batches.isEmpty())
+		{
+			int chunk = Math.min(batches.size(), maxBatchesPerTransaction);
+			processInTransaction(batches.subList(0, chunk));
+			batches = new ArrayList<>(batches.subList(chunk, batches.size()));
+			if (batches.isEmpty())
+				inProgress.remove(worker);
+			else
+				inProgress.put(worker, batches);
+		}
+	}
+
+	/**
+	 * Waits for all workers, even if some of them failed, so that no write is in progress 
+	 * when the flush is continued or stopped.
+	 */
+	private void awaitWorkers(List<Future<?>> results)
+	{
+		RuntimeException firstError = null;
+		for (Future<?> result: results)
+		{
+			while (true)
+			{
+				try
+				{
+					result.get();
+					break;
+				} catch (InterruptedException e)
+				{
+					log.debug("Interrupted while waiting for flush workers, continuing to wait");
+				} catch (ExecutionException e)
+				{
+					if (firstError == null)
+						firstError = e.getCause() instanceof RuntimeException ? 
+								(RuntimeException) e.getCause() : 
+								new PersistenceException("RDBMS flush failed", e.getCause());
+					break;
+				}
+			}
+		}
+		if (firstError != null)
+			throw firstError;
+	}
+	
+	private void processInTransaction(List<RDBMSEventsBatch> batches)
+	{
+		log.trace("Got {} RDBMS events batches for processing", batches.size());
+		if (maxBatchesPerTransaction > 1)
+			rdbmsBatchTx.runInTransaction(() -> applyBatches(batches));
+		else
+			rdbmsTx.runInTransaction(() -> applyBatches(batches));
+		log.trace("RDBMS events batches were flushed");
+	}
+
+	private void applyBatches(List<RDBMSEventsBatch> batches)
 	{
-		log.trace("Got RDBMS events batch for processing, size: {}", batch.getEvents().size());
-		rdbmsTx.runInTransaction(() -> {
+		List<RDBMSEventsBatch> notFlushed = flushLog.skipFlushed(batches);
+		for (RDBMSEventsBatch batch: notFlushed)
 			for (RDBMSMutationEvent event : batch.getEvents())
 				rdbmsProcessor.apply(event, SQLTransactionTL.getSql());
-		});
-		log.trace("RDBMS events batch was flushed");
+		flushLog.record(notFlushed);
 	}
 }
-
@@ -4,16 +4,21 @@
  */
 package pl.edu.icm.unity.store.hz.rdbmsflush;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Ordered list of {@link RDBMSMutationEvent}s to be applied in a single transaction.
- * 
+ *
  * @author K. Benedyczak
  */
 public class RDBMSEventsBatch
 {
+	private String id;
 	private List<RDBMSMutationEvent> events;
+	private long created;
+	private boolean barrier;
 
 	protected RDBMSEventsBatch()
 	{
@@ -21,11 +26,65 @@ public class RDBMSEventsBatch
 	
 	public RDBMSEventsBatch(List<RDBMSMutationEvent> events)
 	{
+		this.id = UUID.randomUUID().toString();
 		this.events = events;
+		this.created = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return batch without events, marking a modification of RDBMS which was done directly, not via 
+	 * Hazelcast. Such a modification can not be replayed from the {@link RDBMSFlushLog}.
+	 */
+	public static RDBMSEventsBatch barrier()
+	{
+		RDBMSEventsBatch barrier = new RDBMSEventsBatch(new ArrayList<>());
+		barrier.barrier = true;
+		return barrier;
+	}
+
+	/**
+	 * @return globally unique id of the batch, used to recognize batches which were already flushed
+	 */
+	public String getId()
+	{
+		return id;
 	}
 
 	public List<RDBMSMutationEvent> getEvents()
 	{
 		return events;
 	}
+
+	/**
+	 * @return time when the batch was created, i.e. when the originating Hazelcast transaction was committed
+	 */
+	public long getCreated()
+	{
+		return created;
+	}
+
+	public boolean isBarrier()
+	{
+		return barrier;
+	}
+
+	/**
+	 * @return id of the entity if all the events of this batch are modifying data of this single entity.
+	 * Otherwise null is returned, what means that the batch can not be reordered with any other batch.
+	 */
+	public Long getEntityPartition()
+	{
+		Long ret = null;
+		for (RDBMSMutationEvent event: events)
+		{
+			Long entityId = event.getEntityId();
+			if (entityId == null)
+				return null;
+			if (ret == null)
+				ret = entityId;
+			else if (!ret.equals(entityId))
+				return null;
+		}
+		return ret;
+	}
 }
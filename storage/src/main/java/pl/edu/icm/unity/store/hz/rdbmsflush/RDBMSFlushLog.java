@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz.rdbmsflush;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.StorageConfiguration;
+import pl.edu.icm.unity.store.StorageEngine;
+import pl.edu.icm.unity.store.hz.HzConfiguration;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+
+/**
+ * Journal of {@link RDBMSEventsBatch}es written to RDBMS. Each batch is recorded with a subsequent
+ * sequence number in the same RDBMS transaction in which its events are applied. Therefore a batch
+ * which was committed, but was not removed from Hazelcast before a failure, is recognized and skipped
+ * when it is flushed again. Only the most recent entries are retained.
+ * <p>
+ * If the in-memory data snapshot is enabled, then batches are recorded together with their contents.
+ * The last sequence number is stored in the snapshot, and the batches flushed after the snapshot was
+ * taken are replayed after it is restored.
+ * <p>
+ * All methods must be invoked in a RDBMS transaction.
+ */
+@Component
+public class RDBMSFlushLog
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, RDBMSFlushLog.class);
+	static final long RETAINED_ENTRIES = 10000;
+	private static final long PRUNE_INTERVAL = 1000;
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final KryoPool kryoPool;
+	private final boolean recordContents;
+
+	@Autowired
+	public RDBMSFlushLog(StorageConfiguration systemCfg, KryoPool kryoPool)
+	{
+		this.kryoPool = kryoPool;
+		this.recordContents = systemCfg.getEngine() == StorageEngine.hz &&
+				((HzConfiguration) systemCfg.getEngineConfig()).isSet(HzConfiguration.SNAPSHOT_FILE);
+	}
+
+	/**
+	 * Creates the journal if needed and continues the numbering of its entries.
+	 * Must be called by the flushing member after obtaining the flush lock, before recording batches.
+	 */
+	public void init()
+	{
+		createIfMissing();
+		sequence.set(getLastSequence());
+		log.debug("RDBMS flush log initialized, last sequence number is {}", sequence.get());
+	}
+
+	public void createIfMissing()
+	{
+		SQLTransactionTL.getSql().update("createFlushLog");
+	}
+
+	/**
+	 * @return sequence number of the most recently flushed batch or 0 if the journal is empty
+	 */
+	public long getLastSequence()
+	{
+		Long last = SQLTransactionTL.getSql().selectOne("getLastFlushSequence");
+		return last == null ? 0 : last;
+	}
+
+	/**
+	 * @return the given batches without those which were already flushed
+	 */
+	public List<RDBMSEventsBatch> skipFlushed(List<RDBMSEventsBatch> batches)
+	{
+		if (batches.isEmpty())
+			return batches;
+		List<String> ids = batches.stream()
+				.map(RDBMSEventsBatch::getId)
+				.collect(Collectors.toList());
+		List<String> flushedList = SQLTransactionTL.getSql().selectList("getFlushedBatchIds", ids);
+		if (flushedList.isEmpty())
+			return batches;
+		Set<String> flushed = new HashSet<>(flushedList);
+		List<RDBMSEventsBatch> ret = new ArrayList<>();
+		for (RDBMSEventsBatch batch: batches)
+			if (flushed.contains(batch.getId()))
+				log.info("RDBMS events batch {} was already flushed, skipping it", batch.getId());
+			else
+				ret.add(batch);
+		return ret;
+	}
+
+	/**
+	 * Records the given batches as flushed.
+	 */
+	public void record(List<RDBMSEventsBatch> batches)
+	{
+		SqlSession sql = SQLTransactionTL.getSql();
+		for (RDBMSEventsBatch batch: batches)
+		{
+			long seq = sequence.incrementAndGet();
+			byte[] contents = recordContents && !batch.isBarrier() ? serialize(batch) : null;
+			sql.insert("insertFlushLogEntry", new RDBMSFlushLogEntry(seq, batch.getId(), contents));
+			if (seq % PRUNE_INTERVAL == 0)
+				sql.delete("pruneFlushLog", seq - RETAINED_ENTRIES);
+		}
+	}
+
+	/**
+	 * @return batches flushed after the one with the given sequence number, in the flush order.
+	 * Null is returned if the batches can not be replayed: the journal was reset or pruned in the meantime,
+	 * some of the batches were recorded without contents or RDBMS was modified directly.
+	 */
+	public List<RDBMSEventsBatch> getFlushedAfter(long lastKnownSequence)
+	{
+		if (getLastSequence() < lastKnownSequence)
+			return null;
+		List<RDBMSFlushLogEntry> entries = SQLTransactionTL.getSql().selectList(
+				"getFlushLogEntriesAfter", lastKnownSequence);
+		List<RDBMSEventsBatch> ret = new ArrayList<>(entries.size());
+		long expected = lastKnownSequence + 1;
+		for (RDBMSFlushLogEntry entry: entries)
+		{
+			if (entry.getSequence() != expected++ || entry.getContents() == null)
+				return null;
+			ret.add(deserialize(entry.getContents()));
+		}
+		return ret;
+	}
+
+	private byte[] serialize(RDBMSEventsBatch batch)
+	{
+		Kryo kryo = kryoPool.borrow();
+		try (Output output = new Output(4096, -1))
+		{
+			kryo.writeObject(output, batch);
+			return output.toBytes();
+		} finally
+		{
+			kryoPool.release(kryo);
+		}
+	}
+
+	private RDBMSEventsBatch deserialize(byte[] contents)
+	{
+		Kryo kryo = kryoPool.borrow();
+		try (Input input = new Input(contents))
+		{
+			return kryo.readObject(input, RDBMSEventsBatch.class);
+		} finally
+		{
+			kryoPool.release(kryo);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz.rdbmsflush;
+
+/**
+ * Row of the {@link RDBMSFlushLog}.
+ */
+public class RDBMSFlushLogEntry
+{
+	private long sequence;
+	private String batchId;
+	private byte[] contents;
+
+	public RDBMSFlushLogEntry()
+	{
+	}
+
+	public RDBMSFlushLogEntry(long sequence, String batchId, byte[] contents)
+	{
+		this.sequence = sequence;
+		this.batchId = batchId;
+		this.contents = contents;
+	}
+
+	public long getSequence()
+	{
+		return sequence;
+	}
+
+	public void setSequence(long sequence)
+	{
+		this.sequence = sequence;
+	}
+
+	public String getBatchId()
+	{
+		return batchId;
+	}
+
+	public void setBatchId(String batchId)
+	{
+		this.batchId = batchId;
+	}
+
+	/**
+	 * @return serialized batch or null if the batch was not recorded with its contents
+	 */
+	public byte[] getContents()
+	{
+		return contents;
+	}
+
+	public void setContents(byte[] contents)
+	{
+		this.contents = contents;
+	}
+}
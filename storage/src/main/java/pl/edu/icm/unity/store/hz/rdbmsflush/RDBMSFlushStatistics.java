@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz.rdbmsflush;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the Hazelcast to RDBMS flush process. Values are only updated on the cluster member
+ * which is currently flushing.
+ */
+public class RDBMSFlushStatistics
+{
+	private final AtomicLong flushedBatches = new AtomicLong();
+	private final AtomicLong flushedTransactions = new AtomicLong();
+	private final AtomicLong maxFlushLag = new AtomicLong();
+	private volatile long lastFlushLag;
+	private volatile int queueDepth;
+
+	void recordFlush(List<RDBMSEventsBatch> batches, int sqlTransactions, int remainingInQueue)
+	{
+		long now = System.currentTimeMillis();
+		long lag = now - batches.get(0).getCreated();
+		lastFlushLag = lag;
+		maxFlushLag.accumulateAndGet(lag, Math::max);
+		flushedBatches.addAndGet(batches.size());
+		flushedTransactions.addAndGet(sqlTransactions);
+		queueDepth = remainingInQueue;
+	}
+
+	void recordQueueDepth(int queueDepth)
+	{
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * @return number of batches (i.e. Hazelcast transactions) waiting in the queue, as seen after the
+	 * last flush
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth;
+	}
+
+	/**
+	 * @return time in ms between commit of the oldest Hazelcast transaction of the last flush
+	 * and its write to RDBMS
+	 */
+	public long getLastFlushLag()
+	{
+		return lastFlushLag;
+	}
+
+	public long getMaxFlushLag()
+	{
+		return maxFlushLag.get();
+	}
+
+	public long getFlushedBatches()
+	{
+		return flushedBatches.get();
+	}
+
+	public long getFlushedTransactions()
+	{
+		return flushedTransactions.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RDBMSFlushStatistics [queueDepth=" + queueDepth + ", lastFlushLag=" + lastFlushLag
+				+ ", maxFlushLag=" + maxFlushLag + ", flushedBatches=" + flushedBatches
+				+ ", flushedTransactions=" + flushedTransactions + "]";
+	}
+}
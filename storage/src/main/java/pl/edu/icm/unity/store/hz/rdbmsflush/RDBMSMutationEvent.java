@@ -4,30 +4,37 @@
  */
 package pl.edu.icm.unity.store.hz.rdbmsflush;
 
-import java.util.Arrays;
-
 /**
- * Describes RDBMS mutation.
+ * Describes RDBMS mutation. Each DAO operation has its own subclass, which invokes the operation
+ * directly on the counterpart RDBMS DAO.
  * @author K. Benedyczak
  */
-public class RDBMSMutationEvent
+public abstract class RDBMSMutationEvent
 {
-	private String operation;
 	private String dao;
-	private Object[] args;
+	private Long entityId;
 
 	protected RDBMSMutationEvent() {}
-	
-	public RDBMSMutationEvent(String dao, String operation, Object... args)
+
+	/**
+	 * @param entityId id of the only entity whose data is modified by this event or null if the event
+	 * is not entity scoped. Events of different entities can be flushed in parallel.
+	 */
+	protected RDBMSMutationEvent(String dao, Long entityId)
 	{
-		this.operation = operation;
 		this.dao = dao;
-		this.args = args;
+		this.entityId = entityId;
 	}
 
+	/**
+	 * Applies the mutation using the given DAO, which is always the DAO with name returned by {@link #getDao()}
+	 * or the Hazelcast store backed by it, when an already flushed mutation is replayed in Hazelcast.
+	 */
+	public abstract void apply(Object dao);
+
 	public String getOperation()
 	{
-		return operation;
+		return getClass().getSimpleName();
 	}
 
 	public String getDao()
@@ -35,15 +42,24 @@ public class RDBMSMutationEvent
 		return dao;
 	}
 
-	public Object[] getArgs()
+	/**
+	 * @return id of the only entity whose data is modified by this event or null if the event
+	 * is not entity scoped.
+	 */
+	public Long getEntityId()
 	{
-		return args;
+		return entityId;
 	}
 
+	/**
+	 * @return arguments of the operation, used for logging
+	 */
+	protected abstract String getArgumentsDescription();
+	
 	@Override
 	public String toString()
 	{
-		return "RDMSMutationEvent [operation=" + operation + ", dao=" + dao + ", args=" + 
-				Arrays.toString(args) + "]";
+		return getOperation() + " [dao=" + dao + ", entityId=" + entityId + ", " 
+				+ getArgumentsDescription() + "]";
 	}
 }
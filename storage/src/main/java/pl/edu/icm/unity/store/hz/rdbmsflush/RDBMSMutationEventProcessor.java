@@ -4,7 +4,6 @@
  */
 package pl.edu.icm.unity.store.hz.rdbmsflush;
 
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,7 +17,8 @@ import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.store.rdbms.RDBMSDAO;
 
 /**
- * Applies RDBMS mutation described by {@link RDBMSMutationEvent}
+ * Applies RDBMS mutation described by {@link RDBMSMutationEvent}. The mutation is invoked directly
+ * on the DAO, which is resolved from its name.
  * @author K. Benedyczak
  */
 @Component
@@ -26,57 +26,31 @@ public class RDBMSMutationEventProcessor
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_DB,
 			RDBMSMutationEventProcessor.class);
-	
-	private Map<String, Map<String, Method>> daoMethods;
+
 	private Map<String, RDBMSDAO> daos;
-	
+
 	@Autowired
 	public RDBMSMutationEventProcessor(Map<String, RDBMSDAO> daos)
 	{
-		daoMethods = new HashMap<>();
-		for (Map.Entry<String, RDBMSDAO> entry: daos.entrySet())
-		{
-			Map<String, Method> methods = new HashMap<>();
-			daoMethods.put(entry.getKey(), methods);
-			
-			Class<? extends RDBMSDAO> clazz = entry.getValue().getClass();
-			Method[] methodsA = clazz.getMethods();
-			for (Method m: methodsA)
-			{
-				if (m.getDeclaringClass().equals(Object.class) || m.isSynthetic())
-					continue;
-				
-				if (methods.put(m.getName(), m) != null)
-					throw new IllegalStateException("RDBMSDAO " + entry.getKey() + 
-							" has methods with ambigous names: " + m.getName() + 
-							", this is not supported.");
-			}
-		}
-		this.daos = daos;
+		this.daos = new HashMap<>(daos);
 	}
-	
+
 	public void apply(RDBMSMutationEvent event, SqlSession sql)
 	{
-		Map<String, Method> daoM = daoMethods.get(event.getDao());
-		if (daoM == null)
+		RDBMSDAO dao = daos.get(event.getDao());
+		if (dao == null)
 			throw new IllegalStateException("Unknown DAO, this is fatal error: " + event.getDao());
-		
+		if (log.isTraceEnabled())
+			log.trace("Will apply event {}", event);
 		try
 		{
-			invokeOnDAO(daoM, event, sql);
+			event.apply(dao);
+		} catch (PersistenceException e)
+		{
+			throw e;
 		} catch (Exception e)
 		{
 			throw new PersistenceException(e);
 		}
 	}
-	
-	private void invokeOnDAO(Map<String, Method> daoM, RDBMSMutationEvent event, SqlSession sql) 
-			throws Exception
-	{
-		Method method = daoM.get(event.getOperation());
-		RDBMSDAO dao = daos.get(event.getDao());
-		if (log.isTraceEnabled())
-			log.trace("Will apply event {} with method {}", event, method);
-		method.invoke(dao, event.getArgs());
-	}
 }
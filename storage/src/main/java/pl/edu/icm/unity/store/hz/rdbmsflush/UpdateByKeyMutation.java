@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz.rdbmsflush;
+
+import pl.edu.icm.unity.store.api.BasicCRUDDAO;
+
+/**
+ * {@link BasicCRUDDAO#updateByKey(long, Object)} mutation.
+ */
+public class UpdateByKeyMutation<T> extends RDBMSMutationEvent
+{
+	private long key;
+	private T object;
+
+	protected UpdateByKeyMutation() {}
+
+	public UpdateByKeyMutation(String dao, Long entityId, long key, T object)
+	{
+		super(dao, entityId);
+		this.key = key;
+		this.object = object;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void apply(Object dao)
+	{
+		((BasicCRUDDAO<T>) dao).updateByKey(key, object);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "key=" + key + ", object=" + object;
+	}
+}
@@ -41,7 +41,8 @@ public class HzTransactionEngine implements TransactionEngine
 	private HazelcastInstance hazelcastInstance;
 
 	@Override
-	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit) throws Throwable 
+	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit, 
+			boolean readOnly) throws Throwable 
 	{
 		int retry = 0;
 		do
@@ -20,6 +20,7 @@ public class HzTransactionState implements TransactionState
 	private List<Runnable> actions = new ArrayList<>();
 	private Runnable transactionCommiter;
 	private Runnable resetHandler;
+	private boolean replay;
 	
 	public HzTransactionState(TransactionContext context, Runnable transactionCommiter, Runnable resetHandler)
 	{
@@ -34,11 +35,22 @@ public class HzTransactionState implements TransactionState
 		this.rdbmsQueue = parent.rdbmsQueue;
 		this.transactionCommiter = parent.transactionCommiter;
 		this.resetHandler = parent.resetHandler;
+		this.replay = parent.replay;
 	}
 	
 	public void enqueueEvent(RDBMSMutationEvent event)
 	{
-		rdbmsQueue.add(event);
+		if (!replay)
+			rdbmsQueue.add(event);
+	}
+	
+	/**
+	 * Marks the transaction as a replay of mutations which are already stored in RDBMS: 
+	 * RDBMS mutations of the transaction are not recorded anymore.
+	 */
+	public void setReplay()
+	{
+		this.replay = true;
 	}
 	
 	public RDBMSEventsBatch getBatch()
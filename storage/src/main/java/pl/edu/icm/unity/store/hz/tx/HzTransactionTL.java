@@ -32,6 +32,15 @@ public class HzTransactionTL
 		transactionState.get().getCurrent().enqueueEvent(event);
 	}
 
+	/**
+	 * Marks the current transaction as a replay of mutations which are already stored in RDBMS. 
+	 * RDBMS mutations of such transaction are not queued for writing.
+	 */
+	public static void setReplay()
+	{
+		transactionState.get().getCurrent().setReplay();
+	}
+
 	public static RDBMSEventsBatch getCurrentRDBMSBatch()
 	{
 		return transactionState.get().getCurrent().getBatch();
@@ -61,4 +61,11 @@ public class HzTransactionalRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+	
+	@TransactionalExt(storageEngine=StorageEngine.hz, readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return code.run();
+	}
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.attribute;
+
+import pl.edu.icm.unity.store.api.AttributeDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+
+/**
+ * {@link AttributeDAO#deleteAttribute(String, long, String)} mutation.
+ */
+public class AttributeDeleteMutation extends RDBMSMutationEvent
+{
+	private String attribute;
+	private long entityId;
+	private String group;
+
+	protected AttributeDeleteMutation() {}
+
+	public AttributeDeleteMutation(String dao, String attribute, long entityId, String group)
+	{
+		super(dao, entityId);
+		this.attribute = attribute;
+		this.entityId = entityId;
+		this.group = group;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((AttributeDAO) dao).deleteAttribute(attribute, entityId, group);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "attribute=" + attribute + ", group=" + group;
+	}
+}
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +21,6 @@ import com.hazelcast.query.PredicateBuilder;
 import pl.edu.icm.unity.store.ReferenceUpdateHandler.PlannedUpdateEvent;
 import pl.edu.icm.unity.store.api.AttributeDAO;
 import pl.edu.icm.unity.store.hz.GenericBasicHzCRUD;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.store.impl.attributetype.AttributeTypeHzStore;
 import pl.edu.icm.unity.store.impl.entities.EntityHzStore;
@@ -114,12 +114,17 @@ public class AttributeHzStore extends GenericBasicHzCRUD<StoredAttribute> implem
 		}
 	}
 	
+	@Override
+	protected Long getOwningEntity(StoredAttribute obj)
+	{
+		return obj.getEntityId();
+	}
+	
 	@Override
 	public void updateAttribute(StoredAttribute a)
 	{
 		updateAttributeHZOnly(a);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"updateAttribute", a));
+		HzTransactionTL.enqueueRDBMSMutation(new AttributeUpdateMutation(rdbmsCounterpartDaoName, a));
 	}
 
 	private void updateAttributeHZOnly(StoredAttribute a)
@@ -144,8 +149,8 @@ public class AttributeHzStore extends GenericBasicHzCRUD<StoredAttribute> implem
 	{
 		PredicateBuilder pBuilder = getAttributePredicate(attribute, entityId, group);
 		genericDelete(pBuilder);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"deleteAttribute", attribute, entityId, group));
+		HzTransactionTL.enqueueRDBMSMutation(new AttributeDeleteMutation(rdbmsCounterpartDaoName, 
+				attribute, entityId, group));
 	}
 
 	@Override
@@ -153,8 +158,8 @@ public class AttributeHzStore extends GenericBasicHzCRUD<StoredAttribute> implem
 	{
 		PredicateBuilder pBuilder = getAttributePredicate(null, entityId, group);
 		genericDelete(pBuilder);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"deleteAttributesInGroup", entityId, group));
+		HzTransactionTL.enqueueRDBMSMutation(new AttributesInGroupDeleteMutation(rdbmsCounterpartDaoName, 
+				entityId, group));
 	}
 
 	private void genericDelete(PredicateBuilder pBuilder)
@@ -213,10 +218,23 @@ public class AttributeHzStore extends GenericBasicHzCRUD<StoredAttribute> implem
 		Set<Long> members = membershipDAO.getMembers(group).stream()
 				.map(mem -> mem.getEntityId())
 				.collect(Collectors.toSet());
+		if (members.isEmpty())
+			return new ArrayList<>(0);
+		EntryObject e = new PredicateBuilder().getEntryObject();
+		PredicateBuilder pBuilder = e.get("entityId").in(members.toArray(new Long[0]));
+		TransactionalMap<Long, StoredAttribute> hMap = getMap();
+		return new ArrayList<>(hMap.values(pBuilder));
+	}
+
+	@Override
+	public List<StoredAttribute> getAttributesOfEntities(Collection<Long> entityIds)
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>(0);
+		EntryObject e = new PredicateBuilder().getEntryObject();
+		PredicateBuilder pBuilder = e.get("entityId").in(entityIds.toArray(new Long[0]));
 		TransactionalMap<Long, StoredAttribute> hMap = getMap();
-		return hMap.values().stream()
-				.filter(sa -> members.contains(sa.getEntityId()))
-				.collect(Collectors.toList());
+		return new ArrayList<>(hMap.values(pBuilder));
 	}
 
 	@Override
@@ -249,4 +267,10 @@ public class AttributeHzStore extends GenericBasicHzCRUD<StoredAttribute> implem
 	{
 		throw new IllegalStateException("operation not supported");
 	}
+
+	@Override
+	public void streamAllWithKeywords(BiConsumer<StoredAttribute, List<String>> consumer)
+	{
+		throw new IllegalStateException("operation not supported");
+	}
 }
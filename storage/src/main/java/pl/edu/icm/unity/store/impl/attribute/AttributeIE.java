@@ -4,9 +4,9 @@
  */
 package pl.edu.icm.unity.store.impl.attribute;
 
-import static java.util.stream.Collectors.toList;
-
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -44,17 +44,16 @@ public class AttributeIE extends AbstractIEBase<StoredAttributeWithKeywords>
 	@Override
 	protected List<StoredAttributeWithKeywords> getAllToExport()
 	{
-		return dao.getAllIds().stream()
-				.map(this::toStoredAttrWithKeywords)
-				.collect(toList());
-		
+		List<StoredAttributeWithKeywords> ret = new ArrayList<>();
+		streamAllToExport(ret::add);
+		return ret;
 	}
-	
-	private StoredAttributeWithKeywords toStoredAttrWithKeywords(Long attributeId)
+
+	@Override
+	protected void streamAllToExport(Consumer<StoredAttributeWithKeywords> consumer)
 	{
-		StoredAttribute storedAttribute = dao.getByKey(attributeId);
-		List<String> keywords = dao.getAllKeywordsFor(attributeId);
-		return new StoredAttributeWithKeywords(storedAttribute, keywords);
+		dao.streamAllWithKeywords((attribute, keywords) -> 
+			consumer.accept(new StoredAttributeWithKeywords(attribute, keywords)));
 	}
 
 	@Override
@@ -74,6 +73,24 @@ public class AttributeIE extends AbstractIEBase<StoredAttributeWithKeywords>
 		toCreate.getKeywords().forEach(keyword -> dao.linkKeywordToAttribute(keyword, attributeId));
 	}
 
+	/**
+	 * Attributes without keywords are inserted in bulk, the remaining ones need the generated key
+	 * to be linked with keywords and so are created one by one.
+	 */
+	@Override
+	protected void createBatch(List<StoredAttributeWithKeywords> toCreate)
+	{
+		List<StoredAttribute> withoutKeywords = new ArrayList<>(toCreate.size());
+		for (StoredAttributeWithKeywords attribute: toCreate)
+		{
+			if (attribute.getKeywords().isEmpty())
+				withoutKeywords.add(attribute.getStoredAttribute());
+			else
+				createSingle(attribute);
+		}
+		dao.createList(withoutKeywords);
+	}
+
 	@Override
 	protected StoredAttributeWithKeywords fromJsonSingle(ObjectNode src)
 	{
@@ -7,7 +7,12 @@ package pl.edu.icm.unity.store.impl.attribute;
 import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -17,6 +22,7 @@ import pl.edu.icm.unity.store.api.AttributeDAO;
 import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.impl.StorageLimits;
 import pl.edu.icm.unity.store.rdbms.GenericRDBMSCRUD;
+import pl.edu.icm.unity.store.rdbms.cache.EntityDataCache;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.store.types.StoredAttribute;
 import pl.edu.icm.unity.types.basic.Attribute;
@@ -24,7 +30,7 @@ import pl.edu.icm.unity.types.basic.AttributeExt;
 
 
 /**
- * RDBMS storage of {@link Attribute}
+ * RDBMS storage of {@link Attribute}. Attributes of a single entity are served from {@link EntityDataCache}.
  * @author K. Benedyczak
  */
 @Repository(AttributeRDBMSStore.BEAN)
@@ -33,20 +39,77 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	public static final String BEAN = DAO_ID + "rdbms";
 	private final GroupDAO groupDAO;
 	private final Integer attributeSizeLimit;
+	private final EntityDataCache entityCache;
 	
 	@Autowired
 	AttributeRDBMSStore(AttributeRDBMSSerializer dbSerializer,
 			GroupDAO groupDAO,
-			StorageConfiguration storageConfiguration)
+			StorageConfiguration storageConfiguration,
+			EntityDataCache entityCache)
 	{
 		super(AttributesMapper.class, dbSerializer, NAME);
 		this.groupDAO = groupDAO;
+		this.entityCache = entityCache;
 		attributeSizeLimit = storageConfiguration.getIntValue(StorageConfiguration.MAX_ATTRIBUTE_SIZE);
 	}
 
+	@Override
+	public long create(StoredAttribute obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		return super.create(obj);
+	}
+
+	@Override
+	public void createList(List<StoredAttribute> objects)
+	{
+		if (objects.isEmpty())
+			return;
+		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
+		List<AttributeBean> toAdd = new ArrayList<>(objects.size());
+		for (StoredAttribute obj: objects)
+		{
+			AttributeBean bean = jsonSerializer.toDB(obj);
+			assertContentsLimit(bean.getContents());
+			entityCache.entityModified(obj.getEntityId());
+			toAdd.add(bean);
+		}
+		mapper.createList(toAdd);
+	}
+
+	@Override
+	public void createWithId(long key, StoredAttribute obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		super.createWithId(key, obj);
+	}
+
+	@Override
+	public void updateByKey(long key, StoredAttribute obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		super.updateByKey(key, obj);
+	}
+
+	@Override
+	public void deleteByKey(long id)
+	{
+		if (entityCache.isEnabled())
+			entityCache.entityModified(getByKey(id).getEntityId());
+		super.deleteByKey(id);
+	}
+
+	@Override
+	public void deleteAll()
+	{
+		entityCache.allModified();
+		super.deleteAll();
+	}
+
 	@Override
 	public void updateAttribute(StoredAttribute a)
 	{
+		entityCache.entityModified(a.getEntityId());
 		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
 		AttributeBean toUpdate = jsonSerializer.toDB(a);
 		assertContentsLimit(toUpdate.getContents());
@@ -71,6 +134,7 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	@Override
 	public void deleteAttribute(String attribute, long entityId, String group)
 	{
+		entityCache.entityModified(entityId);
 		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
 		List<AttributeBean> existing = getAttributesFiltering(attribute, entityId, group);
 		if (existing.isEmpty())
@@ -82,6 +146,7 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	@Override
 	public void deleteAttributesInGroup(long entityId, String group)
 	{
+		entityCache.entityModified(entityId);
 		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
 		long groupId = groupDAO.getKeyForName(group);
 		AttributeBean param = new AttributeBean();
@@ -93,6 +158,8 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	@Override
 	public List<StoredAttribute> getAttributes(String attribute, Long entityId, String group)
 	{
+		if (entityId != null && entityCache.isEnabled())
+			return getCachedEntityAttributes(entityId, attribute, group);
 		List<AttributeBean> existing = getAttributesFiltering(attribute, entityId, group);
 		return convertList(existing);
 	}
@@ -100,6 +167,10 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	@Override
 	public List<AttributeExt> getEntityAttributes(long entityId, String attribute, String group)
 	{
+		if (entityCache.isEnabled())
+			return getCachedEntityAttributes(entityId, attribute, group).stream()
+					.map(StoredAttribute::getAttribute)
+					.collect(toList());
 		List<AttributeBean> existing = getAttributesFiltering(attribute, entityId, group);
 		List<AttributeExt> ret = new ArrayList<>(existing.size());
 		for (AttributeBean ab: existing)
@@ -107,6 +178,14 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 		return ret;
 	}
 	
+	private List<StoredAttribute> getCachedEntityAttributes(long entityId, String attribute, String group)
+	{
+		return entityCache.getAttributes(entityId, 
+				a -> (attribute == null || attribute.equals(a.getAttribute().getName())) 
+					&& (group == null || group.equals(a.getAttribute().getGroupPath())),
+				() -> convertList(getAttributesFiltering(null, entityId, null)));
+	}
+	
 	
 	private List<AttributeBean> getAttributesFiltering(String attribute, Long entityId, String group)
 	{
@@ -126,6 +205,16 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 		return convertList(groupMembersAttributes);
 	}
 
+	@Override
+	public List<StoredAttribute> getAttributesOfEntities(Collection<Long> entityIds)
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>(0);
+		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
+		List<AttributeBean> entitiesAttributes = mapper.getEntitiesAttributes(new ArrayList<>(entityIds));
+		return convertList(entitiesAttributes);
+	}
+
 	@Override
 	public long getCountWithoutType(List<String> types)
 	{
@@ -155,9 +244,7 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 	public List<Long> getAllIds()
 	{
 		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
-		return mapper.getAll().stream()
-				.map(AttributeBean::getId)
-				.collect(toList());
+		return mapper.getAllIds();
 	}
 
 	@Override
@@ -166,4 +253,21 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 		AttributesLookupMapper lookupMapper = SQLTransactionTL.getSql().getMapper(AttributesLookupMapper.class);
 		return lookupMapper.getAllKeywords(attributeId);
 	}
+
+	@Override
+	public void streamAllWithKeywords(BiConsumer<StoredAttribute, List<String>> consumer)
+	{
+		AttributesLookupMapper lookupMapper = SQLTransactionTL.getSql().getMapper(AttributesLookupMapper.class);
+		Map<Long, List<String>> keywordsByAttribute = new HashMap<>();
+		for (AttributeLookupBean lookup: lookupMapper.getAll())
+			keywordsByAttribute.computeIfAbsent(lookup.getAttributeId(), id -> new ArrayList<>())
+				.add(lookup.getkeyword());
+		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
+		mapper.getAll(context -> 
+		{
+			AttributeBean bean = context.getResultObject();
+			consumer.accept(jsonSerializer.fromDB(bean), 
+					keywordsByAttribute.getOrDefault(bean.getId(), Collections.emptyList()));
+		});
+	}
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.attribute;
+
+import pl.edu.icm.unity.store.api.AttributeDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.types.StoredAttribute;
+
+/**
+ * {@link AttributeDAO#updateAttribute(StoredAttribute)} mutation.
+ */
+public class AttributeUpdateMutation extends RDBMSMutationEvent
+{
+	private StoredAttribute attribute;
+
+	protected AttributeUpdateMutation() {}
+
+	public AttributeUpdateMutation(String dao, StoredAttribute attribute)
+	{
+		super(dao, attribute.getEntityId());
+		this.attribute = attribute;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((AttributeDAO) dao).updateAttribute(attribute);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "attribute=" + attribute;
+	}
+}
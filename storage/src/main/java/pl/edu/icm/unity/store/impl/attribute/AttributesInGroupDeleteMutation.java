@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.attribute;
+
+import pl.edu.icm.unity.store.api.AttributeDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+
+/**
+ * {@link AttributeDAO#deleteAttributesInGroup(long, String)} mutation.
+ */
+public class AttributesInGroupDeleteMutation extends RDBMSMutationEvent
+{
+	private long entityId;
+	private String group;
+
+	protected AttributesInGroupDeleteMutation() {}
+
+	public AttributesInGroupDeleteMutation(String dao, long entityId, String group)
+	{
+		super(dao, entityId);
+		this.entityId = entityId;
+		this.group = group;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((AttributeDAO) dao).deleteAttributesInGroup(entityId, group);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "group=" + group;
+	}
+}
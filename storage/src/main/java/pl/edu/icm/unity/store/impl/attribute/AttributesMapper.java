@@ -22,5 +22,11 @@ public interface AttributesMapper extends BasicCRUDMapper<AttributeBean>
 	
 	List<AttributeBean> getGroupMembersAttributes(String group);
 	
+	List<AttributeBean> getEntitiesAttributes(List<Long> entityIds);
+	
 	long getCountWithoutType(List<String> types);
+	
+	List<Long> getAllIds();
+	
+	void createList(List<AttributeBean> attributes);
 }
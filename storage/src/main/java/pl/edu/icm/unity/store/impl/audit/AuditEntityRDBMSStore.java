@@ -4,7 +4,13 @@
  */
 package pl.edu.icm.unity.store.impl.audit;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.store.api.tx.TxManager;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.types.basic.audit.AuditEntity;
 
@@ -12,24 +18,49 @@ import pl.edu.icm.unity.types.basic.audit.AuditEntity;
  * RDBMS storage of {@link AuditEntity}. Helper repository to handle actions related to AuditEntity entries.
  * <p>
  * Package private access - public methods are exposed via AuditEventDAO.
+ * <p>
+ * Ids of resolved entities are cached. Id is put into cache only after the transaction which 
+ * has read or created it is committed, so the cache never contains an id of a rolled back entry.
  *
  * @author R. Ledzinski
  */
 @Repository
 class AuditEntityRDBMSStore
 {
+	private static final int MAX_CACHED_ENTITIES = 10000;
+	private final Cache<AuditEntity, Long> knownEntities = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_ENTITIES).build();
+	private final TxManager txManager;
+
+	@Autowired
+	AuditEntityRDBMSStore(TxManager txManager)
+	{
+		this.txManager = txManager;
+	}
+	
 	Long findOrCreateEntity(AuditEntity auditEntity)
 	{
 		if (auditEntity == null) {
 			return null;
 		}
-		Long id = getAuditEntityId(auditEntity);
+		Long id = knownEntities.getIfPresent(auditEntity);
+		if (id != null) {
+			return id;
+		}
+		id = getAuditEntityId(auditEntity);
 		if (id == null) {
 			id = createAuditEntity(auditEntity);
 		}
+		Long resolvedId = id;
+		txManager.addPostCommitAction(() -> knownEntities.put(auditEntity, resolvedId));
 		return id;
 	}
 
+	void invalidateCache()
+	{
+		knownEntities.invalidateAll();
+	}
+
 	private Long getAuditEntityId(AuditEntity auditEntity)
 	{
 		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
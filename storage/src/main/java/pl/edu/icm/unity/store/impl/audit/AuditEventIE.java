@@ -16,6 +16,7 @@ import pl.edu.icm.unity.store.export.AbstractIEBase;
 import pl.edu.icm.unity.types.basic.audit.AuditEvent;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Handles import/export of attribute types table.
@@ -43,6 +44,12 @@ public class AuditEventIE extends AbstractIEBase<AuditEvent>
 		return dao.getAll();
 	}
 
+	@Override
+	protected void streamAllToExport(Consumer<AuditEvent> consumer)
+	{
+		dao.streamAll(consumer);
+	}
+
 	@Override
 	protected ObjectNode toJsonSingle(AuditEvent exportedObj)
 	{
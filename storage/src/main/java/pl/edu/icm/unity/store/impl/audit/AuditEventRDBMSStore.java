@@ -31,12 +31,15 @@ public class AuditEventRDBMSStore extends GenericRDBMSCRUD<AuditEvent, AuditEven
 	public static final String BEAN = DAO_ID + "rdbms";
 
 	private AuditTagRDBMSStore tagDAO;
+	private AuditEntityRDBMSStore auditEntityDAO;
 
 	@Autowired
-	public AuditEventRDBMSStore(final AuditEventJsonSerializer jsonSerializer, AuditTagRDBMSStore tagDAO)
+	public AuditEventRDBMSStore(final AuditEventJsonSerializer jsonSerializer, AuditTagRDBMSStore tagDAO,
+			AuditEntityRDBMSStore auditEntityDAO)
 	{
 		super(AuditEventMapper.class, jsonSerializer, NAME);
 		this.tagDAO = tagDAO;
+		this.auditEntityDAO = auditEntityDAO;
 	}
 
 	@Override
@@ -83,5 +86,6 @@ public class AuditEventRDBMSStore extends GenericRDBMSCRUD<AuditEvent, AuditEven
 	public void invalidateCache() 
 	{
 		tagDAO.invalidateCache();
+		auditEntityDAO.invalidateCache();
 	}
 }
@@ -16,4 +16,5 @@ import pl.edu.icm.unity.store.rdbms.BasicCRUDMapper;
 public interface EntitiesMapper extends BasicCRUDMapper<BaseBean>
 {
 	List<BaseBean> getByGroup(String path);
+	List<BaseBean> getByKeys(List<Long> ids);
 }
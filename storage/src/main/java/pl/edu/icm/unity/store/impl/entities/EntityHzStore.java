@@ -4,9 +4,10 @@
  */
 package pl.edu.icm.unity.store.impl.entities;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -15,7 +16,7 @@ import com.hazelcast.core.TransactionalMap;
 
 import pl.edu.icm.unity.store.api.EntityDAO;
 import pl.edu.icm.unity.store.hz.GenericBasicHzCRUD;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.hz.rdbmsflush.CreateWithIdMutation;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.types.basic.EntityInformation;
 import pl.edu.icm.unity.types.basic.GroupMembership;
@@ -39,6 +40,12 @@ public class EntityHzStore extends GenericBasicHzCRUD<EntityInformation> impleme
 		super(STORE_ID, NAME, EntityRDBMSStore.BEAN, rdbmsDAO);
 	}
 	
+	@Override
+	protected Long getOwningEntity(EntityInformation obj)
+	{
+		return obj.getId();
+	}
+	
 	@Override
 	protected long createNoPropagateToRDBMS(EntityInformation obj) throws IllegalArgumentException
 	{
@@ -60,8 +67,8 @@ public class EntityHzStore extends GenericBasicHzCRUD<EntityInformation> impleme
 			key = index.incrementAndGet();
 		obj.setId(key);
 		hMap.put(key, obj);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"createWithId", key, obj));
+		HzTransactionTL.enqueueRDBMSMutation(new CreateWithIdMutation<>(rdbmsCounterpartDaoName, 
+				key, key, obj));
 		return key;
 	}
 	
@@ -70,8 +77,8 @@ public class EntityHzStore extends GenericBasicHzCRUD<EntityInformation> impleme
 	{
 		obj.setId(key);
 		createNoPropagateToRDBMS(obj);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"createWithId", key, obj));
+		HzTransactionTL.enqueueRDBMSMutation(new CreateWithIdMutation<>(rdbmsCounterpartDaoName, 
+				key, key, obj));
 	}
 
 	@Override
@@ -79,10 +86,31 @@ public class EntityHzStore extends GenericBasicHzCRUD<EntityInformation> impleme
 	{
 		TransactionalMap<String, Map<Long, GroupMembership>> byGroupMap = getByGroupMap();
 		Map<Long, GroupMembership> groupMembers = byGroupMap.get(group);
+		if (groupMembers == null)
+			return new ArrayList<>(0);
+		TransactionalMap<Long, EntityInformation> hMap = getMap();
+		List<EntityInformation> ret = new ArrayList<>(groupMembers.size());
+		for (Long member: groupMembers.keySet())
+		{
+			EntityInformation entity = hMap.get(member);
+			if (entity != null)
+				ret.add(entity);
+		}
+		return ret;
+	}
+
+	@Override
+	public List<EntityInformation> getByKeys(Collection<Long> ids)
+	{
 		TransactionalMap<Long, EntityInformation> hMap = getMap();
-		return hMap.values().stream()
-				.filter(ei -> groupMembers.containsKey(ei.getId()))
-				.collect(Collectors.toList());
+		List<EntityInformation> ret = new ArrayList<>(ids.size());
+		for (Long id: ids)
+		{
+			EntityInformation entity = hMap.get(id);
+			if (entity != null)
+				ret.add(entity);
+		}
+		return ret;
 	}
 	
 	private TransactionalMap<String, Map<Long, GroupMembership>> getByGroupMap()
@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.entities;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -39,6 +40,12 @@ public class EntityIE extends AbstractIEBase<EntityInformation>
 		return dbIds.getAll();
 	}
 
+	@Override
+	protected void streamAllToExport(Consumer<EntityInformation> consumer)
+	{
+		dbIds.streamAll(consumer);
+	}
+
 	@Override
 	protected ObjectNode toJsonSingle(EntityInformation exportedObj)
 	{
@@ -4,6 +4,8 @@
  */
 package pl.edu.icm.unity.store.impl.entities;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,4 +48,14 @@ public class EntityRDBMSStore extends GenericRDBMSCRUD<EntityInformation, BaseBe
 		List<BaseBean> allInDB = mapper.getByGroup(group);
 		return convertList(allInDB);
 	}
+
+	@Override
+	public List<EntityInformation> getByKeys(Collection<Long> ids)
+	{
+		if (ids.isEmpty())
+			return new ArrayList<>(0);
+		EntitiesMapper mapper = SQLTransactionTL.getSql().getMapper(EntitiesMapper.class);
+		List<BaseBean> allInDB = mapper.getByKeys(new ArrayList<>(ids));
+		return convertList(allInDB);
+	}
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.events;
+
+import java.util.Date;
+
+import pl.edu.icm.unity.store.api.EventDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+
+/**
+ * {@link EventDAO#updateExecution(long, Date, int)} mutation.
+ */
+public class EventExecutionUpdateMutation extends RDBMSMutationEvent
+{
+	private long id;
+	private Date newExecution;
+	private int failures;
+
+	protected EventExecutionUpdateMutation() {}
+
+	public EventExecutionUpdateMutation(String dao, long id, Date newExecution, int failures)
+	{
+		super(dao, null);
+		this.id = id;
+		this.newExecution = newExecution;
+		this.failures = failures;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((EventDAO) dao).updateExecution(id, newExecution, failures);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "id=" + id + ", newExecution=" + newExecution + ", failures=" + failures;
+	}
+}
@@ -5,8 +5,11 @@
 package pl.edu.icm.unity.store.impl.events;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -19,7 +22,6 @@ import com.hazelcast.query.PredicateBuilder;
 import pl.edu.icm.unity.base.event.EventExecution;
 import pl.edu.icm.unity.store.api.EventDAO;
 import pl.edu.icm.unity.store.hz.GenericBasicHzCRUD;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 
 
@@ -50,6 +52,31 @@ public class EventHzStore extends GenericBasicHzCRUD<EventExecution> implements
 		return ret;
 	}
 
+	@Override
+	public List<EventExecution> getEligibleForProcessing(Date date, String listenerId, Set<Long> excludedIds,
+			int limit)
+	{
+		TransactionalMap<Long, EventExecution> hMap = getMap();
+		EntryObject e = new PredicateBuilder().getEntryObject();
+		@SuppressWarnings("unchecked")
+		Predicate<Long, EventExecution> predicate = e.get("nextProcessing").lessThan(date)
+				.and(e.get("listenerId").equal(listenerId));
+		List<EventExecution> eligible = new ArrayList<>();
+		for (Long key: hMap.keySet(predicate))
+		{
+			if (excludedIds.contains(key))
+				continue;
+			EventExecution event = hMap.get(key);
+			event.setId(key);
+			eligible.add(event);
+		}
+		return eligible.stream()
+				.sorted(Comparator.comparing(EventExecution::getNextProcessing)
+						.thenComparing(EventExecution::getId))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
 	@Override
 	public void updateExecution(long id, Date newExecution, int failures)
 	{
@@ -60,7 +87,7 @@ public class EventHzStore extends GenericBasicHzCRUD<EventExecution> implements
 		old.setFailures(failures);
 		old.setNextProcessing(newExecution);
 		hMap.put(id, old);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(rdbmsCounterpartDaoName, 
-				"updateExecution", id, newExecution, failures));
+		HzTransactionTL.enqueueRDBMSMutation(new EventExecutionUpdateMutation(rdbmsCounterpartDaoName, 
+				id, newExecution, failures));
 	}
 }
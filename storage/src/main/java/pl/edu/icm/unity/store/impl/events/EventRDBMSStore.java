@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.impl.events;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -48,6 +49,15 @@ public class EventRDBMSStore extends GenericRDBMSCRUD<EventExecution, EventBean>
 		return convertList(rawEvents);
 	}
 
+	@Override
+	public List<EventExecution> getEligibleForProcessing(Date date, String listenerId, Set<Long> excludedIds,
+			int limit)
+	{
+		EventsMapper mapper = SQLTransactionTL.getSql().getMapper(EventsMapper.class);
+		List<EventBean> rawEvents = mapper.selectListenerEventsForProcessing(date, listenerId, excludedIds, limit);
+		return convertList(rawEvents);
+	}
+
 	@Override
 	public void updateExecution(long id, Date newExecution, int failures)
 	{
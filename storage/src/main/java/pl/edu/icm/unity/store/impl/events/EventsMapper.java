@@ -6,6 +6,9 @@ package pl.edu.icm.unity.store.impl.events;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.ibatis.annotations.Param;
 
 import pl.edu.icm.unity.store.rdbms.BasicCRUDMapper;
 
@@ -17,4 +20,7 @@ public interface EventsMapper extends BasicCRUDMapper<EventBean>
 {
 	void updateExecution(EventBean event);
 	List<EventBean> selectEventsForProcessing(Date date);
+	List<EventBean> selectListenerEventsForProcessing(@Param("date") Date date, 
+			@Param("listenerId") String listenerId, @Param("excludedIds") Set<Long> excludedIds, 
+			@Param("limit") int limit);
 }
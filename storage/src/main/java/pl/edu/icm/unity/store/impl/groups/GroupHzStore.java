@@ -14,7 +14,7 @@ import com.hazelcast.core.TransactionalMap;
 import pl.edu.icm.unity.store.ReferenceUpdateHandler.PlannedUpdateEvent;
 import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.hz.GenericNamedHzCRUD;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.store.hz.rdbmsflush.DeleteByKeyMutation;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.types.basic.Group;
 
@@ -56,8 +56,8 @@ public class GroupHzStore extends GenericNamedHzCRUD<Group> implements GroupDAOI
 			Group removed = super.deleteByKeyRet(key, false);
 			getNameMap().remove(removed.getName());
 			if (removed.isTopLevel())
-				HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(
-					rdbmsCounterpartDaoName, "deleteByKey", key));
+				HzTransactionTL.enqueueRDBMSMutation(new DeleteByKeyMutation(
+					rdbmsCounterpartDaoName, null, key));
 		}
 	}
 	
@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.impl.groups;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.store.impl.StorageLimits;
 import pl.edu.icm.unity.store.rdbms.GenericNamedRDBMSCRUD;
+import pl.edu.icm.unity.store.rdbms.cache.GroupsTreeIndex;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.types.basic.Group;
 
@@ -25,17 +27,20 @@ import pl.edu.icm.unity.types.basic.Group;
 public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> implements GroupDAOInternal
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private final GroupsTreeIndex treeIndex;
 
 	@Autowired
-	public GroupRDBMSStore(GroupJsonSerializer jsonSerializer)
+	public GroupRDBMSStore(GroupJsonSerializer jsonSerializer, GroupsTreeIndex treeIndex)
 	{
 		super(GroupsMapper.class, jsonSerializer, NAME);
+		this.treeIndex = treeIndex;
 	}
 	
 	@Override
 	public long create(Group obj)
 	{
 		StorageLimits.checkNameLimit(obj.getName());
+		treeIndex.modificationStarted();
 		try
 		{
 			GroupsMapper mapper = SQLTransactionTL.getSql().getMapper(GroupsMapper.class);
@@ -48,6 +53,7 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 			{
 				mapper.createRoot(toAdd);
 			}
+			treeIndex.groupAdded(obj.getName());
 			return toAdd.getId();				
 		} catch (PersistenceException e)
 		{
@@ -80,7 +86,9 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 				throw new IllegalArgumentException("It is not allowed to change group path, "
 						+ "only rename is possible for " + oldBean.getName() + 
 						" (trying to rename to " + obj.getName() + ")");
+			treeIndex.modificationStarted();
 			updateChilderenPaths(oldBean.getName(), obj.getName(), mapper);
+			treeIndex.groupRenamed(oldBean.getName(), obj.getName());
 		}
 		Group old = jsonSerializer.fromDB(oldBean);
 		preUpdateCheck(old, obj);
@@ -90,6 +98,60 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 		toUpdate.setId(key);
 		mapper.updateByKey(toUpdate);		
 	}
+	
+	@Override
+	public void createWithId(long key, Group obj)
+	{
+		treeIndex.modificationStarted();
+		super.createWithId(key, obj);
+		treeIndex.groupAdded(obj.getName());
+	}
+	
+	@Override
+	public void deleteAll()
+	{
+		treeIndex.modificationStarted();
+		super.deleteAll();
+		treeIndex.allModified();
+	}
+	
+	/**
+	 * Invoked on removal both by key and by name, subgroups are removed by the DB.
+	 */
+	@Override
+	protected void firePreRemove(long modifiedId, String modifiedName, GroupBean old)
+	{
+		super.firePreRemove(modifiedId, modifiedName, old);
+		treeIndex.groupRemoved(old.getName());
+	}
+	
+	@Override
+	public List<String> getChildrenNames(String path)
+	{
+		return treeIndex.query(this::getAllNames, tree -> tree.getChildren(path), 
+				() -> GroupDAOInternal.super.getChildrenNames(path));
+	}
+
+	@Override
+	public Set<String> getDescendantsNames(String path)
+	{
+		return treeIndex.query(this::getAllNames, tree -> tree.getDescendants(path), 
+				() -> GroupDAOInternal.super.getDescendantsNames(path));
+	}
+
+	@Override
+	public long getDescendantsCount(String path)
+	{
+		return treeIndex.query(this::getAllNames, tree -> (long) tree.getDescendantsCount(path), 
+				() -> GroupDAOInternal.super.getDescendantsCount(path));
+	}
+
+	@Override
+	public List<String> getAncestorsNames(String path)
+	{
+		return treeIndex.query(this::getAllNames, tree -> tree.getAncestors(path), 
+				() -> GroupDAOInternal.super.getAncestorsNames(path));
+	}
 
 	private void updateChilderenPaths(String oldPath, String newPath, GroupsMapper mapper)
 	{
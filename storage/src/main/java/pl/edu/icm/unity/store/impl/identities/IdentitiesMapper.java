@@ -16,5 +16,7 @@ public interface IdentitiesMapper extends NamedCRUDMapper<IdentityBean>
 {
 	List<IdentityBean> getByEntity(long entityId);
 	List<IdentityBean> getByGroup(String group);
+	List<IdentityBean> getByEntities(List<Long> entityIds);
 	long getCountByType(List<String> types);
+	void createList(List<IdentityBean> identities);
 }
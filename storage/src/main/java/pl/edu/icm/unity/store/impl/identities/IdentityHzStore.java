@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.identities;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -88,9 +89,25 @@ public class IdentityHzStore extends GenericNamedHzCRUD<StoredIdentity> implemen
 		Set<Long> members = membershipStore.getMembers(group).stream()
 				.map(member -> member.getEntityId())
 				.collect(Collectors.toSet());
-		return getAll().stream()
-				.filter(si -> members.contains(si.getEntityId()))
-				.collect(Collectors.toList());
+		if (members.isEmpty())
+			return new ArrayList<>(0);
+		TransactionalMap<Long, StoredIdentity> hMap = getMap();
+		EntryObject e = new PredicateBuilder().getEntryObject();
+		@SuppressWarnings("unchecked")
+		Predicate<Long, StoredIdentity> predicate = e.get("entityId").in(members.toArray(new Long[0]));
+		return new ArrayList<>(hMap.values(predicate));
+	}
+
+	@Override
+	public List<StoredIdentity> getByEntities(Collection<Long> entityIds)
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>(0);
+		TransactionalMap<Long, StoredIdentity> hMap = getMap();
+		EntryObject e = new PredicateBuilder().getEntryObject();
+		@SuppressWarnings("unchecked")
+		Predicate<Long, StoredIdentity> predicate = e.get("entityId").in(entityIds.toArray(new Long[0]));
+		return new ArrayList<>(hMap.values(predicate));
 	}
 
 	@Override
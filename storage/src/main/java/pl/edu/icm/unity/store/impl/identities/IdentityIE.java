@@ -5,6 +5,9 @@
 package pl.edu.icm.unity.store.impl.identities;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,6 +46,12 @@ public class IdentityIE extends AbstractIEBase<StoredIdentity>
 		return dbIds.getAll();
 	}
 
+	@Override
+	protected void streamAllToExport(Consumer<StoredIdentity> consumer)
+	{
+		dbIds.streamAll(consumer);
+	}
+
 	@Override
 	protected ObjectNode toJsonSingle(StoredIdentity exportedObj)
 	{
@@ -56,6 +65,14 @@ public class IdentityIE extends AbstractIEBase<StoredIdentity>
 			dbIds.create(toCreate);
 	}
 
+	@Override
+	protected void createBatch(List<StoredIdentity> toCreate)
+	{
+		dbIds.createList(toCreate.stream()
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList()));
+	}
+
 	@Override
 	protected StoredIdentity fromJsonSingle(ObjectNode src)
 	{
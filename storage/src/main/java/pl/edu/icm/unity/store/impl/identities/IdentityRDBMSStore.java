@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.identities;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -12,7 +13,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.store.api.IdentityDAO;
+import pl.edu.icm.unity.store.impl.StorageLimits;
 import pl.edu.icm.unity.store.rdbms.GenericNamedRDBMSCRUD;
+import pl.edu.icm.unity.store.rdbms.cache.EntityDataCache;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.store.types.StoredIdentity;
 import pl.edu.icm.unity.types.basic.Identity;
@@ -26,22 +29,89 @@ import pl.edu.icm.unity.types.basic.Identity;
 public class IdentityRDBMSStore extends GenericNamedRDBMSCRUD<StoredIdentity, IdentityBean> implements IdentityDAO
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private final EntityDataCache entityCache;
 
 	@Autowired
-	public IdentityRDBMSStore(IdentityJsonSerializer jsonSerializer)
+	public IdentityRDBMSStore(IdentityJsonSerializer jsonSerializer, EntityDataCache entityCache)
 	{
 		super(IdentitiesMapper.class, jsonSerializer, NAME);
+		this.entityCache = entityCache;
 	}
 
 	@Override
 	public List<StoredIdentity> getByEntityFull(long entityId)
 	{
+		return entityCache.getIdentities(entityId, () -> 
+		{
+			IdentitiesMapper mapper = SQLTransactionTL.getSql().getMapper(IdentitiesMapper.class);
+			List<IdentityBean> allInDB = mapper.getByEntity(entityId);
+			List<StoredIdentity> ret = new ArrayList<>(allInDB.size());
+			for (IdentityBean bean: allInDB)
+				ret.add(jsonSerializer.fromDB(bean));
+			return ret;
+		});
+	}
+	
+	@Override
+	public long create(StoredIdentity obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		return super.create(obj);
+	}
+
+	@Override
+	public void createList(List<StoredIdentity> objects)
+	{
+		if (objects.isEmpty())
+			return;
 		IdentitiesMapper mapper = SQLTransactionTL.getSql().getMapper(IdentitiesMapper.class);
-		List<IdentityBean> allInDB = mapper.getByEntity(entityId);
-		List<StoredIdentity> ret = new ArrayList<>(allInDB.size());
-		for (IdentityBean bean: allInDB)
-			ret.add(jsonSerializer.fromDB(bean));
-		return ret;
+		List<IdentityBean> toAdd = new ArrayList<>(objects.size());
+		for (StoredIdentity obj: objects)
+		{
+			StorageLimits.checkNameLimit(obj.getName());
+			IdentityBean bean = jsonSerializer.toDB(obj);
+			assertContentsLimit(bean.getContents());
+			entityCache.entityModified(obj.getEntityId());
+			toAdd.add(bean);
+		}
+		mapper.createList(toAdd);
+	}
+
+	@Override
+	public void createWithId(long key, StoredIdentity obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		super.createWithId(key, obj);
+	}
+
+	@Override
+	public void updateByKey(long key, StoredIdentity obj)
+	{
+		entityCache.entityModified(obj.getEntityId());
+		super.updateByKey(key, obj);
+	}
+
+	@Override
+	public void deleteByKey(long id)
+	{
+		if (entityCache.isEnabled())
+			entityCache.entityModified(getByKey(id).getEntityId());
+		super.deleteByKey(id);
+	}
+
+	@Override
+	public void delete(String id)
+	{
+		if (entityCache.isEnabled())
+			entityCache.entityModified(get(id).getEntityId());
+		super.delete(id);
+	}
+
+	@Override
+	public void deleteAll()
+	{
+		entityCache.allModified();
+		super.deleteAll();
 	}
 	
 	@Override
@@ -75,6 +145,19 @@ public class IdentityRDBMSStore extends GenericNamedRDBMSCRUD<StoredIdentity, Id
 		return ret;
 	}
 
+	@Override
+	public List<StoredIdentity> getByEntities(Collection<Long> entityIds)
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>(0);
+		IdentitiesMapper mapper = SQLTransactionTL.getSql().getMapper(IdentitiesMapper.class);
+		List<IdentityBean> allInDB = mapper.getByEntities(new ArrayList<>(entityIds));
+		List<StoredIdentity> ret = new ArrayList<>(allInDB.size());
+		for (IdentityBean bean: allInDB)
+			ret.add(jsonSerializer.fromDB(bean));
+		return ret;
+	}
+
 	@Override
 	public long getCountByType(List<String> types)
 	{
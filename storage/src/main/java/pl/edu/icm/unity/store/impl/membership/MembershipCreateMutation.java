@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.membership;
+
+import pl.edu.icm.unity.store.api.MembershipDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+import pl.edu.icm.unity.types.basic.GroupMembership;
+
+/**
+ * {@link MembershipDAO#create(GroupMembership)} mutation.
+ */
+public class MembershipCreateMutation extends RDBMSMutationEvent
+{
+	private GroupMembership membership;
+
+	protected MembershipCreateMutation() {}
+
+	public MembershipCreateMutation(String dao, GroupMembership membership)
+	{
+		super(dao, membership.getEntityId());
+		this.membership = membership;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((MembershipDAO) dao).create(membership);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "membership=" + membership;
+	}
+}
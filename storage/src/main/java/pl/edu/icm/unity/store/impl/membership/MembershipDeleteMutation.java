@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.membership;
+
+import pl.edu.icm.unity.store.api.MembershipDAO;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
+
+/**
+ * {@link MembershipDAO#deleteByKey(long, String)} mutation.
+ */
+public class MembershipDeleteMutation extends RDBMSMutationEvent
+{
+	private long entityId;
+	private String group;
+
+	protected MembershipDeleteMutation() {}
+
+	public MembershipDeleteMutation(String dao, long entityId, String group)
+	{
+		super(dao, entityId);
+		this.entityId = entityId;
+		this.group = group;
+	}
+
+	@Override
+	public void apply(Object dao)
+	{
+		((MembershipDAO) dao).deleteByKey(entityId, group);
+	}
+
+	@Override
+	protected String getArgumentsDescription()
+	{
+		return "group=" + group;
+	}
+}
@@ -5,9 +5,11 @@
 package pl.edu.icm.unity.store.impl.membership;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +23,6 @@ import pl.edu.icm.unity.store.ReferenceUpdateHandler.PlannedUpdateEvent;
 import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.api.MembershipDAO;
 import pl.edu.icm.unity.store.hz.HzDAO;
-import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
 import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 import pl.edu.icm.unity.store.impl.entities.EntityHzStore;
 import pl.edu.icm.unity.store.impl.groups.GroupHzStore;
@@ -112,22 +113,31 @@ public class MembershipHzStore implements MembershipDAO, HzDAO
 	public void populateFromRDBMS(HazelcastInstance hzInstance)
 	{
 		log.info("Loading group memberships from persistent storage");
-		List<Group> allGroups = groupDAO.getAll();
-		for (Group group: allGroups)
-		{
-			List<GroupMembership> all = rdbmsStore.getMembers(group.getName());
-			for (GroupMembership element: all)
-				createHZOnly(element);
-		}
-		log.info("Loaded {} group memberships from persistent storage", allGroups.size());
+		AtomicLong loaded = new AtomicLong();
+		rdbmsStore.streamAll(element -> {
+			createHZOnly(element);
+			loaded.incrementAndGet();
+		});
+		log.info("Loaded {} group memberships from persistent storage", loaded.get());
+	}
+
+	@Override
+	public void attachToRestoredData(HazelcastInstance hzInstance)
+	{
+	}
+	
+	@Override
+	public String getRDBMSCounterpartDaoName()
+	{
+		return RDBMS_DAO_NAME;
 	}
 
 	@Override
 	public void create(GroupMembership obj)
 	{
 		createHZOnly(obj);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(
-				RDBMS_DAO_NAME, "create", new GroupMembership(obj)));
+		HzTransactionTL.enqueueRDBMSMutation(new MembershipCreateMutation(
+				RDBMS_DAO_NAME, new GroupMembership(obj)));
 	}
 
 	public void createHZOnly(GroupMembership obj)
@@ -162,8 +172,8 @@ public class MembershipHzStore implements MembershipDAO, HzDAO
 	public void deleteByKey(long entityId, String group)
 	{
 		deleteByKeyHzOnly(entityId, group);
-		HzTransactionTL.enqueueRDBMSMutation(new RDBMSMutationEvent(
-				RDBMS_DAO_NAME, "deleteByKey", entityId, group));
+		HzTransactionTL.enqueueRDBMSMutation(new MembershipDeleteMutation(
+				RDBMS_DAO_NAME, entityId, group));
 	}
 
 	public void deleteByKeyHzOnly(long entityId, String group)
@@ -239,6 +249,52 @@ public class MembershipHzStore implements MembershipDAO, HzDAO
 		return new ArrayList<>(map.values());
 	}
 
+	@Override
+	public long getMembershipsCount(Collection<String> groups)
+	{
+		TransactionalMap<String, Map<Long, GroupMembership>> byGroupMap = getByGroupMap();
+		long ret = 0;
+		for (String group: groups)
+		{
+			Map<Long, GroupMembership> members = byGroupMap.get(group);
+			if (members != null)
+				ret += members.size();
+		}
+		return ret;
+	}
+
+	@Override
+	public List<GroupMembership> getMembershipsOfGroupMembers(String group)
+	{
+		TransactionalMap<String, Map<Long, GroupMembership>> byGroupMap = getByGroupMap();
+		TransactionalMap<Long, Map<String, GroupMembership>> byEntityMap = getByEntityMap();
+		Map<Long, GroupMembership> members = byGroupMap.get(group);
+		if (members == null)
+			return new ArrayList<>(0);
+		List<GroupMembership> ret = new ArrayList<>();
+		for (Long entityId: members.keySet())
+		{
+			Map<String, GroupMembership> memberships = byEntityMap.get(entityId);
+			if (memberships != null)
+				ret.addAll(memberships.values());
+		}
+		return ret;
+	}
+
+	@Override
+	public List<GroupMembership> getEntitiesMembership(Collection<Long> entityIds)
+	{
+		TransactionalMap<Long, Map<String, GroupMembership>> byEntityMap = getByEntityMap();
+		List<GroupMembership> ret = new ArrayList<>();
+		for (Long entityId: entityIds)
+		{
+			Map<String, GroupMembership> memberships = byEntityMap.get(entityId);
+			if (memberships != null)
+				ret.addAll(memberships.values());
+		}
+		return ret;
+	}
+
 	@Override
 	public List<GroupMembership> getAll()
 	{
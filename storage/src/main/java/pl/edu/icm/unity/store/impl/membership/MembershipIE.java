@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.membership;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -39,6 +40,12 @@ public class MembershipIE extends AbstractIEBase<GroupMembership>
 		return dao.getAll();
 	}
 
+	@Override
+	protected void streamAllToExport(Consumer<GroupMembership> consumer)
+	{
+		dao.streamAll(consumer);
+	}
+
 	@Override
 	protected ObjectNode toJsonSingle(GroupMembership exportedObj)
 	{
@@ -51,6 +58,12 @@ public class MembershipIE extends AbstractIEBase<GroupMembership>
 		dao.create(toCreate);
 	}
 
+	@Override
+	protected void createBatch(List<GroupMembership> toCreate)
+	{
+		dao.createList(toCreate);
+	}
+
 	@Override
 	protected GroupMembership fromJsonSingle(ObjectNode src)
 	{
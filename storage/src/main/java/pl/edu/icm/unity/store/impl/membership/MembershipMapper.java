@@ -6,6 +6,8 @@ package pl.edu.icm.unity.store.impl.membership;
 
 import java.util.List;
 
+import org.apache.ibatis.session.ResultHandler;
+
 
 /**
  * Access to the GroupMembership.xml operations.
@@ -15,6 +17,8 @@ public interface MembershipMapper
 {
 	long create(GroupElementBean obj);
 	
+	void createList(List<GroupElementBean> objs);
+	
 	void deleteByKey(GroupElementBean param);
 
 	GroupElementBean getByKey(GroupElementBean param);
@@ -23,5 +27,13 @@ public interface MembershipMapper
 
 	List<GroupElementBean> getMembers(long groupId);
 	
+	List<GroupElementBean> getGroupMembersMemberships(long groupId);
+	
+	List<GroupElementBean> getEntitiesMembership(List<Long> entityIds);
+	
+	long getMembershipsCount(List<String> groups);
+	
 	List<GroupElementBean> getAll();
+
+	void getAll(ResultHandler<GroupElementBean> handler);
 }
@@ -5,7 +5,9 @@
 package pl.edu.icm.unity.store.impl.membership;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -14,6 +16,7 @@ import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.api.MembershipDAO;
 import pl.edu.icm.unity.store.impl.StorageLimits;
 import pl.edu.icm.unity.store.rdbms.RDBMSDAO;
+import pl.edu.icm.unity.store.rdbms.cache.EntityDataCache;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.types.basic.GroupMembership;
 
@@ -26,14 +29,17 @@ import pl.edu.icm.unity.types.basic.GroupMembership;
 public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private static final int MAX_GROUPS_IN_QUERY = 1000;
 	private MembershipJsonSerializer jsonSerializer;
 	private GroupDAO groupDAO;
+	private EntityDataCache entityCache;
 	
 	@Autowired
-	MembershipRDBMSStore(MembershipJsonSerializer jsonSerializer, GroupDAO groupDAO)
+	MembershipRDBMSStore(MembershipJsonSerializer jsonSerializer, GroupDAO groupDAO, EntityDataCache entityCache)
 	{
 		this.jsonSerializer = jsonSerializer;
 		this.groupDAO = groupDAO;
+		this.entityCache = entityCache;
 	}
 
 	@Override
@@ -42,9 +48,27 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
 		GroupElementBean toAdd = jsonSerializer.toDB(obj);
 		StorageLimits.checkContentsLimit(toAdd.getContents());
+		entityCache.entityModified(obj.getEntityId());
 		mapper.create(toAdd);
 	}
 
+	@Override
+	public void createList(List<GroupMembership> memberships)
+	{
+		if (memberships.isEmpty())
+			return;
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		List<GroupElementBean> toAdd = new ArrayList<>(memberships.size());
+		for (GroupMembership membership: memberships)
+		{
+			GroupElementBean bean = jsonSerializer.toDB(membership);
+			StorageLimits.checkContentsLimit(bean.getContents());
+			entityCache.entityModified(membership.getEntityId());
+			toAdd.add(bean);
+		}
+		mapper.createList(toAdd);
+	}
+
 	@Override
 	public void deleteByKey(long entityId, String group)
 	{
@@ -55,6 +79,7 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 		if (byKey == null)
 			throw new IllegalArgumentException("Entity " + entityId + 
 					" is not a member of group " + group);
+		entityCache.entityModified(entityId);
 		mapper.deleteByKey(param);
 	}
 
@@ -70,9 +95,12 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 	@Override
 	public List<GroupMembership> getEntityMembership(long entityId)
 	{
-		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
-		List<GroupElementBean> entityMembershipB = mapper.getEntityMembership(entityId);
-		return deserializeList(entityMembershipB);
+		return entityCache.getMemberships(entityId, () -> 
+		{
+			MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+			List<GroupElementBean> entityMembershipB = mapper.getEntityMembership(entityId);
+			return deserializeList(entityMembershipB);
+		});
 	}
 
 	@Override
@@ -84,6 +112,36 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 		return deserializeList(entityMembershipB);
 	}
 
+	@Override
+	public List<GroupMembership> getMembershipsOfGroupMembers(String group)
+	{
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		long groupId = groupDAO.getKeyForName(group);
+		List<GroupElementBean> membershipsB = mapper.getGroupMembersMemberships(groupId);
+		return deserializeList(membershipsB);
+	}
+
+	@Override
+	public List<GroupMembership> getEntitiesMembership(Collection<Long> entityIds)
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>(0);
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		List<GroupElementBean> membershipsB = mapper.getEntitiesMembership(new ArrayList<>(entityIds));
+		return deserializeList(membershipsB);
+	}
+
+	@Override
+	public long getMembershipsCount(Collection<String> groups)
+	{
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		List<String> all = new ArrayList<>(groups);
+		long ret = 0;
+		for (int i = 0; i < all.size(); i += MAX_GROUPS_IN_QUERY)
+			ret += mapper.getMembershipsCount(all.subList(i, Math.min(i + MAX_GROUPS_IN_QUERY, all.size())));
+		return ret;
+	}
+
 	@Override
 	public List<GroupMembership> getAll()
 	{
@@ -93,6 +151,17 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 	}
 	
 	
+	/**
+	 * As {@link #getAll()} but memberships are passed to the consumer one by one, as they are read 
+	 * from the database.
+	 */
+	@Override
+	public void streamAll(Consumer<GroupMembership> consumer)
+	{
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		mapper.getAll(context -> consumer.accept(jsonSerializer.fromDB(context.getResultObject())));
+	}
+	
 	private List<GroupMembership> deserializeList(List<GroupElementBean> entityMembershipB)
 	{
 		List<GroupMembership> ret = new ArrayList<>(entityMembershipB.size());
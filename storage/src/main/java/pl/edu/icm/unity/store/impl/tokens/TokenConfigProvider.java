@@ -13,7 +13,7 @@ import pl.edu.icm.unity.store.hz.MapConfigProvider;
 
 
 /**
- * Configures tokens map: indices on owner, type and name.
+ * Configures tokens map: indices on owner, type, value and expiration time (ordered).
  * @author K. Benedyczak
  */
 @Component
@@ -31,6 +31,8 @@ public class TokenConfigProvider implements MapConfigProvider
 		mapConfig.addMapIndexConfig(typeIndexCfg);
 		MapIndexConfig valueIndexCfg = new MapIndexConfig("value", false);
 		mapConfig.addMapIndexConfig(valueIndexCfg);
+		MapIndexConfig expiresIndexCfg = new MapIndexConfig("expires", true);
+		mapConfig.addMapIndexConfig(expiresIndexCfg);
 		return mapConfig;
 	}
 }
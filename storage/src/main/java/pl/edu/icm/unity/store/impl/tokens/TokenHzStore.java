@@ -19,10 +19,12 @@ import com.hazelcast.query.PredicateBuilder;
 import pl.edu.icm.unity.base.token.Token;
 import pl.edu.icm.unity.store.api.TokenDAO;
 import pl.edu.icm.unity.store.hz.GenericBasicHzCRUD;
+import pl.edu.icm.unity.store.hz.tx.HzTransactionTL;
 
 
 /**
- * Hazelcast implementation of token store.
+ * Hazelcast implementation of token store. Additionally to the main map, a map from type and value
+ * to the token's key is maintained, so tokens are looked up without queries.
  * 
  * @author K. Benedyczak
  */
@@ -30,6 +32,7 @@ import pl.edu.icm.unity.store.hz.GenericBasicHzCRUD;
 public class TokenHzStore extends GenericBasicHzCRUD<Token> implements TokenDAO
 {
 	public static final String STORE_ID = DAO_ID + "hz";
+	private static final String KEYS_MAP_ID = STORE_ID + "_keys";
 
 	@Autowired
 	public TokenHzStore(TokenRDBMSStore rdbmsDAO)
@@ -37,53 +40,75 @@ public class TokenHzStore extends GenericBasicHzCRUD<Token> implements TokenDAO
 		super(STORE_ID, NAME, TokenRDBMSStore.BEAN, rdbmsDAO);
 	}
 
+	@Override
+	protected long createNoPropagateToRDBMS(Token obj) throws IllegalArgumentException
+	{
+		assertNotExists(obj);
+		long key = super.createNoPropagateToRDBMS(obj);
+		getKeysMap().put(getTokenKey(obj.getType(), obj.getValue()), key);
+		return key;
+	}
+	
+	@Override
+	public void createWithId(long key, Token obj)
+	{
+		assertNotExists(obj);
+		super.createWithId(key, obj);
+		getKeysMap().put(getTokenKey(obj.getType(), obj.getValue()), key);
+	}
+	
+	@Override
+	public void updateByKey(long id, Token obj)
+	{
+		Token old = getMap().get(id);
+		super.updateByKey(id, obj);
+		String oldTokenKey = getTokenKey(old.getType(), old.getValue());
+		String newTokenKey = getTokenKey(obj.getType(), obj.getValue());
+		if (!oldTokenKey.equals(newTokenKey))
+		{
+			TransactionalMap<String, Long> keysMap = getKeysMap();
+			keysMap.remove(oldTokenKey);
+			keysMap.put(newTokenKey, id);
+		}
+	}
+	
+	@Override
+	public Token deleteByKeyRet(long id, boolean fireEvent)
+	{
+		Token removed = super.deleteByKeyRet(id, fireEvent);
+		getKeysMap().remove(getTokenKey(removed.getType(), removed.getValue()));
+		return removed;
+	}
+	
 	@Override
 	public void delete(String type, String id)
 	{
-		PredicateBuilder pBuilder = getPredicate(type, null, id);
-		TransactionalMap<Long, Token> hMap = getMap();
-		Collection<Long> keys = hMap.keySet(pBuilder);
-		if (keys.isEmpty())
-			throw new IllegalArgumentException("Token with key [" + type + "//" + id +
-					"] does not exist");
-		deleteByKey(keys.iterator().next());
+		deleteByKey(getKey(type, id));
 	}
 
 	@Override
 	public void update(Token token)
 	{
-		PredicateBuilder pBuilder = getPredicate(token.getType(), null, token.getValue());
-		TransactionalMap<Long, Token> hMap = getMap();
-		Collection<Long> keys = hMap.keySet(pBuilder);
-		if (keys.isEmpty())
-			throw new IllegalArgumentException("Token with key [" + 
-					token.getType() + "//" + token.getValue() + "] does not exist");
-		updateByKey(keys.iterator().next(), token);
+		updateByKey(getKey(token.getType(), token.getValue()), token);
 	}
 
 	@Override
 	public Token get(String type, String id)
 	{
-		PredicateBuilder pBuilder = getPredicate(type, null, id);
-		TransactionalMap<Long, Token> hMap = getMap();
-		Collection<Token> values = hMap.values(pBuilder);
-		if (values.isEmpty())
-			throw new IllegalArgumentException("Token with key [" + type + "//" + id +
-					"] does not exist");
-		return values.iterator().next();
+		return getMap().get(getKey(type, id));
 	}
 
 	@Override
 	public List<Token> getByType(String type)
 	{
-		PredicateBuilder pBuilder = getPredicate(type, null, null);
+		PredicateBuilder pBuilder = getPredicate(type, null);
 		return getByPredicate(pBuilder);
 	}
 
 	@Override
 	public List<Token> getOwned(String type, long entityId)
 	{
-		PredicateBuilder pBuilder = getPredicate(type, entityId, null);
+		PredicateBuilder pBuilder = getPredicate(type, entityId);
 		return getByPredicate(pBuilder);
 	}
 
@@ -102,7 +127,36 @@ public class TokenHzStore extends GenericBasicHzCRUD<Token> implements TokenDAO
 		return new ArrayList<>(values);
 	}
 	
-	private PredicateBuilder getPredicate(String type, Long owner, String value)
+	private long getKey(String type, String value)
+	{
+		Long key = getKeysMap().get(getTokenKey(type, value));
+		if (key == null)
+			throw new IllegalArgumentException("Token with key [" + type + "//" + value +
+					"] does not exist");
+		return key;
+	}
+
+	private void assertNotExists(Token obj)
+	{
+		if (getKeysMap().containsKey(getTokenKey(obj.getType(), obj.getValue())))
+			throw new IllegalArgumentException("Token with key [" + obj.getType() + "//" + 
+					obj.getValue() + "] already exists");
+	}
+	
+	/**
+	 * Type is prefixed with its length, so that the key is unique for any type and value.
+	 */
+	private static String getTokenKey(String type, String value)
+	{
+		return type.length() + ":" + type + value;
+	}
+	
+	private TransactionalMap<String, Long> getKeysMap()
+	{
+		return HzTransactionTL.getHzContext().getMap(KEYS_MAP_ID);
+	}
+	
+	private PredicateBuilder getPredicate(String type, Long owner)
 	{
 		EntryObject e = new PredicateBuilder().getEntryObject();
 		PredicateBuilder pBuilder = null;
@@ -110,8 +164,6 @@ public class TokenHzStore extends GenericBasicHzCRUD<Token> implements TokenDAO
 			pBuilder = safeAdd(pBuilder, e.get("owner").equal(owner));
 		if (type != null)
 			pBuilder = safeAdd(pBuilder, e.get("type").equal(type));
-		if (value != null)
-			pBuilder = safeAdd(pBuilder, e.get("value").equal(value));
 		return pBuilder;
 	}
 	
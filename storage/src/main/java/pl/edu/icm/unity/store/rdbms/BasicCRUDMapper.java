@@ -6,6 +6,8 @@ package pl.edu.icm.unity.store.rdbms;
 
 import java.util.List;
 
+import org.apache.ibatis.session.ResultHandler;
+
 /**
  * All mappers extend this interface, and those operations are available on all tables.
  * @author K. Benedyczak
@@ -24,6 +26,11 @@ public interface BasicCRUDMapper<BEAN>
 	void deleteAll();
 	
 	List<BEAN> getAll();
+
+	/**
+	 * As {@link #getAll()} but rows are passed to the handler one by one, as they are read.
+	 */
+	void getAll(ResultHandler<BEAN> handler);
 	
 	BEAN getByKey(long key);
 	
@@ -23,6 +23,7 @@ import pl.edu.icm.unity.store.StorageCleanerImpl;
 import pl.edu.icm.unity.store.StorageConfiguration;
 import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.StoreLoaderInternal;
+import pl.edu.icm.unity.store.rdbms.cache.GroupsTreeIndex;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 
 
@@ -42,13 +43,16 @@ public class DB implements StoreLoaderInternal
 	private InitDB initDB;
 
 	private DBSessionManager sessionMan;
+	
+	private GroupsTreeIndex groupsIndex;
 
 	@Autowired
-	public DB(DBSessionManager sessionMan, InitDB initDB, StorageConfiguration cfg) 
-			throws Exception
+	public DB(DBSessionManager sessionMan, InitDB initDB, StorageConfiguration cfg, 
+			GroupsTreeIndex groupsIndex) throws Exception
 	{
 		this.sessionMan = sessionMan;
 		this.initDB = initDB;
+		this.groupsIndex = groupsIndex;
 		if (cfg.getEngine() == StorageEngine.rdbms || cfg.getEngine() == StorageEngine.hz)
 			initialize(cfg);
 	}
@@ -90,6 +94,7 @@ public class DB implements StoreLoaderInternal
 		verifyDBVersion(sessionMan);
 		
 		updateDatabase();
+		initDB.initGroupsRevision();
 		
 		if (config.getBooleanValue(StorageConfiguration.WIPE_DB_AT_STARTUP))
 			initDB.resetDatabase();
@@ -119,7 +124,9 @@ public class DB implements StoreLoaderInternal
 	@Override
 	public void deleteEverything()
 	{
+		groupsIndex.modificationStarted();
 		initDB.deleteEverything(SQLTransactionTL.getSql());
+		groupsIndex.allModified();
 	}
 
 	@Override
@@ -136,7 +143,8 @@ public class DB implements StoreLoaderInternal
 	@Override
 	public void deletePreImport(List<String> contentType)
 	{
+		groupsIndex.modificationStarted();
 		initDB.deletePreImport(SQLTransactionTL.getSql(), contentType);
-		
+		groupsIndex.allModified();
 	}
 }
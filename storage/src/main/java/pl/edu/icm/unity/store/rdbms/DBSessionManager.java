@@ -12,43 +12,76 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import eu.unicore.util.db.DBPropertiesHelper;
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.exceptions.InternalException;
 import pl.edu.icm.unity.store.StorageConfiguration;
 
 
 /**
  * Provides initial MyBatis initialization and support for obtaining MyBatis SqlSessions.
+ * <p>
+ * If a replica database is configured, sessions of read-only transactions are opened on the replica, 
+ * as long as it is allowed by the {@link ReplicaRoutingGuard}.
  * 
  * @author K. Benedyczak
  */
 @Component
 public class DBSessionManager
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, DBSessionManager.class);
+	
 	public static final String DEF_MAPCONFIG_LOCATION = "pl/edu/icm/unity/store/rdbms/mapper/mapconfig.xml";
 
 	public static final int SESSION_KEEP_WARN_TIME = 3000;
 	
 	private SqlSessionFactory sqlMapFactory;
+	private SqlSessionFactory replicaSqlMapFactory;
+	private ReplicaRoutingGuard replicaGuard;
+	private long leakWarningTime;
 
 	@Autowired
 	public DBSessionManager(StorageConfiguration config) 
 			throws InternalException, IOException
 	{
-		sqlMapFactory = loadMybatis(config.getEngineConfig());
+		RDBMSConfiguration rdbmsConfig = config.getEngineConfig();
+		replicaGuard = new ReplicaRoutingGuard(rdbmsConfig.getLongValue(RDBMSConfiguration.REPLICA_MAX_LAG));
+		leakWarningTime = TimeUnit.SECONDS.toMillis(
+				rdbmsConfig.getLongValue(RDBMSConfiguration.CONNECTION_LEAK_WARNING_TIME));
+		Properties properties = getMybatisProperties(rdbmsConfig);
+		sqlMapFactory = loadMybatis(rdbmsConfig, properties);
+		String replicaUrl = rdbmsConfig.getValue(RDBMSConfiguration.REPLICA_URL);
+		if (replicaUrl != null)
+		{
+			properties.setProperty(DBPropertiesHelper.URL, replicaUrl);
+			if (rdbmsConfig.isSet(RDBMSConfiguration.REPLICA_USER))
+				properties.setProperty(DBPropertiesHelper.USER, 
+						rdbmsConfig.getValue(RDBMSConfiguration.REPLICA_USER));
+			if (rdbmsConfig.isSet(RDBMSConfiguration.REPLICA_PASSWORD))
+				properties.setProperty(DBPropertiesHelper.PASSWORD, 
+						rdbmsConfig.getValue(RDBMSConfiguration.REPLICA_PASSWORD));
+			replicaSqlMapFactory = loadMybatis(rdbmsConfig, properties);
+			log.info("Read-only transactions will use the replica database {}", replicaUrl);
+		}
 	}
 	
-	private SqlSessionFactory loadMybatis(RDBMSConfiguration config) throws IOException
+	private SqlSessionFactory loadMybatis(RDBMSConfiguration config, Properties properties) throws IOException
 	{
 		String mapFile = config.getFileValueAsString(RDBMSConfiguration.DBCONFIG_FILE, false);
 		SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
@@ -57,6 +90,13 @@ public class DBSessionManager
 			reader = new FileReader(mapFile);
 		else
 			reader = Resources.getResourceAsReader(DEF_MAPCONFIG_LOCATION);
+		SqlSessionFactory factory = builder.build(reader, properties);
+		factory.getConfiguration().addInterceptor(new WritesTrackingInterceptor(replicaGuard));
+		return factory;
+	}
+	
+	private Properties getMybatisProperties(RDBMSConfiguration config)
+	{
 		Properties properties = new Properties();
 		properties.setProperty(DBPropertiesHelper.DIALECT,
 				config.getValue(DBPropertiesHelper.DIALECT));
@@ -69,7 +109,21 @@ public class DBSessionManager
 		properties.setProperty(DBPropertiesHelper.USER,
 				config.getValue(DBPropertiesHelper.USER));
 		
-		return builder.build(reader, properties);
+		properties.setProperty("poolMaximumActiveConnections", 
+				config.getValue(RDBMSConfiguration.MAX_POOL_SIZE));
+		properties.setProperty("poolMaximumIdleConnections", 
+				config.getValue(RDBMSConfiguration.MAX_IDLE_CONNECTIONS));
+		properties.setProperty("poolMaximumCheckoutTime", String.valueOf(TimeUnit.SECONDS.toMillis(
+				config.getLongValue(RDBMSConfiguration.MAX_CONNECTION_CHECKOUT_TIME))));
+		properties.setProperty("poolTimeToWait", 
+				config.getValue(RDBMSConfiguration.CONNECTION_WAIT_TIME));
+		properties.setProperty("poolPingQuery", 
+				config.getValue(RDBMSConfiguration.VALIDATION_QUERY));
+		long maxIdleTime = config.getLongValue(RDBMSConfiguration.MAX_IDLE_CONNECTION_TIME);
+		properties.setProperty("poolPingEnabled", String.valueOf(maxIdleTime > 0));
+		properties.setProperty("poolPingConnectionsNotUsedFor", 
+				String.valueOf(TimeUnit.SECONDS.toMillis(maxIdleTime)));
+		return properties;
 	}
 
 	public Configuration getMyBatisConfiguration()
@@ -86,4 +140,56 @@ public class DBSessionManager
 	{
 		return sqlMapFactory.openSession(executor, !transactional);
 	}
+	
+	/**
+	 * @return transactional session for a read-only transaction: on the replica database if it is 
+	 * configured and no data was recently modified, otherwise on the primary database.
+	 */
+	public SqlSession getReadOnlySqlSession()
+	{
+		if (replicaSqlMapFactory != null && replicaGuard.canUseReplica())
+			return replicaSqlMapFactory.openSession(ExecutorType.SIMPLE, false);
+		return getSqlSession(true);
+	}
+
+	public boolean isReplicaSession(SqlSession session)
+	{
+		return replicaSqlMapFactory != null 
+				&& session.getConfiguration() == replicaSqlMapFactory.getConfiguration();
+	}
+	
+	/**
+	 * @return time in ms after which a transaction still holding its session should be reported 
+	 * as a possible connection leak, 0 if disabled.
+	 */
+	public long getLeakWarningTime()
+	{
+		return leakWarningTime;
+	}
+	
+	/**
+	 * @return human readable statistics of the connection pools
+	 */
+	public String getPoolStatistics()
+	{
+		String primary = getPoolStatistics(sqlMapFactory);
+		return replicaSqlMapFactory == null ? primary : 
+			"primary: " + primary + "; replica: " + getPoolStatistics(replicaSqlMapFactory);
+	}
+	
+	private static String getPoolStatistics(SqlSessionFactory factory)
+	{
+		DataSource dataSource = factory.getConfiguration().getEnvironment().getDataSource();
+		if (!(dataSource instanceof PooledDataSource))
+			return "not pooled";
+		PoolState state = ((PooledDataSource) dataSource).getPoolState();
+		return String.format("active=%d, idle=%d, requests=%d, avgRequestTime=%dms, "
+				+ "hadToWait=%d, avgWaitTime=%dms, avgCheckoutTime=%dms, claimedOverdue=%d, "
+				+ "badConnections=%d",
+				state.getActiveConnectionCount(), state.getIdleConnectionCount(),
+				state.getRequestCount(), state.getAverageRequestTime(),
+				state.getHadToWaitCount(), state.getAverageWaitTime(), 
+				state.getAverageCheckoutTime(), state.getClaimedOverdueConnectionCount(),
+				state.getBadConnectionCount());
+	}
 }
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import pl.edu.icm.unity.store.ReferenceAwareDAO;
 import pl.edu.icm.unity.store.ReferenceRemovalHandler;
@@ -132,6 +133,17 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		return convertList(allInDB);
 	}
 	
+	/**
+	 * As {@link #getAll()} but elements are passed to the consumer one by one, as they are read 
+	 * from the database, so the whole table is never held in memory.
+	 */
+	@Override
+	public void streamAll(Consumer<T> consumer)
+	{
+		BasicCRUDMapper<DBT> mapper = SQLTransactionTL.getSql().getMapper(mapperClass);
+		mapper.getAll(context -> consumer.accept(jsonSerializer.fromDB(context.getResultObject())));
+	}
+	
 	@Override
 	public long getCount()
 	{
@@ -193,6 +193,25 @@ public class InitDB
 			session.close();
 			log.info("Initialized DB schema");
 		}
+		initGroupsRevision();
+	}
+	
+	/**
+	 * Creates the groups revision table, if it is missing. The table is not a part of the versioned 
+	 * schema, as it holds no data which is exported or migrated.
+	 */
+	public void initGroupsRevision()
+	{
+		SqlSession session = db.getSqlSession(false);
+		try
+		{
+			session.update("createGroupsRevision");
+			if (session.selectOne("getGroupsRevision") == null)
+				session.insert("initGroupsRevision");
+		} finally
+		{
+			session.close();
+		}
 	}
 	
 	private void createRootGroup(SqlSession session)
@@ -35,8 +35,18 @@ public class RDBMSConfiguration extends PropertiesHelper
 	public static final String MAX_POOL_SIZE = "maxConnectionPoolSize";
 	public static final String MIN_POOL_SIZE = "minConnectionPoolSize";
 	public static final String MAX_IDLE_CONNECTION_TIME = "maxIdleConnectionLifetime";
-	private static final String CACHE_MAX_ENTRIES = "cacheMaxEntries";
-	private static final String CACHE_TTL = "cacheTTL";
+	public static final String CACHE_MAX_ENTRIES = "cacheMaxEntries";
+	public static final String CACHE_TTL = "cacheTTL";
+	public static final String GROUPS_INDEX = "groupsIndex";
+	public static final String MAX_IDLE_CONNECTIONS = "maxIdleConnections";
+	public static final String CONNECTION_WAIT_TIME = "connectionWaitTime";
+	public static final String MAX_CONNECTION_CHECKOUT_TIME = "maxConnectionCheckoutTime";
+	public static final String VALIDATION_QUERY = "connectionValidationQuery";
+	public static final String CONNECTION_LEAK_WARNING_TIME = "connectionLeakWarningTime";
+	public static final String REPLICA_URL = "replicaJdbcUrl";
+	public static final String REPLICA_USER = "replicaUsername";
+	public static final String REPLICA_PASSWORD = "replicaPassword";
+	public static final String REPLICA_MAX_LAG = "replicaMaxLag";
 	
 	@DocumentationReferenceMeta
 	public static final Map<String, PropertyMD> META;
@@ -46,19 +56,62 @@ public class RDBMSConfiguration extends PropertiesHelper
 				Dialect.h2, "");
 		META.put(DBCONFIG_FILE, new PropertyMD().setPath().setHidden().
 				setDescription("Path of the low level database file with mappings configuration."));
-		META.put(MAX_IDLE_CONNECTION_TIME, new PropertyMD("1800").
+		META.put(MAX_IDLE_CONNECTION_TIME, new PropertyMD("600").setNonNegative().
 				setDescription("Time in seconds after which an idle connection "
-						+ "is closed (and recreated if needed). Set to 0 to disable. "
+						+ "is validated before being used, and closed (and recreated) if broken. "
+						+ "Set to 0 to disable. "
 						+ "This setting is needed if stale connections become unoperational "
 						+ "what unfortunately do happen."));
-		META.put(MAX_POOL_SIZE, new PropertyMD("10").
+		META.put(MAX_POOL_SIZE, new PropertyMD("20").setPositive().
 				setDescription("Maximum number of DB connections allowed in pool"));
+		META.put(MAX_IDLE_CONNECTIONS, new PropertyMD("10").setNonNegative().
+				setDescription("Maximum number of idle DB connections kept in pool"));
+		META.put(CONNECTION_WAIT_TIME, new PropertyMD("500").setPositive().
+				setDescription("Time in milliseconds after which a thread waiting for a free connection "
+						+ "from the exhausted pool retries, logging the pool state."));
+		META.put(MAX_CONNECTION_CHECKOUT_TIME, new PropertyMD("200").setPositive().
+				setDescription("Time in seconds after which a connection checked out from the pool "
+						+ "can be forcibly reclaimed, if the pool is exhausted."));
+		META.put(VALIDATION_QUERY, new PropertyMD("select 1 from IDENTITY_TYPES").
+				setDescription("Query used to validate idle connections."));
+		META.put(CONNECTION_LEAK_WARNING_TIME, new PropertyMD("60").setNonNegative().
+				setDescription("Time in seconds after which a transaction which still holds its "
+						+ "DB connection is logged as a possible connection leak, together with "
+						+ "the stack trace of its thread and the pool statistics. "
+						+ "Open transactions are checked periodically. Set to 0 to disable."));
+		META.put(REPLICA_URL, new PropertyMD().
+				setDescription("JDBC URL of a read-only replica of the database. If set, "
+						+ "transactions marked as read-only are executed on the replica, unless "
+						+ "data was modified by this server within the " + REPLICA_MAX_LAG + " period. "
+						+ "Modifications made by other servers using the same database are not taken "
+						+ "into account. Used only with the rdbms storage engine."));
+		META.put(REPLICA_USER, new PropertyMD().
+				setDescription("Database username of the replica. If unset the primary database "
+						+ "username is used."));
+		META.put(REPLICA_PASSWORD, new PropertyMD().setSecret().
+				setDescription("Database password of the replica. If unset the primary database "
+						+ "password is used."));
+		META.put(REPLICA_MAX_LAG, new PropertyMD("5").setNonNegative().
+				setDescription("Maximum expected replication delay in seconds. Read-only transactions "
+						+ "are executed on the primary database for this time after each modification."));
 		META.put(MIN_POOL_SIZE, new PropertyMD("1").
 				setDescription("Minimum number of DB connections to be kept in pool"));
-		META.put(CACHE_MAX_ENTRIES, new PropertyMD("-1").setDeprecated().
-				setDescription("Not used anymore - please remove from configuration"));
-		META.put(CACHE_TTL, new PropertyMD("-1").setDeprecated().
-				setDescription("Not used anymore - please remove from configuration"));
+		META.put(CACHE_MAX_ENTRIES, new PropertyMD("-1").
+				setDescription("Maximum number of entities for which attributes, group memberships "
+						+ "and identities are cached in memory. Set to a non-positive value to "
+						+ "disable the cache. The cache is local to the server process, "
+						+ "so it must not be enabled when more than one Unity instance "
+						+ "uses the same database. Used only with the rdbms storage engine."));
+		META.put(CACHE_TTL, new PropertyMD("-1").
+				setDescription("Time in seconds after which cached entity data is reloaded from "
+						+ "the database, regardless of its modifications. "
+						+ "Set to a non-positive value to disable expiration."));
+		META.put(GROUPS_INDEX, new PropertyMD("true").
+				setDescription("If enabled the groups hierarchy is kept in memory, so that "
+						+ "subgroups of a group are found without reading all groups. "
+						+ "Changes of groups made by other Unity instances using the same database "
+						+ "are detected at the beginning of each transaction, with a cheap query. "
+						+ "Used only with the rdbms storage engine."));
 	}
 	
 	public RDBMSConfiguration(Properties src) throws ConfigurationException
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-your-writes guard of the replica database: read-only transactions may use the replica only if
+ * no data was modified by this server within the maximum replication lag.
+ * Modifications made by other servers using the same database are not tracked.
+ */
+class ReplicaRoutingGuard
+{
+	private final long maxLagNanos;
+	private final LongSupplier clock;
+	private final AtomicLong lastWrite;
+
+	ReplicaRoutingGuard(long maxLagSeconds)
+	{
+		this(maxLagSeconds, System::nanoTime);
+	}
+
+	ReplicaRoutingGuard(long maxLagSeconds, LongSupplier clock)
+	{
+		this.maxLagNanos = TimeUnit.SECONDS.toNanos(maxLagSeconds);
+		this.clock = clock;
+		this.lastWrite = new AtomicLong(clock.getAsLong());
+	}
+
+	/**
+	 * Should be invoked whenever data is modified and when the modification is committed.
+	 */
+	void writePerformed()
+	{
+		lastWrite.set(clock.getAsLong());
+	}
+
+	boolean canUseReplica()
+	{
+		return clock.getAsLong() - lastWrite.get() > maxLagNanos;
+	}
+}
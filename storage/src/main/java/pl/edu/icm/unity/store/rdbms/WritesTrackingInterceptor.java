@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionState;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.store.tx.TransactionsState;
+
+/**
+ * MyBatis plugin which rejects modifications in read-only transactions and reports all
+ * other modifications (and their commits) to the {@link ReplicaRoutingGuard}.
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+class WritesTrackingInterceptor implements Interceptor
+{
+	private final ReplicaRoutingGuard guard;
+
+	WritesTrackingInterceptor(ReplicaRoutingGuard guard)
+	{
+		this.guard = guard;
+	}
+
+	@Override
+	public Object intercept(Invocation invocation) throws Throwable
+	{
+		TransactionsState<SQLTransactionState> transactionsStack = SQLTransactionTL.getState();
+		if (!transactionsStack.isEmpty())
+		{
+			SQLTransactionState root = transactionsStack.getRootTransaction();
+			if (root.isReadOnly())
+				throw new IllegalStateException("Data can not be modified in a read-only transaction, "
+						+ "statement: " + ((MappedStatement) invocation.getArgs()[0]).getId());
+			if (!root.isModified())
+			{
+				root.setModified();
+				root.addPostCommitAction(guard::writePerformed);
+			}
+		}
+		guard.writePerformed();
+		return invocation.proceed();
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.CachingDAO;
+import pl.edu.icm.unity.store.StorageConfiguration;
+import pl.edu.icm.unity.store.StorageEngine;
+import pl.edu.icm.unity.store.impl.attributetype.AttributeTypeRDBMSStore;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
+import pl.edu.icm.unity.store.impl.groups.GroupRDBMSStore;
+import pl.edu.icm.unity.store.impl.identitytype.IdentityTypeRDBMSStore;
+import pl.edu.icm.unity.store.rdbms.RDBMSConfiguration;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionState;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.store.types.StoredAttribute;
+import pl.edu.icm.unity.store.types.StoredIdentity;
+import pl.edu.icm.unity.types.basic.GroupMembership;
+
+/**
+ * In-memory cache of attributes, group memberships and identities of entities, used by the RDBMS stores.
+ * Enabled only with the rdbms storage engine, when {@link RDBMSConfiguration#CACHE_MAX_ENTRIES} is positive.
+ * <p>
+ * The cache is transaction aware:
+ * <ul>
+ * <li>data of an entity which was modified in the current transaction is always read from DB,
+ * <li>modified entities are invalidated after the modifying transaction is finished, either committed
+ * or rolled back,
+ * <li>data of an entity is not put into the cache while any other transaction has uncommitted modifications
+ * of it: with the READ_UNCOMMITTED isolation level such data could be rolled back later,
+ * <li>data is put into the cache only by transactions started after the last invalidation, so a transaction
+ * which could see an outdated DB snapshot never populates the cache,
+ * <li>data read from the replica database, which can lag behind the primary one, is never put into the cache.
+ * </ul>
+ * Modifications which affect many entities (group rename or removal, change of attribute or identity type)
+ * invalidate the whole cache. Cached objects are never exposed, callers always get copies.
+ * <p>
+ * The cache is local to the JVM, so it must not be used if the DB is shared by many Unity instances.
+ */
+@Component
+public class EntityDataCache implements CachingDAO
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, EntityDataCache.class);
+
+	private final boolean enabled;
+	private final Cache<Long, List<StoredAttribute>> attributes;
+	private final Cache<Long, List<GroupMembership>> memberships;
+	private final Cache<Long, List<StoredIdentity>> identities;
+	private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+	private final ConcurrentMap<Long, Integer> pendingModifications = new ConcurrentHashMap<>();
+	private final AtomicInteger pendingAllModifications = new AtomicInteger();
+	private final ThreadLocal<TransactionView> transactionView = new ThreadLocal<>();
+	private volatile long lastInvalidation = System.nanoTime();
+
+	@Autowired
+	public EntityDataCache(StorageConfiguration storageConfig, GroupRDBMSStore groupDAO, EntityRDBMSStore entityDAO,
+			AttributeTypeRDBMSStore attributeTypeDAO, IdentityTypeRDBMSStore identityTypeDAO)
+	{
+		this(getMaxEntries(storageConfig), getTTL(storageConfig));
+		entityDAO.addRemovalHandler((id, name) -> entityModified(id));
+		groupDAO.addRemovalHandler((id, name) -> allModified());
+		groupDAO.addUpdateHandler(update -> {
+			if (!update.oldValue.getName().equals(update.newValue.getName()))
+				allModified();
+		});
+		attributeTypeDAO.addRemovalHandler((id, name) -> allModified());
+		attributeTypeDAO.addUpdateHandler(update -> allModified());
+		identityTypeDAO.addRemovalHandler((id, name) -> allModified());
+		identityTypeDAO.addUpdateHandler(update -> allModified());
+	}
+
+	EntityDataCache(int maxEntries, int ttl)
+	{
+		this.enabled = maxEntries > 0;
+		this.attributes = createCache(maxEntries, ttl);
+		this.memberships = createCache(maxEntries, ttl);
+		this.identities = createCache(maxEntries, ttl);
+		if (enabled)
+			log.info("Entities data cache is enabled, max entries: {}, TTL: {}s", maxEntries, ttl);
+	}
+
+	private static int getMaxEntries(StorageConfiguration storageConfig)
+	{
+		if (storageConfig.getEngine() != StorageEngine.rdbms)
+			return 0;
+		RDBMSConfiguration rdbmsConfig = storageConfig.getEngineConfig();
+		return rdbmsConfig.getIntValue(RDBMSConfiguration.CACHE_MAX_ENTRIES);
+	}
+
+	private static int getTTL(StorageConfiguration storageConfig)
+	{
+		if (storageConfig.getEngine() != StorageEngine.rdbms)
+			return 0;
+		RDBMSConfiguration rdbmsConfig = storageConfig.getEngineConfig();
+		return rdbmsConfig.getIntValue(RDBMSConfiguration.CACHE_TTL);
+	}
+
+	private static <T> Cache<Long, List<T>> createCache(int maxEntries, int ttl)
+	{
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+				.maximumSize(Math.max(maxEntries, 0));
+		if (ttl > 0)
+			builder.expireAfterWrite(ttl, TimeUnit.SECONDS);
+		return builder.build();
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * @param filter selects returned attributes, applied before copying
+	 * @param loader loads all attributes of the entity from DB
+	 */
+	public List<StoredAttribute> getAttributes(long entityId, Predicate<StoredAttribute> filter,
+			Supplier<List<StoredAttribute>> loader)
+	{
+		return get(attributes, entityId, filter, loader, StoredAttribute::new);
+	}
+
+	public List<GroupMembership> getMemberships(long entityId, Supplier<List<GroupMembership>> loader)
+	{
+		return get(memberships, entityId, membership -> true, loader, GroupMembership::new);
+	}
+
+	public List<StoredIdentity> getIdentities(long entityId, Supplier<List<StoredIdentity>> loader)
+	{
+		return get(identities, entityId, identity -> true, loader, StoredIdentity::clone);
+	}
+
+	/**
+	 * Marks data of the given entity as modified in the current transaction. Entity's data won't be cached
+	 * by any transaction till the end of the transaction and is invalidated afterwards.
+	 */
+	public void entityModified(long entityId)
+	{
+		if (!enabled)
+			return;
+		TransactionView view = getTransactionView();
+		if (view.modifiedEntities.add(entityId))
+			pendingModifications.merge(entityId, 1, Integer::sum);
+		registerCompletion(view);
+	}
+
+	/**
+	 * Marks data of all entities as modified in the current transaction. The cache is not used till the end
+	 * of the transaction and is cleared afterwards.
+	 */
+	public void allModified()
+	{
+		if (!enabled)
+			return;
+		TransactionView view = getTransactionView();
+		if (!view.allModified)
+		{
+			view.allModified = true;
+			pendingAllModifications.incrementAndGet();
+		}
+		registerCompletion(view);
+	}
+
+	@Override
+	public void invalidateCache()
+	{
+		invalidate(null);
+	}
+
+	private <T> List<T> get(Cache<Long, List<T>> cache, long entityId, Predicate<T> filter,
+			Supplier<List<T>> loader, UnaryOperator<T> copier)
+	{
+		if (!enabled)
+			return filter(loader.get(), filter, UnaryOperator.identity());
+		TransactionView view = getTransactionView();
+		if (view.isModified(entityId))
+			return filter(loader.get(), filter, UnaryOperator.identity());
+		List<T> cached = cache.getIfPresent(entityId);
+		if (cached != null)
+			return filter(cached, filter, copier);
+		List<T> loaded = loader.get();
+		putIfNotOutdated(cache, entityId, filter(loaded, e -> true, copier), view);
+		return filter(loaded, filter, UnaryOperator.identity());
+	}
+
+	private <T> void putIfNotOutdated(Cache<Long, List<T>> cache, long entityId, List<T> value,
+			TransactionView view)
+	{
+		if (view.transaction.isOnReplica())
+			return;
+		invalidationLock.readLock().lock();
+		try
+		{
+			if (view.startTime - lastInvalidation > 0
+					&& pendingAllModifications.get() == 0
+					&& !pendingModifications.containsKey(entityId))
+				cache.put(entityId, value);
+		} finally
+		{
+			invalidationLock.readLock().unlock();
+		}
+	}
+
+	private void registerCompletion(TransactionView view)
+	{
+		if (view.completionRegistered)
+			return;
+		view.completionRegistered = true;
+		view.transaction.addCompletionAction(() -> transactionFinished(view));
+	}
+
+	/**
+	 * Invalidation goes first, so readers which checked the pending modifications before they are
+	 * released are already outdated.
+	 */
+	private void transactionFinished(TransactionView view)
+	{
+		invalidate(view.allModified ? null : view.modifiedEntities);
+		for (Long entityId: view.modifiedEntities)
+			pendingModifications.computeIfPresent(entityId, (id, count) -> count > 1 ? count - 1 : null);
+		if (view.allModified)
+			pendingAllModifications.decrementAndGet();
+	}
+
+	private void invalidate(Collection<Long> entities)
+	{
+		invalidationLock.writeLock().lock();
+		try
+		{
+			lastInvalidation = System.nanoTime();
+			if (entities == null)
+			{
+				attributes.invalidateAll();
+				memberships.invalidateAll();
+				identities.invalidateAll();
+			} else
+			{
+				attributes.invalidateAll(entities);
+				memberships.invalidateAll(entities);
+				identities.invalidateAll(entities);
+			}
+		} finally
+		{
+			invalidationLock.writeLock().unlock();
+		}
+	}
+
+	private TransactionView getTransactionView()
+	{
+		SQLTransactionState transaction = SQLTransactionTL.getState().getRootTransaction();
+		TransactionView view = transactionView.get();
+		if (view == null || view.transaction != transaction)
+		{
+			view = new TransactionView(transaction);
+			transactionView.set(view);
+		}
+		return view;
+	}
+
+	private static <T> List<T> filter(List<T> source, Predicate<T> filter, UnaryOperator<T> copier)
+	{
+		List<T> ret = new ArrayList<>(source.size());
+		for (T element: source)
+			if (filter.test(element))
+				ret.add(copier.apply(element));
+		return ret;
+	}
+
+	/**
+	 * Cache related state of a single (root) transaction.
+	 */
+	private static class TransactionView
+	{
+		private final SQLTransactionState transaction;
+		private final long startTime;
+		private final Set<Long> modifiedEntities = new HashSet<>();
+		private boolean allModified;
+		private boolean completionRegistered;
+
+		TransactionView(SQLTransactionState transaction)
+		{
+			this.transaction = transaction;
+			this.startTime = transaction.getStartTime();
+		}
+
+		boolean isModified(long entityId)
+		{
+			return allModified || modifiedEntities.contains(entityId);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import org.apache.ibatis.session.SqlSession;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+
+/**
+ * Revision of groups stored in DB, incremented by each transaction which modifies groups. Together with
+ * the number of groups it is a cheap indicator that groups were changed, also by other Unity instances
+ * using the same database.
+ * <p>
+ * The revision is kept in a separate, single row table, which is created on startup if missing.
+ * All methods must be invoked in a RDBMS transaction.
+ */
+@Component
+class GroupsRevision
+{
+	/**
+	 * Increments the revision. The row is locked till the end of the current transaction, so
+	 * subsequent modifications of groups are serialized.
+	 * @return the new revision, valid after commit of the current transaction
+	 */
+	long increment()
+	{
+		SqlSession sql = SQLTransactionTL.getSql();
+		sql.update("incrementGroupsRevision");
+		return sql.selectOne("getGroupsRevision");
+	}
+
+	long get()
+	{
+		Long revision = SQLTransactionTL.getSql().selectOne("getGroupsRevision");
+		return revision == null ? 0 : revision;
+	}
+
+	long getGroupsCount()
+	{
+		return SQLTransactionTL.getSql().selectOne("getGroupsCount");
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tree of group paths, indexed by path segments. Each node keeps the number of its descendants, so
+ * all queries cost is proportional to the depth of the queried group or to the size of the returned result,
+ * regardless of the total number of groups.
+ * <p>
+ * Modification methods return false when the requested change is inconsistent with the tree contents
+ * (e.g. an added group already exists or its parent is missing).
+ * <p>
+ * Not thread safe.
+ */
+public class GroupsTree
+{
+	private static final String ROOT = "/";
+	private Node root;
+
+	static GroupsTree build(Collection<String> paths)
+	{
+		List<String> sorted = new ArrayList<>(paths);
+		sorted.sort(Comparator.comparingInt(String::length));
+		GroupsTree tree = new GroupsTree();
+		for (String path: sorted)
+			if (!tree.add(path))
+				throw new IllegalStateException("Group " + path + " has no parent group");
+		return tree;
+	}
+
+	boolean add(String path)
+	{
+		if (ROOT.equals(path))
+		{
+			if (root != null)
+				return false;
+			root = new Node(null, null);
+			return true;
+		}
+		String[] segments = split(path);
+		if (segments == null)
+			return false;
+		Node parent = find(segments, segments.length - 1);
+		String name = segments[segments.length - 1];
+		if (parent == null || parent.getChild(name) != null)
+			return false;
+		parent.addChild(new Node(parent, name));
+		for (Node ancestor = parent; ancestor != null; ancestor = ancestor.parent)
+			ancestor.descendants++;
+		return true;
+	}
+
+	/**
+	 * Removes the group with all its descendants.
+	 */
+	boolean remove(String path)
+	{
+		Node node = find(path);
+		if (node == null)
+			return false;
+		if (node == root)
+		{
+			root = null;
+			return true;
+		}
+		node.parent.children.remove(node.name);
+		for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent)
+			ancestor.descendants -= node.descendants + 1;
+		return true;
+	}
+
+	/**
+	 * Changes the last segment of the group path. Paths of all descendants are updated implicitly.
+	 */
+	boolean rename(String path, String newPath)
+	{
+		Node node = find(path);
+		String[] newSegments = split(newPath);
+		if (node == null || node == root || newSegments == null
+				|| find(newSegments, newSegments.length - 1) != node.parent)
+			return false;
+		String newName = newSegments[newSegments.length - 1];
+		if (node.parent.getChild(newName) != null)
+			return false;
+		node.parent.children.remove(node.name);
+		node.name = newName;
+		node.parent.addChild(node);
+		return true;
+	}
+
+	/**
+	 * @return paths of direct subgroups of the given group, empty if the group doesn't exist
+	 */
+	public List<String> getChildren(String path)
+	{
+		Node node = find(path);
+		if (node == null || node.children == null)
+			return new ArrayList<>();
+		List<String> ret = new ArrayList<>(node.children.size());
+		for (Node child: node.children.values())
+			ret.add(childPath(path, child.name));
+		return ret;
+	}
+
+	/**
+	 * @return paths of all groups in the subtree of the given group, without the group itself.
+	 * Empty if the group doesn't exist.
+	 */
+	public Set<String> getDescendants(String path)
+	{
+		Node node = find(path);
+		if (node == null)
+			return new HashSet<>();
+		Set<String> ret = new HashSet<>(node.descendants * 4 / 3 + 1);
+		Deque<Node> nodes = new ArrayDeque<>();
+		Deque<String> paths = new ArrayDeque<>();
+		nodes.push(node);
+		paths.push(path);
+		while (!nodes.isEmpty())
+		{
+			Node current = nodes.pop();
+			String currentPath = paths.pop();
+			if (current.children == null)
+				continue;
+			for (Node child: current.children.values())
+			{
+				String descendantPath = childPath(currentPath, child.name);
+				ret.add(descendantPath);
+				nodes.push(child);
+				paths.push(descendantPath);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return number of groups in the subtree of the given group, without the group itself.
+	 * 0 if the group doesn't exist.
+	 */
+	public int getDescendantsCount(String path)
+	{
+		Node node = find(path);
+		return node == null ? 0 : node.descendants;
+	}
+
+	/**
+	 * @return number of all groups in the tree
+	 */
+	public int size()
+	{
+		return root == null ? 0 : root.descendants + 1;
+	}
+
+	/**
+	 * @return paths of all ancestors of the given group, starting from the root group.
+	 * Empty if the group doesn't exist.
+	 */
+	public List<String> getAncestors(String path)
+	{
+		if (ROOT.equals(path) || find(path) == null)
+			return new ArrayList<>();
+		String[] segments = split(path);
+		List<String> ret = new ArrayList<>(segments.length);
+		String ancestor = ROOT;
+		ret.add(ancestor);
+		for (int i = 0; i < segments.length - 1; i++)
+		{
+			ancestor = childPath(ancestor, segments[i]);
+			ret.add(ancestor);
+		}
+		return ret;
+	}
+
+	private Node find(String path)
+	{
+		if (ROOT.equals(path))
+			return root;
+		String[] segments = split(path);
+		return segments == null ? null : find(segments, segments.length);
+	}
+
+	private Node find(String[] segments, int depth)
+	{
+		Node current = root;
+		for (int i = 0; i < depth && current != null; i++)
+			current = current.getChild(segments[i]);
+		return current;
+	}
+
+	private static String[] split(String path)
+	{
+		if (path == null || path.length() < 2 || !path.startsWith(ROOT))
+			return null;
+		return path.substring(1).split(ROOT);
+	}
+
+	private static String childPath(String parentPath, String name)
+	{
+		return ROOT.equals(parentPath) ? ROOT + name : parentPath + ROOT + name;
+	}
+
+	private static class Node
+	{
+		private final Node parent;
+		private String name;
+		private Map<String, Node> children;
+		private int descendants;
+
+		Node(Node parent, String name)
+		{
+			this.parent = parent;
+			this.name = name;
+		}
+
+		Node getChild(String name)
+		{
+			return children == null ? null : children.get(name);
+		}
+
+		void addChild(Node child)
+		{
+			if (children == null)
+				children = new HashMap<>();
+			children.put(child.name, child);
+		}
+	}
+}
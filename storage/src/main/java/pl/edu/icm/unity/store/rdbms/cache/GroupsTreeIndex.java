@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.CachingDAO;
+import pl.edu.icm.unity.store.StorageConfiguration;
+import pl.edu.icm.unity.store.StorageEngine;
+import pl.edu.icm.unity.store.api.tx.TxManager;
+import pl.edu.icm.unity.store.rdbms.RDBMSConfiguration;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionState;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+
+/**
+ * In-memory {@link GroupsTree} of all groups, used by the RDBMS groups store to answer hierarchy queries
+ * without reading all groups. Enabled only with the rdbms storage engine,
+ * when {@link RDBMSConfiguration#GROUPS_INDEX} is set (the default).
+ * <p>
+ * The index is loaded lazily and then maintained incrementally:
+ * <ul>
+ * <li>a transaction which modified groups doesn't use the index till its end,
+ * <li>group changes made in a transaction are applied to the index after commit,
+ * if any change can't be applied the index is dropped and loaded again when needed,
+ * <li>the index is not installed while any transaction has uncommitted group changes: with the
+ * READ_UNCOMMITTED isolation level the loaded groups could include changes which are rolled back later,
+ * <li>the index is installed only by transactions started after the last modification, so a transaction
+ * which could see an outdated DB snapshot never installs it,
+ * <li>groups read from the replica database, which can lag behind the primary one, are never installed.
+ * </ul>
+ * Each transaction which modifies groups increments the {@link GroupsRevision} stored in DB, also when the index
+ * is disabled. The index remembers the revision it reflects. Before the index is used for the first time
+ * in a transaction, the revision and the number of groups are read from DB, and if any of them differs,
+ * groups were changed by another Unity instance sharing the DB: the index is dropped and loaded again.
+ */
+@Component
+public class GroupsTreeIndex implements CachingDAO
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, GroupsTreeIndex.class);
+
+	private final boolean enabled;
+	private final boolean revisionTracked;
+	private final GroupsRevision groupsRevision;
+	private final TxManager txManager;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ThreadLocal<TransactionView> transactionView = new ThreadLocal<>();
+	private GroupsTree tree;
+	private long treeRevision;
+	private long lastModification = System.nanoTime();
+	private int pendingModifications;
+
+	@Autowired
+	public GroupsTreeIndex(StorageConfiguration storageConfig, GroupsRevision groupsRevision, TxManager txManager)
+	{
+		this(storageConfig.getEngine() == StorageEngine.rdbms, isEnabled(storageConfig), groupsRevision, txManager);
+	}
+
+	GroupsTreeIndex(boolean revisionTracked, boolean enabled, GroupsRevision groupsRevision, TxManager txManager)
+	{
+		this.revisionTracked = revisionTracked;
+		this.enabled = revisionTracked && enabled;
+		this.groupsRevision = groupsRevision;
+		this.txManager = txManager;
+	}
+
+	private static boolean isEnabled(StorageConfiguration storageConfig)
+	{
+		if (storageConfig.getEngine() != StorageEngine.rdbms)
+			return false;
+		RDBMSConfiguration rdbmsConfig = storageConfig.getEngineConfig();
+		return rdbmsConfig.getBooleanValue(RDBMSConfiguration.GROUPS_INDEX);
+	}
+
+	/**
+	 * @param loader loads paths of all groups from DB
+	 * @param query evaluated on the index
+	 * @param fallback used when the index can not be used in the current transaction
+	 */
+	public <T> T query(Supplier<Collection<String>> loader, Function<GroupsTree, T> query,
+			Supplier<T> fallback)
+	{
+		if (!enabled)
+			return fallback.get();
+		TransactionView view = getTransactionView();
+		if (view.modifying)
+			return fallback.get();
+		verifyRevision(view);
+		lock.readLock().lock();
+		try
+		{
+			if (tree != null)
+				return query.apply(tree);
+		} finally
+		{
+			lock.readLock().unlock();
+		}
+		GroupsTree loaded = GroupsTree.build(loader.get());
+		T ret = query.apply(loaded);
+		installIfNotOutdated(loaded, view);
+		return ret;
+	}
+
+	public void groupAdded(String path)
+	{
+		modified(tree -> tree.add(path));
+	}
+
+	/**
+	 * Removal of the group implies removal of all its descendants.
+	 */
+	public void groupRemoved(String path)
+	{
+		modified(tree -> tree.remove(path));
+	}
+
+	/**
+	 * Rename of the group implies update of all its descendants.
+	 */
+	public void groupRenamed(String oldPath, String newPath)
+	{
+		modified(tree -> tree.rename(oldPath, newPath));
+	}
+
+	/**
+	 * Must be invoked before groups are modified in DB, so that no other transaction installs the index
+	 * till the end of the current one. The modification itself is reported afterwards.
+	 */
+	public void modificationStarted()
+	{
+		if (!revisionTracked)
+			return;
+		TransactionView view = getTransactionView();
+		if (view.modifying)
+			return;
+		view.modifying = true;
+		view.revision = groupsRevision.increment();
+		if (!enabled)
+			return;
+		lock.writeLock().lock();
+		try
+		{
+			pendingModifications++;
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+		view.transaction.addCompletionAction(this::modificationFinished);
+	}
+
+	/**
+	 * Marks all groups as modified, the index is dropped after commit.
+	 */
+	public void allModified()
+	{
+		modified(tree -> false);
+	}
+
+	@Override
+	public void invalidateCache()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			tree = null;
+			lastModification = System.nanoTime();
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void modified(Predicate<GroupsTree> change)
+	{
+		if (!enabled)
+			return;
+		modificationStarted();
+		TransactionView view = getTransactionView();
+		if (view.changes.isEmpty())
+			txManager.addPostCommitAction(() -> applyChanges(view.changes, view.revision));
+		view.changes.add(change);
+	}
+
+	/**
+	 * Drops the index if groups were changed by another Unity instance. Performed once per transaction,
+	 * not on the replica database, as it may lag behind.
+	 */
+	private void verifyRevision(TransactionView view)
+	{
+		if (view.verified || view.transaction.isOnReplica())
+			return;
+		view.verified = true;
+		view.revision = groupsRevision.get();
+		long groupsCount = groupsRevision.getGroupsCount();
+		lock.writeLock().lock();
+		try
+		{
+			if (tree != null && (treeRevision != view.revision || tree.size() != groupsCount))
+			{
+				log.debug("Groups were modified outside of this instance, groups index will be reloaded");
+				tree = null;
+			}
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Invoked when a modifying transaction is finished, either committed or rolled back.
+	 */
+	private void modificationFinished()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			lastModification = System.nanoTime();
+			pendingModifications--;
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void applyChanges(List<Predicate<GroupsTree>> changes, long revision)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			lastModification = System.nanoTime();
+			if (tree == null)
+				return;
+			if (treeRevision != revision - 1)
+			{
+				log.debug("Groups index is missing concurrent changes, it will be reloaded");
+				tree = null;
+				return;
+			}
+			for (Predicate<GroupsTree> change: changes)
+			{
+				if (!change.test(tree))
+				{
+					log.debug("Groups index is out of sync with committed changes, it will be reloaded");
+					tree = null;
+					return;
+				}
+			}
+			treeRevision = revision;
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void installIfNotOutdated(GroupsTree loaded, TransactionView view)
+	{
+		if (view.transaction.isOnReplica())
+			return;
+		lock.writeLock().lock();
+		try
+		{
+			if (tree == null && pendingModifications == 0 && view.startTime - lastModification > 0)
+			{
+				tree = loaded;
+				treeRevision = view.revision;
+				log.debug("Groups index loaded");
+			}
+		} finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private TransactionView getTransactionView()
+	{
+		SQLTransactionState transaction = SQLTransactionTL.getState().getRootTransaction();
+		TransactionView view = transactionView.get();
+		if (view == null || view.transaction != transaction)
+		{
+			view = new TransactionView(transaction);
+			transactionView.set(view);
+		}
+		return view;
+	}
+
+	/**
+	 * Index related state of a single (root) transaction.
+	 */
+	private static class TransactionView
+	{
+		private final SQLTransactionState transaction;
+		private final long startTime;
+		private final List<Predicate<GroupsTree>> changes = new ArrayList<>();
+		private boolean modifying;
+		private boolean verified;
+		private long revision;
+
+		TransactionView(SQLTransactionState transaction)
+		{
+			this.transaction = transaction;
+			this.startTime = transaction.getStartTime();
+		}
+	}
+}
@@ -0,0 +1,9 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+
+/**
+ * In-memory, transaction aware caching of data read by RDBMS DAOs.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
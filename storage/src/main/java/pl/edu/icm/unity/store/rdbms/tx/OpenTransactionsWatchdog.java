@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.rdbms.DBSessionManager;
+
+/**
+ * Tracks root RDBMS transactions which hold a DB connection. Transactions open for longer than
+ * the configured warning time are periodically reported as possible connection leaks,
+ * together with the stack trace of the holding thread and the pool statistics.
+ * Each transaction is reported once, its release is logged too.
+ */
+@Component
+class OpenTransactionsWatchdog
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, OpenTransactionsWatchdog.class);
+
+	private final Map<SQLTransactionState, OpenTransaction> open = new ConcurrentHashMap<>();
+	private final long warningTimeNanos;
+	private final Supplier<String> poolStatistics;
+	private final LongSupplier clock;
+
+	@Autowired
+	OpenTransactionsWatchdog(DBSessionManager dbSessionMan)
+	{
+		this(dbSessionMan.getLeakWarningTime(), dbSessionMan::getPoolStatistics, System::nanoTime);
+		long warningTime = dbSessionMan.getLeakWarningTime();
+		if (warningTime > 0)
+		{
+			ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "Open DB transactions watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long period = Math.max(warningTime / 2, 1000);
+			scheduler.scheduleWithFixedDelay(this::reportOverdue, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	OpenTransactionsWatchdog(long warningTimeMs, Supplier<String> poolStatistics, LongSupplier clock)
+	{
+		this.warningTimeNanos = TimeUnit.MILLISECONDS.toNanos(warningTimeMs);
+		this.poolStatistics = poolStatistics;
+		this.clock = clock;
+	}
+
+	void transactionStarted(SQLTransactionState transaction, String operation)
+	{
+		if (warningTimeNanos > 0)
+			open.put(transaction, new OpenTransaction(operation, Thread.currentThread(), clock.getAsLong()));
+	}
+
+	void transactionFinished(SQLTransactionState transaction)
+	{
+		if (warningTimeNanos <= 0)
+			return;
+		OpenTransaction finished = open.remove(transaction);
+		if (finished != null && finished.reported)
+			log.warn("Transaction {} reported as a possible connection leak released its DB connection "
+					+ "after {}ms", finished.operation,
+					TimeUnit.NANOSECONDS.toMillis(clock.getAsLong() - finished.startTime));
+	}
+
+	/**
+	 * Logs transactions which are open for longer than the warning time and were not reported yet.
+	 * @return the newly reported transactions' operations
+	 */
+	List<String> reportOverdue()
+	{
+		List<String> reported = new ArrayList<>();
+		long now = clock.getAsLong();
+		for (OpenTransaction transaction: open.values())
+		{
+			if (transaction.reported || now - transaction.startTime <= warningTimeNanos)
+				continue;
+			transaction.reported = true;
+			reported.add(transaction.operation);
+			log.warn("Transaction {} of thread {} holds DB connection for {}ms, possible connection leak. "
+					+ "Pool state: {}. Thread stack:\n{}", transaction.operation,
+					transaction.thread.getName(),
+					TimeUnit.NANOSECONDS.toMillis(now - transaction.startTime),
+					poolStatistics.get(), formatStack(transaction.thread.getStackTrace()));
+		}
+		return reported;
+	}
+
+	private static String formatStack(StackTraceElement[] stack)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (StackTraceElement element: stack)
+			sb.append("\tat ").append(element).append("\n");
+		return sb.toString();
+	}
+
+	private static class OpenTransaction
+	{
+		private final String operation;
+		private final Thread thread;
+		private final long startTime;
+		private volatile boolean reported;
+
+		OpenTransaction(String operation, Thread thread, long startTime)
+		{
+			this.operation = operation;
+			this.thread = thread;
+			this.startTime = startTime;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+import pl.edu.icm.unity.store.rdbms.DBSessionManager;
+import pl.edu.icm.unity.store.tx.TransactionalExt;
+import pl.edu.icm.unity.store.tx.TransactionsState;
+import pl.edu.icm.unity.store.tx.TxEngineUtils;
+
+/**
+ * Runs code in a top level RDBMS transaction which uses MyBatis batch executor: modifications are
+ * sent to the database in JDBC batches, when a query is issued or on commit. This is much faster
+ * for bulk writes, however code run in such transaction can not rely on results of modifications
+ * (as number of updated rows or generated keys).
+ */
+@Component
+public class SQLBatchTransactionalRunner
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, SQLBatchTransactionalRunner.class);
+
+	private final DBSessionManager dbSessionMan;
+
+	@Autowired
+	public SQLBatchTransactionalRunner(DBSessionManager dbSessionMan)
+	{
+		this.dbSessionMan = dbSessionMan;
+	}
+
+	public void runInTransaction(TxRunnable code)
+	{
+		TransactionsState<SQLTransactionState> transactionsStack = SQLTransactionTL.getState();
+		if (!transactionsStack.isEmpty())
+			throw new IllegalStateException("Batch transaction can not be started inside of another transaction");
+		int retry = 0;
+		do
+		{
+			SqlSession sqlSession = dbSessionMan.getSqlSession(ExecutorType.BATCH, true);
+			SQLTransactionState state = new SQLTransactionState(sqlSession);
+			transactionsStack.push(state);
+			try
+			{
+				code.run();
+				sqlSession.commit();
+				state.runPostCommitActions();
+				return;
+			} catch (PersistenceException pe)
+			{
+				retry++;
+				if (retry < TransactionalExt.DEF_MAX_RETRIES)
+				{
+					log.debug("Got persistence error in batch transaction, will do retry #{}; {}",
+							retry, pe.getCause());
+					TxEngineUtils.sleepInterruptible(retry, SQLTransactionEngine.RETRY_BASE_DELAY,
+							SQLTransactionEngine.RETRY_MAX_DELAY);
+				} else
+				{
+					log.warn("Got persistence error in batch transaction, give up", pe);
+					throw pe;
+				}
+			} finally
+			{
+				transactionsStack.pop();
+				sqlSession.close();
+				state.runCompletionActions();
+			}
+		} while (true);
+	}
+}
@@ -32,14 +32,17 @@ public class SQLTransactionEngine implements TransactionEngine
 	
 	@Autowired
 	private DBSessionManager dbSessionMan;
+	@Autowired
+	private OpenTransactionsWatchdog watchdog;
 	
 	@Override
-	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit) throws Throwable 
+	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit, 
+			boolean readOnly) throws Throwable 
 	{
 		int retry = 0;
 		do
 		{
-			setupTransactionSession(pjp);
+			setupTransactionSession(pjp, readOnly);
 			try
 			{
 				Object retVal = pjp.proceed();
@@ -72,7 +75,7 @@ public class SQLTransactionEngine implements TransactionEngine
 		} while(true);
 	}
 	
-	private void setupTransactionSession(ProceedingJoinPoint pjp)
+	private void setupTransactionSession(ProceedingJoinPoint pjp, boolean readOnly)
 	{
 		TransactionsState<SQLTransactionState> transactionsStack = SQLTransactionTL.getState();
 		
@@ -80,8 +83,12 @@ public class SQLTransactionEngine implements TransactionEngine
 		{
 			if (log.isTraceEnabled())
 				log.trace("Starting sql session for " + pjp.toShortString());
-			SqlSession sqlSession = dbSessionMan.getSqlSession(true);
-			transactionsStack.push(new SQLTransactionState(sqlSession));
+			SqlSession sqlSession = readOnly ? dbSessionMan.getReadOnlySqlSession() : 
+				dbSessionMan.getSqlSession(true);
+			SQLTransactionState transaction = new SQLTransactionState(sqlSession, readOnly, 
+					dbSessionMan.isReplicaSession(sqlSession));
+			transactionsStack.push(transaction);
+			watchdog.transactionStarted(transaction, pjp.toShortString());
 		} else
 		{
 			transactionsStack.push(new SQLTransactionState(SQLTransactionTL.getSql()));
@@ -116,6 +123,8 @@ public class SQLTransactionEngine implements TransactionEngine
 			if (log.isTraceEnabled())
 				log.trace("Releassing sql session for " + pjp.toShortString());
 			ti.getSql().close();
+			ti.runCompletionActions();
+			watchdog.transactionFinished(ti);
 		}
 	}
 }
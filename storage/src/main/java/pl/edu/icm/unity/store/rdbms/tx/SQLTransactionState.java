@@ -15,10 +15,27 @@ public class SQLTransactionState implements TransactionState
 {
 	private SqlSession sql;
 	private List<Runnable> actions = new ArrayList<>();
+	private List<Runnable> completionActions = new ArrayList<>();
+	private final long startTime = System.nanoTime();
+	private final boolean readOnly;
+	private final boolean onReplica;
+	private boolean modified;
 	
 	public SQLTransactionState(SqlSession sql)
+	{
+		this(sql, false);
+	}
+
+	public SQLTransactionState(SqlSession sql, boolean readOnly)
+	{
+		this(sql, readOnly, false);
+	}
+
+	public SQLTransactionState(SqlSession sql, boolean readOnly, boolean onReplica)
 	{
 		this.sql = sql;
+		this.readOnly = readOnly;
+		this.onReplica = onReplica;
 	}
 	
 	public SqlSession getSql()
@@ -26,6 +43,57 @@ public class SQLTransactionState implements TransactionState
 		return sql;
 	}
 
+	/**
+	 * @return {@link System#nanoTime()} of the transaction start
+	 */
+	public long getStartTime()
+	{
+		return startTime;
+	}
+
+	public boolean isReadOnly()
+	{
+		return readOnly;
+	}
+
+	/**
+	 * @return whether the transaction's session is opened on the replica database, 
+	 * which can lag behind the primary one
+	 */
+	public boolean isOnReplica()
+	{
+		return onReplica;
+	}
+
+	/**
+	 * @return whether any data was modified in the transaction
+	 */
+	public boolean isModified()
+	{
+		return modified;
+	}
+
+	public void setModified()
+	{
+		this.modified = true;
+	}
+
+	/**
+	 * Registers an action which is run after the transaction's session is closed, regardless whether
+	 * the transaction was committed or rolled back. Makes sense for root transactions only.
+	 */
+	public void addCompletionAction(Runnable action)
+	{
+		completionActions.add(action);
+	}
+
+	public void runCompletionActions()
+	{
+		for (Runnable action: completionActions)
+			action.run();
+		completionActions.clear();
+	}
+
 	@Override
 	public void manualCommit()
 	{
@@ -61,4 +61,11 @@ public class SQLTransactionalRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+	
+	@TransactionalExt(storageEngine=StorageEngine.rdbms, readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return code.run();
+	}
 }
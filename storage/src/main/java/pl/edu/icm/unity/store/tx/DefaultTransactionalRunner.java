@@ -62,4 +62,11 @@ public class DefaultTransactionalRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+	
+	@Transactional(readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return code.run();
+	}
 }
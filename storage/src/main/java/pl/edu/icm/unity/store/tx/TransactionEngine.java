@@ -15,5 +15,6 @@ public interface TransactionEngine
 {
 	String NAME_PFX = "TransactionEngine";
 	
-	Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean transactional) throws Throwable;
+	Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean transactional, 
+			boolean readOnly) throws Throwable;
 }
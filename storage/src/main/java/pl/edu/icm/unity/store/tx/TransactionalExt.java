@@ -27,6 +27,8 @@ public @interface TransactionalExt
 	int maxRetries() default DEF_MAX_RETRIES;
 	
 	boolean autoCommit() default true;
+	
+	boolean readOnly() default false;
 
 	StorageEngine storageEngine();
 }
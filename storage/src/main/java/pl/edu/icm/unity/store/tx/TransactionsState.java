@@ -36,7 +36,7 @@ public class TransactionsState<T extends TransactionState>
 	 * Gets the first transaction - transaction that is not subtransaction of any other.
 	 * @return The first transaction
 	 */
-	T getRootTransaction()
+	public T getRootTransaction()
 	{
 		if (transactionsStack.isEmpty())
 			throw new IllegalStateException("There is no transaction in the context. This is a bug.");
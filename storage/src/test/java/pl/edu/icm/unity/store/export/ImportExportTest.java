@@ -389,6 +389,52 @@ public class ImportExportTest
 		});
 	}
 
+	@Test
+	public void shouldExportAndImportManyUsersInCompressedFormat()
+	{
+		int count = AbstractIEBase.IMPORT_BATCH_SIZE + 10;
+		tx.runInTransaction(() -> {
+			try
+			{
+				idTypeDB.create(new IdentityType("test"));
+				attributeTypeDB.create(new AttributeType("test", "test"));
+				groupDAO.create(new Group("/test"));
+				for (int i = 0; i < count; i++)
+				{
+					long entity = entityDB.create(new EntityInformation());
+					idDB.create(new StoredIdentity(new Identity("test", "test" + i, entity, "test" + i)));
+					long attribute = attrDB.create(new StoredAttribute(new AttributeExt(
+							new Attribute("test", "test", "/", Lists.list("v" + i)), false), entity));
+					if (i % 100 == 0)
+						attrDB.linkKeywordToAttribute("keyword", attribute);
+					membershipDB.create(new GroupMembership("/test", entity, new Date()));
+				}
+
+				DBDumpContentElements el = new DBDumpContentElements(false, true, true, false, false);
+
+				ie.storeCompressed(new FileOutputStream("target/afterImport.json.gz"), el);
+
+				dbCleaner.deletePreImport(DBDumpContentTypeMapper.getElementsForClearDB(el));
+				assertThat(idDB.getAll().size(), is(0));
+
+				BufferedInputStream is = new BufferedInputStream(
+						new FileInputStream("target/afterImport.json.gz"));
+				assertThat(ie.getDBDumpElements(is), is(DBDumpContentTypeMapper.getDBElements(el)));
+				ie.load(is);
+
+				assertThat(entityDB.getAll().size(), is(count));
+				assertThat(idDB.getAll().size(), is(count));
+				assertThat(attrDB.getAll().size(), is(count));
+				assertThat(membershipDB.getMembers("/test").size(), is(count));
+				assertThat(attrDB.getAllWithKeyword("keyword").size(), is(count / 100 + 1));
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				fail("Test export/import of compressed users failed " + e);
+			}
+		});
+	}
+
 	@Test
 	public void shouldExportAuditLogs()
 	{
@@ -10,6 +10,7 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Assume;
@@ -21,11 +22,18 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.hazelcast.core.HazelcastInstance;
+
 import pl.edu.icm.unity.store.StorageCleanerImpl;
 import pl.edu.icm.unity.store.StorageConfiguration;
 import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.api.IdentityTypeDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.hz.rdbmsflush.CreateWithIdMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventSink;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSFlushLog;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEvent;
 import pl.edu.icm.unity.store.impl.identitytype.IdentityTypeRDBMSStore;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
 import pl.edu.icm.unity.types.basic.IdentityType;
@@ -46,6 +54,10 @@ public class HzRDBMSFlushTest
 	protected TransactionalRunner tx;
 	@Autowired
 	private HzStoreLoader hzLoader;
+	@Autowired
+	private RDBMSFlushLog flushLog;
+	@Autowired
+	private HazelcastInstance hzInstance;
 	
 	@Autowired
 	private StorageConfiguration systemCfg;
@@ -189,6 +201,30 @@ public class HzRDBMSFlushTest
 		});
 	}
 	
+	@Test
+	public void shouldSkipReplayedBatchWhichWasAlreadyFlushed()
+	{
+		IdentityType identityType = getIdentityType("idType");
+		List<RDBMSMutationEvent> events = new ArrayList<>();
+		events.add(new CreateWithIdMutation<>(IdentityTypeRDBMSStore.BEAN, null, 1000, identityType));
+		RDBMSEventsBatch batch = new RDBMSEventsBatch(events);
+		rdbmsTx.runInTransaction(() -> {
+			idTypeRDBMSDAO.createWithId(1000, identityType);
+			flushLog.record(Collections.singletonList(batch));
+		});
+		
+		hzInstance.getQueue(RDBMSEventSink.RDBMS_EVENTS_QUEUE).add(batch);
+		tx.runInTransaction(() -> {
+			hzLoader.reloadHzFromRDBMS();
+		});
+		
+		tx.runInTransaction(() -> {
+			List<IdentityType> all = idTypeDAO.getAll();
+			assertThat(all.size(), is(1));
+			assertThat(all.get(0), is(identityType));
+		});
+	}
+	
 	protected IdentityType getIdentityType(String name)
 	{
 		IdentityType idType = new IdentityType(name);
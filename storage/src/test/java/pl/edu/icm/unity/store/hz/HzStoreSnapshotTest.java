@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
+
+public class HzStoreSnapshotTest
+{
+	private static HazelcastInstance hzInstance;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HzStoreSnapshot snapshot;
+	private File file;
+
+	@BeforeClass
+	public static void startHazelcast()
+	{
+		Config config = new Config("snapshotTest");
+		config.setProperty("hazelcast.logging.type", "log4j");
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+		hzInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void stopHazelcast()
+	{
+		hzInstance.shutdown();
+	}
+
+	@Before
+	public void setup()
+	{
+		for (DistributedObject obj: hzInstance.getDistributedObjects())
+			obj.destroy();
+		file = new File(folder.getRoot(), "snapshot");
+		snapshot = new HzStoreSnapshot(hzInstance, new KryoPool.Builder(Kryo::new).build(), file);
+	}
+
+	@Test
+	public void shouldRestoreSavedData() throws Exception
+	{
+		for (long i = 0; i < 2500; i++)
+			hzInstance.getMap("map").put(i, "value" + i);
+		hzInstance.getQueue("queue").add("pending1");
+		hzInstance.getQueue("queue").add("pending2");
+		hzInstance.getAtomicLong("counter").set(2500);
+
+		snapshot.save(10);
+		for (DistributedObject obj: hzInstance.getDistributedObjects())
+			obj.destroy();
+		List<RDBMSEventsBatch> pending = snapshot.restore(sequence -> 
+			sequence == 10 ? Collections.emptyList() : null);
+
+		assertThat(pending.isEmpty(), is(true));
+		assertThat(hzInstance.getMap("map").size(), is(2500));
+		assertThat(hzInstance.getMap("map").get(1234L), is("value1234"));
+		assertThat(hzInstance.getQueue("queue").poll(), is("pending1"));
+		assertThat(hzInstance.getQueue("queue").poll(), is("pending2"));
+		assertThat(hzInstance.getAtomicLong("counter").get(), is(2500L));
+		assertThat(file.exists(), is(false));
+	}
+
+	@Test
+	public void shouldReturnBatchesFlushedAfterSnapshot() throws Exception
+	{
+		hzInstance.getMap("map").put(1L, "value");
+		snapshot.save(10);
+		hzInstance.getMap("map").destroy();
+		List<RDBMSEventsBatch> flushedLater = Collections.singletonList(new RDBMSEventsBatch(new ArrayList<>()));
+
+		List<RDBMSEventsBatch> pending = snapshot.restore(sequence -> 
+			sequence == 10 ? flushedLater : null);
+
+		assertThat(pending, is(flushedLater));
+		assertThat(hzInstance.getMap("map").get(1L), is("value"));
+	}
+
+	@Test
+	public void shouldNotRestoreWhenDatabaseModificationsCanNotBeReplayed() throws Exception
+	{
+		hzInstance.getMap("map").put(1L, "value");
+		snapshot.save(10);
+		hzInstance.getMap("map").destroy();
+
+		List<RDBMSEventsBatch> pending = snapshot.restore(sequence -> null);
+
+		assertThat(pending, is(nullValue()));
+		assertThat(hzInstance.getMap("map").size(), is(0));
+		assertThat(file.exists(), is(false));
+	}
+
+	@Test
+	public void shouldNotRestoreWithoutSnapshot()
+	{
+		assertThat(snapshot.restore(sequence -> Collections.emptyList()), is(nullValue()));
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.hz;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import pl.edu.icm.unity.store.hz.rdbmsflush.CreateWithIdMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.DeleteByKeyMutation;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSEventsBatch;
+
+public class RDBMSEventsBatchTest
+{
+	@Test
+	public void shouldBePartitionedWhenAllEventsOfSameEntity()
+	{
+		RDBMSEventsBatch batch = new RDBMSEventsBatch(Arrays.asList(
+				new CreateWithIdMutation<>("dao1", 5L, 1, "a"),
+				new DeleteByKeyMutation("dao2", 5L, 5)));
+
+		assertThat(batch.getEntityPartition(), is(5L));
+	}
+
+	@Test
+	public void shouldNotBePartitionedWhenEventsOfDifferentEntities()
+	{
+		RDBMSEventsBatch batch = new RDBMSEventsBatch(Arrays.asList(
+				new CreateWithIdMutation<>("dao1", 5L, 1, "a"),
+				new CreateWithIdMutation<>("dao1", 6L, 2, "b")));
+
+		assertThat(batch.getEntityPartition(), is(nullValue()));
+	}
+
+	@Test
+	public void shouldNotBePartitionedWhenContainsNotEntityScopedEvent()
+	{
+		RDBMSEventsBatch batch = new RDBMSEventsBatch(Arrays.asList(
+				new CreateWithIdMutation<>("dao1", 5L, 1, "a"),
+				new CreateWithIdMutation<>("groupDAO", null, 2, "/A")));
+
+		assertThat(batch.getEntityPartition(), is(nullValue()));
+	}
+}
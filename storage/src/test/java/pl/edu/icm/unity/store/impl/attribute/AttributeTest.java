@@ -158,6 +158,33 @@ public class AttributeTest extends AbstractBasicDAOTest<StoredAttribute>
 		});
 	}
 	
+	@Test
+	public void allAttributesOfEntitiesAreReturned()
+	{
+		tx.runInTransaction(() -> {
+			AttributeDAO dao = getDAO();
+			StoredAttribute obj = getObject("");
+			obj.getAttribute().setGroupPath("/");
+			obj.getAttribute().setName("attr");
+			dao.create(obj);
+			
+			StoredAttribute obj2 = getObject("");
+			obj2.getAttribute().setGroupPath("/C");
+			obj2.getAttribute().setName("attr2");
+			dao.create(obj2);
+
+			StoredAttribute obj3 = getObject("");
+			obj3.getAttribute().setGroupPath("/C");
+			obj3.getAttribute().setName("attr3");
+			obj3 = new StoredAttribute(obj3.getAttribute(), entityId2);
+			dao.create(obj3);
+			
+			List<StoredAttribute> attributes = dao.getAttributesOfEntities(Lists.newArrayList(entityId));
+			
+			assertAllAndOnlyAllInSA(Lists.newArrayList(obj, obj2), attributes);
+		});
+	}
+	
 	@Test
 	public void allAttributesByNameAndGroupAreReturned()
 	{
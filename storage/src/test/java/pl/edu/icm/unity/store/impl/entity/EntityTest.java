@@ -10,6 +10,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -136,4 +137,19 @@ public class EntityTest extends AbstractBasicDAOTest<EntityInformation>
 			assertThat(ret, hasItems(dao.getByKey(id1), dao.getByKey(id2)));
 		});
 	}
+
+	@Test
+	public void shouldReturnByKeys()
+	{
+		tx.runInTransaction(() -> {
+			long id1 = dao.create(getObject("1"));
+			long id2 = dao.create(getObject("2"));
+			dao.create(getObject("3"));
+			
+			List<EntityInformation> ret = dao.getByKeys(Arrays.asList(id1, id2, id2 + 1000));
+
+			assertThat(ret.size(), is(2));
+			assertThat(ret, hasItems(dao.getByKey(id1), dao.getByKey(id2)));
+		});
+	}
 }
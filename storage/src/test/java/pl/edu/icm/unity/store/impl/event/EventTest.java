@@ -7,6 +7,7 @@ package pl.edu.icm.unity.store.impl.event;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -91,7 +92,26 @@ public class EventTest extends AbstractBasicDAOTest<EventExecution>
 			assertThat(updated.getNextProcessing().getTime(), is(2001l));
 		});
 	}
-	
+
+	@Test
+	public void listenerEventsAreReturnedInExecutionOrderWithoutExcludedUpToLimit()
+	{
+		tx.runInTransaction(() -> {
+			PersistableEvent event = new PersistableEvent("category", 123l, new Date(1000), "contents");
+			long excluded = dao.create(new EventExecution(event, new Date(100), "listenerId", 0));
+			long later = dao.create(new EventExecution(event, new Date(300), "listenerId", 0));
+			long earlier = dao.create(new EventExecution(event, new Date(200), "listenerId", 0));
+			dao.create(new EventExecution(event, new Date(400), "listenerId", 0));
+			dao.create(new EventExecution(event, new Date(100), "otherListenerId", 0));
+			
+			List<EventExecution> eligible = dao.getEligibleForProcessing(new Date(1000), "listenerId", 
+					Collections.singleton(excluded), 2);
+			
+			assertThat(eligible.size(), is(2));
+			assertThat(eligible.get(0).getId(), is(earlier));
+			assertThat(eligible.get(1).getId(), is(later));
+		});
+	}
 	
 	@Override
 	public void importExportIsIdempotent()
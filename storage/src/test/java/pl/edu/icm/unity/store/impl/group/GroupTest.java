@@ -139,6 +139,51 @@ public class GroupTest extends AbstractNamedDAOTest<Group>
 		});
 	}
 	
+	@Test
+	public void hierarchyIsReturnedForCommittedGroups()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(new Group("/A"));
+			dao.create(new Group("/A/B"));
+			dao.create(new Group("/A/B/C"));
+			dao.create(new Group("/A/D"));
+			dao.create(new Group("/AAA"));
+		});
+
+		tx.runInTransaction(() -> {
+			assertThat(Sets.newHashSet(dao.getChildrenNames("/A")), is(Sets.newHashSet("/A/B", "/A/D")));
+			assertThat(dao.getDescendantsNames("/A"), is(Sets.newHashSet("/A/B", "/A/B/C", "/A/D")));
+			assertThat(dao.getDescendantsCount("/A"), is(3L));
+			assertThat(dao.getAncestorsNames("/A/B/C"), is(Lists.newArrayList("/", "/A", "/A/B")));
+		});
+	}
+	
+	@Test
+	public void hierarchyIsUpdatedAfterRenameAndRemoval()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(new Group("/A"));
+			dao.create(new Group("/A/B"));
+			dao.create(new Group("/A/B/C"));
+			dao.create(new Group("/A/D"));
+		});
+		tx.runInTransaction(() -> {
+			assertThat(dao.getDescendantsCount("/A"), is(3L));
+		});
+
+		tx.runInTransaction(() -> {
+			dao.updateByName("/A", new Group("/S"));
+			dao.delete("/S/D");
+			assertThat(dao.getDescendantsNames("/S"), is(Sets.newHashSet("/S/B", "/S/B/C")));
+		});
+
+		tx.runInTransaction(() -> {
+			assertThat(dao.getDescendantsNames("/S"), is(Sets.newHashSet("/S/B", "/S/B/C")));
+			assertThat(dao.getDescendantsCount("/A"), is(0L));
+			assertThat(dao.getChildrenNames("/S/B"), is(Lists.newArrayList("/S/B/C")));
+		});
+	}
+	
 	@Test
 	public void changingNotTheLastNamePartIsForbidden()
 	{
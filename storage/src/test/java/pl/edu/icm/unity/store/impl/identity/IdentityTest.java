@@ -9,6 +9,7 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -141,6 +142,23 @@ public class IdentityTest extends AbstractNamedDAOTest<StoredIdentity>
 		});
 	}
 	
+	@Test
+	public void shouldReturnByEntities()
+	{
+		tx.runInTransaction(() -> {
+			StoredIdentity obj = getObject("name1");
+			dao.create(obj);
+			StoredIdentity obj2 = getObject("name2");
+			obj2.getIdentity().setEntityId(entity2);
+			dao.create(obj2);
+			
+			List<StoredIdentity> ret = dao.getByEntities(Arrays.asList(entity2));
+
+			assertThat(ret.size(), is(1));
+			assertEquals(obj2, ret.get(0));
+		});
+	}
+	
 	@Override
 	@Test
 	public void shouldFailOnCreatingWithTooLongName()
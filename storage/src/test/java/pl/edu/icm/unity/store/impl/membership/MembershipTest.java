@@ -10,8 +10,12 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.isA;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -21,6 +25,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.google.common.collect.Sets;
+
 import pl.edu.icm.unity.store.StorageCleanerImpl;
 import pl.edu.icm.unity.store.api.EntityDAO;
 import pl.edu.icm.unity.store.api.GroupDAO;
@@ -108,6 +114,56 @@ public class MembershipTest
 		});
 	}	
 
+	@Test
+	public void shouldReturnAllMembershipsOfGroupMembers()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(new GroupMembership("/A", entity, null));
+			dao.create(new GroupMembership("/B", entity, null));
+			dao.create(new GroupMembership("/B", entity2, null));
+			
+			List<GroupMembership> memberships = dao.getMembershipsOfGroupMembers("/A");
+			assertThat(memberships.size(), is(2));
+			assertThat(memberships.stream().allMatch(gm -> gm.getEntityId() == entity), is(true));
+			assertThat(memberships.stream().map(GroupMembership::getGroup).collect(Collectors.toSet()), 
+					is(Sets.newHashSet("/A", "/B")));
+		});
+	}	
+
+	@Test
+	public void shouldCountMembershipsInSubtree()
+	{
+		tx.runInTransaction(() -> {
+			groupDao.create(new Group("/A/C"));
+			dao.create(new GroupMembership("/A", entity, null));
+			dao.create(new GroupMembership("/A", entity2, null));
+			dao.create(new GroupMembership("/A/C", entity, null));
+			dao.create(new GroupMembership("/B", entity2, null));
+		});
+
+		tx.runInTransaction(() -> {
+			Set<String> subtree = new HashSet<>(groupDao.getDescendantsNames("/A"));
+			subtree.add("/A");
+			assertThat(dao.getMembershipsCount(subtree), is(3L));
+		});
+	}	
+
+	@Test
+	public void shouldReturnAllMembershipsOfEntities()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(new GroupMembership("/A", entity, null));
+			dao.create(new GroupMembership("/B", entity, null));
+			dao.create(new GroupMembership("/B", entity2, null));
+			
+			List<GroupMembership> memberships = dao.getEntitiesMembership(Arrays.asList(entity));
+			assertThat(memberships.size(), is(2));
+			assertThat(memberships.stream().allMatch(gm -> gm.getEntityId() == entity), is(true));
+			assertThat(memberships.stream().map(GroupMembership::getGroup).collect(Collectors.toSet()), 
+					is(Sets.newHashSet("/A", "/B")));
+		});
+	}	
+
 	@Test
 	public void shouldReturnCreatedMembershipByGetAll()
 	{
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import pl.edu.icm.unity.store.StorageCleanerImpl;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
+import pl.edu.icm.unity.store.impl.groups.GroupRDBMSStore;
+import pl.edu.icm.unity.store.impl.membership.MembershipRDBMSStore;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
+import pl.edu.icm.unity.types.basic.EntityInformation;
+import pl.edu.icm.unity.types.basic.Group;
+import pl.edu.icm.unity.types.basic.GroupMembership;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations={"classpath*:META-INF/components.xml"})
+public class RDBMSStreamingTest
+{
+	@Autowired @Qualifier(SQLTransactionalRunner.NAME)
+	private TransactionalRunner tx;
+	@Autowired
+	private StorageCleanerImpl dbCleaner;
+	@Autowired
+	private EntityRDBMSStore entityDAO;
+	@Autowired
+	private GroupRDBMSStore groupDAO;
+	@Autowired
+	private MembershipRDBMSStore membershipDAO;
+
+	@Before
+	public void cleanDB()
+	{
+		dbCleaner.cleanOrDelete();
+	}
+
+	@Test
+	public void shouldStreamAllElements()
+	{
+		List<String> streamed = new ArrayList<>();
+		tx.runInTransaction(() -> {
+			groupDAO.create(new Group("/A"));
+			groupDAO.create(new Group("/B"));
+			groupDAO.streamAll(group -> streamed.add(group.getName()));
+		});
+
+		assertThat(streamed.size(), is(3));
+		assertThat(streamed, hasItems("/", "/A", "/B"));
+	}
+
+	@Test
+	public void shouldStreamAllMemberships()
+	{
+		List<String> streamed = new ArrayList<>();
+		tx.runInTransaction(() -> {
+			long entity = entityDAO.create(new EntityInformation());
+			groupDAO.create(new Group("/A"));
+			membershipDAO.create(new GroupMembership("/", entity, new Date()));
+			membershipDAO.create(new GroupMembership("/A", entity, new Date()));
+			membershipDAO.streamAll(membership -> streamed.add(membership.getGroup()));
+		});
+
+		assertThat(streamed.size(), is(2));
+		assertThat(streamed, hasItems("/", "/A"));
+	}
+}
@@ -217,6 +217,32 @@ public class RDBMSTransactionTest
 		assertThat(ret2, is(nullValue()));
 	}
 	
+	@Test
+	public void rdbmsReadOnlyTransactionReadsData() throws Exception
+	{
+		tx.runInTransaction(() -> {
+			getMapper().create(getObject("n1"));
+		});
+		
+		AttributeTypeBean ret = tx.runInReadOnlyTransactionRetThrowing(() -> getMapper().getByName("n1"));
+		
+		assertThat(ret, is(notNullValue()));
+	}
+
+	@Test
+	public void rdbmsReadOnlyTransactionCanNotModifyData() throws Exception
+	{
+		catchException(tx).runInReadOnlyTransactionRetThrowing(() -> {
+			getMapper().create(getObject("n1"));
+			return null;
+		});
+		
+		
+		AttributeTypeBean ret = getFromDB("n1");
+		assertThat(caughtException(), is(notNullValue()));
+		assertThat(ret, is(nullValue()));
+	}
+	
 	private AttributeTypeBean getFromDB(String name)
 	{
 		return tx.runInTransactionRet(() -> {
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class ReplicaRoutingGuardTest
+{
+	private AtomicLong clock = new AtomicLong();
+	private ReplicaRoutingGuard guard = new ReplicaRoutingGuard(5, clock::get);
+
+	@Test
+	public void shouldNotUseReplicaBeforeMaxLagPassed()
+	{
+		advance(5);
+
+		assertThat(guard.canUseReplica()).isFalse();
+	}
+
+	@Test
+	public void shouldUseReplicaAfterMaxLagPassed()
+	{
+		advance(6);
+
+		assertThat(guard.canUseReplica()).isTrue();
+	}
+
+	@Test
+	public void shouldNotUseReplicaAfterRecentWrite()
+	{
+		advance(10);
+		guard.writePerformed();
+		advance(3);
+
+		assertThat(guard.canUseReplica()).isFalse();
+	}
+
+	private void advance(long seconds)
+	{
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+}
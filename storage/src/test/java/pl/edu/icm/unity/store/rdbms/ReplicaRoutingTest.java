@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.unicore.util.db.DBPropertiesHelper;
+import pl.edu.icm.unity.store.StorageConfiguration;
+import pl.edu.icm.unity.store.StorageConfigurationFactory;
+
+/**
+ * Routing of read-only sessions between two H2 databases: the primary one and its replica.
+ * Both databases hold a different revision, so it is visible from which one data was read.
+ */
+public class ReplicaRoutingTest
+{
+	private static final String PRIMARY_URL = "jdbc:h2:mem:replicaRoutingPrimary;DB_CLOSE_DELAY=-1";
+	private static final String REPLICA_URL = "jdbc:h2:mem:replicaRoutingReplica;DB_CLOSE_DELAY=-1";
+	private static final long PRIMARY_REVISION = 10;
+	private static final long REPLICA_REVISION = 20;
+	private static final long MAX_LAG_MS = 1000;
+
+	private DBSessionManager sessionManager;
+
+	@Before
+	public void init() throws Exception
+	{
+		createRevisionTable(PRIMARY_URL, PRIMARY_REVISION);
+		createRevisionTable(REPLICA_URL, REPLICA_REVISION);
+		Properties properties = new Properties();
+		properties.setProperty(StorageConfiguration.PREFIX + StorageConfiguration.ENGINE, "rdbms");
+		properties.setProperty(StorageConfiguration.PREFIX + StorageConfiguration.IGNORE_ALTERNATIVE_DB_CONFIG,
+				"true");
+		properties.setProperty(RDBMSConfiguration.PREFIX + DBPropertiesHelper.URL, PRIMARY_URL);
+		properties.setProperty(RDBMSConfiguration.PREFIX + DBPropertiesHelper.USER, "sa");
+		properties.setProperty(RDBMSConfiguration.PREFIX + DBPropertiesHelper.PASSWORD, "");
+		properties.setProperty(RDBMSConfiguration.PREFIX + RDBMSConfiguration.REPLICA_URL, REPLICA_URL);
+		properties.setProperty(RDBMSConfiguration.PREFIX + RDBMSConfiguration.REPLICA_MAX_LAG,
+				String.valueOf(MAX_LAG_MS / 1000));
+		StorageConfiguration config = new StorageConfiguration(Collections.singletonMap(
+				StorageConfigurationFactory.BEAN_PFX + "rdbms", new RDBMSConfigurationFactory()),
+				() -> properties);
+		sessionManager = new DBSessionManager(config);
+	}
+
+	@Test
+	public void readOnlySessionShouldUseReplicaWithoutRecentWrites() throws Exception
+	{
+		Thread.sleep(MAX_LAG_MS + 100);
+
+		try (SqlSession session = sessionManager.getReadOnlySqlSession())
+		{
+			assertThat(sessionManager.isReplicaSession(session)).isTrue();
+			assertThat((Long) session.selectOne("getGroupsRevision")).isEqualTo(REPLICA_REVISION);
+		}
+	}
+
+	@Test
+	public void readOnlySessionShouldUsePrimaryAfterWrite() throws Exception
+	{
+		Thread.sleep(MAX_LAG_MS + 100);
+		try (SqlSession session = sessionManager.getSqlSession(true))
+		{
+			session.update("incrementGroupsRevision");
+			session.commit();
+		}
+
+		try (SqlSession session = sessionManager.getReadOnlySqlSession())
+		{
+			assertThat(sessionManager.isReplicaSession(session)).isFalse();
+			assertThat((Long) session.selectOne("getGroupsRevision")).isEqualTo(PRIMARY_REVISION + 1);
+		}
+	}
+
+	@Test
+	public void readOnlySessionShouldReturnToReplicaAfterMaxLag() throws Exception
+	{
+		try (SqlSession session = sessionManager.getSqlSession(true))
+		{
+			session.update("incrementGroupsRevision");
+			session.commit();
+		}
+		Thread.sleep(MAX_LAG_MS + 100);
+
+		try (SqlSession session = sessionManager.getReadOnlySqlSession())
+		{
+			assertThat(sessionManager.isReplicaSession(session)).isTrue();
+			assertThat((Long) session.selectOne("getGroupsRevision")).isEqualTo(REPLICA_REVISION);
+		}
+	}
+
+	private static void createRevisionTable(String url, long revision) throws SQLException
+	{
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement())
+		{
+			statement.execute("DROP TABLE IF EXISTS GROUPS_REVISION");
+			statement.execute("CREATE TABLE GROUPS_REVISION(ID INTEGER PRIMARY KEY, REVISION BIGINT NOT NULL)");
+			statement.execute("INSERT INTO GROUPS_REVISION(ID, REVISION) VALUES (1, " + revision + ")");
+		}
+	}
+}
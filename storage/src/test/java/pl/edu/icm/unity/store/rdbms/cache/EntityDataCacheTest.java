@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionState;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.types.basic.GroupMembership;
+
+public class EntityDataCacheTest
+{
+	private AtomicInteger dbReads = new AtomicInteger();
+	private Supplier<List<GroupMembership>> loader = () -> {
+		dbReads.incrementAndGet();
+		return Collections.singletonList(new GroupMembership("/A", 1, new Date(0)));
+	};
+	private EntityDataCache cache;
+
+	@Before
+	public void setup()
+	{
+		cache = new EntityDataCache(100, -1);
+	}
+
+	@After
+	public void cleanup()
+	{
+		SQLTransactionTL.getState().clear();
+	}
+
+	@Test
+	public void shouldReturnCopyOfCachedData()
+	{
+		startTransaction();
+		List<GroupMembership> first = cache.getMemberships(1, loader);
+		first.get(0).setGroup("/changed");
+
+		startTransaction();
+		List<GroupMembership> second = cache.getMemberships(1, loader);
+
+		assertThat(dbReads.get()).isEqualTo(1);
+		assertThat(second.get(0).getGroup()).isEqualTo("/A");
+		assertThat(second.get(0)).isNotSameAs(cache.getMemberships(1, loader).get(0));
+	}
+
+	@Test
+	public void modifiedEntityShouldBeReadFromDBAndInvalidatedAfterTransaction()
+	{
+		SQLTransactionState modifying = startTransaction();
+		cache.getMemberships(1, loader);
+		cache.entityModified(1);
+		cache.getMemberships(1, loader);
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		modifying.runCompletionActions();
+		startTransaction();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void transactionStartedBeforeInvalidationShouldNotPopulateCache()
+	{
+		startTransaction();
+		cache.invalidateCache();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		startTransaction();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void entityWithUncommittedModificationShouldNotBeCachedByOtherTransaction()
+	{
+		SQLTransactionState modifying = startTransaction();
+		cache.entityModified(1);
+
+		startTransaction();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		modifying.runCompletionActions();
+		startTransaction();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void noEntityShouldBeCachedDuringUncommittedGlobalModification()
+	{
+		SQLTransactionState modifying = startTransaction();
+		cache.allModified();
+
+		startTransaction();
+		cache.getMemberships(2, loader);
+		cache.getMemberships(2, loader);
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		modifying.runCompletionActions();
+		startTransaction();
+		cache.getMemberships(2, loader);
+		cache.getMemberships(2, loader);
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void replicaTransactionShouldNotPopulateCache()
+	{
+		startTransaction(true);
+		cache.getMemberships(1, loader);
+
+		startTransaction();
+		cache.getMemberships(1, loader);
+		cache.getMemberships(1, loader);
+
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	private SQLTransactionState startTransaction()
+	{
+		return startTransaction(false);
+	}
+
+	private SQLTransactionState startTransaction(boolean onReplica)
+	{
+		SQLTransactionState transaction = new SQLTransactionState(null, onReplica, onReplica);
+		SQLTransactionTL.getState().clear();
+		SQLTransactionTL.getState().push(transaction);
+		return transaction;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import pl.edu.icm.unity.store.api.tx.TxManager;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionState;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+
+public class GroupsTreeIndexTest
+{
+	private List<Runnable> postCommitActions = new ArrayList<>();
+	private AtomicInteger dbReads = new AtomicInteger();
+	private List<String> groupsInDB = Lists.newArrayList("/", "/A", "/A/B");
+	private Supplier<Collection<String>> loader = () -> {
+		dbReads.incrementAndGet();
+		return new ArrayList<>(groupsInDB);
+	};
+	private AtomicLong revisionInDB = new AtomicLong();
+	private GroupsTreeIndex index;
+
+	@Before
+	public void setup()
+	{
+		TxManager txManager = mock(TxManager.class);
+		doAnswer(invocation -> postCommitActions.add(invocation.getArgument(0)))
+			.when(txManager).addPostCommitAction(any());
+		GroupsRevision groupsRevision = mock(GroupsRevision.class);
+		when(groupsRevision.increment()).thenAnswer(invocation -> revisionInDB.incrementAndGet());
+		when(groupsRevision.get()).thenAnswer(invocation -> revisionInDB.get());
+		when(groupsRevision.getGroupsCount()).thenAnswer(invocation -> (long) groupsInDB.size());
+		index = new GroupsTreeIndex(true, true, groupsRevision, txManager);
+	}
+
+	@After
+	public void cleanup()
+	{
+		SQLTransactionTL.getState().clear();
+	}
+
+	@Test
+	public void shouldLoadIndexOnce()
+	{
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B");
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B");
+
+		assertThat(dbReads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void modifyingTransactionShouldNotUseIndex()
+	{
+		startTransaction();
+		getChildren("/A");
+		index.groupAdded("/A/C");
+		groupsInDB.add("/A/C");
+
+		assertThat(getChildren("/A")).containsOnly("/A/B", "/A/C");
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void committedChangesShouldBeAppliedToIndex()
+	{
+		SQLTransactionState modifying = startTransaction();
+		getChildren("/A");
+		index.groupAdded("/A/C");
+		index.groupRenamed("/A/B", "/A/D");
+		groupsInDB = Lists.newArrayList("/", "/A", "/A/C", "/A/D");
+		postCommitActions.forEach(Runnable::run);
+		modifying.runCompletionActions();
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/C", "/A/D");
+		assertThat(dbReads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void groupAddedByOtherInstanceShouldBeVisible()
+	{
+		startTransaction();
+		getChildren("/A");
+		groupsInDB.add("/A/C");
+		revisionInDB.incrementAndGet();
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B", "/A/C");
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void groupRenamedByOtherInstanceShouldBeVisible()
+	{
+		startTransaction();
+		getChildren("/A");
+		groupsInDB = Lists.newArrayList("/", "/A", "/A/D");
+		revisionInDB.incrementAndGet();
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/D");
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void localChangesShouldNotBeAppliedOverMissedChangeOfOtherInstance()
+	{
+		startTransaction();
+		getChildren("/A");
+		groupsInDB.add("/A/C");
+		revisionInDB.incrementAndGet();
+
+		SQLTransactionState modifying = startTransaction();
+		index.groupAdded("/A/E");
+		groupsInDB.add("/A/E");
+		postCommitActions.forEach(Runnable::run);
+		modifying.runCompletionActions();
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B", "/A/C", "/A/E");
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void inconsistentChangeShouldDropIndex()
+	{
+		SQLTransactionState modifying = startTransaction();
+		getChildren("/A");
+		index.groupRemoved("/missing");
+		postCommitActions.forEach(Runnable::run);
+		modifying.runCompletionActions();
+
+		startTransaction();
+		getChildren("/A");
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void transactionStartedBeforeModificationShouldNotInstallIndex()
+	{
+		startTransaction();
+		index.invalidateCache();
+		getChildren("/A");
+		getChildren("/A");
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		startTransaction();
+		getChildren("/A");
+		getChildren("/A");
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void indexShouldNotBeInstalledDuringUncommittedModification()
+	{
+		SQLTransactionState modifying = startTransaction();
+		index.modificationStarted();
+		groupsInDB.add("/A/C");
+
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B", "/A/C");
+		getChildren("/A");
+		assertThat(dbReads.get()).isEqualTo(2);
+
+		groupsInDB.remove("/A/C");
+		modifying.runCompletionActions();
+		startTransaction();
+		assertThat(getChildren("/A")).containsOnly("/A/B");
+		assertThat(getChildren("/A")).containsOnly("/A/B");
+
+		assertThat(dbReads.get()).isEqualTo(3);
+	}
+
+	private List<String> getChildren(String path)
+	{
+		return index.query(loader, tree -> tree.getChildren(path), () -> {
+			dbReads.incrementAndGet();
+			return GroupsTree.build(groupsInDB).getChildren(path);
+		});
+	}
+
+	@Test
+	public void replicaTransactionShouldNotInstallIndex()
+	{
+		startTransaction(true);
+		getChildren("/A");
+
+		startTransaction();
+		getChildren("/A");
+		getChildren("/A");
+
+		assertThat(dbReads.get()).isEqualTo(2);
+	}
+
+	private SQLTransactionState startTransaction()
+	{
+		return startTransaction(false);
+	}
+
+	private SQLTransactionState startTransaction(boolean onReplica)
+	{
+		SQLTransactionState transaction = new SQLTransactionState(null, onReplica, onReplica);
+		SQLTransactionTL.getState().clear();
+		SQLTransactionTL.getState().push(transaction);
+		return transaction;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class GroupsTreeTest
+{
+	private GroupsTree tree = GroupsTree.build(Arrays.asList("/A/B/C", "/", "/A", "/A/B", "/A/D", "/AB"));
+
+	@Test
+	public void shouldReturnDirectChildren()
+	{
+		assertThat(tree.getChildren("/")).containsOnly("/A", "/AB");
+		assertThat(tree.getChildren("/A")).containsOnly("/A/B", "/A/D");
+		assertThat(tree.getChildren("/A/D")).isEmpty();
+		assertThat(tree.getChildren("/missing")).isEmpty();
+	}
+
+	@Test
+	public void shouldReturnDescendants()
+	{
+		assertThat(tree.getDescendants("/A")).containsOnly("/A/B", "/A/B/C", "/A/D");
+		assertThat(tree.getDescendantsCount("/A")).isEqualTo(3);
+		assertThat(tree.getDescendantsCount("/")).isEqualTo(5);
+		assertThat(tree.getDescendants("/missing")).isEmpty();
+	}
+
+	@Test
+	public void shouldReturnAncestors()
+	{
+		assertThat(tree.getAncestors("/A/B/C")).containsExactly("/", "/A", "/A/B");
+		assertThat(tree.getAncestors("/")).isEmpty();
+		assertThat(tree.getAncestors("/A/missing")).isEmpty();
+	}
+
+	@Test
+	public void shouldUpdateCountsAfterModifications()
+	{
+		assertThat(tree.add("/A/B/E")).isTrue();
+		assertThat(tree.remove("/A/B")).isTrue();
+
+		assertThat(tree.getDescendants("/A")).containsOnly("/A/D");
+		assertThat(tree.getDescendantsCount("/")).isEqualTo(3);
+	}
+
+	@Test
+	public void shouldRenameSubtree()
+	{
+		assertThat(tree.rename("/A", "/S")).isTrue();
+
+		assertThat(tree.getDescendants("/S")).containsOnly("/S/B", "/S/B/C", "/S/D");
+		assertThat(tree.getAncestors("/S/B/C")).containsExactly("/", "/S", "/S/B");
+		assertThat(tree.getChildren("/")).containsOnly("/S", "/AB");
+	}
+
+	@Test
+	public void shouldRejectInconsistentModifications()
+	{
+		assertThat(tree.add("/A")).isFalse();
+		assertThat(tree.add("/X/Y")).isFalse();
+		assertThat(tree.remove("/X")).isFalse();
+		assertThat(tree.rename("/A/B", "/S/B")).isFalse();
+		assertThat(tree.rename("/A/B", "/A/D")).isFalse();
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class OpenTransactionsWatchdogTest
+{
+	private AtomicLong clock = new AtomicLong();
+	private OpenTransactionsWatchdog watchdog = new OpenTransactionsWatchdog(60000, () -> "stats", clock::get);
+
+	@Test
+	public void shouldReportTransactionOpenForTooLong()
+	{
+		watchdog.transactionStarted(new SQLTransactionState(null), "op1");
+		advance(61);
+
+		assertThat(watchdog.reportOverdue()).containsExactly("op1");
+	}
+
+	@Test
+	public void shouldNotReportRecentTransaction()
+	{
+		watchdog.transactionStarted(new SQLTransactionState(null), "op1");
+		advance(59);
+
+		assertThat(watchdog.reportOverdue()).isEmpty();
+	}
+
+	@Test
+	public void shouldReportTransactionOnlyOnce()
+	{
+		watchdog.transactionStarted(new SQLTransactionState(null), "op1");
+		advance(61);
+		watchdog.reportOverdue();
+		advance(61);
+
+		assertThat(watchdog.reportOverdue()).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReportFinishedTransaction()
+	{
+		SQLTransactionState transaction = new SQLTransactionState(null);
+		watchdog.transactionStarted(transaction, "op1");
+		watchdog.transactionStarted(new SQLTransactionState(null), "op2");
+		watchdog.transactionFinished(transaction);
+		advance(61);
+
+		assertThat(watchdog.reportOverdue()).containsExactly("op2");
+	}
+
+	private void advance(long seconds)
+	{
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+}
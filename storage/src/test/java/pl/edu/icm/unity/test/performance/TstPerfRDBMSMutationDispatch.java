@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.Lists;
+
+import pl.edu.icm.unity.base.utils.StopWatch;
+import pl.edu.icm.unity.store.StorageCleanerImpl;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.hz.rdbmsflush.RDBMSMutationEventProcessor;
+import pl.edu.icm.unity.store.impl.attribute.AttributeRDBMSStore;
+import pl.edu.icm.unity.store.impl.attribute.AttributeUpdateMutation;
+import pl.edu.icm.unity.store.impl.attributetype.AttributeTypeRDBMSStore;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
+import pl.edu.icm.unity.store.impl.groups.GroupRDBMSStore;
+import pl.edu.icm.unity.store.impl.membership.MembershipCreateMutation;
+import pl.edu.icm.unity.store.impl.membership.MembershipDeleteMutation;
+import pl.edu.icm.unity.store.impl.membership.MembershipRDBMSStore;
+import pl.edu.icm.unity.store.rdbms.RDBMSDAO;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
+import pl.edu.icm.unity.store.types.StoredAttribute;
+import pl.edu.icm.unity.types.basic.Attribute;
+import pl.edu.icm.unity.types.basic.AttributeExt;
+import pl.edu.icm.unity.types.basic.AttributeType;
+import pl.edu.icm.unity.types.basic.EntityInformation;
+import pl.edu.icm.unity.types.basic.Group;
+import pl.edu.icm.unity.types.basic.GroupMembership;
+
+/**
+ * Compares cost of applying Hazelcast to RDBMS flush mutations with typed mutation objects
+ * and with the legacy, reflection based dispatch (reimplemented here as a baseline).
+ * Attribute updates and membership writes are measured.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations={"classpath*:META-INF/components.xml"})
+public class TstPerfRDBMSMutationDispatch
+{
+	private static final int WARMUP = 5000;
+	private static final int N = 50000;
+	private static final int OPS_PER_TX = 1000;
+
+	@Autowired
+	private StorageCleanerImpl dbCleaner;
+	@Autowired @Qualifier(SQLTransactionalRunner.NAME)
+	private TransactionalRunner tx;
+	@Autowired
+	private RDBMSMutationEventProcessor processor;
+	@Autowired
+	private Map<String, RDBMSDAO> daos;
+	@Autowired
+	private EntityRDBMSStore entityDAO;
+	@Autowired
+	private GroupRDBMSStore groupDAO;
+	@Autowired
+	private AttributeTypeRDBMSStore atDAO;
+	@Autowired
+	private AttributeRDBMSStore attributeDAO;
+
+	private ReflectiveDispatcher reflective;
+	private long entityId;
+
+	@Before
+	public void setup()
+	{
+		dbCleaner.cleanOrDelete();
+		reflective = new ReflectiveDispatcher(daos);
+		tx.runInTransaction(() -> {
+			entityId = entityDAO.create(new EntityInformation());
+			groupDAO.create(new Group("/A"));
+			atDAO.create(new AttributeType("attr", "syntax"));
+			attributeDAO.create(getAttribute(0));
+		});
+	}
+
+	@Test
+	public void compareAttributeUpdates()
+	{
+		IntConsumer typed = i -> processor.apply(
+				new AttributeUpdateMutation(AttributeRDBMSStore.BEAN, getAttribute(i)),
+				SQLTransactionTL.getSql());
+		IntConsumer legacy = i -> reflective.apply(AttributeRDBMSStore.BEAN, "updateAttribute",
+				getAttribute(i));
+
+		measure("attribute update, reflective", legacy, WARMUP);
+		measure("attribute update, typed", typed, WARMUP);
+		measure("attribute update, reflective", legacy, N);
+		measure("attribute update, typed", typed, N);
+	}
+
+	@Test
+	public void compareMembershipWrites()
+	{
+		IntConsumer typed = i -> {
+			processor.apply(new MembershipCreateMutation(MembershipRDBMSStore.BEAN,
+					new GroupMembership("/A", entityId, new Date())), SQLTransactionTL.getSql());
+			processor.apply(new MembershipDeleteMutation(MembershipRDBMSStore.BEAN, entityId, "/A"),
+					SQLTransactionTL.getSql());
+		};
+		IntConsumer legacy = i -> {
+			reflective.apply(MembershipRDBMSStore.BEAN, "create",
+					new GroupMembership("/A", entityId, new Date()));
+			reflective.apply(MembershipRDBMSStore.BEAN, "deleteByKey", entityId, "/A");
+		};
+
+		measure("membership create+delete, reflective", legacy, WARMUP);
+		measure("membership create+delete, typed", typed, WARMUP);
+		measure("membership create+delete, reflective", legacy, N);
+		measure("membership create+delete, typed", typed, N);
+	}
+
+	private void measure(String label, IntConsumer operation, int count)
+	{
+		StopWatch watch = new StopWatch();
+		for (int i = 0; i < count; i += OPS_PER_TX)
+		{
+			int start = i;
+			tx.runInTransaction(() -> {
+				for (int j = start; j < start + OPS_PER_TX; j++)
+					operation.accept(j);
+			});
+		}
+		watch.printTotal(label + " x" + count + ": {0}ms");
+	}
+
+	private StoredAttribute getAttribute(int version)
+	{
+		Attribute attr = new Attribute("attr", "syntax", "/A",
+				Lists.newArrayList("v" + version), "remoteIdp", "translationProfile");
+		AttributeExt a = new AttributeExt(attr, true, new Date(100), new Date(1000));
+		return new StoredAttribute(a, entityId);
+	}
+
+	/**
+	 * Dispatch by method name and reflective invocation, as used before typed mutations were introduced.
+	 */
+	private static class ReflectiveDispatcher
+	{
+		private Map<String, Map<String, Method>> daoMethods = new HashMap<>();
+		private Map<String, RDBMSDAO> daos;
+
+		ReflectiveDispatcher(Map<String, RDBMSDAO> daos)
+		{
+			this.daos = daos;
+			for (Map.Entry<String, RDBMSDAO> entry: daos.entrySet())
+			{
+				Map<String, Method> methods = new HashMap<>();
+				daoMethods.put(entry.getKey(), methods);
+				for (Method m: entry.getValue().getClass().getMethods())
+				{
+					if (m.getDeclaringClass().equals(Object.class) || m.isSynthetic())
+						continue;
+					methods.put(m.getName(), m);
+				}
+			}
+		}
+
+		void apply(String dao, String operation, Object... args)
+		{
+			Method method = daoMethods.get(dao).get(operation);
+			try
+			{
+				method.invoke(daos.get(dao), args);
+			} catch (Exception e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -5,48 +5,138 @@
 package pl.edu.icm.unity.types.basic;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.mvel2.MVEL;
 
+/**
+ * Server wide cache of compiled MVEL expressions, keyed by the expression source. Compiled expressions
+ * are thread safe, so a single instance is shared by all users of an expression.
+ * <p>
+ * The cache is bounded: when the size limit is exceeded, the least recently used tenth of expressions
+ * is evicted. Hit, miss and compilation time statistics are recorded.
+ */
 public class MVELCompiledExpressionsCache
 {
-	private static final Map<ExpressionString, Serializable> CACHE = new WeakHashMap<>();
-	
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	private static volatile BoundedCache cache = new BoundedCache(DEFAULT_MAX_SIZE);
+
+	/**
+	 * @return compiled expression, from cache if possible
+	 * @throws org.mvel2.CompileException if the expression is invalid
+	 */
 	public static Serializable getCompiledExpression(String expression)
 	{
-		return CACHE.computeIfAbsent(new ExpressionString(expression), 
-				expr -> MVEL.compileExpression(expr.expression));
+		return cache.get(expression);
+	}
+
+	/**
+	 * Changes the size limit of the cache. All cached expressions are dropped.
+	 */
+	public static void setMaxSize(int maxSize)
+	{
+		cache = new BoundedCache(maxSize);
+	}
+
+	public static Statistics getStatistics()
+	{
+		return cache.statistics;
+	}
+
+	public static long getSize()
+	{
+		return cache.entries.size();
+	}
+
+	/**
+	 * Cache usage counters, since the last change of the size limit.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder compilationTime = new LongAdder();
+
+		public long hitCount()
+		{
+			return hits.sum();
+		}
+
+		public long missCount()
+		{
+			return misses.sum();
+		}
+
+		/**
+		 * @return total time spent on compiling expressions, in nanoseconds
+		 */
+		public long totalCompilationTime()
+		{
+			return compilationTime.sum();
+		}
 	}
-	
-	private static class ExpressionString
+
+	private static class BoundedCache
 	{
-		private final String expression;
+		private final int maxSize;
+		private final Map<String, CachedExpression> entries = new ConcurrentHashMap<>();
+		private final AtomicLong clock = new AtomicLong();
+		private final Statistics statistics = new Statistics();
+
+		BoundedCache(int maxSize)
+		{
+			this.maxSize = maxSize;
+		}
 
-		public ExpressionString(String expression)
+		Serializable get(String expression)
 		{
-			this.expression = expression;
+			CachedExpression cached = entries.get(expression);
+			if (cached != null)
+			{
+				statistics.hits.increment();
+				cached.lastAccess = clock.incrementAndGet();
+				return cached.compiled;
+			}
+			statistics.misses.increment();
+			long start = System.nanoTime();
+			Serializable compiled = MVEL.compileExpression(expression);
+			statistics.compilationTime.add(System.nanoTime() - start);
+			CachedExpression previous = entries.putIfAbsent(expression,
+					new CachedExpression(compiled, clock.incrementAndGet()));
+			if (previous != null)
+				return previous.compiled;
+			if (entries.size() > maxSize)
+				evictLeastRecentlyUsed();
+			return compiled;
 		}
 
-		@Override
-		public int hashCode()
+		private synchronized void evictLeastRecentlyUsed()
 		{
-			return Objects.hash(expression);
+			int toEvict = entries.size() - maxSize + maxSize / 10;
+			if (toEvict <= 0 || entries.size() <= maxSize)
+				return;
+			List<Map.Entry<String, CachedExpression>> sorted = new ArrayList<>(entries.entrySet());
+			sorted.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+			for (int i = 0; i < toEvict && i < sorted.size(); i++)
+				entries.remove(sorted.get(i).getKey());
 		}
+	}
+
+	private static class CachedExpression
+	{
+		private final Serializable compiled;
+		private volatile long lastAccess;
 
-		@Override
-		public boolean equals(Object obj)
+		CachedExpression(Serializable compiled, long lastAccess)
 		{
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			ExpressionString other = (ExpressionString) obj;
-			return Objects.equals(expression, other.expression);
+			this.compiled = compiled;
+			this.lastAccess = lastAccess;
 		}
 	}
 }
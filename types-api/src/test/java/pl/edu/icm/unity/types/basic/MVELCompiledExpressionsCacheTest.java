@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.types.basic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mvel2.CompileException;
+import org.mvel2.MVEL;
+
+public class MVELCompiledExpressionsCacheTest
+{
+	@After
+	public void resetCache()
+	{
+		MVELCompiledExpressionsCache.setMaxSize(MVELCompiledExpressionsCache.DEFAULT_MAX_SIZE);
+	}
+
+	@Test
+	public void shouldReuseCompiledExpression()
+	{
+		MVELCompiledExpressionsCache.setMaxSize(10);
+
+		Serializable first = MVELCompiledExpressionsCache.getCompiledExpression("a + 1");
+		Serializable second = MVELCompiledExpressionsCache.getCompiledExpression(new String("a + 1"));
+
+		assertThat(second).isSameAs(first);
+		assertThat(MVELCompiledExpressionsCache.getStatistics().hitCount()).isEqualTo(1);
+		assertThat(MVELCompiledExpressionsCache.getStatistics().missCount()).isEqualTo(1);
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("a", 1);
+		assertThat(MVEL.executeExpression(second, vars)).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRespectSizeLimit()
+	{
+		MVELCompiledExpressionsCache.setMaxSize(10);
+
+		for (int i = 0; i < 100; i++)
+			MVELCompiledExpressionsCache.getCompiledExpression("a + " + i);
+
+		assertThat(MVELCompiledExpressionsCache.getSize()).isLessThanOrEqualTo(10);
+	}
+
+	@Test
+	public void shouldKeepRecentlyUsedExpression()
+	{
+		MVELCompiledExpressionsCache.setMaxSize(10);
+		Serializable used = MVELCompiledExpressionsCache.getCompiledExpression("a + 1");
+
+		for (int i = 0; i < 100; i++)
+		{
+			MVELCompiledExpressionsCache.getCompiledExpression("b + " + i);
+			MVELCompiledExpressionsCache.getCompiledExpression("a + 1");
+		}
+
+		assertThat(MVELCompiledExpressionsCache.getCompiledExpression("a + 1")).isSameAs(used);
+		assertThat(MVELCompiledExpressionsCache.getStatistics().missCount()).isEqualTo(101);
+	}
+
+	@Test
+	public void shouldPropagateCompilationError()
+	{
+		Throwable error = catchThrowable(() -> MVELCompiledExpressionsCache.getCompiledExpression("a +* ("));
+
+		assertThat(error).isInstanceOf(CompileException.class);
+	}
+}
@@ -7,19 +7,27 @@ package io.imunity.webadmin.attribute;
 import pl.edu.icm.unity.webui.bus.Event;
 
 /**
- * Sent when attribute is added/removed/modified in a group.
+ * Sent when attribute is added/removed/modified in a group. The id of the attribute's owner is 
+ * provided when known.
  * @author K. Benedyczak
  */
 public class AttributeChangedEvent implements Event
 {
 	private String group;
 	private String attributeName;
+	private Long entityId;
 
 	public AttributeChangedEvent(String group, String attributeName)
+	{
+		this(group, attributeName, null);
+	}
+
+	public AttributeChangedEvent(String group, String attributeName, Long entityId)
 	{
 		super();
 		this.group = group;
 		this.attributeName = attributeName;
+		this.entityId = entityId;
 	}
 
 	public String getGroup()
@@ -31,4 +39,9 @@ public class AttributeChangedEvent implements Event
 	{
 		return attributeName;
 	}
+
+	public Long getEntityId()
+	{
+		return entityId;
+	}
 }
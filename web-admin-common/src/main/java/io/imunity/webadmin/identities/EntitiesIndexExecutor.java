@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package io.imunity.webadmin.identities;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Dedicated, small thread pool building {@link EntitiesSearchIndex}es. Building an index of a large group
+ * takes long, so it is not run on the shared server executor, where it could delay other tasks.
+ */
+@Component
+public class EntitiesIndexExecutor
+{
+	private static final int THREADS = 2;
+	private final ExecutorService executor;
+
+	public EntitiesIndexExecutor()
+	{
+		this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "Entities search index builder");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void submit(Runnable task)
+	{
+		executor.submit(task);
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+}
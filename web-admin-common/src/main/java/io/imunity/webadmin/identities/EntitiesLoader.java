@@ -5,15 +5,19 @@
 package io.imunity.webadmin.identities;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.google.common.base.Stopwatch;
+import com.vaadin.ui.UI;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.bulk.BulkGroupQueryService;
@@ -22,6 +26,7 @@ import pl.edu.icm.unity.engine.api.utils.PrototypeComponent;
 import pl.edu.icm.unity.exceptions.EngineException;
 import pl.edu.icm.unity.types.basic.AttributeExt;
 import pl.edu.icm.unity.types.basic.Entity;
+import pl.edu.icm.unity.webui.common.UIBgThread;
 
 /**
  * Loads entities from a given group, and resolves their attributes. Operation is done
@@ -33,12 +38,17 @@ import pl.edu.icm.unity.types.basic.Entity;
 public class EntitiesLoader
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_WEB, EntitiesLoader.class);
+	private static final int INDEX_PAGE_SIZE = 1000;
+	private static final int INDEX_POLL_INTERVAL = 500;
 	private BulkGroupQueryService bulkQueryService;
+	private EntitiesIndexExecutor indexExecutor;
+	private int pendingIndexLoads;
 
 	@Autowired
-	public EntitiesLoader(BulkGroupQueryService bulkQueryService)
+	public EntitiesLoader(BulkGroupQueryService bulkQueryService, EntitiesIndexExecutor indexExecutor)
 	{
 		this.bulkQueryService = bulkQueryService;
+		this.indexExecutor = indexExecutor;
 	}
 
 	public void reload(Set<IdentityEntry> selected, String group, boolean includeTargeted,
@@ -47,6 +57,82 @@ public class EntitiesLoader
 		Stopwatch watch = Stopwatch.createStarted();
 		
 		GroupMembershipData bulkData = bulkQueryService.getBulkMembershipData(group);
+		List<ResolvedEntity> ret = resolve(group, includeTargeted, bulkData, null);
+		watch.stop();
+		log.debug("Resolved {} users in {}, {} users/s", ret.size(), watch.toString(), 
+				(1000.0*ret.size()/watch.elapsed(TimeUnit.MILLISECONDS)));
+		consumer.consume(ret, selected, 1.0f);
+	}
+
+	/**
+	 * Resolves only the given members of a group. The returned list follows the order of the given ids,
+	 * ids of entities which are not members of the group are skipped.
+	 */
+	public List<ResolvedEntity> resolve(String group, List<Long> entityIds, boolean includeTargeted) 
+			throws EngineException
+	{
+		if (entityIds.isEmpty())
+			return new ArrayList<>();
+		GroupMembershipData bulkData = bulkQueryService.getBulkMembershipData(group, new HashSet<>(entityIds));
+		return resolve(group, includeTargeted, bulkData, entityIds);
+	}
+
+	/**
+	 * Builds a search index of all members of a group in a background thread. Only identities and direct 
+	 * attributes of members are loaded, page by page, so only the compact index is kept in memory.
+	 * The index (or the error) is passed to the consumer in the UI's context, the UI is polled 
+	 * till all started loads are finished. Must be called in the UI's context.
+	 */
+	public void loadIndexAsync(String group, String labelAttribute, Consumer<EntitiesSearchIndex> consumer,
+			Consumer<Exception> errorHandler)
+	{
+		UI ui = UI.getCurrent();
+		if (pendingIndexLoads++ == 0)
+			ui.setPollInterval(INDEX_POLL_INTERVAL);
+		indexExecutor.submit(new UIBgThread()
+		{
+			@Override
+			public void safeRun()
+			{
+				try
+				{
+					EntitiesSearchIndex index = loadIndex(group, labelAttribute);
+					ui.access(() -> 
+					{
+						indexLoadFinished(ui);
+						consumer.accept(index);
+					});
+				} catch (Exception e)
+				{
+					ui.access(() -> 
+					{
+						indexLoadFinished(ui);
+						errorHandler.accept(e);
+					});
+				}
+			}
+		});
+	}
+
+	private void indexLoadFinished(UI ui)
+	{
+		if (--pendingIndexLoads == 0)
+			ui.setPollInterval(-1);
+	}
+
+	private EntitiesSearchIndex loadIndex(String group, String labelAttribute) throws EngineException
+	{
+		Stopwatch watch = Stopwatch.createStarted();
+		EntitiesSearchIndex index = new EntitiesSearchIndex(labelAttribute);
+		bulkQueryService.streamMembersDirectData(group, INDEX_PAGE_SIZE, index.pageConsumer());
+		watch.stop();
+		log.debug("Indexed {} users in {}", index.size(), watch.toString());
+		return index;
+	}
+	
+	private List<ResolvedEntity> resolve(String group, boolean includeTargeted, GroupMembershipData bulkData,
+			List<Long> order)
+	{
 		Map<Long, Entity> groupEntities = includeTargeted ? 
 				bulkQueryService.getGroupEntitiesNoContextWithTargeted(bulkData) : 
 				bulkQueryService.getGroupEntitiesNoContextWithoutTargeted(bulkData);
@@ -55,19 +141,19 @@ public class EntitiesLoader
 				rootAttributes :
 				bulkQueryService.getGroupUsersAttributes(group, bulkData);
 		
+		Collection<Long> entityIds = order == null ? groupEntities.keySet() : order;
 		List<ResolvedEntity> ret = new ArrayList<>(groupEntities.size());
-		for (Long entityId: groupEntities.keySet())
+		for (Long entityId: entityIds)
 		{
 			Entity entity = groupEntities.get(entityId);
+			if (entity == null)
+				continue;
 			ResolvedEntity resolvedEntity = new ResolvedEntity(entity, 
 					entity.getIdentities(), 
 					rootAttributes.get(entityId), groupAttributes.get(entityId));
 			ret.add(resolvedEntity);
 		}
-		watch.stop();
-		log.debug("Resolved {} users in {}, {} users/s", groupEntities.size(), watch.toString(), 
-				(1000.0*groupEntities.size()/watch.elapsed(TimeUnit.MILLISECONDS)));
-		consumer.consume(ret, selected, 1.0f);
+		return ret;
 	}
 
 	@FunctionalInterface
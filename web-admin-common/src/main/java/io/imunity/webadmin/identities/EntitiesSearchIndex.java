@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018 Bixbit - Krzysztof Benedyczak All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package io.imunity.webadmin.identities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Sets;
+
+import pl.edu.icm.unity.engine.api.bulk.EntityInGroupData;
+import pl.edu.icm.unity.stdext.attr.EnumAttributeSyntax;
+import pl.edu.icm.unity.stdext.attr.StringAttributeSyntax;
+import pl.edu.icm.unity.stdext.attr.VerifiableEmailAttributeSyntax;
+import pl.edu.icm.unity.stdext.attr.VerifiableMobileNumberAttributeSyntax;
+import pl.edu.icm.unity.types.basic.Attribute;
+import pl.edu.icm.unity.types.basic.Entity;
+import pl.edu.icm.unity.types.basic.Identity;
+
+/**
+ * Compact, in-memory index of the members of a group. Allows for searching and sorting group members
+ * without holding their complete data: for each entity only its label and lower-cased identity and
+ * attribute values are stored. Only values of textual attribute syntaxes are indexed, so that binary values
+ * (as images) are not kept.
+ * <p>
+ * The index is built once and then maintained incrementally with {@link #put(ResolvedEntity)} and
+ * {@link #remove(long)}. It is not thread safe, it is intended to be used by a single UI.
+ *
+ * @author K. Benedyczak
+ */
+public class EntitiesSearchIndex
+{
+	private static final char VALUES_SEPARATOR = '\u0000';
+	private static final Set<String> INDEXED_SYNTAXES = Sets.newHashSet(StringAttributeSyntax.ID, 
+			EnumAttributeSyntax.ID, VerifiableEmailAttributeSyntax.ID, VerifiableMobileNumberAttributeSyntax.ID);
+	private static final Comparator<IndexedEntity> LABEL_ORDER = Comparator
+			.comparing((IndexedEntity e) -> e.label, String.CASE_INSENSITIVE_ORDER)
+			.thenComparingLong(e -> e.entityId);
+
+	private final String labelAttribute;
+	private final TreeMap<Long, IndexedEntity> byId = new TreeMap<>();
+	private List<IndexedEntity> byLabel;
+	private String lastCountedSearch;
+	private int lastCount;
+
+	public EntitiesSearchIndex(String labelAttribute)
+	{
+		this.labelAttribute = labelAttribute;
+	}
+
+	public void put(EntityInGroupData member)
+	{
+		put(member.entity, member.entity.getIdentities(),
+				member.rootAttributesByName, member.groupAttributesByName);
+	}
+
+	public void put(ResolvedEntity resolved)
+	{
+		put(resolved.getEntity(), resolved.getIdentities(),
+				resolved.getRootAttributes(), resolved.getCurrentAttributes());
+	}
+
+	public void remove(long entityId)
+	{
+		if (byId.remove(entityId) != null)
+			modified(true);
+	}
+
+	public int size()
+	{
+		return byId.size();
+	}
+
+	/**
+	 * @return number of entities with any identity or attribute value containing the searched text
+	 * (case insensitive). Null or empty text matches all entities.
+	 */
+	public int count(String searched)
+	{
+		if (isEmpty(searched))
+			return byId.size();
+		String searchedLower = searched.toLowerCase();
+		if (searchedLower.equals(lastCountedSearch))
+			return lastCount;
+		int count = 0;
+		for (IndexedEntity entity: byId.values())
+			if (entity.matches(searchedLower))
+				count++;
+		lastCountedSearch = searchedLower;
+		lastCount = count;
+		return count;
+	}
+
+	/**
+	 * @return ids of at most limit matching entities, skipping first offset ones. Entities are ordered
+	 * by label (then by id) if sortByLabel is set, otherwise by id.
+	 */
+	public List<Long> find(String searched, boolean sortByLabel, boolean descending, int offset, int limit)
+	{
+		Iterable<IndexedEntity> iterated = getOrdered(sortByLabel, descending);
+		String searchedLower = isEmpty(searched) ? null : searched.toLowerCase();
+		List<Long> ret = new ArrayList<>(Math.min(limit, byId.size()));
+		int skipped = 0;
+		for (IndexedEntity entity: iterated)
+		{
+			if (ret.size() >= limit)
+				break;
+			if (searchedLower != null && !entity.matches(searchedLower))
+				continue;
+			if (skipped < offset)
+			{
+				skipped++;
+				continue;
+			}
+			ret.add(entity.entityId);
+		}
+		return ret;
+	}
+
+	Consumer<List<EntityInGroupData>> pageConsumer()
+	{
+		return page -> page.forEach(this::put);
+	}
+
+	private void put(Entity entity, Collection<Identity> identities, Map<String, ? extends Attribute> rootAttributes,
+			Map<String, ? extends Attribute> currentAttributes)
+	{
+		long entityId = entity.getId();
+		String label = getLabel(rootAttributes);
+		String values = getSearchedValues(entityId, label, identities, rootAttributes, currentAttributes);
+		IndexedEntity existing = byId.get(entityId);
+		if (existing != null && existing.label.equals(label))
+		{
+			existing.values = values;
+			modified(false);
+		} else
+		{
+			byId.put(entityId, new IndexedEntity(entityId, label, values));
+			modified(true);
+		}
+	}
+
+	private String getLabel(Map<String, ? extends Attribute> rootAttributes)
+	{
+		if (labelAttribute == null || rootAttributes == null)
+			return "";
+		Attribute labelAttr = rootAttributes.get(labelAttribute);
+		return labelAttr == null || labelAttr.getValues().isEmpty() ? "" : labelAttr.getValues().get(0);
+	}
+
+	private String getSearchedValues(long entityId, String label, Collection<Identity> identities,
+			Map<String, ? extends Attribute> rootAttributes,
+			Map<String, ? extends Attribute> currentAttributes)
+	{
+		StringBuilder values = new StringBuilder();
+		values.append(entityId).append(VALUES_SEPARATOR).append(label);
+		for (Identity identity: identities)
+			values.append(VALUES_SEPARATOR).append(identity.getValue());
+		appendAttributeValues(values, rootAttributes);
+		if (currentAttributes != rootAttributes)
+			appendAttributeValues(values, currentAttributes);
+		return values.toString().toLowerCase();
+	}
+
+	private void appendAttributeValues(StringBuilder values, Map<String, ? extends Attribute> attributes)
+	{
+		if (attributes == null)
+			return;
+		for (Attribute attribute: attributes.values())
+		{
+			if (!INDEXED_SYNTAXES.contains(attribute.getValueSyntax()))
+				continue;
+			for (String value: attribute.getValues())
+				values.append(VALUES_SEPARATOR).append(value);
+		}
+	}
+
+	private void modified(boolean orderChanged)
+	{
+		lastCountedSearch = null;
+		if (orderChanged)
+			byLabel = null;
+	}
+
+	private List<IndexedEntity> getByLabel()
+	{
+		if (byLabel == null)
+		{
+			byLabel = new ArrayList<>(byId.values());
+			byLabel.sort(LABEL_ORDER);
+		}
+		return byLabel;
+	}
+
+	private Iterable<IndexedEntity> getOrdered(boolean sortByLabel, boolean descending)
+	{
+		if (!sortByLabel)
+			return descending ? byId.descendingMap().values() : byId.values();
+		List<IndexedEntity> ordered = getByLabel();
+		return descending ? () -> new ReverseIterator(ordered) : ordered;
+	}
+
+	private static boolean isEmpty(String searched)
+	{
+		return searched == null || searched.isEmpty();
+	}
+
+	private static class ReverseIterator implements Iterator<IndexedEntity>
+	{
+		private final ListIterator<IndexedEntity> wrapped;
+
+		ReverseIterator(List<IndexedEntity> list)
+		{
+			this.wrapped = list.listIterator(list.size());
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return wrapped.hasPrevious();
+		}
+
+		@Override
+		public IndexedEntity next()
+		{
+			return wrapped.previous();
+		}
+	}
+
+	private static class IndexedEntity
+	{
+		private final long entityId;
+		private final String label;
+		private String values;
+
+		IndexedEntity(long entityId, String label, String values)
+		{
+			this.entityId = entityId;
+			this.label = label;
+			this.values = values;
+		}
+
+		boolean matches(String searchedLower)
+		{
+			return values.contains(searchedLower);
+		}
+	}
+}
@@ -34,6 +34,7 @@ public class IdentitiesTablePreferences
 	private Map<String, ColumnSettings> colSettings = new HashMap<>();
 	private boolean groupbyEntitiesSetting = true;
 	private boolean showTargetedSetting = false;
+	private boolean lazyLoadingSetting = false;
 
 	public IdentitiesTablePreferences()
 	{
@@ -55,6 +56,8 @@ public class IdentitiesTablePreferences
 			showTargetedSetting = spSettingsNodeB.get("showTargeted").asBoolean();
 		else
 			showTargetedSetting = false;
+		if (spSettingsNodeB.has("lazyLoading"))
+			lazyLoadingSetting = spSettingsNodeB.get("lazyLoading").asBoolean();
 	}
 	
 	public static IdentitiesTablePreferences getPreferences(PreferencesManagement preferencesMan)
@@ -77,6 +80,7 @@ public class IdentitiesTablePreferences
 		ObjectNode settingC = main.with("checkBoxSettings");
 		settingC.put("groupByEntities", groupbyEntitiesSetting);
 		settingC.put("showTargeted", showTargetedSetting);
+		settingC.put("lazyLoading", lazyLoadingSetting);
 		return main;
 	}
 
@@ -136,6 +140,16 @@ public class IdentitiesTablePreferences
 		this.showTargetedSetting = showTargetedSetting;
 	}
 
+	public boolean getLazyLoadingSetting()
+	{
+		return lazyLoadingSetting;
+	}
+
+	public void setLazyLoadingSetting(boolean lazyLoadingSetting)
+	{
+		this.lazyLoadingSetting = lazyLoadingSetting;
+	}
+
 
 	public void addColumneSettings(String columnName, ColumnSettings settings)
 	{
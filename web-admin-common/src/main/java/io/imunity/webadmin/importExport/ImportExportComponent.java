@@ -147,6 +147,10 @@ public class ImportExportComponent extends VerticalLayout
 		hl.addComponent(auditLogs);	
 		
 		final DBDumpResource dumpResource = new DBDumpResource(serverManagement);
+		CheckBox compressed = new CheckBox(msg.getMessage("ImportExport.compressed"));
+		compressed.addValueChangeListener(v -> dumpResource.setCompressed(v.getValue()));
+		hl.addComponent(compressed);
+		
 		DeletingFileDownloader downloader = new DeletingFileDownloader(dumpResource);
 		Button createDump = new Button(msg.getMessage("ImportExport.createDump"));
 		downloader.extend(createDump);
@@ -397,10 +401,11 @@ public class ImportExportComponent extends VerticalLayout
 		private String filename;
 		private Exception error;
 		private DBDumpContentElements content;
+		private boolean compressed;
 
 		public DBDumpResource(ServerManagement serverManagement)
 		{
-			super(new File(getNewFilename()));
+			super(new File(getNewFilename(false)));
 			this.serverManagement = serverManagement;
 			filename = super.getFilename();
 		}
@@ -411,6 +416,11 @@ public class ImportExportComponent extends VerticalLayout
 			
 		}
 
+		public synchronized void setCompressed(boolean compressed)
+		{
+			this.compressed = compressed;
+		}
+
 		@Override
 		public DownloadStream getStream()
 		{
@@ -418,7 +428,7 @@ public class ImportExportComponent extends VerticalLayout
 			{
 				try
 				{
-					dump = serverManagement.exportDb(content);
+					dump = serverManagement.exportDb(content, compressed);
 					clearError();
 				} catch (Exception e1)
 				{
@@ -429,7 +439,7 @@ public class ImportExportComponent extends VerticalLayout
 
 			try 
 			{
-				filename = getNewFilename();
+				filename = getNewFilename(compressed);
 				final DownloadStream ds = new DownloadStream(new FileInputStream(dump), 
 						getMIMEType(), filename);
 				ds.setParameter("Content-Length", String.valueOf(dump.length()));
@@ -441,10 +451,10 @@ public class ImportExportComponent extends VerticalLayout
 			}
 		}
 
-		private static String getNewFilename()
+		private static String getNewFilename(boolean compressed)
 		{
 			String ts = new SimpleDateFormat("yyyyMMdd-HHmmssMM").format(new Date());
-			return "unity-dbdump-" + ts + ".json";
+			return "unity-dbdump-" + ts + (compressed ? ".json.gz" : ".json");
 		}
 		
 		@Override
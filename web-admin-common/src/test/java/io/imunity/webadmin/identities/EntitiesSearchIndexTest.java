@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package io.imunity.webadmin.identities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import pl.edu.icm.unity.stdext.attr.ImageAttributeSyntax;
+import pl.edu.icm.unity.stdext.attr.StringAttribute;
+import pl.edu.icm.unity.types.basic.Attribute;
+import pl.edu.icm.unity.types.basic.Entity;
+import pl.edu.icm.unity.types.basic.EntityInformation;
+import pl.edu.icm.unity.types.basic.Identity;
+
+public class EntitiesSearchIndexTest
+{
+	private static final String NAME_ATTR = "name";
+
+	private EntitiesSearchIndex index = new EntitiesSearchIndex(NAME_ATTR);
+
+	@Test
+	public void shouldSearchIdentitiesAndAttributesIgnoringCase()
+	{
+		index.put(entity(1, "Alice", "alice-id", "Red"));
+		index.put(entity(2, "Bob", "bob-id", "Green"));
+		index.put(entity(3, "Carol", "carol-id", "red"));
+
+		assertThat(index.count("RED")).isEqualTo(2);
+		assertThat(index.find("RED", false, false, 0, 10)).containsExactly(1L, 3L);
+		assertThat(index.find("BOB-ID", false, false, 0, 10)).containsExactly(2L);
+		assertThat(index.count(null)).isEqualTo(3);
+	}
+
+	@Test
+	public void shouldNotIndexBinaryAttributes()
+	{
+		Map<String, Attribute> attributes = new HashMap<>();
+		attributes.put("photo", new Attribute("photo", ImageAttributeSyntax.ID, "/",
+				Collections.singletonList("binaryContents")));
+		index.put(new ResolvedEntity(new Entity(Collections.emptyList(), new EntityInformation(1), null),
+				Collections.emptyList(), attributes, attributes));
+
+		assertThat(index.count("binaryContents")).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldFindPageSortedByLabel()
+	{
+		index.put(entity(1, "carol", "id1", "v"));
+		index.put(entity(2, "Alice", "id2", "v"));
+		index.put(entity(3, "bob", "id3", "v"));
+		index.put(entity(4, "Dave", "id4", "v"));
+
+		assertThat(index.find(null, true, false, 1, 2)).containsExactly(3L, 1L);
+		assertThat(index.find(null, true, true, 0, 3)).containsExactly(4L, 1L, 3L);
+		assertThat(index.find(null, false, true, 0, 2)).containsExactly(4L, 3L);
+	}
+
+	@Test
+	public void shouldReflectUpdatedAndRemovedEntities()
+	{
+		index.put(entity(1, "Alice", "id1", "old"));
+		index.put(entity(2, "Bob", "id2", "old"));
+		assertThat(index.count("old")).isEqualTo(2);
+
+		index.put(entity(1, "Zed", "id1", "new"));
+		index.remove(2);
+
+		assertThat(index.count("old")).isEqualTo(0);
+		assertThat(index.count("new")).isEqualTo(1);
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.find("zed", true, false, 0, 10)).containsExactly(1L);
+	}
+
+	private static ResolvedEntity entity(long id, String name, String identity, String color)
+	{
+		Identity ident = new Identity("userName", identity, id, identity);
+		Map<String, Attribute> attributes = new HashMap<>();
+		attributes.put(NAME_ATTR, StringAttribute.of(NAME_ATTR, "/", name));
+		attributes.put("color", StringAttribute.of("color", "/", color));
+		return new ResolvedEntity(new Entity(Collections.singletonList(ident), new EntityInformation(id), null),
+				Collections.singletonList(ident), attributes, attributes);
+	}
+}
@@ -39,6 +39,7 @@ import pl.edu.icm.unity.engine.api.authn.AuthenticationException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationFlow;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationProcessor;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.InvocationContext;
 import pl.edu.icm.unity.engine.api.authn.LoginSession;
 import pl.edu.icm.unity.engine.api.authn.LoginSession.RememberMeInfo;
@@ -110,7 +111,7 @@ public class StandardWebAuthenticationProcessor implements WebAuthenticationProc
 					authenticationFlow, firstFactorAuthnOptionId);
 		} catch (AuthenticationException e)
 		{
-			if (!(e instanceof UnknownRemoteUserException))
+			if (!(e instanceof UnknownRemoteUserException) && !(e instanceof AuthenticationServerBusyException))
 				counter.unsuccessfulAttempt(clientIp);
 			throw e;
 		}
@@ -188,7 +189,7 @@ public class StandardWebAuthenticationProcessor implements WebAuthenticationProc
 					result2);
 		} catch (AuthenticationException e)
 		{
-			if (!(e instanceof UnknownRemoteUserException))
+			if (!(e instanceof UnknownRemoteUserException) && !(e instanceof AuthenticationServerBusyException))
 				counter.unsuccessfulAttempt(clientIp);
 			throw e;
 		}
@@ -214,6 +214,11 @@ public class PasswordRetrieval extends AbstractCredentialRetrieval<PasswordExcha
 					callback.onFailedAuthentication(authenticationResult, 
 							msg.getMessage("WebPasswordRetrieval.wrongPassword"), 
 							Optional.empty());
+				} else if (authenticationResult.getStatus() == Status.serverBusy)
+				{
+					callback.onFailedAuthentication(authenticationResult, 
+							msg.getMessage("WebPasswordRetrieval.serverBusy"), 
+							Optional.empty());
 				} else
 				{
 					setEnabled(false);
@@ -63,7 +63,7 @@ public class PasswordCredentialDefinitionEditor implements CredentialDefinitionE
 	{
 		this.msg = msg;
 		this.msgTplMan = msgTplMan;
-		this.scryptEncoder = new SCryptEncoder(poolProvider.pool);
+		this.scryptEncoder = new SCryptEncoder(poolProvider);
 	}
 
 
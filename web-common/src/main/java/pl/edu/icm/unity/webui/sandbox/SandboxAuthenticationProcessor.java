@@ -16,6 +16,7 @@ import pl.edu.icm.unity.engine.api.authn.AuthenticationException;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationFlow;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationProcessor;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationResult;
+import pl.edu.icm.unity.engine.api.authn.AuthenticationServerBusyException;
 import pl.edu.icm.unity.engine.api.authn.PartialAuthnState;
 import pl.edu.icm.unity.engine.api.authn.UnsuccessfulAuthenticationCounter;
 import pl.edu.icm.unity.engine.api.authn.remote.UnknownRemoteUserException;
@@ -55,7 +56,7 @@ class SandboxAuthenticationProcessor implements WebAuthenticationProcessor
 			authnState = authnProcessor.processPrimaryAuthnResult(result, authenticationFlow, null);
 		} catch (AuthenticationException e)
 		{
-			if (!(e instanceof UnknownRemoteUserException))
+			if (!(e instanceof UnknownRemoteUserException) && !(e instanceof AuthenticationServerBusyException))
 				counter.unsuccessfulAttempt(clientIp);
 			throw e;
 		}
@@ -81,7 +82,7 @@ class SandboxAuthenticationProcessor implements WebAuthenticationProcessor
 			logInfo = authnProcessor.finalizeAfterSecondaryAuthentication(state, result2);
 		} catch (AuthenticationException e)
 		{
-			if (!(e instanceof UnknownRemoteUserException))
+			if (!(e instanceof UnknownRemoteUserException) && !(e instanceof AuthenticationServerBusyException))
 				counter.unsuccessfulAttempt(clientIp);
 			throw e;
 		}
@@ -119,7 +119,8 @@ class AttributesController
 			for (AttributeExt toRemove : items)
 			{
 				attrMan.removeAttribute(owner, toRemove.getGroupPath(), toRemove.getName());
-				bus.fireEvent(new AttributeChangedEvent(toRemove.getGroupPath(), toRemove.getName()));
+				bus.fireEvent(new AttributeChangedEvent(toRemove.getGroupPath(), toRemove.getName(),
+						owner.getEntityId()));
 			}
 		} catch (Exception e)
 		{
@@ -139,7 +140,8 @@ class AttributesController
 		try
 		{
 			attrMan.setAttributeSuppressingConfirmation(owner, attribute);
-			bus.fireEvent(new AttributeChangedEvent(attribute.getGroupPath(), attribute.getName()));
+			bus.fireEvent(new AttributeChangedEvent(attribute.getGroupPath(), attribute.getName(),
+					owner.getEntityId()));
 		} catch (Exception e)
 		{
 			throw new ControllerException(
@@ -153,7 +155,8 @@ class AttributesController
 		{
 			attrMan.createAttributeSuppressingConfirmation(owner, attribute);
 
-			bus.fireEvent(new AttributeChangedEvent(attribute.getGroupPath(), attribute.getName()));
+			bus.fireEvent(new AttributeChangedEvent(attribute.getGroupPath(), attribute.getName(),
+					owner.getEntityId()));
 		} catch (Exception e)
 		{
 			throw new ControllerException(
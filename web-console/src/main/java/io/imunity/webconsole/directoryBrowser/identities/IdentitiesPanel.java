@@ -150,6 +150,11 @@ public class IdentitiesPanel extends SafePanel
 		bus.addListener(event -> setGroup(identitiesTable.getGroup()), AttributeTypesUpdatedEvent.class);
 
 		bus.addListener(event -> {
+			if (identitiesTable.isLazyLoading() && event.getEntityId() != null)
+			{
+				reloadEntity(event.getEntityId(), event.getGroup());
+				return;
+			}
 			Set<String> interestingCurrent = identitiesTable.getAttributeColumns(false);
 			interestingCurrent.add(entityNameAttribute);
 			String curGroup = identitiesTable.getGroup();
@@ -206,6 +211,11 @@ public class IdentitiesPanel extends SafePanel
 		searchText = FilterableGridHelper.getRowSearchField(msg);
 		searchText.addValueChangeListener(event -> {
 			String searched = event.getValue();
+			if (identitiesTable.isLazyLoading())
+			{
+				identitiesTable.searchLazily(searched);
+				return;
+			}
 			if (fastSearchFilter != null)
 				identitiesTable.removeFilter(fastSearchFilter);
 			if (searched.isEmpty())
@@ -254,11 +264,13 @@ public class IdentitiesPanel extends SafePanel
 
 		hamburgerMenu.addSeparator();
 
-		hamburgerMenu.addItem(msg.getMessage("Identities.addFilter"), Images.addFilter.getResource(), c -> {
+		MenuItem addFilter = hamburgerMenu.addItem(msg.getMessage("Identities.addFilter"), 
+				Images.addFilter.getResource(), c -> {
 			List<String> columnIds = identitiesTable.getColumnIds();
 			new AddFilterDialog(msg, columnIds, (filter, description) -> addFilterInfo(filter, description))
 					.show();
 		});
+		addFilter.setEnabled(!identitiesTable.isLazyLoading());
 
 		hamburgerMenu.addItem(msg.getMessage("Identities.addAttributes"), Images.addColumn.getResource(), c -> {
 			new AddAttributeColumnDialog(msg, attrsMan, (attributeType, group) -> identitiesTable
@@ -294,6 +306,22 @@ public class IdentitiesPanel extends SafePanel
 
 		mode.setCheckable(true);
 		mode.setChecked(identitiesTable.isGroupByEntity());
+		mode.setEnabled(!identitiesTable.isLazyLoading());
+
+		MenuItem lazyLoading = hamburgerMenu.addItem(msg.getMessage("Identities.lazyLoading"), null, c -> {
+			try
+			{
+				clearFilters();
+				identitiesTable.setLazyLoading(c.isChecked());
+				addFilter.setEnabled(!c.isChecked());
+				mode.setEnabled(!c.isChecked());
+			} catch (EngineException e)
+			{
+				setIdProblem(IdentitiesPanel.this.identitiesTable.getGroup(), e);
+			}
+		});
+		lazyLoading.setCheckable(true);
+		lazyLoading.setChecked(identitiesTable.isLazyLoading());
 		return hamburgerMenu;
 	}
 
@@ -336,6 +364,29 @@ public class IdentitiesPanel extends SafePanel
 		}
 	}
 
+	private void reloadEntity(long entityId, String changedGroup)
+	{
+		String currentGroup = identitiesTable.getGroup();
+		if (currentGroup == null || !(currentGroup.equals(changedGroup) || "/".equals(changedGroup)))
+			return;
+		try
+		{
+			identitiesTable.reloadEntity(entityId);
+		} catch (EngineException e)
+		{
+			setIdProblem(currentGroup, e);
+		}
+	}
+
+	private void clearFilters()
+	{
+		identitiesTable.clearFilters();
+		searchText.clear();
+		while (filtersBar.getComponentCount() > 1)
+			filtersBar.removeComponent(filtersBar.getComponent(1));
+		filtersBar.setVisible(false);
+	}
+
 	private void setIdProblem(String group, Exception e)
 	{
 		log.error("Problem retrieving group contents of " + group, e);
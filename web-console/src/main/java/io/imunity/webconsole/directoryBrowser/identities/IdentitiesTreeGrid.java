@@ -6,6 +6,7 @@ package io.imunity.webconsole.directoryBrowser.identities;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +40,7 @@ import io.imunity.webadmin.identities.ChangeEntityStateHandler;
 import io.imunity.webadmin.identities.DeleteEntityHandler;
 import io.imunity.webadmin.identities.DeleteIdentityHandler;
 import io.imunity.webadmin.identities.EntitiesLoader;
+import io.imunity.webadmin.identities.EntitiesSearchIndex;
 import io.imunity.webadmin.identities.EntityAttributeClassHandler;
 import io.imunity.webadmin.identities.EntityChangedEvent;
 import io.imunity.webadmin.identities.EntityDetailsHandler;
@@ -83,6 +85,10 @@ import pl.edu.icm.unity.webui.common.credentials.CredentialsChangeDialog;
  * Displays a tree grid with identities. Can present contents in two modes: -
  * flat, where each identity is a fully separate table row - grouped by entity,
  * where each entity has all its entities as children
+ * <p>
+ * In the lazy loading mode only the visible rows are loaded, while group members are searched and sorted
+ * with a compact {@link EntitiesSearchIndex}. This mode always groups identities by entity and supports only
+ * the fast search and sorting by entity.
  * 
  * @author K. Benedyczak
  */
@@ -101,6 +107,7 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 
 	private boolean groupByEntity;
 	private boolean showTargeted;
+	private boolean lazyLoading;
 	private String group;
 	private String entityNameAttribute = null;
 	private Map<String, IdentityTypeDefinition> typeDefinitionsMap;
@@ -108,6 +115,9 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 	private List<ResolvedEntity> cachedEntitites;
 	private TreeData<IdentityEntry> treeData;
 	private TreeDataProvider<IdentityEntry> dataProvider;
+	private LazyIdentitiesDataProvider lazyDataProvider;
+	private Object pendingIndexRequest;
+	private String lazySearched;
 	private List<EntityFilter> filters;
 	private EventsBus bus;
 	private IdentityEntry lastSelected;
@@ -213,6 +223,16 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		}
 	}
 
+	private void updateSortableColumns()
+	{
+		for (Column<IdentityEntry, ?> column : getColumns())
+		{
+			if (IdentitiesGridColumnConstans.ACTION_COLUMN_ID.equals(column.getId()))
+				continue;
+			column.setSortable(!lazyLoading || BaseColumn.entity.name().equals(column.getId()));
+		}
+	}
+
 	private void refreshActionColumn()
 	{
 		if (actionColumn != null)
@@ -261,6 +281,14 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		savePreferences();
 	}
 
+	public void setLazyLoading(boolean lazyLoading) throws EngineException
+	{
+		this.lazyLoading = lazyLoading;
+		updateSortableColumns();
+		showGroup(group);
+		savePreferences();
+	}
+
 	public String getGroup()
 	{
 		return this.group;
@@ -269,6 +297,7 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 	public void showGroup(String group) throws EngineException
 	{
 		this.group = group;
+		this.pendingIndexRequest = null;
 		AttributeType nameAt = attributeSupport
 				.getAttributeTypeWithSingeltonMetadata(EntityNameMetadataProvider.NAME);
 		this.entityNameAttribute = nameAt == null ? null : nameAt.getName();
@@ -282,12 +311,82 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		dataProvider.refreshAll();
 		cachedEntitites.clear();
 		getSelectionModel().deselectAll();
+		if (lazyDataProvider != null)
+		{
+			lazyDataProvider = null;
+			setDataProvider(dataProvider);
+		}
+		if (group != null && lazyLoading)
+		{
+			showGroupLazily(group);
+			return;
+		}
 		if (group != null)
 			entitiesLoader.reload(selected, group, showTargeted, this::addAndCacheResolvedEntities);
 	}
 
+	/**
+	 * The grid is empty till the search index is loaded in background. Index loaded for a group which 
+	 * is no longer shown is ignored.
+	 */
+	private void showGroupLazily(String group)
+	{
+		Object indexRequest = new Object();
+		pendingIndexRequest = indexRequest;
+		entitiesLoader.loadIndexAsync(group, entityNameAttribute, index -> {
+			if (pendingIndexRequest == indexRequest)
+				installLazyDataProvider(group, index);
+		}, e -> {
+			if (pendingIndexRequest == indexRequest)
+				NotificationPopup.showError(msg, msg.getMessage("Identities.internalError", 
+						e.getMessage()), e);
+		});
+	}
+
+	private void installLazyDataProvider(String group, EntitiesSearchIndex index)
+	{
+		pendingIndexRequest = null;
+		boolean includeTargeted = showTargeted;
+		CachedAttributeHandlers attributeHandlers = new CachedAttributeHandlers(attrHandlerRegistry);
+		lazyDataProvider = new LazyIdentitiesDataProvider(index,
+				entityIds -> entitiesLoader.resolve(group, entityIds, includeTargeted),
+				(entity, identity) -> createEntry(identity, entity.getEntity(), entity.getRootAttributes(),
+						entity.getCurrentAttributes(), attributeHandlers));
+		lazyDataProvider.setSearched(lazySearched);
+		setDataProvider(lazyDataProvider);
+	}
+
+	/**
+	 * Reloads a single entity after it was modified. Relevant only in the lazy loading mode, 
+	 * where it updates the search index without reloading the whole group.
+	 */
+	public void reloadEntity(long entityId) throws EngineException
+	{
+		if (lazyDataProvider == null)
+			return;
+		List<ResolvedEntity> loaded = entitiesLoader.resolve(group, Collections.singletonList(entityId),
+				showTargeted);
+		lazyDataProvider.entityChanged(entityId, loaded.isEmpty() ? null : loaded.get(0));
+	}
+
+	/**
+	 * Filters entities in the lazy loading mode, with the search index. Entities with any identity 
+	 * or attribute value containing the searched text are shown.
+	 */
+	public void searchLazily(String searched)
+	{
+		lazySearched = searched;
+		if (lazyDataProvider != null)
+			lazyDataProvider.setSearched(searched);
+	}
+
 	private void reloadTableContentsFromData()
 	{
+		if (lazyDataProvider != null)
+		{
+			lazyDataProvider.refreshAll();
+			return;
+		}
 		Set<IdentityEntry> selected = getSelectedItems();
 		treeData.clear();
 		dataProvider.refreshAll();
@@ -296,7 +395,8 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 	
 	public List<IdentityEntry> getItems()
 	{
-		
+		if (lazyDataProvider != null)
+			return lazyDataProvider.getLoadedItems();
 		List<IdentityEntry> entries = new ArrayList<>();
 				
 		for (IdentityEntry e : dataProvider.getTreeData().getRootItems())
@@ -421,6 +521,7 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 				.filter(credId -> !credentialDefinitions.containsKey(credId))
 				.forEach(credId -> removeColumn(
 						IdentitiesGridColumnConstans.CRED_STATUS_COL_PREFIX + credId));
+		updateSortableColumns();
 	}
 
 	/**
@@ -447,6 +548,7 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		addColumn(ie -> ie.getAttribute(key)).setCaption(attribute + (group == null ? "@" + this.group : "@/"))
 				.setExpandRatio(IdentitiesGridColumnConstans.ATTR_COL_RATIO).setHidable(true)
 				.setHidden(false).setId(key);
+		updateSortableColumns();
 
 		savePreferences();
 		try
@@ -584,9 +686,22 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		return showTargeted;
 	}
 
+	public boolean isLazyLoading()
+	{
+		return lazyLoading;
+	}
+
 	void removeIdentity(IdentityEntry entry)
 	{
 		Set<IdentityEntry> selected = getSelectedItems();	
+		if (lazyDataProvider != null)
+		{
+			if (selected.contains(entry))
+				deselect(entry);
+			lazyDataProvider.identityRemoved(entry.getSourceEntity().getEntity().getId(), 
+					entry.getSourceIdentity());
+			return;
+		}
 		for (ResolvedEntity cached : cachedEntitites)
 		{
 			if (cached.getEntity().getId() == entry.getSourceEntity().getEntity().getId())
@@ -607,6 +722,14 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 	{
 		Set<IdentityEntry> selected = getSelectedItems();
 		long removedId = removed.getEntity().getId();
+		if (lazyDataProvider != null)
+		{
+			selected.stream()
+				.filter(ie -> ie.getSourceEntity().getEntity().getId() == removedId)
+				.forEach(this::deselect);
+			lazyDataProvider.entityChanged(removedId, null);
+			return;
+		}
 		for (int i = 0; i < cachedEntitites.size(); i++)
 			if (cachedEntitites.get(i).getEntity().getId() == removedId)
 			{
@@ -648,6 +771,16 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 	
 	public void expandParent(IdentityEntry entry)
 	{
+		if (lazyDataProvider != null)
+		{
+			long entityId = entry.getSourceEntity().getEntity().getId();
+			lazyDataProvider.getLoadedItems().stream()
+				.filter(ie -> ie.getSourceIdentity() == null 
+						&& ie.getSourceEntity().getEntity().getId() == entityId)
+				.findFirst()
+				.ifPresent(this::expand);
+			return;
+		}
 		if (dataProvider.getTreeData().getParent(entry) == null)
 		{
 			expand(entry);
@@ -713,6 +846,7 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 
 		preferences.setGroupByEntitiesSetting(groupByEntity);
 		preferences.setShowTargetedSetting(showTargeted);
+		preferences.setLazyLoadingSetting(lazyLoading);
 		try
 		{
 			preferences.savePreferences(preferencesMan);
@@ -739,6 +873,8 @@ public class IdentitiesTreeGrid extends TreeGrid<IdentityEntry>
 		}
 		groupByEntity = preferences.getGroupByEntitiesSetting();
 		showTargeted = preferences.getShowTargetedSetting();
+		lazyLoading = preferences.getLazyLoadingSetting();
+		updateSortableColumns();
 
 		Set<String> columns = new HashSet<>();
 		columns.addAll(getColumnIds());
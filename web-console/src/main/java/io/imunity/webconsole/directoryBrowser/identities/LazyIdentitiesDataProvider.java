@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018 Bixbit - Krzysztof Benedyczak All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package io.imunity.webconsole.directoryBrowser.identities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.vaadin.data.provider.AbstractBackEndHierarchicalDataProvider;
+import com.vaadin.data.provider.HierarchicalQuery;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+import io.imunity.webadmin.identities.BaseColumn;
+import io.imunity.webadmin.identities.EntitiesSearchIndex;
+import io.imunity.webadmin.identities.IdentityEntry;
+import io.imunity.webadmin.identities.ResolvedEntity;
+import pl.edu.icm.unity.exceptions.EngineException;
+import pl.edu.icm.unity.exceptions.InternalException;
+import pl.edu.icm.unity.types.basic.Identity;
+
+/**
+ * Lazy data provider of {@link IdentitiesTreeGrid}. Entities are root items, their identities are children.
+ * Entities are searched, sorted and counted with {@link EntitiesSearchIndex}, and only the entities of
+ * the requested page are fully loaded. Recently loaded entities are kept, so that their identities
+ * can be shown without loading them again.
+ *
+ * @author K. Benedyczak
+ */
+class LazyIdentitiesDataProvider extends AbstractBackEndHierarchicalDataProvider<IdentityEntry, Void>
+{
+	private static final int MAX_RESOLVED_ENTITIES = 500;
+
+	private final EntitiesSearchIndex index;
+	private final EntitiesResolver resolver;
+	private final EntryFactory entryFactory;
+	private final Map<Long, ResolvedEntity> resolved = new LinkedHashMap<Long, ResolvedEntity>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, ResolvedEntity> eldest)
+		{
+			return size() > MAX_RESOLVED_ENTITIES;
+		}
+	};
+	private String searched;
+
+	LazyIdentitiesDataProvider(EntitiesSearchIndex index, EntitiesResolver resolver, EntryFactory entryFactory)
+	{
+		this.index = index;
+		this.resolver = resolver;
+		this.entryFactory = entryFactory;
+	}
+
+	void setSearched(String searched)
+	{
+		this.searched = searched;
+		refreshAll();
+	}
+
+	/**
+	 * Updates the index and the loaded data after an entity was modified. Null resolvedEntity means
+	 * that the entity is no longer a member of the group.
+	 */
+	void entityChanged(long entityId, ResolvedEntity resolvedEntity)
+	{
+		if (resolvedEntity == null)
+		{
+			index.remove(entityId);
+			resolved.remove(entityId);
+		} else
+		{
+			index.put(resolvedEntity);
+			resolved.put(entityId, resolvedEntity);
+		}
+		refreshAll();
+	}
+
+	void identityRemoved(long entityId, Identity identity)
+	{
+		ResolvedEntity entity = resolved.get(entityId);
+		if (entity != null)
+		{
+			entity.removeIdentity(identity);
+			index.put(entity);
+		}
+		refreshAll();
+	}
+
+	/**
+	 * @return entries of the recently loaded entities and of their identities
+	 */
+	List<IdentityEntry> getLoadedItems()
+	{
+		List<IdentityEntry> ret = new ArrayList<>();
+		for (ResolvedEntity entity: resolved.values())
+		{
+			ret.add(entryFactory.create(entity, null));
+			for (Identity identity: entity.getIdentities())
+				ret.add(entryFactory.create(entity, identity));
+		}
+		return ret;
+	}
+
+	@Override
+	public int getChildCount(HierarchicalQuery<IdentityEntry, Void> query)
+	{
+		IdentityEntry parent = query.getParent();
+		if (parent == null)
+			return index.count(searched);
+		return getIdentities(parent).size();
+	}
+
+	@Override
+	public boolean hasChildren(IdentityEntry item)
+	{
+		return item.getSourceIdentity() == null && !getIdentities(item).isEmpty();
+	}
+
+	@Override
+	protected Stream<IdentityEntry> fetchChildrenFromBackEnd(HierarchicalQuery<IdentityEntry, Void> query)
+	{
+		IdentityEntry parent = query.getParent();
+		if (parent == null)
+			return fetchEntities(query);
+		ResolvedEntity entity = getResolved(parent.getSourceEntity().getEntity().getId());
+		if (entity == null)
+			return Stream.empty();
+		return entity.getIdentities().stream()
+				.skip(query.getOffset())
+				.limit(query.getLimit())
+				.map(identity -> entryFactory.create(entity, identity));
+	}
+
+	private Stream<IdentityEntry> fetchEntities(HierarchicalQuery<IdentityEntry, Void> query)
+	{
+		QuerySortOrder sortOrder = query.getSortOrders().isEmpty() ? null : query.getSortOrders().get(0);
+		boolean sortByLabel = sortOrder != null && BaseColumn.entity.name().equals(sortOrder.getSorted());
+		boolean descending = sortOrder != null && sortOrder.getDirection() == SortDirection.DESCENDING;
+		List<Long> entityIds = index.find(searched, sortByLabel, descending,
+				query.getOffset(), query.getLimit());
+		List<ResolvedEntity> page = resolve(entityIds);
+		for (ResolvedEntity entity: page)
+			resolved.put(entity.getEntity().getId(), entity);
+		return page.stream()
+				.map(entity -> entryFactory.create(entity, null));
+	}
+
+	private Collection<Identity> getIdentities(IdentityEntry entityEntry)
+	{
+		ResolvedEntity entity = getResolved(entityEntry.getSourceEntity().getEntity().getId());
+		return entity == null ? Collections.emptyList() : entity.getIdentities();
+	}
+
+	private ResolvedEntity getResolved(long entityId)
+	{
+		ResolvedEntity entity = resolved.get(entityId);
+		if (entity != null)
+			return entity;
+		List<ResolvedEntity> loaded = resolve(Collections.singletonList(entityId));
+		if (loaded.isEmpty())
+			return null;
+		resolved.put(entityId, loaded.get(0));
+		return loaded.get(0);
+	}
+
+	private List<ResolvedEntity> resolve(List<Long> entityIds)
+	{
+		try
+		{
+			return resolver.resolve(entityIds);
+		} catch (EngineException e)
+		{
+			throw new InternalException("Can not load group members", e);
+		}
+	}
+
+	@FunctionalInterface
+	interface EntitiesResolver
+	{
+		List<ResolvedEntity> resolve(List<Long> entityIds) throws EngineException;
+	}
+
+	@FunctionalInterface
+	interface EntryFactory
+	{
+		IdentityEntry create(ResolvedEntity entity, Identity identity);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020 Bixbit - Krzysztof Benedyczak. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package io.imunity.webconsole.directoryBrowser.identities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.provider.HierarchicalQuery;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+
+import io.imunity.webadmin.identities.BaseColumn;
+import io.imunity.webadmin.identities.EntitiesSearchIndex;
+import io.imunity.webadmin.identities.IdentityEntry;
+import io.imunity.webadmin.identities.ResolvedEntity;
+import pl.edu.icm.unity.stdext.attr.StringAttribute;
+import pl.edu.icm.unity.types.basic.Attribute;
+import pl.edu.icm.unity.types.basic.Entity;
+import pl.edu.icm.unity.types.basic.EntityInformation;
+import pl.edu.icm.unity.types.basic.Identity;
+import pl.edu.icm.unity.webui.common.EntityWithLabel;
+
+public class LazyIdentitiesDataProviderTest
+{
+	private static final String NAME_ATTR = "name";
+
+	private final Map<Long, ResolvedEntity> entities = new HashMap<>();
+	private final List<List<Long>> resolveRequests = new ArrayList<>();
+	private EntitiesSearchIndex index;
+	private LazyIdentitiesDataProvider provider;
+
+	@Before
+	public void init()
+	{
+		index = new EntitiesSearchIndex(NAME_ATTR);
+		addEntity(1, "Carol", "carol-1", "carol-2");
+		addEntity(2, "Alice", "alice-1");
+		addEntity(3, "Bob", "bob-1");
+		addEntity(4, "Dave", "dave-1");
+		provider = new LazyIdentitiesDataProvider(index, this::resolve, this::createEntry);
+	}
+
+	@Test
+	public void shouldResolveOnlyRequestedPageInLabelOrder()
+	{
+		List<IdentityEntry> page = fetchRoot(1, 2, SortDirection.ASCENDING);
+
+		assertThat(getEntityIds(page)).containsExactly(3L, 1L);
+		assertThat(resolveRequests).containsExactly(Arrays.asList(3L, 1L));
+	}
+
+	@Test
+	public void shouldCountAndFetchOnlyMatchingEntities()
+	{
+		provider.setSearched("ALICE");
+
+		assertThat(provider.getChildCount(new HierarchicalQuery<>(null, null))).isEqualTo(1);
+		assertThat(getEntityIds(fetchRoot(0, 10, SortDirection.ASCENDING))).containsExactly(2L);
+	}
+
+	@Test
+	public void shouldServeIdentitiesOfLoadedEntityWithoutResolvingAgain()
+	{
+		IdentityEntry carol = fetchRoot(2, 1, SortDirection.ASCENDING).get(0);
+
+		List<IdentityEntry> identities = provider.fetchChildren(
+				new HierarchicalQuery<>(0, 10, Collections.emptyList(), null, null, carol))
+				.collect(Collectors.toList());
+
+		assertThat(provider.hasChildren(carol)).isTrue();
+		assertThat(identities).extracting(entry -> entry.getSourceIdentity().getValue())
+				.containsExactly("carol-1", "carol-2");
+		assertThat(resolveRequests).hasSize(1);
+	}
+
+	@Test
+	public void shouldNotReturnRemovedEntity()
+	{
+		provider.entityChanged(2, null);
+
+		assertThat(provider.getChildCount(new HierarchicalQuery<>(null, null))).isEqualTo(3);
+		assertThat(getEntityIds(fetchRoot(0, 10, SortDirection.DESCENDING))).containsExactly(4L, 1L, 3L);
+	}
+
+	private List<IdentityEntry> fetchRoot(int offset, int limit, SortDirection direction)
+	{
+		List<QuerySortOrder> sort = Collections.singletonList(
+				new QuerySortOrder(BaseColumn.entity.name(), direction));
+		return provider.fetchChildren(new HierarchicalQuery<>(offset, limit, sort, null, null, null))
+				.collect(Collectors.toList());
+	}
+
+	private List<Long> getEntityIds(List<IdentityEntry> entries)
+	{
+		return entries.stream()
+				.map(entry -> entry.getSourceEntity().getEntity().getId())
+				.collect(Collectors.toList());
+	}
+
+	private List<ResolvedEntity> resolve(List<Long> entityIds)
+	{
+		resolveRequests.add(entityIds);
+		return entityIds.stream()
+				.map(entities::get)
+				.collect(Collectors.toList());
+	}
+
+	private IdentityEntry createEntry(ResolvedEntity entity, Identity identity)
+	{
+		IdentityEntry entry = mock(IdentityEntry.class);
+		when(entry.getSourceEntity()).thenReturn(new EntityWithLabel(entity.getEntity(), null));
+		when(entry.getSourceIdentity()).thenReturn(identity);
+		return entry;
+	}
+
+	private void addEntity(long id, String name, String... identityValues)
+	{
+		List<Identity> identities = new ArrayList<>();
+		for (String value: identityValues)
+			identities.add(new Identity("userName", value, id, value));
+		Map<String, Attribute> attributes = Collections.singletonMap(NAME_ATTR,
+				StringAttribute.of(NAME_ATTR, "/", name));
+		ResolvedEntity entity = new ResolvedEntity(new Entity(identities, new EntityInformation(id), null),
+				identities, attributes, attributes);
+		entities.put(id, entity);
+		index.put(entity);
+	}
+}